@@ -3,4 +3,7 @@ public static class AppConfig
     public const string BaseUrl = "http://localhost:8111/";
     public const string EquipmentCode = "LINE-01-M01"; // 설비 고유 명칭
     public const int PollingIntervalMs = 5000;      // 5초마다 확인
+    public const int LongPollTimeoutMs = 30000;     // 작업 대기 long-poll 최대 대기 (0 이면 기존 폴링)
+    public const int MaxPendingReports = 1000;      // 전송 실패 실적 보관 한도 (넘치면 오래된 것부터 버림)
+    public const int ReportBatchSize = 50;          // 밀린 실적 일괄 재전송 1회 건수
 }
\ No newline at end of file
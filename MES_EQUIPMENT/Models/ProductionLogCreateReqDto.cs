@@ -7,6 +7,7 @@ public class ProductionLogDto
     public string? WorkOrderNumber { get; set; }   // 작업 지시 번호
     public string? WorkerCode { get; set; }        // 작업자 코드
     public string? EquipmentCode { get; set; }     // 설비 코드
+    public long? ReportSeq { get; set; }           // 설비별 보고 순번 (재전송 시 같은 값 → 서버 중복 차단)
 
     // --- 생산 결과 필드 ---
     public string? ProcessStep { get; set; }       // 공정 단계
@@ -0,0 +1,8 @@
+public class ProductionReportResultDto
+{
+    public int Index { get; set; }                  // 요청 목록 내 순번
+    public string? WorkOrderNumber { get; set; }    // 작업 지시 번호
+    public string? Result { get; set; }             // OK / SHORTAGE / DUPLICATE / ERROR
+    public string? Code { get; set; }               // 실패 코드
+    public string? Message { get; set; }            // 실패 사유
+}
@@ -121,7 +121,10 @@ public class ApiService
     {
         try
         {
-            var url = $"api/mes/machine/poll?equipmentCode={AppConfig.EquipmentCode}";
+            // long-poll : 작업이 없으면 서버가 작업지시 시작 시점까지 응답을 미룬다
+            var url = AppConfig.LongPollTimeoutMs > 0
+                ? $"api/mes/machine/poll/wait?equipmentCode={AppConfig.EquipmentCode}&timeoutMs={AppConfig.LongPollTimeoutMs}"
+                : $"api/mes/machine/poll?equipmentCode={AppConfig.EquipmentCode}";
 
             // SendWithRetryAsync를 거쳐서 호출
             var response = await SendWithRetryAsync(() => _httpClient.GetAsync(url));
@@ -152,6 +155,15 @@ public class ApiService
             // SendWithRetryAsync를 거쳐서 호출
             var response = await SendWithRetryAsync(() => _httpClient.PostAsJsonAsync("api/mes/machine/report", report));
 
+            // 서버 적재 대기열 포화(429) → Retry-After 만큼 쉬었다가 재전송
+            for (int attempt = 0; attempt < 3 && response.StatusCode == HttpStatusCode.TooManyRequests; attempt++)
+            {
+                var delay = response.Headers.RetryAfter?.Delta ?? TimeSpan.FromSeconds(1);
+                Console.WriteLine($"[Busy] 서버 적재 대기열 포화 -> {delay.TotalSeconds}초 후 재전송");
+                await Task.Delay(delay);
+                response = await SendWithRetryAsync(() => _httpClient.PostAsJsonAsync("api/mes/machine/report", report));
+            }
+
             if (response.IsSuccessStatusCode)
             {
                 return "OK";
@@ -167,6 +179,27 @@ public class ApiService
         }
     }
 
+    // 5-1. 생산 실적 일괄 보고 (버퍼링된 실적 재전송)
+    public async Task<List<ProductionReportResultDto>?> ReportProductionBatchAsync(List<ProductionLogDto> reports)
+    {
+        try
+        {
+            var response = await SendWithRetryAsync(() => _httpClient.PostAsJsonAsync("api/mes/machine/report/batch", reports));
+
+            if (response.IsSuccessStatusCode)
+            {
+                return await response.Content.ReadFromJsonAsync<List<ProductionReportResultDto>>();
+            }
+
+            Console.WriteLine($"[Error] 일괄 실적 보고 실패: {response.StatusCode}");
+        }
+        catch (Exception ex)
+        {
+            Console.WriteLine($"[Error] 일괄 실적 보고 실패: {ex.Message}");
+        }
+        return null;
+    }
+
     private void SetAuthHeader(string token)
     {
         _httpClient.DefaultRequestHeaders.Authorization = new AuthenticationHeaderValue("Bearer", token);
@@ -5,6 +5,8 @@ using System.Runtime.CompilerServices;
 using System.Text.Json;
 using System.Threading.Tasks;
 using System.Collections.Generic; // [수정] List 사용을 위해 추가
+using System.Linq;
+using System.Threading;
 
 public enum MsgType : byte
 {
@@ -41,6 +43,11 @@ public class MachineSimulator
     private WorkOrderDto? _currentWorkOrder = null;
     private ProductionLogDto _productionLogDto = new ProductionLogDto();
     private EquipmentMetricUpdateReqDto? _equipmentMetricUpdateReqDto = null;
+    // 보고 순번 : 재기동해도 줄어들지 않도록 기동 시각(ms)에서 시작해 1씩 증가
+    private long _reportSeq = DateTimeOffset.UtcNow.ToUnixTimeMilliseconds();
+    // 전송 실패(서버 오류 / 네트워크)한 실적 : 같은 ReportSeq 그대로 일괄 재전송 → 서버가 이미 반영된 건은 중복으로 막는다
+    private readonly List<ProductionLogDto> _pendingReports = new List<ProductionLogDto>();
+    private readonly SemaphoreSlim _reportLock = new SemaphoreSlim(1, 1);
 
 
     public MachineSimulator(ApiService apiService, TcpClientService tcpService)
@@ -61,6 +68,9 @@ public class MachineSimulator
 
         while (true)
         {
+            // 밀린 실적이 있으면 폴링 주기마다 재전송
+            await RetryPendingReportsAsync();
+
             if (_currentWorkOrder != null)
             {
                 await Task.Delay(AppConfig.PollingIntervalMs);
@@ -68,6 +78,7 @@ public class MachineSimulator
             }
 
             WorkOrderDto? workOrder = null;
+            var pollStarted = DateTime.UtcNow;
 
             try
             {
@@ -89,6 +100,13 @@ public class MachineSimulator
             else if (workOrder == null)
             {
                 Console.WriteLine("[-] 대기중인 작업이 없습니다.");
+
+                // long-poll 이 서버에서 대기하다 만료된 경우 → 바로 다시 대기 (오류로 빨리 끝난 경우만 아래에서 쉰다)
+                if (AppConfig.LongPollTimeoutMs > 0
+                    && (DateTime.UtcNow - pollStarted).TotalMilliseconds >= AppConfig.LongPollTimeoutMs / 2)
+                {
+                    continue;
+                }
             }
             await Task.Delay(AppConfig.PollingIntervalMs); // ✅ 무한 초고속 폴링 방지
         }
@@ -286,6 +304,7 @@ public class MachineSimulator
         // [수정] 서버 엔티티의 Not Null 및 Enum 정합성 세팅
         _productionLogDto.WorkOrderNumber = _currentWorkOrder.WorkOrderNumber;
         _productionLogDto.EquipmentCode = AppConfig.EquipmentCode;
+        _productionLogDto.ReportSeq = ++_reportSeq;
         _productionLogDto.ResultQty = 1;
         _productionLogDto.Status = "DONE";                   // [수정] 서버 ProductionStatus Enum (RUN, DONE, PAUSED) 중 DONE으로 변경
         _productionLogDto.Category = "PRODUCTION";
@@ -294,12 +313,21 @@ public class MachineSimulator
         // [수정] DateOnly를 사용하여 서버 LocalDate 규격(yyyy-MM-dd)에 맞춤
         _productionLogDto.ResultDate = DateOnly.FromDateTime(DateTime.Today);
 
+        await _reportLock.WaitAsync();
         try
         {
+            // 밀린 실적부터 보내서 보고 순서를 지킨다
+            await FlushPendingReportsAsync();
+
             string status = await _apiService.ReportProductionAsync(_productionLogDto);
             Console.WriteLine($"[생산 보고 완료] 결과: {status}, 지시번호: {_productionLogDto.WorkOrderNumber}");
 
-            // 성공 후 초기화
+            if (status == "SERVER_ERROR" || status == "NETWORK_ERROR")
+            {
+                BufferReport(_productionLogDto);
+            }
+
+            // 보고 후 초기화 (버퍼에 넣은 실적은 새 객체로 바꾸므로 이후 수집 데이터와 섞이지 않음)
             _currentWorkOrder = null;
             _productionLogDto = new ProductionLogDto();
         }
@@ -307,6 +335,61 @@ public class MachineSimulator
         {
             Console.WriteLine($"[생산 보고 실패] 원인: {ex.Message}");
         }
+        finally
+        {
+            _reportLock.Release();
+        }
+    }
+
+    private void BufferReport(ProductionLogDto report)
+    {
+        _pendingReports.Add(report);
+        if (_pendingReports.Count > AppConfig.MaxPendingReports)
+        {
+            _pendingReports.RemoveAt(0);
+            Console.WriteLine($"[WARN] 밀린 실적 보관 한도 초과 → 가장 오래된 실적 1건 버림");
+        }
+        Console.WriteLine($"[재전송 대기] 밀린 실적 {_pendingReports.Count}건");
+    }
+
+    private async Task RetryPendingReportsAsync()
+    {
+        await _reportLock.WaitAsync();
+        try
+        {
+            await FlushPendingReportsAsync();
+        }
+        finally
+        {
+            _reportLock.Release();
+        }
+    }
+
+    // _reportLock 을 잡은 상태에서 호출
+    // 건별 결과를 받은 실적은 서버 판정이 끝난 것이므로 버퍼에서 뺀다
+    // (ERROR 도 서버 저널에 남아 재생되므로 다시 보내지 않음) / 요청 자체가 실패하면 그대로 두고 다음에 다시 보낸다
+    private async Task FlushPendingReportsAsync()
+    {
+        while (_pendingReports.Count > 0)
+        {
+            var batch = _pendingReports.Take(AppConfig.ReportBatchSize).ToList();
+            var results = await _apiService.ReportProductionBatchAsync(batch);
+            if (results == null)
+            {
+                Console.WriteLine($"[재전송 보류] 밀린 실적 {_pendingReports.Count}건");
+                return;
+            }
+
+            var answered = results.Select(r => r.Index).Where(i => i >= 0 && i < batch.Count).ToHashSet();
+            foreach (int index in answered)
+            {
+                _pendingReports.Remove(batch[index]);
+            }
+            Console.WriteLine($"[일괄 재전송] {batch.Count}건 → " +
+                string.Join(", ", results.GroupBy(r => r.Result).Select(g => $"{g.Key} {g.Count()}")));
+
+            if (answered.Count == 0) return;
+        }
     }
 
     private async Task SendWorkOrderToDevice(WorkOrderDto order)
@@ -2,5 +2,6 @@ package com.hm.mes_final_260106.constant;
 
 public enum EquipmentEventType {
     TYPE_CHANGE,
-    STATUS_CHANGE
+    STATUS_CHANGE,
+    SPC_VIOLATION   // SPC Nelson 규칙 위반 (SpcEngine)
 }
@@ -0,0 +1,43 @@
+package com.hm.mes_final_260106.constant;
+
+import java.util.Locale;
+
+// 패키지 공정 순서 (Dicing → DieBonding → WireBonding → Molding)
+// label 은 대시보드 WIP 화면에 내려가던 기존 표기 그대로 둔다.
+public enum ProcessStep {
+    DICING("DICING", "PHOTO"),
+    DIE_BONDING("DieBonding", "ETCH"),
+    WIRE_BONDING("WireBonding", "CMP"),
+    MOLDING("Molding", "CLEAN");
+
+    private final String label;
+    private final String legacyName;   // 전공정 명칭으로 남아 있는 이전 데이터
+
+    ProcessStep(String label, String legacyName) {
+        this.label = label;
+        this.legacyName = legacyName;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public ProcessStep previous() {
+        return ordinal() == 0 ? null : values()[ordinal() - 1];
+    }
+
+    // 보고의 processStep 문자열 → 공정 (enum 이름 / 표기 / 이전 명칭, 대소문자 무시). 알 수 없으면 null
+    public static ProcessStep from(String value) {
+        if (value == null || value.isBlank()) return null;
+        String v = value.trim().toUpperCase(Locale.ROOT);
+        for (ProcessStep step : values()) {
+            if (step.name().equals(v)
+                    || step.label.toUpperCase(Locale.ROOT).equals(v)
+                    || step.legacyName.equals(v)
+                    || step.name().replace("_", "").equals(v)) {
+                return step;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.hm.mes_final_260106.constant;
+
+// SPC 추적 항목 : (공정, 검사 항목) ↔ 측정값 테이블 / 컬럼
+// 이름은 InspectionStandard 의 processName / checkItem 과 같다. 테이블 / 컬럼명은 SQL 에 그대로 들어가므로 여기 정의된 값만 쓴다.
+public enum SpcMetric {
+    DIE_BONDING_CURING_TEMP("DieBonding", "curingTemp", "die_bonding", "curing_temp"),
+    DIE_BONDING_PICK_UP_FORCE("DieBonding", "pickUpForce", "die_bonding", "pick_up_force"),
+    MOLDING_MOLD_TEMP("Molding", "moldTemp", "molding", "mold_temp"),
+    MOLDING_INJECTION_PRESSURE("Molding", "injectionPressure", "molding", "injection_pressure"),
+    WIRE_BONDING_BONDING_TEMP("WireBonding", "bondingTemp", "wire_bonding", "bonding_temp"),
+    WIRE_BONDING_BONDING_FORCE("WireBonding", "bondingForce", "wire_bonding", "bonding_force");
+
+    private final String processName;
+    private final String checkItem;
+    private final String table;
+    private final String column;
+
+    SpcMetric(String processName, String checkItem, String table, String column) {
+        this.processName = processName;
+        this.checkItem = checkItem;
+        this.table = table;
+        this.column = column;
+    }
+
+    public String getProcessName() { return processName; }
+    public String getCheckItem() { return checkItem; }
+    public String getTable() { return table; }
+    public String getColumn() { return column; }
+
+    public static SpcMetric from(String processName, String checkItem) {
+        for (SpcMetric m : values()) {
+            if (m.processName.equals(processName) && m.checkItem.equals(checkItem)) return m;
+        }
+        throw new IllegalArgumentException("SPC 항목이 아닙니다: " + processName + "." + checkItem);
+    }
+}
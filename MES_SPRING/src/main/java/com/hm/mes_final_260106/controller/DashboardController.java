@@ -2,10 +2,18 @@ package com.hm.mes_final_260106.controller;
 
 import com.hm.mes_final_260106.dto.equipment.EquipmentAlertDto;
 import com.hm.mes_final_260106.dto.dashboard.*;
+import com.hm.mes_final_260106.service.DashboardKpiSnapshot;
 import com.hm.mes_final_260106.service.DashboardService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,14 +24,30 @@ public class DashboardController {
 
     private final DashboardService dashboardService;
 
+    // 스냅샷 ETag 가 같으면 304 (본문 없음)
     @GetMapping("/summary")
-    public DashboardSummaryResDto summary() {
-        return dashboardService.getSummary();
+    public ResponseEntity<DashboardSummaryResDto> summary(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        DashboardKpiSnapshot.Snapshot snapshot = dashboardService.getSummarySnapshot();
+        if (snapshot.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.summary());
     }
 
+    // date / slotHours / line 생략 시 오늘, 기본 슬롯, 전체 라인
     @GetMapping("/hourly")
-    public List<HourlyProductionResDto> hourly() {
-        return dashboardService.getHourlyProduction();
+    public List<HourlyProductionResDto> hourly(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Integer slotHours,
+            @RequestParam(required = false) String line) {
+        return dashboardService.getHourlyProduction(date, slotHours, line);
     }
 
     @GetMapping("/wip")
@@ -31,6 +55,14 @@ public class DashboardController {
         return dashboardService.getWipBalance();
     }
 
+    // from / to 생략 시 최근 24시간 (최대 7일)
+    @GetMapping("/wip/history")
+    public List<WipHistoryResDto> wipHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return dashboardService.getWipHistory(from, to);
+    }
+
     @GetMapping("/alerts")
     public List<EquipmentAlertDto> alerts() {
         return dashboardService.getRealtimeEquipmentAlerts();
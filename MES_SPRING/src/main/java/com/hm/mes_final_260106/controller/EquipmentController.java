@@ -5,8 +5,10 @@ import com.hm.mes_final_260106.dto.*;
 import com.hm.mes_final_260106.dto.EquipmentCreateReqDto;
 import com.hm.mes_final_260106.dto.EquipmentResDto;
 import com.hm.mes_final_260106.dto.equipment.*;
+import com.hm.mes_final_260106.service.EquipmentMetricIngestor;
 import com.hm.mes_final_260106.service.EquipmentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,6 +22,7 @@ import java.util.Map;
 public class EquipmentController {
 
     private final EquipmentService equipmentService;
+    private final EquipmentMetricIngestor metricIngestor;
 
     // 카드 리스트
     @GetMapping("/monitoring")
@@ -47,16 +50,32 @@ public class EquipmentController {
     @PatchMapping("/{equipmentCode}/metric")
     public ResponseEntity<Void> updateMetrics(@PathVariable String equipmentCode,
                                               @RequestBody EquipmentMetricUpdateReqDto reqDto) {
-        equipmentService.equipmentData.put(
-                equipmentCode,
-                new EquipmentService.EquipmentMetrics(
-                        reqDto.getUph(),
-                        reqDto.getTemperature(),
-                        reqDto.getProgress())
-        );
+        equipmentService.updateMetrics(equipmentCode, reqDto);
         return ResponseEntity.ok().build();
     }
 
+    // 메트릭 일괄 수집 (여러 설비 × 여러 샘플) : 열 단위 JSON
+    @PostMapping(value = "/metrics/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public EquipmentMetricBatchResDto ingestMetrics(@RequestBody EquipmentMetricBatchReqDto reqDto) {
+        return metricIngestor.ingest(reqDto);
+    }
+
+    // 메트릭 일괄 수집 : 바이너리 (형식은 EquipmentMetricIngestor 참고)
+    @PostMapping(value = "/metrics/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public EquipmentMetricBatchResDto ingestMetricsBinary(@RequestBody byte[] body) {
+        return metricIngestor.ingest(body);
+    }
+
+    // 메트릭 추이 : metric = uph / temperature(기본) / progress, from / to = epoch ms, points 개 이하로 다운샘플
+    @GetMapping("/{equipmentCode}/metric/history")
+    public EquipmentMetricSeriesDto metricHistory(@PathVariable String equipmentCode,
+                                                  @RequestParam(required = false) String metric,
+                                                  @RequestParam(required = false) Long from,
+                                                  @RequestParam(required = false) Long to,
+                                                  @RequestParam(defaultValue = "300") int points) {
+        return equipmentService.getMetricSeries(equipmentCode, metric, from, to, points);
+    }
+
     // 장비 모니터링
     @GetMapping("/monitor")
     public ResponseEntity<List<EquipmentMonitorResDto>> getEquipmentMonitoring() {
@@ -4,6 +4,7 @@ import com.hm.mes_final_260106.dto.InventoryResDto;
 import com.hm.mes_final_260106.dto.MaterialStockReqDto;
 import com.hm.mes_final_260106.dto.MaterialTxResDto;
 import com.hm.mes_final_260106.service.InventoryService;
+import com.hm.mes_final_260106.service.MaterialStockLedger;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +18,7 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final MaterialStockLedger stockLedger;
 
     // 재고현황 리스트
     @GetMapping("/inventory")
@@ -38,6 +40,13 @@ public class InventoryController {
         return ResponseEntity.ok("출고 완료");
     }
 
+    // 재고 원장 ↔ DB 정합성 검증 (즉시 실행)
+    @PostMapping("/ledger/reconcile")
+    public ResponseEntity<MaterialStockLedger.ReconcileReport> reconcileLedger() {
+        stockLedger.flush();
+        return ResponseEntity.ok(stockLedger.reconcile());
+    }
+
     // 트랜잭션 로그
     @GetMapping("/tx")
     public ResponseEntity<List<MaterialTxResDto>> getTxLogs(@RequestParam String materialCode) {
@@ -0,0 +1,47 @@
+package com.hm.mes_final_260106.controller;
+
+import com.hm.mes_final_260106.service.DashboardService;
+import com.hm.mes_final_260106.service.LivePushHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+
+// 실시간 push (SSE) : 화면은 최초 1회 REST 로 전체를 읽고, 이후 변경분은 이 스트림으로 받는다
+// 이벤트 이름 = 토픽 (equipment / equipment-metric / workorder / kpi), "resync" 를 받으면 REST 로 전체를 다시 읽는다
+@RestController
+@RequestMapping("/api/mes/live")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class LiveController {
+
+    private final LivePushHub pushHub;
+    private final DashboardService dashboardService;
+
+    // topics 생략 시 전체 (예: /stream?topics=equipment,kpi)
+    // 구독 수가 최대치면 503 + Retry-After (EventSource 는 스트림 형식이 아닌 본문을 읽지 않으므로 본문 없음)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) List<String> topics) {
+        Set<String> subscribed = topics == null ? Set.of() : new HashSet<>(topics);
+        // KPI 는 메모리 스냅샷이므로 구독 즉시 현재 값을 보내 준다
+        Map<String, Object> initial = Map.of(LivePushHub.TOPIC_KPI, dashboardService.getSummary());
+        SseEmitter emitter = pushHub.subscribe(subscribed, initial);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // 구독 수 / 전송 / 합쳐진(coalesced) / 버퍼 초과로 버린 변경 수 / 느려서 끊은 구독 수
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return pushHub.getStats();
+    }
+}
@@ -7,18 +7,26 @@ package com.hm.mes_final_260106.controller;
 import com.hm.mes_final_260106.dto.*;
 import com.hm.mes_final_260106.dto.lot.LotHistoryResDto;
 import com.hm.mes_final_260106.dto.lot.LotResDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionIngestAckDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionIngestMetricsDto;
 import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionReportResultDto;
 import com.hm.mes_final_260106.dto.worker.WorkerResDto;
 import com.hm.mes_final_260106.entity.Equipment;
 import com.hm.mes_final_260106.entity.Material;
 import com.hm.mes_final_260106.entity.Product;
 import com.hm.mes_final_260106.entity.WorkOrder;
 import com.hm.mes_final_260106.exception.CustomException;
+import com.hm.mes_final_260106.service.ProductionIngestService;
 import com.hm.mes_final_260106.service.ProductionService;
+import com.hm.mes_final_260106.service.WorkDispatchHub;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
@@ -36,6 +44,8 @@ import java.util.Map;
 public class MesController {
 
     private final ProductionService productionService;
+    private final ProductionIngestService productionIngestService;
+    private final WorkDispatchHub workDispatchHub;
 
     // =========================
     // Dashboard : 자재 입고
@@ -181,11 +191,24 @@ public class MesController {
     // =========================
     // Machine : 설비 작업 할당 (C# Polling)
     // =========================
+    // 매번 DB 를 확인한다 (빈손 기록을 쓰지 않음 : 수집기가 정한 주기가 곧 재확인 주기)
     @GetMapping("/machine/poll")
     public ResponseEntity<WorkOrderResDto> pollWork(@RequestParam String equipmentCode) {
         return ResponseEntity.ok(productionService.assignWorkToMachine(equipmentCode));
     }
 
+    // =========================
+    // Machine : 설비 작업 할당 (long-poll)
+    // =========================
+    // 할당할 작업이 없으면 작업지시가 시작될 때까지 (또는 timeoutMs 까지) 응답을 미룬다
+    // timeout 시 빈 응답 → 수집기는 바로 다시 요청
+    @GetMapping("/machine/poll/wait")
+    public DeferredResult<ResponseEntity<WorkOrderResDto>> waitWork(@RequestParam String equipmentCode,
+                                                                    @RequestParam(required = false) Long timeoutMs) {
+        return workDispatchHub.await(equipmentCode, timeoutMs,
+                () -> productionService.assignWorkToMachine(equipmentCode));
+    }
+
     // =========================
     // Machine : 실시간 상태 보고
     // =========================
@@ -198,10 +221,56 @@ public class MesController {
     // Machine : 생산 결과 보고
     // =========================
     @PostMapping("/machine/report")
-    public ResponseEntity<String> reportProduction(@RequestBody ProductionLogCreateReqDto dto) {
-        productionService.reportProduction(dto);
+    public ResponseEntity<?> reportProduction(@RequestBody ProductionLogCreateReqDto dto) {
+        // mes.ingest.async=true 이면 커밋을 기다리지 않고 접수만 한다
+        if (productionIngestService.isAsyncMode()) {
+            return acceptReport(dto);
+        }
+        productionIngestService.reportNow(dto);
         return ResponseEntity.ok("ACK");
     }
+
+    // =========================
+    // Machine : 생산 결과 비동기 접수 (링 버퍼 적재 후 ack 반환)
+    // =========================
+    @PostMapping("/machine/report/async")
+    public ResponseEntity<?> reportProductionAsync(@RequestBody ProductionLogCreateReqDto dto) {
+        return acceptReport(dto);
+    }
+
+    private ResponseEntity<?> acceptReport(ProductionLogCreateReqDto dto) {
+        long ackId = productionIngestService.submit(dto);
+        if (ackId < 0) {
+            // 버퍼 포화 → 설비 측에서 Retry-After 만큼 대기 후 재전송
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(productionIngestService.retryAfterSeconds()))
+                    .body(new ErrorResDto("INGEST_QUEUE_FULL", "실적 적재 대기열이 가득 찼습니다. 잠시 후 다시 보내주세요."));
+        }
+        return ResponseEntity.accepted()
+                .body(new ProductionIngestAckDto(ackId, productionIngestService.queueDepth()));
+    }
+
+    // 비동기 접수 건 처리 결과 조회 (커밋 전이면 202)
+    @GetMapping("/machine/report/ack/{ackId}")
+    public ResponseEntity<ProductionReportResultDto> getReportResult(@PathVariable long ackId) {
+        ProductionReportResultDto result = productionIngestService.getResult(ackId);
+        if (result == null) return ResponseEntity.accepted().build();
+        return ResponseEntity.ok(result);
+    }
+
+    // 비동기 적재 파이프라인 메트릭 (큐 깊이 / 적재 지연)
+    @GetMapping("/machine/report/metrics")
+    public ResponseEntity<ProductionIngestMetricsDto> getIngestMetrics() {
+        return ResponseEntity.ok(productionIngestService.getMetrics());
+    }
+
+    // =========================
+    // Machine : 생산 결과 일괄 보고 (버퍼링된 실적 재전송)
+    // =========================
+    @PostMapping("/machine/report/batch")
+    public ResponseEntity<List<ProductionReportResultDto>> reportProductionBatch(@RequestBody List<ProductionLogCreateReqDto> dtos) {
+        return ResponseEntity.ok(productionIngestService.reportBatchNow(dtos));
+    }
     // 당일생산수량 합계
     @GetMapping("/performance/summary")
     public ResponseEntity<PerformanceSummaryResDto> getPerformanceSummary(
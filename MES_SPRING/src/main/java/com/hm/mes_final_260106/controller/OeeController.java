@@ -0,0 +1,38 @@
+package com.hm.mes_final_260106.controller;
+
+import com.hm.mes_final_260106.dto.equipment.OeeResDto;
+import com.hm.mes_final_260106.service.OeeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// OEE (설비 / 라인 × 근무조), groupBy = equipment(기본) / line
+@RestController
+@RequestMapping("/api/mes/oee")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class OeeController {
+
+    private final OeeService oeeService;
+
+    // 현재 근무조 (진행 중 상태 시간 포함)
+    @GetMapping("/current")
+    public List<OeeResDto> current(@RequestParam(required = false) String groupBy,
+                                   @RequestParam(required = false) String line) {
+        return oeeService.getCurrent(groupBy, line);
+    }
+
+    // 근무조별 이력 : from / to 생략 시 최근 7일 (최대 31일)
+    @GetMapping("/history")
+    public List<OeeResDto> history(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) String line,
+            @RequestParam(required = false) String equipmentCode) {
+        return oeeService.getHistory(from, to, groupBy, line, equipmentCode);
+    }
+}
@@ -1,13 +1,22 @@
 package com.hm.mes_final_260106.controller;
 
+import com.hm.mes_final_260106.dto.spc.SpcAlertDto;
+import com.hm.mes_final_260106.dto.spc.SpcBackfillStatusDto;
 import com.hm.mes_final_260106.dto.spc.SpcLogDto;
+import com.hm.mes_final_260106.dto.spc.SpcSeriesDto;
+import com.hm.mes_final_260106.dto.spc.SpcStatsDto;
+import com.hm.mes_final_260106.dto.spc.SpcSubgroupChartDto;
 import com.hm.mes_final_260106.entity.InspectionStandard;
 import com.hm.mes_final_260106.service.SpcService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -22,9 +31,57 @@ public class SpcController {
         return spcService.getStandards();
     }
 
+    // 공정 / 항목을 주면 해당 항목만, 없으면 전체
     @GetMapping("/spc")
-    public List<SpcLogDto> getSpcData() {
-        // 복잡한 로직 없이 서비스 호출 한 방으로 끝!
-        return spcService.getAllSpcData();
+    public List<SpcLogDto> getSpcData(@RequestParam(required = false) String processName,
+                                      @RequestParam(required = false) String checkItem) {
+        return spcService.getSpcData(processName, checkItem);
     }
-}
\ No newline at end of file
+
+    // 항목별 누적 통계 + 공정능력 (Cp / Cpk)
+    @GetMapping("/spc/stats")
+    public List<SpcStatsDto> getSpcStats() {
+        return spcService.getStats();
+    }
+
+    // 최근 Nelson 규칙 위반 알람
+    @GetMapping("/spc/alerts")
+    public List<SpcAlertDto> getSpcAlerts(@RequestParam(defaultValue = "100") int limit) {
+        return spcService.getAlerts(limit);
+    }
+
+    // 기간 지정 관리도 : 서버에서 maxPoints 이하로 다운샘플 (method = LTTB / MIN_MAX)
+    // from / to 를 생략하면 최근 24시간
+    @GetMapping("/spc/series")
+    public SpcSeriesDto getSpcSeries(
+            @RequestParam String processName,
+            @RequestParam String checkItem,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "500") int maxPoints,
+            @RequestParam(defaultValue = "LTTB") String method) {
+        return spcService.getSeries(processName, checkItem, from, to, maxPoints, method);
+    }
+
+    // 부분군 관리도 : 최근 limit 개 부분군의 X-bar + R(또는 S) 관리도 (type = XBAR_R / XBAR_S)
+    @GetMapping("/spc/subgroup-chart")
+    public SpcSubgroupChartDto getSubgroupChart(
+            @RequestParam String processName,
+            @RequestParam String checkItem,
+            @RequestParam(defaultValue = "XBAR_R") String type,
+            @RequestParam(defaultValue = "100") int limit) {
+        return spcService.getSubgroupChart(processName, checkItem, type, limit);
+    }
+
+    // 이력 재계산 시작 : resume = true 면 중단된 체크포인트부터 이어서 (이미 실행 중이면 현재 상태만 반환)
+    @PostMapping("/spc/backfill")
+    public SpcBackfillStatusDto startBackfill(@RequestParam(defaultValue = "true") boolean resume) {
+        return spcService.startBackfill(resume);
+    }
+
+    // 이력 재계산 진행 상태 (항목별 체크포인트, 처리 행 수 / 행/초)
+    @GetMapping("/spc/backfill")
+    public SpcBackfillStatusDto getBackfillStatus() {
+        return spcService.getBackfillStatus();
+    }
+}
@@ -4,6 +4,7 @@ import com.hm.mes_final_260106.dto.RoleDto; // ★ Import 확인
 import com.hm.mes_final_260106.dto.RolePermissionUpdateDto;
 import com.hm.mes_final_260106.entity.CommonCode;
 import com.hm.mes_final_260106.repository.LoginLogRepository;
+import com.hm.mes_final_260106.service.ReferenceCache;
 import com.hm.mes_final_260106.service.SystemService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,7 @@ public class SystemController {
 
     private final LoginLogRepository logRepository;
     private final SystemService systemService;
+    private final ReferenceCache referenceCache;
 
     // 1. 공통 코드 관리
     @GetMapping("/code")
@@ -90,4 +92,10 @@ public class SystemController {
         systemService.updateRolePermissions(id, dto.getPermissionIds());
         return ResponseEntity.ok("Permissions updated successfully");
     }
-}
\ No newline at end of file
+
+    // 5. 기준 정보 near-cache 상태 (설비 / 작업자 / 작업지시 / 설비 할당)
+    @GetMapping("/cache/reference")
+    public ResponseEntity<?> getReferenceCacheStats() {
+        return ResponseEntity.ok(referenceCache.getStats());
+    }
+}
@@ -0,0 +1,22 @@
+package com.hm.mes_final_260106.dto;
+// 기준 정보 near-cache 상태 (캐시별 적중 / 미스 / 축출)
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferenceCacheStatsDto {
+    private String name;            // equipment / worker / workOrder / assignment
+    private int size;               // 현재 항목 수
+    private int maxSize;            // 최대 항목 수 (초과 시 가장 오래 안 쓴 항목 축출)
+    private long hits;              // 캐시 적중
+    private long misses;            // 캐시 미스 (DB 조회)
+    private long evictions;         // 크기 초과로 축출된 항목 수
+    private long invalidations;     // 기준 정보 변경으로 무효화된 항목 수
+    private double hitRate;         // hits / (hits + misses)
+}
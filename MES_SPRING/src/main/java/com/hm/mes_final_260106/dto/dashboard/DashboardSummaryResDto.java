@@ -2,7 +2,7 @@ package com.hm.mes_final_260106.dto.dashboard;
 
 import lombok.*;
 
-@Getter @Setter
+@Getter @Setter @EqualsAndHashCode
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class DashboardSummaryResDto {
     private int waferOut;
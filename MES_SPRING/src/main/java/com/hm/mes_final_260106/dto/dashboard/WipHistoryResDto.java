@@ -0,0 +1,14 @@
+package com.hm.mes_final_260106.dto.dashboard;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// WIP 추이 1점 : 스냅샷 시각의 공정별 재공 (공정 표기 → 수량, 공정 순서)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+public class WipHistoryResDto {
+    private LocalDateTime time;
+    private Map<String, Long> counts;
+}
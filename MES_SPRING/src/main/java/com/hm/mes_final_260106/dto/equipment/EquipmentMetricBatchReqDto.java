@@ -0,0 +1,19 @@
+package com.hm.mes_final_260106.dto.equipment;
+
+import lombok.*;
+
+// 설비 메트릭 일괄 수집 (열 단위 JSON) : 샘플 i = (codes[equipment[i]], time[i], uph[i], temperature[i], progress[i])
+// 샘플마다 객체를 만들지 않도록 열마다 기본형 배열 1개로 받는다. time 생략 시 서버 수신 시각
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EquipmentMetricBatchReqDto {
+    private String[] codes;         // 설비 코드 사전
+    private int[] equipment;        // 샘플별 codes 인덱스
+    private long[] time;            // epoch ms (선택)
+    private double[] uph;
+    private double[] temperature;
+    private double[] progress;
+}
@@ -0,0 +1,15 @@
+package com.hm.mes_final_260106.dto.equipment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// 일괄 수집 결과 : 저장된 샘플 / 시각 역순이라 버린 샘플 / 설비 수
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentMetricBatchResDto {
+    private int accepted;
+    private int rejected;
+    private int equipments;
+}
@@ -0,0 +1,25 @@
+package com.hm.mes_final_260106.dto.equipment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 설비 메트릭 시계열 (열 단위 배열 : time[i] 의 avg[i] / min[i] / max[i])
+// bucketMs = 0 이면 원본 샘플 (avg = min = max)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EquipmentMetricSeriesDto {
+    private String equipmentCode;
+    private String metric;          // uph / temperature / progress
+    private long from;              // epoch ms
+    private long to;
+    private long bucketMs;
+    private int samples;            // 구간 원본 샘플 수
+    private long[] time;            // 버킷 시작 시각 (epoch ms)
+    private double[] avg;
+    private double[] min;
+    private double[] max;
+}
@@ -0,0 +1,33 @@
+package com.hm.mes_final_260106.dto.equipment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 설비 또는 라인의 근무조 OEE (비율은 % , 소수 1자리)
+//  가동률 = RUN / (RUN + DOWN)        : IDLE(작업 없음 / 계획 정지)은 계획 가동 시간에서 뺀다
+//  성능   = 이론 시간 / RUN           : 이론 시간 = 이상 사이클 타임 × 생산 수량 (최대 100)
+//  양품률 = 양품 수량 / 생산 수량
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OeeResDto {
+    private Long equipmentId;         // 라인 단위면 null
+    private String equipmentCode;
+    private String line;
+    private LocalDateTime shiftStart;
+    private LocalDateTime shiftEnd;
+    private long runSeconds;
+    private long idleSeconds;
+    private long downSeconds;
+    private long totalQty;
+    private long goodQty;
+    private double availability;
+    private double performance;
+    private double quality;
+    private double oee;
+}
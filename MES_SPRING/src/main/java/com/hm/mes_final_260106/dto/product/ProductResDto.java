@@ -15,4 +15,5 @@ public class ProductResDto {
     private String name;      // 제품명
     private String category;  // 카테고리
     private String spec;      // 규격/사양
+    private Long idealCycleMs; // 1개 이상 사이클 타임(ms), null 이면 기본값
 }
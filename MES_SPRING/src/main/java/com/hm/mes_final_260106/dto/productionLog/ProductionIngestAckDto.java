@@ -0,0 +1,15 @@
+package com.hm.mes_final_260106.dto.productionLog;
+// 비동기 실적 접수 응답 : 커밋 전 즉시 돌려주는 ack
+// 서버 -> 설비
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionIngestAckDto {
+    private long ackId;        // 접수 번호 (결과 조회용)
+    private int queueDepth;    // 접수 시점 큐 깊이
+}
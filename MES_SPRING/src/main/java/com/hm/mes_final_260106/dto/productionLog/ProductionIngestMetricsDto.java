@@ -0,0 +1,29 @@
+package com.hm.mes_final_260106.dto.productionLog;
+// 비동기 실적 적재 파이프라인 상태 (큐 깊이 / 적재 지연)
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionIngestMetricsDto {
+    private int queueDepth;             // 현재 버퍼에 쌓인 보고 수
+    private int capacity;               // 버퍼 최대 크기
+    private long accepted;              // 접수된 보고 수
+    private long rejected;              // 버퍼 포화로 거절된 보고 수 (429)
+    private long committed;             // 커밋 완료 (OK / SHORTAGE)
+    private long failed;                // 처리 실패 (ERROR)
+    private long duplicate;             // 중복 보고 (재전송, 기존 결과로 응답)
+    private long retried;               // 묶음 커밋 재시도 횟수
+    private long deadLettered;          // 재시도 후에도 커밋 실패 (저널에 남아 재기동 시 재생)
+    private long groups;                // 커밋한 묶음 수
+    private double avgGroupSize;        // 묶음당 평균 건수
+    private double avgDrainLatencyMs;   // 접수 → 커밋 평균 지연
+    private double lastDrainLatencyMs;  // 마지막 건 지연
+    private double maxDrainLatencyMs;   // 최대 지연
+    private double avgCommitMs;         // 묶음당 평균 커밋 시간
+}
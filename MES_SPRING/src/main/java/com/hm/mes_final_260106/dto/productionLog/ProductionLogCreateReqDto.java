@@ -23,6 +23,7 @@ public class ProductionLogCreateReqDto {
     private String workOrderNumber;   // 작업 지시 번호
     private String workerCode;        // 작업자 코드
     private String equipmentCode;     // 설비 코드
+    private Long reportSeq;           // 설비별 보고 순번 (단조 증가, 설비코드와 함께 중복 보고 판별 키)
 
     // --- 생산 결과 필드 ---
     private String processStep;       // 공정 단계
@@ -0,0 +1,46 @@
+package com.hm.mes_final_260106.dto.productionLog;
+// 생산 실적 일괄 보고 결과 : 보고 1건(웨이퍼 1매)마다 처리 결과를 돌려준다
+// 서버 -> 설비
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductionReportResultDto {
+
+    public static final String OK = "OK";
+    public static final String SHORTAGE = "SHORTAGE";
+    public static final String ERROR = "ERROR";
+    public static final String DUPLICATE = "DUPLICATE";
+
+    private int index;                // 요청 목록 내 순번 (0부터)
+    private String workOrderNumber;   // 작업 지시 번호
+    private String result;            // OK / SHORTAGE / ERROR / DUPLICATE
+    private String code;              // 실패 코드 (INVENTORY_SHORTAGE, INVENTORY_EMPTY ...)
+    private String message;           // 실패 사유
+
+    public static ProductionReportResultDto ok(int index, String workOrderNumber) {
+        return ProductionReportResultDto.builder()
+                .index(index)
+                .workOrderNumber(workOrderNumber)
+                .result(OK)
+                .build();
+    }
+
+    public static ProductionReportResultDto fail(int index, String workOrderNumber, String result, String code, String message) {
+        return ProductionReportResultDto.builder()
+                .index(index)
+                .workOrderNumber(workOrderNumber)
+                .result(result)
+                .code(code)
+                .message(message)
+                .build();
+    }
+}
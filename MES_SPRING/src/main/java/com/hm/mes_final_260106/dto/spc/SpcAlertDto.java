@@ -0,0 +1,34 @@
+package com.hm.mes_final_260106.dto.spc;
+
+import com.hm.mes_final_260106.entity.EquipmentEventLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// SPC 규칙 위반 알람 (EquipmentEventLog SPC_VIOLATION)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcAlertDto {
+    private Long id;
+    private LocalDateTime time;     // 기록 시각
+    private String equipmentCode;   // 위반 표본을 보고한 설비
+    private String item;            // 예: DieBonding.curingTemp
+    private String rule;            // 예: RULE_2
+    private String message;
+
+    public static SpcAlertDto from(EquipmentEventLog e) {
+        return SpcAlertDto.builder()
+                .id(e.getId())
+                .time(e.getCreatedAt())
+                .equipmentCode(e.getEquipment().getCode())
+                .item(e.getBeforeValue())
+                .rule(e.getAfterValue())
+                .message(e.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.hm.mes_final_260106.dto.spc;
+
+import com.hm.mes_final_260106.entity.SpcBackfillCheckpoint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// SPC 이력 재계산 작업 상태 + 항목별 결과 (spc_backfill_checkpoint)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcBackfillStatusDto {
+    private String state;           // IDLE / RUNNING / COMPLETED / FAILED
+    private boolean resumed;        // 체크포인트에서 이어서 실행했는지
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long elapsedMs;
+    private long rowsProcessed;     // 이번 실행에서 읽은 측정 행 수
+    private double rowsPerSecond;
+    private int parallelism;
+    private int chunkSize;
+    private String error;
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String processName;
+        private String checkItem;
+        private String status;
+        private Long lastId;
+        private Long count;
+        private Double mean;
+        private Double stdDev;
+        private Double min;
+        private Double max;
+        private Double lsl;
+        private Double usl;
+        private Double cp;
+        private Double cpk;
+        private Long violations;
+        private String ruleCounts;  // 규칙 1~8 위반 수
+        private LocalDateTime updatedAt;
+
+        public static Item from(SpcBackfillCheckpoint c) {
+            return Item.builder()
+                    .processName(c.getProcessName())
+                    .checkItem(c.getCheckItem())
+                    .status(c.getStatus())
+                    .lastId(c.getLastId())
+                    .count(c.getSampleCount())
+                    .mean(c.getMeanValue())
+                    .stdDev(c.getStdDev())
+                    .min(c.getMinValue())
+                    .max(c.getMaxValue())
+                    .lsl(c.getLsl())
+                    .usl(c.getUsl())
+                    .cp(c.getCp())
+                    .cpk(c.getCpk())
+                    .violations(c.getViolations())
+                    .ruleCounts(c.getRuleCounts())
+                    .updatedAt(c.getUpdatedAt())
+                    .build();
+        }
+    }
+}
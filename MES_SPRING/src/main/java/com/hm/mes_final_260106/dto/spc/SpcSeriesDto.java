@@ -0,0 +1,32 @@
+package com.hm.mes_final_260106.dto.spc;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 기간 / 점 개수를 지정한 SPC 관리도 시리즈 (서버 다운샘플링 결과)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcSeriesDto {
+    private String processName;
+    private String checkItem;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String method;          // LTTB / MIN_MAX
+    private long totalPoints;       // 구간 내 원본 점 수
+    private List<Point> points;     // 다운샘플된 점 (시간 순, maxPoints 이하)
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime time;
+        private double value;
+    }
+}
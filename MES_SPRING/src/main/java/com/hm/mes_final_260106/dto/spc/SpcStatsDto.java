@@ -0,0 +1,31 @@
+package com.hm.mes_final_260106.dto.spc;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// SPC 항목별 누적 통계 (SpcEngine 인메모리 계산값)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcStatsDto {
+    private String processName;     // 예: DieBonding
+    private String checkItem;       // 예: curingTemp
+    private long count;             // 누적 측정 수
+    private int bufferedPoints;     // 차트용으로 보관 중인 최근 점 수
+    private Double mean;            // 평균
+    private Double stdDev;          // 표본 표준편차
+    private Double min;
+    private Double max;
+    private Double lsl;             // 규격 하한 (InspectionStandard)
+    private Double usl;             // 규격 상한
+    private Double cp;              // (USL - LSL) / 6σ
+    private Double cpk;             // min(USL - μ, μ - LSL) / 3σ
+    private Double lastValue;       // 마지막 측정값
+    private LocalDateTime lastTime; // 마지막 측정 시각
+    private long violations;        // 누적 Nelson 규칙 위반 수
+}
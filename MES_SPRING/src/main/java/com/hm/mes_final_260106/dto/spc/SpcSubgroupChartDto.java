@@ -0,0 +1,46 @@
+package com.hm.mes_final_260106.dto.spc;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// X-bar/R, X-bar/S 부분군 관리도 (spc_subgroup 사전 집계값)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpcSubgroupChartDto {
+    private String processName;
+    private String checkItem;
+    private String chartType;       // XBAR_R / XBAR_S
+    private int subgroupSize;       // 부분군 크기 n
+    private int subgroupCount;      // 한계선 계산에 쓴 부분군 수
+
+    // X-bar 관리도
+    private Double xbarCenter;      // X̿ (부분군 평균의 평균)
+    private Double xbarUcl;         // X̿ + A2·R̄ (또는 A3·S̄)
+    private Double xbarLcl;
+
+    // 산포 관리도 (R 또는 S)
+    private Double dispersionCenter; // R̄ 또는 S̄
+    private Double dispersionUcl;    // D4·R̄ (또는 B4·S̄)
+    private Double dispersionLcl;    // D3·R̄ (또는 B3·S̄)
+
+    private List<Point> points;     // 시간 순
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private Long workOrderId;
+        private int subgroupNo;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private double mean;
+        private double dispersion;  // 범위 R 또는 표준편차 S
+    }
+}
@@ -19,15 +19,19 @@ public class Dicing {
     @JoinColumn(name = "production_log_id", nullable = false)
     private ProductionLog productionLog;
 
-    @Column(name = "spindle_speed", length = 50)
-    private String spindleSpeed;
+    @Column(name = "spindle_speed")
+    private Double spindleSpeed;
 
-    @Column(name = "feed_rate", length = 50)
-    private String feedRate;
+    @Column(name = "feed_rate")
+    private Double feedRate;
 
-    @Column(name = "blade_wear", length = 50)
-    private String bladeWear;
+    @Column(name = "blade_wear")
+    private Double bladeWear;
 
-    @Column(name = "coolant_flow", length = 50)
-    private String coolantFlow;
+    @Column(name = "coolant_flow")
+    private Double coolantFlow;
+
+    // 숫자로 읽을 수 없던 원본 값 (문자열 컬럼 시절 데이터 이관 시에만 채워짐) : "컬럼=원본;컬럼=원본"
+    @Column(name = "raw_values", length = 500)
+    private String rawValues;
 }
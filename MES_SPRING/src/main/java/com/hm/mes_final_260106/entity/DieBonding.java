@@ -19,15 +19,19 @@ public class DieBonding {
     @JoinColumn(name = "production_log_id", nullable = false)
     private ProductionLog productionLog;
 
-    @Column(name = "pick_up_force", length = 50)
-    private String pickUpForce;
+    @Column(name = "pick_up_force")
+    private Double pickUpForce;
 
-    @Column(name = "placement_accuracy", length = 50)
-    private String placementAccuracy;
+    @Column(name = "placement_accuracy")
+    private Double placementAccuracy;
 
-    @Column(name = "epoxy_dispense_volume", length = 50)
-    private String epoxyDispenseVolume;
+    @Column(name = "epoxy_dispense_volume")
+    private Double epoxyDispenseVolume;
 
-    @Column(name = "curing_temp", length = 50)
-    private String curingTemp;
+    @Column(name = "curing_temp")
+    private Double curingTemp;
+
+    // 숫자로 읽을 수 없던 원본 값 (문자열 컬럼 시절 데이터 이관 시에만 채워짐) : "컬럼=원본;컬럼=원본"
+    @Column(name = "raw_values", length = 500)
+    private String rawValues;
 }
@@ -3,6 +3,8 @@ package com.hm.mes_final_260106.entity;
 import com.hm.mes_final_260106.constant.EquipmentEventType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
@@ -21,8 +23,10 @@ public class EquipmentEventLog {
     private Equipment equipment;
 
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)   // MySQL ENUM 컬럼 대신 VARCHAR (유형 추가 시 스키마 변경 불필요)
+    @Column(length = 30)
     private EquipmentEventType eventType;
-    // TYPE_CHANGE / STATUS_CHANGE
+    // TYPE_CHANGE / STATUS_CHANGE / SPC_VIOLATION
 
     private String beforeValue;
     private String afterValue;
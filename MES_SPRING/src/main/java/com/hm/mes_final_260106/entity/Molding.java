@@ -19,16 +19,19 @@ public class Molding {
     @JoinColumn(name = "production_log_id", nullable = false)
     private ProductionLog productionLog;
 
-    @Column(name = "mold_temp", length = 50)
-    private String moldTemp;
+    @Column(name = "mold_temp")
+    private Double moldTemp;
 
-    @Column(name = "injection_pressure", length = 50)
-    private String injectionPressure;
+    @Column(name = "injection_pressure")
+    private Double injectionPressure;
 
-    @Column(name = "cure_time", length = 50)
-    private String cureTime;
+    @Column(name = "cure_time")
+    private Double cureTime;
 
-    @Column(name = "clamp_force", length = 50)
-    private String clampForce;
-}
+    @Column(name = "clamp_force")
+    private Double clampForce;
 
+    // 숫자로 읽을 수 없던 원본 값 (문자열 컬럼 시절 데이터 이관 시에만 채워짐) : "컬럼=원본;컬럼=원본"
+    @Column(name = "raw_values", length = 500)
+    private String rawValues;
+}
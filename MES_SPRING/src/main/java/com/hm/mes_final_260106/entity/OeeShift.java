@@ -0,0 +1,65 @@
+package com.hm.mes_final_260106.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 설비 × 근무조(shift) OEE 누적값 : OeeEngine 이 주기마다 증분 upsert
+// 가동 / 대기 / 고장 시간, 생산 수량, 양품 수량, 이론 생산 시간(이상 사이클 × 수량)을 더해 두고 비율은 조회 시 계산한다.
+@Entity
+@Table(name = "oee_shift",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_oee_shift_equipment", columnNames = {"equipment_id", "shift_start"})
+        },
+        indexes = {
+                @Index(name = "idx_oee_shift_start", columnList = "shift_start")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class OeeShift {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 설비 삭제 후에도 이력은 남기므로 FK 대신 id / 코드를 그대로 둔다
+    @Column(name = "equipment_id", nullable = false)
+    private Long equipmentId;
+
+    @Column(name = "equipment_code", nullable = false, length = 100)
+    private String equipmentCode;
+
+    @Column(nullable = false, length = 50)
+    private String line;
+
+    @Column(name = "shift_start", nullable = false)
+    private LocalDateTime shiftStart;
+
+    @Column(name = "shift_end", nullable = false)
+    private LocalDateTime shiftEnd;
+
+    @Column(name = "run_ms", nullable = false)
+    private Long runMs;
+
+    @Column(name = "idle_ms", nullable = false)
+    private Long idleMs;
+
+    @Column(name = "down_ms", nullable = false)
+    private Long downMs;
+
+    @Column(name = "total_qty", nullable = false)
+    private Long totalQty;
+
+    @Column(name = "good_qty", nullable = false)
+    private Long goodQty;
+
+    @Column(name = "ideal_ms", nullable = false)
+    private Long idealMs;         // 이상 사이클 타임 × 생산 수량
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -32,6 +32,10 @@ public class Product {
     @Column(length = 100)
     private String category;
 
+    // OEE 성능 기준 : 제품 1개 이상 사이클 타임(ms), 비어 있으면 mes.oee.ideal-cycle-ms
+    @Column(name = "ideal_cycle_ms")
+    private Long idealCycleMs;
+
     @JsonIgnore
     @Builder.Default
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
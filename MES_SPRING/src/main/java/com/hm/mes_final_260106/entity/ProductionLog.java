@@ -14,6 +14,16 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(name = "production_log",
+        uniqueConstraints = {
+                // 같은 설비의 같은 보고 순번은 한 번만 반영 (재전송 중복 방지)
+                @UniqueConstraint(name = "uk_production_log_equipment_seq", columnNames = {"equipment_id", "report_seq"})
+        },
+        indexes = {
+                // SPC 기간 조회 : 측정 시각 = COALESCE(end_time, start_time)
+                @Index(name = "idx_production_log_end_time", columnList = "end_time"),
+                @Index(name = "idx_production_log_start_time", columnList = "start_time")
+        })
 @Setter
 @Getter
 @NoArgsConstructor
@@ -40,6 +50,9 @@ public class ProductionLog {
     @JoinColumn(name = "equipment_id")
     private Equipment equipment;
 
+    // 설비별 보고 순번 (null 이면 순번 없이 보낸 구버전 보고)
+    private Long reportSeq;
+
     // --- 생산 결과 필드 ---
     private String processStep;
     private String lotNo;
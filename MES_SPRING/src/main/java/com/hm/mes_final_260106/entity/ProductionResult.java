@@ -9,7 +9,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "production_result")
+@Table(name = "production_result",
+        uniqueConstraints = {
+                // 집계 버킷 : ProductionResultAggregator 의 ON DUPLICATE KEY UPDATE 기준
+                @UniqueConstraint(name = "uk_production_result_bucket",
+                        columnNames = {"result_date", "result_hour", "line", "product_id"})
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,79 @@
+package com.hm.mes_final_260106.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// SPC 이력 재계산(SpcBackfillJob) 진행 상태 : SPC 항목당 1행
+// 청크마다 마지막으로 반영한 측정 테이블 id 와 누적 통계(Welford)를 저장하므로, 중단된 작업은 그 지점부터 이어서 계산한다.
+@Entity
+@Table(name = "spc_backfill_checkpoint",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_spc_backfill_item", columnNames = {"process_name", "check_item"})
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class SpcBackfillCheckpoint {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "process_name", nullable = false, length = 50)
+    private String processName;
+
+    @Column(name = "check_item", nullable = false, length = 50)
+    private String checkItem;
+
+    @Column(nullable = false, length = 20)
+    private String status;          // RUNNING / COMPLETED / FAILED
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;            // 반영을 마친 마지막 측정 테이블 id (keyset)
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "mean_value")
+    private Double meanValue;
+
+    @Column(name = "m2")
+    private Double m2;              // 편차 제곱합 (Welford)
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @Column(name = "std_dev")
+    private Double stdDev;
+
+    private Double lsl;             // 계산에 쓴 규격 (작업 시작 시점 InspectionStandard)
+    private Double usl;
+    private Double cp;
+    private Double cpk;
+
+    @Column(nullable = false)
+    private Long violations;        // Nelson 규칙 위반 합계
+
+    @Column(name = "rule_counts", nullable = false, length = 200)
+    private String ruleCounts;      // 규칙 1~8 위반 수 (쉼표 구분)
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
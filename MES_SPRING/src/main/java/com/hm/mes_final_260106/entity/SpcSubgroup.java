@@ -0,0 +1,69 @@
+package com.hm.mes_final_260106.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// SPC 부분군 집계 : (공정, 검사 항목, 작업지시) 안에서 연속된 N 웨이퍼를 하나의 부분군으로 묶은 요약값
+// SpcSubgroupAggregator 가 보고 수집 중에 채운다. X-bar/R, X-bar/S 관리도는 원본 측정값 대신 이 테이블을 읽는다.
+@Entity
+@Table(name = "spc_subgroup",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_spc_subgroup",
+                        columnNames = {"process_name", "check_item", "work_order_id", "subgroup_no"})
+        },
+        indexes = {
+                // 관리도 조회 : 항목별 최근 부분군
+                @Index(name = "idx_spc_subgroup_item", columnList = "process_name, check_item, id")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class SpcSubgroup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "process_name", nullable = false, length = 50)
+    private String processName;
+
+    @Column(name = "check_item", nullable = false, length = 50)
+    private String checkItem;
+
+    @Column(name = "work_order_id", nullable = false)
+    private Long workOrderId;
+
+    @Column(name = "subgroup_no", nullable = false)
+    private Integer subgroupNo;     // 작업지시 안에서 1부터
+
+    @Column(name = "sample_size", nullable = false)
+    private Integer sampleSize;     // n (설정값보다 작으면 유휴 종료된 부분 부분군)
+
+    @Column(name = "mean_value", nullable = false)
+    private Double meanValue;       // X-bar
+
+    @Column(name = "range_value", nullable = false)
+    private Double rangeValue;      // R = max - min
+
+    @Column(name = "std_dev")
+    private Double stdDev;          // S (n >= 2)
+
+    @Column(name = "min_value", nullable = false)
+    private Double minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private Double maxValue;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.hm.mes_final_260106.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// 공정별 재공(WIP) 스냅샷 : WipTracker 가 주기마다 (시각, 공정) 1행씩 기록 → 시간대별 WIP 추이 조회용
+@Entity
+@Table(name = "wip_snapshot",
+        indexes = {
+                @Index(name = "idx_wip_snapshot_time", columnList = "snapshot_time")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+public class WipSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "snapshot_time", nullable = false)
+    private LocalDateTime snapshotTime;
+
+    @Column(nullable = false, length = 20)
+    private String step;            // ProcessStep 이름
+
+    @Column(nullable = false)
+    private Long qty;
+}
@@ -19,22 +19,25 @@ public class WireBonding {
     @JoinColumn(name = "production_log_id", nullable = false)
     private ProductionLog productionLog;
 
-    @Column(name = "bonding_temp", length = 50)
-    private String bondingTemp;
+    @Column(name = "bonding_temp")
+    private Double bondingTemp;
 
-    @Column(name = "bonding_force", length = 50)
-    private String bondingForce;
+    @Column(name = "bonding_force")
+    private Double bondingForce;
 
-    @Column(name = "ultrasonic_power", length = 50)
-    private String ultrasonicPower;
+    @Column(name = "ultrasonic_power")
+    private Double ultrasonicPower;
 
-    @Column(name = "bonding_time", length = 50)
-    private String bondingTime;
+    @Column(name = "bonding_time")
+    private Double bondingTime;
 
-    @Column(name = "loop_height", length = 50)
-    private String loopHeight;
+    @Column(name = "loop_height")
+    private Double loopHeight;
 
-    @Column(name = "ball_diameter", length = 50)
-    private String ballDiameter;
-}
+    @Column(name = "ball_diameter")
+    private Double ballDiameter;
 
+    // 숫자로 읽을 수 없던 원본 값 (문자열 컬럼 시절 데이터 이관 시에만 채워짐) : "컬럼=원본;컬럼=원본"
+    @Column(name = "raw_values", length = 500)
+    private String rawValues;
+}
@@ -0,0 +1,166 @@
+package com.hm.mes_final_260106.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.hm.mes_final_260106.gateway.L1Protocol.*;
+
+// L1 프레임 증분 디코더 (연결 1개당 1개, 한 스레드에서만 사용)
+// 논블로킹 읽기는 프레임 중간에서 끊겨 들어오므로, 상태를 들고 있다가 들어온 바이트만큼 진행한다.
+// MachineSimulator.ReceiveDeviceDataLoop 와 같은 규칙으로 읽는다.
+//  - SOH 가 아닌 바이트는 건너뛴다
+//  - SingleData 크기가 음수면 그 프레임을 버린다 / ArrayData 는 크기 0 이하에서 끝난다
+//  - 알 수 없는 MsgType 은 int16 까지 읽고 버린다
+//  - ProductionEnd 는 설비가 보내는 대로 2바이트로 끝난다 (수집기는 int16 을 더 읽어 다음 프레임 머리를 삼킨다)
+// 본문은 재사용 버퍼(최대 int16)에 모으므로, 콜백에 넘기는 ByteBuffer 는 콜백 안에서만 유효하다.
+public final class L1FrameDecoder {
+
+    public interface Listener {
+        void onValue(int value);
+
+        // msgType = SingleData / ArrayData, payload 는 little-endian
+        void onData(int msgType, int dtoType, ByteBuffer payload);
+
+        void onProductionEnd();
+    }
+
+    private enum State { SOH, MSG_TYPE, HEADER, DTO_TYPE, PAYLOAD, NEXT_SIZE }
+
+    private static final int PARTIAL = Integer.MIN_VALUE;
+
+    private final byte[] scratch = new byte[MAX_PAYLOAD];
+    private final ByteBuffer payloadView = ByteBuffer.wrap(scratch).order(ByteOrder.LITTLE_ENDIAN);
+
+    private State state = State.SOH;
+    private int msgType;
+    private int dtoType;
+    private int size;
+    private int filled;
+    private int shortLow = -1;     // int16 의 첫 바이트 (아직 없으면 -1)
+
+    private long frames;
+    private long skippedBytes;
+    private long droppedFrames;
+
+    public void reset() {
+        state = State.SOH;
+        shortLow = -1;
+        filled = 0;
+    }
+
+    public void feed(ByteBuffer in, Listener listener) {
+        while (in.hasRemaining()) {
+            switch (state) {
+                case SOH -> {
+                    if ((in.get() & 0xFF) == SOH) state = State.MSG_TYPE;
+                    else skippedBytes++;
+                }
+                case MSG_TYPE -> {
+                    msgType = in.get() & 0xFF;
+                    if (msgType == MSG_PRODUCTION_END) {
+                        frames++;
+                        state = State.SOH;
+                        listener.onProductionEnd();
+                    } else {
+                        state = State.HEADER;
+                    }
+                }
+                case HEADER -> {
+                    int value = readShort(in);
+                    if (value != PARTIAL) onHeader(value, listener);
+                }
+                case DTO_TYPE -> {
+                    dtoType = in.get() & 0xFF;
+                    filled = 0;
+                    state = State.PAYLOAD;
+                    if (size == 0) completePayload(listener);
+                }
+                case PAYLOAD -> {
+                    int n = Math.min(in.remaining(), size - filled);
+                    in.get(scratch, filled, n);
+                    filled += n;
+                    if (filled == size) completePayload(listener);
+                }
+                case NEXT_SIZE -> {
+                    int value = readShort(in);
+                    if (value != PARTIAL) {
+                        if (value > 0) {
+                            size = value;
+                            state = State.DTO_TYPE;
+                        } else {
+                            frames++;
+                            state = State.SOH;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void onHeader(int value, Listener listener) {
+        switch (msgType) {
+            case MSG_VALUE -> {
+                frames++;
+                state = State.SOH;
+                listener.onValue(value);
+            }
+            case MSG_SINGLE_DATA -> {
+                if (value < 0) {
+                    droppedFrames++;
+                    state = State.SOH;
+                } else {
+                    size = value;
+                    state = State.DTO_TYPE;
+                }
+            }
+            case MSG_ARRAY_DATA -> {
+                if (value > 0) {
+                    size = value;
+                    state = State.DTO_TYPE;
+                } else {
+                    frames++;
+                    state = State.SOH;
+                }
+            }
+            default -> {
+                droppedFrames++;
+                state = State.SOH;
+            }
+        }
+    }
+
+    private void completePayload(Listener listener) {
+        boolean array = msgType == MSG_ARRAY_DATA;
+        if (array) {
+            state = State.NEXT_SIZE;
+        } else {
+            frames++;
+            state = State.SOH;
+        }
+        payloadView.clear().limit(size);
+        listener.onData(msgType, dtoType, payloadView);
+    }
+
+    // int16 LE (두 번에 나눠 들어와도 된다), 아직 1바이트뿐이면 PARTIAL
+    private int readShort(ByteBuffer in) {
+        if (shortLow < 0) {
+            shortLow = in.get() & 0xFF;
+            if (!in.hasRemaining()) return PARTIAL;
+        }
+        int value = (short) (shortLow | (in.get() & 0xFF) << 8);
+        shortLow = -1;
+        return value;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+}
@@ -0,0 +1,289 @@
+package com.hm.mes_final_260106.gateway;
+
+import com.hm.mes_final_260106.dto.WorkOrderResDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricUpdateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import com.hm.mes_final_260106.service.EquipmentService;
+import com.hm.mes_final_260106.service.ProductionIngestService;
+import com.hm.mes_final_260106.service.ProductionService;
+import com.hm.mes_final_260106.service.WorkDispatchHub;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// L1 설비 게이트웨이 : C# 수집기(MES_EQUIPMENT) 없이 서버가 설비 TCP 에 직접 붙는다
+// 설비(MES_MACHINE)가 5001 포트에서 listen 하므로 게이트웨이는 클라이언트로 연결한다.
+//  - selector 스레드 1개 : 모든 설비의 연결 / 재연결, 프레임 수신, 작업 지시 송신
+//  - 작업 스레드 1개    : 작업 지시 폴링, 실적 보고, 메트릭 반영 (DB 작업이 selector 를 막지 않도록)
+// 실적은 REST 보고와 같은 ProductionIngestService.reportNow 로 들어간다 (저널 / 중복 보고 판별 동일).
+// 같은 설비에 C# 수집기와 동시에 붙이지 않는다 (작업 지시 / 실적이 두 번 처리된다).
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "mes.l1.enabled", havingValue = "true")
+public class L1Gateway implements L1Session.Handler {
+
+    private final ProductionService productionService;
+    private final ProductionIngestService ingestService;
+    private final EquipmentService equipmentService;
+    private final WorkDispatchHub dispatchHub;
+    private final String devices;
+    private final long reconnectMs;
+    private final long pollIntervalMs;
+
+    private final List<L1Session> sessions = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+
+    private Selector selector;
+    private Thread ioThread;
+    private ScheduledExecutorService worker;
+    private volatile boolean running;
+
+    public L1Gateway(ProductionService productionService,
+                     ProductionIngestService ingestService,
+                     EquipmentService equipmentService,
+                     WorkDispatchHub dispatchHub,
+                     @Value("${mes.l1.devices:}") String devices,
+                     @Value("${mes.l1.reconnect-ms:3000}") long reconnectMs,
+                     @Value("${mes.l1.poll-interval-ms:5000}") long pollIntervalMs) {
+        this.productionService = productionService;
+        this.ingestService = ingestService;
+        this.equipmentService = equipmentService;
+        this.dispatchHub = dispatchHub;
+        this.devices = devices;
+        this.reconnectMs = reconnectMs;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        for (String entry : devices.split(",")) {
+            if (entry.isBlank()) continue;
+            sessions.add(new L1Session(codeOf(entry), addressOf(entry), this));
+        }
+        if (sessions.isEmpty()) {
+            log.warn("L1 게이트웨이 : mes.l1.devices 가 비어 있어 시작하지 않습니다.");
+            return;
+        }
+
+        running = true;
+        selector = Selector.open();
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "l1-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        worker.scheduleWithFixedDelay(this::pollWorkOrders, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+
+        ioThread = new Thread(this::ioLoop, "l1-gateway");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        log.info("L1 게이트웨이 시작 : 설비 {}대", sessions.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        ioThread.join(TimeUnit.SECONDS.toMillis(5));
+        worker.shutdown();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) worker.shutdownNow();
+    }
+
+    // "설비코드=host:port"
+    private static String codeOf(String entry) {
+        int eq = entry.indexOf('=');
+        if (eq <= 0) throw new IllegalArgumentException("mes.l1.devices 형식 오류 (설비코드=host:port) : " + entry);
+        return entry.substring(0, eq).trim();
+    }
+
+    private static InetSocketAddress addressOf(String entry) {
+        String target = entry.substring(entry.indexOf('=') + 1).trim();
+        int colon = target.lastIndexOf(':');
+        if (colon <= 0) throw new IllegalArgumentException("mes.l1.devices 형식 오류 (설비코드=host:port) : " + entry);
+        return InetSocketAddress.createUnresolved(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+    }
+
+    // =========================
+    // selector 스레드
+    // =========================
+    private void ioLoop() {
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                for (L1Session session : sessions) {
+                    if (session.channel == null && now >= session.nextConnectAt) connect(session);
+                    else if (session.isConnected() && !session.outbound().isEmpty()) {
+                        SelectionKey key = session.channel.keyFor(selector);
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                }
+
+                selector.select(reconnectMs);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key, (L1Session) key.attachment());
+                }
+            } catch (IOException e) {
+                log.error("L1 게이트웨이 selector 오류", e);
+            }
+        }
+
+        for (L1Session session : sessions) close(session);
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void connect(L1Session session) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            session.channel = channel;
+            InetSocketAddress address = new InetSocketAddress(session.getAddress().getHostString(), session.getAddress().getPort());
+            if (channel.connect(address)) {
+                channel.register(selector, SelectionKey.OP_READ, session);
+                onConnected(session);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, session);
+            }
+        } catch (IOException | RuntimeException e) {
+            // 주소 해석 실패(UnresolvedAddressException) 도 재연결 대기로 돌린다
+            log.debug("[L1 {}] 연결 실패 : {}", session.getEquipmentCode(), e.getMessage());
+            close(session);
+        }
+    }
+
+    private void handle(SelectionKey key, L1Session session) {
+        try {
+            if (!key.isValid()) return;
+            if (key.isConnectable()) {
+                session.channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                onConnected(session);
+            }
+            if (key.isReadable()) read(session);
+            if (key.isValid() && key.isWritable()) write(session, key);
+        } catch (IOException e) {
+            // 연결 전 실패(설비 미기동)는 재연결 주기마다 반복되므로 debug
+            if (session.isConnected()) log.warn("[L1 {}] 연결 끊김 : {}", session.getEquipmentCode(), e.getMessage());
+            else log.debug("[L1 {}] 연결 실패 : {}", session.getEquipmentCode(), e.getMessage());
+            close(session);
+        }
+    }
+
+    private void onConnected(L1Session session) {
+        session.connected();
+        dispatchHub.forgetIdle(session.getEquipmentCode());
+        log.info("[L1 {}] 설비 연결 : {}", session.getEquipmentCode(), session.getAddress());
+        // 연결 직후 바로 작업 지시를 확인한다 (다음 폴링 주기까지 기다리지 않음)
+        worker.execute(() -> pollWorkOrder(session));
+    }
+
+    private void read(L1Session session) throws IOException {
+        readBuffer.clear();
+        int n = session.channel.read(readBuffer);
+        if (n < 0) throw new IOException("설비가 연결을 닫았습니다.");
+        readBuffer.flip();
+        session.feed(readBuffer);
+    }
+
+    private void write(L1Session session, SelectionKey key) throws IOException {
+        Queue<ByteBuffer> queue = session.outbound();
+        ByteBuffer head;
+        while ((head = queue.peek()) != null) {
+            session.channel.write(head);
+            if (head.hasRemaining()) return;     // 소켓 버퍼 가득 참 → 다음 OP_WRITE 에서 이어서
+            queue.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void close(L1Session session) {
+        if (session.channel != null) {
+            try {
+                session.channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        session.channel = null;
+        session.nextConnectAt = System.currentTimeMillis() + reconnectMs;
+        if (session.isConnected()) {
+            log.info("[L1 {}] 재연결 대기 {}ms", session.getEquipmentCode(), reconnectMs);
+            dispatchHub.forgetIdle(session.getEquipmentCode());
+        }
+        session.disconnected();
+    }
+
+    // =========================
+    // 작업 스레드
+    // =========================
+    private void pollWorkOrders() {
+        for (L1Session session : sessions) pollWorkOrder(session);
+    }
+
+    // 수집기의 PollingLoop 와 같은 규칙 : 작업 지시가 없을 때만 할당 요청 (작업 변동이 없으면 DB 조회 없음)
+    private void pollWorkOrder(L1Session session) {
+        if (!session.isConnected() || session.getCurrentWorkOrder() != null) return;
+        try {
+            String code = session.getEquipmentCode();
+            WorkOrderResDto order = dispatchHub.tryAssign(code, () -> productionService.assignWorkToMachine(code));
+            if (order == null) return;
+            if (order.getProductCode() == null) {
+                log.warn("[L1 {}] 작업지시서 오류 (제품 코드 없음), 작업취소 : {}", session.getEquipmentCode(), order.getWorkOrderNumber());
+                return;
+            }
+            session.sendWorkOrder(order);
+            selector.wakeup();
+            log.info("[L1 {}] 작업 지시 전달 : {}", session.getEquipmentCode(), order.getWorkOrderNumber());
+        } catch (Exception e) {
+            log.warn("[L1 {}] 작업 지시 폴링 실패 : {}", session.getEquipmentCode(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void report(L1Session session, ProductionLogCreateReqDto dto) {
+        worker.execute(() -> {
+            try {
+                ingestService.reportNow(dto);
+                session.completeWorkOrder(dto.getWorkOrderNumber());
+                // 다음 작업 지시는 폴링 주기를 기다리지 않고 바로 확인
+                pollWorkOrder(session);
+            } catch (Exception e) {
+                // 수집기와 같이 작업 지시는 유지한다 (다음 생산 종료 프레임은 같은 지시로 보고)
+                log.warn("[L1 {}] 생산 보고 실패 : {}", session.getEquipmentCode(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void metric(L1Session session, EquipmentMetricUpdateReqDto dto) {
+        worker.execute(() -> {
+            try {
+                equipmentService.updateMetrics(session.getEquipmentCode(), dto);
+            } catch (Exception e) {
+                log.debug("[L1 {}] 메트릭 반영 실패 : {}", session.getEquipmentCode(), e.getMessage());
+            }
+        });
+    }
+}
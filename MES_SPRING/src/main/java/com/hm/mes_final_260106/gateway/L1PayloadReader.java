@@ -0,0 +1,139 @@
+package com.hm.mes_final_260106.gateway;
+
+import com.hm.mes_final_260106.dto.*;
+import com.hm.mes_final_260106.dto.Item.ItemResDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricUpdateReqDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// L1 본문(little-endian) → 보고 DTO
+// 필드 순서 / 형식은 MES_EQUIPMENT/Models/*.FromBytes 와 같다 (문자열 = int16 길이 + UTF-8, 길이 0 이하면 null).
+// JSON 을 거치지 않고 서버 DTO 를 바로 채운다.
+public final class L1PayloadReader {
+
+    private L1PayloadReader() {
+    }
+
+    public static DicingDto dicing(ByteBuffer b) {
+        DicingDto dto = new DicingDto();
+        dto.setSpindleSpeed(b.getInt());
+        dto.setFeedRate(b.getDouble());
+        dto.setBladeWear(b.getDouble());
+        dto.setCoolantFlow(b.getDouble());
+        return dto;
+    }
+
+    public static DicingInspectionDto dicingInspection(ByteBuffer b) {
+        DicingInspectionDto dto = new DicingInspectionDto();
+        dto.setSampleSize(b.getInt());
+        dto.setInspectionCriteria(string(b));
+        dto.setThicknessPassRatio(b.getDouble());
+        dto.setChippingPassRatio(b.getDouble());
+        dto.setOverallPassRatio(b.getDouble());
+        return dto;
+    }
+
+    public static DieBondingDto dieBonding(ByteBuffer b) {
+        DieBondingDto dto = new DieBondingDto();
+        dto.setPickUpForce(b.getDouble());
+        dto.setPlacementAccuracy(b.getDouble());
+        dto.setEpoxyDispenseVolume(b.getDouble());
+        dto.setCuringTemp(b.getDouble());
+        return dto;
+    }
+
+    public static DieBondingInspectionDto dieBondingInspection(ByteBuffer b) {
+        DieBondingInspectionDto dto = new DieBondingInspectionDto();
+        dto.setSampleSize(b.getInt());
+        dto.setInspectionCriteria(string(b));
+        dto.setAlignmentPassRatio(b.getDouble());
+        dto.setVoidPassRatio(b.getDouble());
+        dto.setOverallPassRatio(b.getDouble());
+        return dto;
+    }
+
+    public static WireBondingDto wireBonding(ByteBuffer b) {
+        WireBondingDto dto = new WireBondingDto();
+        dto.setBondingTemp(b.getDouble());
+        dto.setBondingForce(b.getDouble());
+        dto.setUltrasonicPower(b.getDouble());
+        dto.setBondingTime(b.getDouble());
+        dto.setLoopHeight(b.getDouble());
+        dto.setBallDiameter(b.getDouble());
+        return dto;
+    }
+
+    public static WireBondingInspectionDto wireBondingInspection(ByteBuffer b) {
+        WireBondingInspectionDto dto = new WireBondingInspectionDto();
+        dto.setSampleSize(b.getInt());
+        dto.setInspectionCriteria(string(b));
+        dto.setPullTestPassRatio(b.getDouble());
+        dto.setShearTestPassRatio(b.getDouble());
+        dto.setXrayPassRatio(b.getDouble());
+        dto.setOverallPassRatio(b.getDouble());
+        return dto;
+    }
+
+    public static MoldingDto molding(ByteBuffer b) {
+        MoldingDto dto = new MoldingDto();
+        dto.setMoldTemp(b.getDouble());
+        dto.setInjectionPressure(b.getDouble());
+        dto.setCureTime(b.getDouble());
+        dto.setClampForce(b.getDouble());
+        return dto;
+    }
+
+    public static MoldingInspectionDto moldingInspection(ByteBuffer b) {
+        MoldingInspectionDto dto = new MoldingInspectionDto();
+        dto.setSampleSize(b.getInt());
+        dto.setInspectionCriteria(string(b));
+        dto.setThicknessPassRatio(b.getDouble());
+        dto.setVoidPassRatio(b.getDouble());
+        dto.setCrackPassRatio(b.getDouble());
+        dto.setOverallPassRatio(b.getDouble());
+        return dto;
+    }
+
+    public static ItemResDto item(ByteBuffer b) {
+        ItemResDto dto = new ItemResDto();
+        dto.setSerialNumber(string(b));
+        dto.setInspectionResult(string(b));
+        return dto;
+    }
+
+    // 끝의 int64 종료 시각(.NET ticks)은 서버 DTO 에 필드가 없어 읽고 버린다
+    public static FinalInspectionDto finalInspection(ByteBuffer b) {
+        FinalInspectionDto dto = new FinalInspectionDto();
+        dto.setElectrical(string(b));
+        dto.setReliability(string(b));
+        dto.setVisual(string(b));
+        dto.setFinalPass(string(b));
+        b.getLong();
+        return dto;
+    }
+
+    // 본문 전체가 LOT 번호
+    public static String inputLot(ByteBuffer b) {
+        byte[] bytes = new byte[b.remaining()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 설비 코드는 본문 값 대신 연결에 설정된 코드를 쓴다 (수집기와 동일)
+    public static EquipmentMetricUpdateReqDto equipmentMetric(ByteBuffer b, String equipmentCode) {
+        string(b);
+        double uph = b.getDouble();
+        double temperature = b.getDouble();
+        int progress = b.getInt();
+        return new EquipmentMetricUpdateReqDto(equipmentCode, (int) uph, temperature, progress);
+    }
+
+    static String string(ByteBuffer b) {
+        int len = b.getShort();
+        if (len <= 0) return null;
+        byte[] bytes = new byte[len];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.hm.mes_final_260106.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// L1 설비 TCP 프로토콜 상수 (MES_EQUIPMENT MachineSimulator 의 MsgType / DtoType 과 같은 값)
+//
+// 설비 → 수집기 프레임 (정수는 모두 little-endian)
+//   SOH(0x01) MsgType(1)
+//     Value(0x31)         : int16 값
+//     SingleData(0x32)    : int16 크기, DtoType(1), 본문(크기)
+//     ArrayData(0x33)     : int16 크기, { DtoType(1), 본문(크기), int16 다음 크기 } ... 크기 0 이하에서 끝
+//     ProductionEnd(0x34) : 본문 없음 (MES_MACHINE 은 SOH + MsgType 2바이트만 보낸다)
+// 수집기 → 설비 (작업 지시) : SOH(0x01) 0x31 int16 길이, 제품 코드(UTF-8)
+public final class L1Protocol {
+
+    private L1Protocol() {
+    }
+
+    public static final int SOH = 0x01;
+
+    // MsgType
+    public static final int MSG_VALUE = 0x31;
+    public static final int MSG_SINGLE_DATA = 0x32;
+    public static final int MSG_ARRAY_DATA = 0x33;
+    public static final int MSG_PRODUCTION_END = 0x34;
+
+    // DtoType
+    public static final int DTO_SLEEP = 0x30;
+    public static final int DTO_PROCESSING = 0x31;
+    public static final int DTO_DICING = 0x32;
+    public static final int DTO_DICING_INSPECTION = 0x33;
+    public static final int DTO_DIE_BONDING = 0x34;
+    public static final int DTO_DIE_BONDING_INSPECTION = 0x35;
+    public static final int DTO_WIRE_BONDING = 0x36;
+    public static final int DTO_WIRE_BONDING_INSPECTION = 0x37;
+    public static final int DTO_MOLDING = 0x38;
+    public static final int DTO_MOLDING_INSPECTION = 0x39;
+    public static final int DTO_ITEM = 0x3A;
+    public static final int DTO_FINAL_INSPECTION = 0x3B;
+    public static final int DTO_INPUT_LOT = 0x3C;
+    public static final int DTO_EQUIPMENT_METRIC = 0x3D;
+
+    // 본문 크기는 int16
+    public static final int MAX_PAYLOAD = Short.MAX_VALUE;
+
+    // 작업 지시 명령 (MachineSimulator.SendWorkOrderToDevice 와 같은 바이트)
+    public static ByteBuffer workOrderCommand(String productCode) {
+        byte[] body = productCode.getBytes(StandardCharsets.UTF_8);
+        if (body.length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("제품 코드가 너무 깁니다: " + body.length + " bytes");
+        }
+        ByteBuffer buf = ByteBuffer.allocate(4 + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put((byte) SOH).put((byte) MSG_VALUE).putShort((short) body.length).put(body);
+        return buf.flip();
+    }
+}
@@ -0,0 +1,184 @@
+package com.hm.mes_final_260106.gateway;
+
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricUpdateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import com.hm.mes_final_260106.dto.WorkOrderResDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.hm.mes_final_260106.gateway.L1Protocol.*;
+
+// L1 설비 연결 1개 : 프레임을 받아 생산 실적 DTO 를 조립한다 (MachineSimulator 의 수신 처리와 같은 규칙)
+// 디코딩은 selector 스레드에서만 하고, 완성된 보고 / 메트릭은 Handler 로 넘긴다.
+// 현재 작업지시는 작업 스레드(폴링 / 보고)와 공유하므로 volatile.
+@Slf4j
+public class L1Session implements L1FrameDecoder.Listener {
+
+    public interface Handler {
+        // 생산 종료 프레임으로 완성된 실적 1건
+        void report(L1Session session, ProductionLogCreateReqDto dto);
+
+        void metric(L1Session session, EquipmentMetricUpdateReqDto dto);
+    }
+
+    private final String equipmentCode;
+    private final InetSocketAddress address;
+    private final Handler handler;
+    private final L1FrameDecoder decoder = new L1FrameDecoder();
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+    SocketChannel channel;
+    long nextConnectAt;
+
+    private volatile boolean connected;
+    private volatile WorkOrderResDto currentWorkOrder;
+    private ProductionLogCreateReqDto pending = newReport();
+    private long reportSeq = System.currentTimeMillis();   // 수집기와 같이 시작 시각(ms)부터 증가
+
+    public L1Session(String equipmentCode, InetSocketAddress address, Handler handler) {
+        this.equipmentCode = equipmentCode;
+        this.address = address;
+        this.handler = handler;
+    }
+
+    // =========================
+    // 수신
+    // =========================
+    public void feed(ByteBuffer in) {
+        decoder.feed(in, this);
+    }
+
+    @Override
+    public void onValue(int value) {
+        // 설비 → 수집기 Value 프레임은 수집기도 쓰지 않는다
+    }
+
+    @Override
+    public void onData(int msgType, int dtoType, ByteBuffer payload) {
+        try {
+            if (msgType == MSG_SINGLE_DATA) onSingle(dtoType, payload);
+            else onArrayElement(dtoType, payload);
+        } catch (BufferUnderflowException e) {
+            log.warn("[L1 {}] DtoType 0x{} 본문이 짧습니다 ({} bytes)", equipmentCode,
+                    Integer.toHexString(dtoType), payload.limit());
+        }
+    }
+
+    private void onSingle(int dtoType, ByteBuffer payload) {
+        switch (dtoType) {
+            case DTO_DICING -> pending.setDicingDto(L1PayloadReader.dicing(payload));
+            case DTO_DICING_INSPECTION -> pending.setDicingInspectionDto(L1PayloadReader.dicingInspection(payload));
+            case DTO_DIE_BONDING -> pending.setDieBondingDto(L1PayloadReader.dieBonding(payload));
+            case DTO_DIE_BONDING_INSPECTION -> pending.setDieBondingInspectionDto(L1PayloadReader.dieBondingInspection(payload));
+            case DTO_WIRE_BONDING -> pending.setWireBondingDto(L1PayloadReader.wireBonding(payload));
+            case DTO_WIRE_BONDING_INSPECTION -> pending.setWireBondingInspectionDto(L1PayloadReader.wireBondingInspection(payload));
+            case DTO_MOLDING -> pending.setMoldingDto(L1PayloadReader.molding(payload));
+            case DTO_MOLDING_INSPECTION -> pending.setMoldingInspectionDto(L1PayloadReader.moldingInspection(payload));
+            case DTO_EQUIPMENT_METRIC -> handler.metric(this, L1PayloadReader.equipmentMetric(payload, equipmentCode));
+            default -> {
+                // Sleep / Processing 등은 상태 표시용
+            }
+        }
+    }
+
+    private void onArrayElement(int dtoType, ByteBuffer payload) {
+        switch (dtoType) {
+            case DTO_ITEM -> pending.getItemDtos().add(L1PayloadReader.item(payload));
+            case DTO_FINAL_INSPECTION -> pending.getFinalInspectionDtos().add(L1PayloadReader.finalInspection(payload));
+            case DTO_INPUT_LOT -> pending.getInputLots().add(L1PayloadReader.inputLot(payload));
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onProductionEnd() {
+        WorkOrderResDto order = currentWorkOrder;
+        if (order == null) {
+            // 수집기와 같이 버리지 않고 다음 종료 프레임까지 모아 둔다
+            log.warn("[L1 {}] 현재 작업 지시가 없어 생산 결과를 처리할 수 없습니다.", equipmentCode);
+            return;
+        }
+
+        ProductionLogCreateReqDto dto = pending;
+        pending = newReport();
+        dto.setWorkOrderNumber(order.getWorkOrderNumber());
+        dto.setEquipmentCode(equipmentCode);
+        dto.setReportSeq(++reportSeq);
+        dto.setResultQty(1);
+        dto.setStatus("DONE");
+        dto.setCategory("PRODUCTION");
+        dto.setLevel("INFO");
+        dto.setResultDate(LocalDate.now());
+        handler.report(this, dto);
+    }
+
+    private static ProductionLogCreateReqDto newReport() {
+        ProductionLogCreateReqDto dto = new ProductionLogCreateReqDto();
+        dto.setItemDtos(new ArrayList<>());
+        dto.setFinalInspectionDtos(new ArrayList<>());
+        dto.setInputLots(new ArrayList<>());
+        return dto;
+    }
+
+    // =========================
+    // 송신 / 연결 상태
+    // =========================
+    // 작업 지시 명령을 큐에 넣는다 (실제 쓰기는 selector 스레드)
+    public void sendWorkOrder(WorkOrderResDto order) {
+        currentWorkOrder = order;
+        outbound.add(workOrderCommand(order.getProductCode()));
+    }
+
+    // 보고가 끝나면 다음 폴링에서 새 작업 지시를 받는다
+    public void completeWorkOrder(String workOrderNumber) {
+        WorkOrderResDto order = currentWorkOrder;
+        if (order != null && order.getWorkOrderNumber().equals(workOrderNumber)) currentWorkOrder = null;
+    }
+
+    Queue<ByteBuffer> outbound() {
+        return outbound;
+    }
+
+    void connected() {
+        connected = true;
+    }
+
+    // 연결이 끊기면 조립 중이던 프레임 / 실적과 보내지 못한 명령을 버린다
+    // 작업 지시는 서버에 할당된 채로 남으므로 재연결 후 폴링에서 같은 지시를 다시 받는다
+    void disconnected() {
+        connected = false;
+        decoder.reset();
+        outbound.clear();
+        pending = newReport();
+        currentWorkOrder = null;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public WorkOrderResDto getCurrentWorkOrder() {
+        return currentWorkOrder;
+    }
+
+    public String getEquipmentCode() {
+        return equipmentCode;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    public L1FrameDecoder getDecoder() {
+        return decoder;
+    }
+}
@@ -3,6 +3,7 @@ package com.hm.mes_final_260106.repository;
 import com.hm.mes_final_260106.entity.Bom;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +14,8 @@ public interface BomRepository extends JpaRepository<Bom, Long> {
    List<Bom> findAllByOrderByProductIdAscRevisionDesc();
    Optional<Bom> findByProduct_CodeAndRevision(String code, int revision);
 
+   // 컴파일된 BOM 생성용 : 품목까지 한 번에 조회
+   @Query("SELECT b FROM Bom b LEFT JOIN FETCH b.items WHERE b.id = :id")
+   Optional<Bom> findWithItemsById(@Param("id") Long id);
+
 }
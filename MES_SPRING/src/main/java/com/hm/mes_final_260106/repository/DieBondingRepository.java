@@ -2,6 +2,13 @@ package com.hm.mes_final_260106.repository;
 
 import com.hm.mes_final_260106.entity.DieBonding;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface DieBondingRepository extends JpaRepository<DieBonding, Long> {
-}
\ No newline at end of file
+
+    // SPC 측정값 : [측정 시각, curingTemp, pickUpForce] (엔티티 로딩 없이 숫자 컬럼만)
+    @Query("SELECT COALESCE(pl.endTime, pl.startTime), x.curingTemp, x.pickUpForce FROM DieBonding x JOIN x.productionLog pl")
+    List<Object[]> findSpcValues();
+}
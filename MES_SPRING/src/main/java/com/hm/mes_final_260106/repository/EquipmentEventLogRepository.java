@@ -1,7 +1,11 @@
 package com.hm.mes_final_260106.repository;
 
+import com.hm.mes_final_260106.constant.EquipmentEventType;
 import com.hm.mes_final_260106.entity.EquipmentEventLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Arrays;
 import java.util.List;
@@ -17,6 +21,10 @@ public interface EquipmentEventLogRepository
 
     void deleteByEquipmentId(Long id);
 
+    // 유형별 최근 로그 (설비 함께 조회) : SPC 알람 등
+    @Query("SELECT e FROM EquipmentEventLog e JOIN FETCH e.equipment WHERE e.eventType = :type ORDER BY e.createdAt DESC, e.id DESC")
+    List<EquipmentEventLog> findRecentByEventType(@Param("type") EquipmentEventType type, Pageable pageable);
+
 
 
 
@@ -6,9 +6,20 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LotRepository extends JpaRepository<Lot, Long> {
 
     Optional<Lot> findByCode(String code);
+
+    // 투입 LOT 일괄 조회 : [id, code]
+    @Query("SELECT l.id, l.code FROM Lot l WHERE l.code IN :codes")
+    List<Object[]> findIdAndCodeByCodeIn(@Param("codes") Collection<String> codes);
+
+    // 투입 LOT 상태 일괄 변경
+    @Modifying
+    @Query("UPDATE Lot l SET l.status = :status WHERE l.id IN :ids")
+    int updateStatusByIdIn(@Param("status") String status, @Param("ids") Collection<Long> ids);
 }
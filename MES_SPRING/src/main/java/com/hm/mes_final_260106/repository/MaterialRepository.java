@@ -1,10 +1,23 @@
 package com.hm.mes_final_260106.repository;
 
 import com.hm.mes_final_260106.entity.Material;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface MaterialRepository extends JpaRepository<Material, Long> {
     Optional<Material> findByCode(String code);
+
+    // 재고를 직접 수정하는 경로(입고/불출/기준정보 수정)용 : 원장 flush 의 상대 UPDATE 와 겹쳐 덮어쓰지 않도록 행 잠금
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Material m WHERE m.code = :code")
+    Optional<Material> findByCodeForUpdate(@Param("code") String code);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Material m WHERE m.id = :id")
+    Optional<Material> findByIdForUpdate(@Param("id") Long id);
 }
@@ -2,6 +2,13 @@ package com.hm.mes_final_260106.repository;
 
 import com.hm.mes_final_260106.entity.Molding;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface MoldingRepository extends JpaRepository<Molding, Long> {
+
+    // SPC 측정값 : [측정 시각, moldTemp, injectionPressure] (엔티티 로딩 없이 숫자 컬럼만)
+    @Query("SELECT COALESCE(pl.endTime, pl.startTime), x.moldTemp, x.injectionPressure FROM Molding x JOIN x.productionLog pl")
+    List<Object[]> findSpcValues();
 }
@@ -0,0 +1,14 @@
+package com.hm.mes_final_260106.repository;
+
+import com.hm.mes_final_260106.entity.OeeShift;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OeeShiftRepository extends JpaRepository<OeeShift, Long> {
+
+    List<OeeShift> findByShiftStart(LocalDateTime shiftStart);
+
+    List<OeeShift> findByShiftStartBetweenOrderByShiftStartAsc(LocalDateTime from, LocalDateTime to);
+}
@@ -2,9 +2,15 @@ package com.hm.mes_final_260106.repository;
 
 import com.hm.mes_final_260106.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByCode(String code);
+
+    // OEE 기동 적재용 : [제품 id, 이상 사이클 타임(ms)] (지정된 제품만)
+    @Query("SELECT p.id, p.idealCycleMs FROM Product p WHERE p.idealCycleMs IS NOT NULL")
+    List<Object[]> findIdealCycles();
 }
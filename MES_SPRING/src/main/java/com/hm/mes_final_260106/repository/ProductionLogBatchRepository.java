@@ -0,0 +1,328 @@
+package com.hm.mes_final_260106.repository;
+// 생산 실적 일괄 저장용 JDBC 리포지토리
+// IDENTITY 전략에서는 Hibernate가 INSERT 배치를 끄기 때문에,
+// 실적 묶음(ProductionLog + 공정/검사 + Item/FinalInspection + LotMapping)은 JDBC 배치로 직접 저장한다.
+
+import com.hm.mes_final_260106.entity.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductionLogBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_PRODUCTION_LOG =
+            "INSERT INTO production_log (work_order_id, worker_id, equipment_id, process_step, lot_no, result_qty, defect_qty, " +
+                    "status, result_date, start_time, end_time, level, category, message, log_time, report_seq) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DICING =
+            "INSERT INTO dicing (production_log_id, spindle_speed, feed_rate, blade_wear, coolant_flow) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DICING_INSPECTION =
+            "INSERT INTO dicing_inspection (production_log_id, sample_size, inspection_criteria, thickness_pass_ratio, " +
+                    "chipping_pass_ratio, overall_pass_ratio) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DIE_BONDING =
+            "INSERT INTO die_bonding (production_log_id, pick_up_force, placement_accuracy, epoxy_dispense_volume, curing_temp) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DIE_BONDING_INSPECTION =
+            "INSERT INTO die_bonding_inspection (production_log_id, sample_size, inspection_criteria, alignment_pass_ratio, " +
+                    "void_pass_ratio, overall_pass_ratio) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_WIRE_BONDING =
+            "INSERT INTO wire_bonding (production_log_id, bonding_temp, bonding_force, ultrasonic_power, bonding_time, " +
+                    "loop_height, ball_diameter) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_WIRE_BONDING_INSPECTION =
+            "INSERT INTO wire_bonding_inspection (production_log_id, sample_size, inspection_criteria, pull_test_pass_ratio, " +
+                    "shear_test_pass_ratio, xray_pass_ratio, overall_pass_ratio) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_MOLDING =
+            "INSERT INTO molding (production_log_id, mold_temp, injection_pressure, cure_time, clamp_force) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_MOLDING_INSPECTION =
+            "INSERT INTO molding_inspection (production_log_id, sample_size, inspection_criteria, thickness_pass_ratio, " +
+                    "void_pass_ratio, crack_pass_ratio, overall_pass_ratio) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO item (serial_number, product_id, production_log_id, inspection_result, location) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_FINAL_INSPECTION =
+            "INSERT INTO final_inspection_log (production_log_id, item_id, electrical, reliability, visual, final_pass) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_LOT_MAPPING =
+            "INSERT INTO lot_mapping (production_log_id, lot_id) VALUES (?, ?)";
+
+    // 되돌릴 때는 참조하는 쪽부터 (final_inspection_log → item → ... → production_log)
+    private static final List<String> CHILD_TABLES = List.of(
+            "final_inspection_log", "item", "lot_mapping",
+            "dicing", "dicing_inspection", "die_bonding", "die_bonding_inspection",
+            "wire_bonding", "wire_bonding_inspection", "molding", "molding_inspection");
+
+    // =========================
+    // 실적 묶음 일괄 저장
+    // =========================
+    // ProductionLog에 연결된 하위 엔티티(dicing, items, lotMappings ...)를 따라가며
+    // 테이블별로 한 번씩 executeBatch 한다. 생성된 PK는 엔티티에 다시 세팅된다.
+    public void saveAll(List<ProductionLog> logs) {
+        if (logs.isEmpty()) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        insertWithKeys(INSERT_PRODUCTION_LOG, logs, ProductionLog::setId, (ps, pl) -> {
+            ps.setObject(1, pl.getWorkOrder().getId());
+            ps.setObject(2, pl.getWorker() != null ? pl.getWorker().getId() : null);
+            ps.setObject(3, pl.getEquipment() != null ? pl.getEquipment().getId() : null);
+            ps.setString(4, pl.getProcessStep());
+            ps.setString(5, pl.getLotNo());
+            ps.setObject(6, pl.getResultQty());
+            ps.setObject(7, pl.getDefectQty());
+            ps.setString(8, pl.getStatus() != null ? pl.getStatus().name() : null);
+            ps.setObject(9, pl.getResultDate());
+            ps.setObject(10, pl.getStartTime());
+            ps.setObject(11, pl.getEndTime());
+            ps.setString(12, pl.getLevel());
+            ps.setString(13, pl.getCategory());
+            ps.setString(14, pl.getMessage());
+            ps.setObject(15, now);
+            ps.setObject(16, pl.getReportSeq());
+            pl.setLogTime(now);
+        });
+
+        batch(INSERT_DICING, one(logs, ProductionLog::getDicing), (ps, d) -> {
+            ps.setLong(1, d.getProductionLog().getId());
+            ps.setObject(2, d.getSpindleSpeed());
+            ps.setObject(3, d.getFeedRate());
+            ps.setObject(4, d.getBladeWear());
+            ps.setObject(5, d.getCoolantFlow());
+        });
+
+        batch(INSERT_DICING_INSPECTION, one(logs, ProductionLog::getDicingInspection), (ps, di) -> {
+            ps.setLong(1, di.getProductionLog().getId());
+            ps.setObject(2, di.getSampleSize());
+            ps.setString(3, di.getInspectionCriteria());
+            ps.setObject(4, di.getThicknessPassRatio());
+            ps.setObject(5, di.getChippingPassRatio());
+            ps.setObject(6, di.getOverallPassRatio());
+        });
+
+        batch(INSERT_DIE_BONDING, one(logs, ProductionLog::getDieBonding), (ps, db) -> {
+            ps.setLong(1, db.getProductionLog().getId());
+            ps.setObject(2, db.getPickUpForce());
+            ps.setObject(3, db.getPlacementAccuracy());
+            ps.setObject(4, db.getEpoxyDispenseVolume());
+            ps.setObject(5, db.getCuringTemp());
+        });
+
+        batch(INSERT_DIE_BONDING_INSPECTION, one(logs, ProductionLog::getDieBondingInspection), (ps, dbi) -> {
+            ps.setLong(1, dbi.getProductionLog().getId());
+            ps.setObject(2, dbi.getSampleSize());
+            ps.setString(3, dbi.getInspectionCriteria());
+            ps.setObject(4, dbi.getAlignmentPassRatio());
+            ps.setObject(5, dbi.getVoidPassRatio());
+            ps.setObject(6, dbi.getOverallPassRatio());
+        });
+
+        batch(INSERT_WIRE_BONDING, one(logs, ProductionLog::getWireBonding), (ps, wb) -> {
+            ps.setLong(1, wb.getProductionLog().getId());
+            ps.setObject(2, wb.getBondingTemp());
+            ps.setObject(3, wb.getBondingForce());
+            ps.setObject(4, wb.getUltrasonicPower());
+            ps.setObject(5, wb.getBondingTime());
+            ps.setObject(6, wb.getLoopHeight());
+            ps.setObject(7, wb.getBallDiameter());
+        });
+
+        batch(INSERT_WIRE_BONDING_INSPECTION, one(logs, ProductionLog::getWireBondingInspection), (ps, wbi) -> {
+            ps.setLong(1, wbi.getProductionLog().getId());
+            ps.setObject(2, wbi.getSampleSize());
+            ps.setString(3, wbi.getInspectionCriteria());
+            ps.setObject(4, wbi.getPullTestPassRatio());
+            ps.setObject(5, wbi.getShearTestPassRatio());
+            ps.setObject(6, wbi.getXrayPassRatio());
+            ps.setObject(7, wbi.getOverallPassRatio());
+        });
+
+        batch(INSERT_MOLDING, one(logs, ProductionLog::getMolding), (ps, md) -> {
+            ps.setLong(1, md.getProductionLog().getId());
+            ps.setObject(2, md.getMoldTemp());
+            ps.setObject(3, md.getInjectionPressure());
+            ps.setObject(4, md.getCureTime());
+            ps.setObject(5, md.getClampForce());
+        });
+
+        batch(INSERT_MOLDING_INSPECTION, one(logs, ProductionLog::getMoldingInspection), (ps, mi) -> {
+            ps.setLong(1, mi.getProductionLog().getId());
+            ps.setObject(2, mi.getSampleSize());
+            ps.setString(3, mi.getInspectionCriteria());
+            ps.setObject(4, mi.getThicknessPassRatio());
+            ps.setObject(5, mi.getVoidPassRatio());
+            ps.setObject(6, mi.getCrackPassRatio());
+            ps.setObject(7, mi.getOverallPassRatio());
+        });
+
+        // Item은 FinalInspection이 참조하므로 PK를 돌려받아야 한다
+        insertWithKeys(INSERT_ITEM, many(logs, ProductionLog::getItems), Item::setId, (ps, item) -> {
+            ps.setString(1, item.getSerialNumber());
+            ps.setLong(2, item.getProduct().getId());
+            ps.setLong(3, item.getProductionLog().getId());
+            ps.setString(4, item.getInspectionResult());
+            ps.setString(5, item.getLocation());
+        });
+
+        batch(INSERT_FINAL_INSPECTION, many(logs, ProductionLog::getFinalInspections), (ps, fi) -> {
+            ps.setLong(1, fi.getProductionLog().getId());
+            ps.setLong(2, fi.getItem().getId());
+            ps.setString(3, fi.getElectrical());
+            ps.setString(4, fi.getReliability());
+            ps.setString(5, fi.getVisual());
+            ps.setString(6, fi.getFinalPass());
+        });
+
+        saveLotMappings(many(logs, ProductionLog::getLotMappings));
+    }
+
+    // LOT 매핑만 일괄 저장 (단건 보고 경로에서도 사용)
+    public void saveLotMappings(List<LotMapping> lotMappings) {
+        batch(INSERT_LOT_MAPPING, lotMappings, (ps, lm) -> {
+            ps.setLong(1, lm.getProductionLog().getId());
+            ps.setLong(2, lm.getLot().getId());
+        });
+    }
+
+    // =========================
+    // 건별 실패 분리 저장
+    // =========================
+    // 묶음 전체를 savepoint 안에서 한 번에 저장하고, 실패하면 savepoint 로 되돌린 뒤 한 건씩 다시 저장한다.
+    // 제약 조건 / FK 위반 1건이 묶음 전체를 실패시키지 않도록, 저장하지 못한 실적과 원인을 돌려준다.
+    // 호출 측 트랜잭션 안에서만 쓴다 (savepoint 는 트랜잭션이 묶인 커넥션에 건다)
+    public Map<ProductionLog, RuntimeException> saveAllIsolated(List<ProductionLog> logs) {
+        Map<ProductionLog, RuntimeException> failed = new IdentityHashMap<>();
+        if (logs.isEmpty()) return failed;
+
+        try {
+            inSavepoint(() -> saveAll(logs));
+            return failed;
+        } catch (RuntimeException e) {
+            clearIds(logs);
+        }
+
+        for (ProductionLog pl : logs) {
+            try {
+                inSavepoint(() -> saveAll(List.of(pl)));
+            } catch (RuntimeException e) {
+                clearIds(List.of(pl));
+                failed.put(pl, e);
+            }
+        }
+        return failed;
+    }
+
+    // 저장한 실적 묶음을 하위 행까지 삭제 (저장 후 후속 처리에 실패한 보고 되돌리기)
+    public void deleteAll(List<ProductionLog> logs) {
+        List<Long> ids = logs.stream().map(ProductionLog::getId).filter(Objects::nonNull).toList();
+        if (ids.isEmpty()) return;
+
+        for (String table : CHILD_TABLES) {
+            batch("DELETE FROM " + table + " WHERE production_log_id = ?", ids, (ps, id) -> ps.setLong(1, id));
+        }
+        batch("DELETE FROM production_log WHERE id = ?", ids, (ps, id) -> ps.setLong(1, id));
+        clearIds(logs);
+    }
+
+    // ----- 내부 헬퍼 -----
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface KeySetter<T> {
+        void set(T row, Long id);
+    }
+
+    // 실패 시 savepoint 까지 되돌리고 예외를 그대로 던진다
+    private void inSavepoint(Runnable work) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            Savepoint savepoint = con.setSavepoint();
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                con.rollback(savepoint);
+                throw e;
+            }
+            con.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    // 되돌린 행의 PK 가 엔티티에 남지 않도록 (insertWithKeys 로 받은 PK)
+    private static void clearIds(List<ProductionLog> logs) {
+        for (ProductionLog pl : logs) {
+            pl.setId(null);
+            if (pl.getItems() != null) pl.getItems().forEach(item -> item.setId(null));
+        }
+    }
+
+    private <T> void batch(String sql, List<T> rows, RowBinder<T> binder) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), binder::bind);
+    }
+
+    // executeBatch 후 getGeneratedKeys 로 PK를 순서대로 받아온다 (MySQL Connector/J 지원)
+    private <T> void insertWithKeys(String sql, List<T> rows, KeySetter<T> keySetter, RowBinder<T> binder) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (T row : rows) {
+                    binder.bind(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < rows.size()) {
+                        keySetter.set(rows.get(i++), keys.getLong(1));
+                    }
+                    if (i != rows.size()) {
+                        throw new SQLException("생성된 키 개수가 일치하지 않습니다. expected=" + rows.size() + ", actual=" + i);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static <T> List<T> one(List<ProductionLog> logs, Function<ProductionLog, T> getter) {
+        return logs.stream().map(getter).filter(Objects::nonNull).toList();
+    }
+
+    private static <T> List<T> many(List<ProductionLog> logs, Function<ProductionLog, List<T>> getter) {
+        List<T> rows = new ArrayList<>();
+        for (ProductionLog pl : logs) {
+            List<T> children = getter.apply(pl);
+            if (children != null) rows.addAll(children);
+        }
+        return rows;
+    }
+}
@@ -1,6 +1,7 @@
 // src/main/java/com/hm/mes_final_260106/repository/ProductionLogRepository.java
 package com.hm.mes_final_260106.repository;
 
+import com.hm.mes_final_260106.constant.ProductionStatus;
 import com.hm.mes_final_260106.entity.Equipment;
 import com.hm.mes_final_260106.entity.ProductionLog;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,15 +44,43 @@ public interface ProductionLogRepository extends JpaRepository<ProductionLog, Lo
 """)
     List<Object[]> findTodayHourlyCompletedOutput();
 
+    // 일자 / 시간 / 라인별 완료 실적 (HourlyProductionSeries 적재용) : [일자, 시, 라인, 수량]
+    @Query("""
+    SELECT pl.resultDate, HOUR(pl.endTime), wo.targetLine, SUM(pl.resultQty)
+    FROM ProductionLog pl JOIN pl.workOrder wo
+    WHERE pl.status = :status
+      AND pl.endTime IS NOT NULL
+      AND pl.resultDate BETWEEN :from AND :to
+    GROUP BY pl.resultDate, HOUR(pl.endTime), wo.targetLine
+""")
+    List<Object[]> sumOutputByDateHourLine(@Param("status") ProductionStatus status,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to);
+
+
+    // 이미 반영된 보고 순번 조회 (중복 보고 판별, 설비코드 + ":" + 순번)
+    @Query("""
+        SELECT CONCAT(e.code, ':', pl.reportSeq)
+        FROM ProductionLog pl JOIN pl.equipment e
+        WHERE pl.reportSeq IN :seqs
+    """)
+    List<String> findReportKeysBySeqIn(@Param("seqs") List<Long> seqs);
 
-    //dashboard-wip-balance
+    // 진행 중인 작업지시의 공정별 보고 수량 합 (WipTracker 기동 시 적재용) : [작업지시 id, processStep, 공정 단계, 수량]
+    // processStep 이 없는 보고는 포함된 공정 데이터 중 가장 뒤 공정으로 본다 (0 Dicing ~ 3 Molding, -1 없음)
     @Query("""
-        SELECT pl.processStep, SUM(pl.resultQty)
-        FROM ProductionLog pl
-        WHERE pl.resultDate = (
-            SELECT MAX(pl2.resultDate) FROM ProductionLog pl2
-        )
-        GROUP BY pl.processStep
+        SELECT wo.id, pl.processStep,
+               CASE WHEN m.id IS NOT NULL THEN 3 WHEN w.id IS NOT NULL THEN 2
+                    WHEN db.id IS NOT NULL THEN 1 WHEN d.id IS NOT NULL THEN 0 ELSE -1 END,
+               SUM(pl.resultQty)
+        FROM ProductionLog pl JOIN pl.workOrder wo
+             LEFT JOIN pl.dicing d LEFT JOIN pl.dieBonding db
+             LEFT JOIN pl.wireBonding w LEFT JOIN pl.molding m
+        WHERE wo.status <> :closedStatus
+          AND pl.resultQty IS NOT NULL
+        GROUP BY wo.id, pl.processStep,
+               CASE WHEN m.id IS NOT NULL THEN 3 WHEN w.id IS NOT NULL THEN 2
+                    WHEN db.id IS NOT NULL THEN 1 WHEN d.id IS NOT NULL THEN 0 ELSE -1 END
     """)
-    List<Object[]> findWipBalanceByProcess();
+    List<Object[]> sumOpenOutputByOrderAndStep(@Param("closedStatus") String closedStatus);
 }
@@ -0,0 +1,14 @@
+package com.hm.mes_final_260106.repository;
+
+import com.hm.mes_final_260106.entity.SpcBackfillCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SpcBackfillCheckpointRepository extends JpaRepository<SpcBackfillCheckpoint, Long> {
+
+    Optional<SpcBackfillCheckpoint> findByProcessNameAndCheckItem(String processName, String checkItem);
+
+    List<SpcBackfillCheckpoint> findAllByOrderByProcessNameAscCheckItemAsc();
+}
@@ -0,0 +1,50 @@
+package com.hm.mes_final_260106.repository;
+
+import com.hm.mes_final_260106.constant.SpcMetric;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// SPC 측정값 기간 조회 (JDBC)
+// 측정 시각은 COALESCE(end_time, start_time). 기간 조건을 end_time / start_time 각각의 범위로 나눠
+// idx_production_log_end_time / idx_production_log_start_time 인덱스로 범위 스캔하게 한다.
+// 행은 드라이버 스트리밍으로 하나씩 콜백에 넘긴다 (구간이 길어도 결과 전체를 메모리에 올리지 않음).
+@Repository
+@RequiredArgsConstructor
+public class SpcHistoryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @FunctionalInterface
+    public interface PointSink {
+        void accept(long epochMillis, double value);
+    }
+
+    // [from, to) 구간 측정값을 시간 순으로 전달
+    public void streamRange(SpcMetric metric, LocalDateTime from, LocalDateTime to, PointSink sink) {
+        String sql = "SELECT COALESCE(pl.end_time, pl.start_time) AS t, x." + metric.getColumn() + " AS v " +
+                "FROM " + metric.getTable() + " x JOIN production_log pl ON pl.id = x.production_log_id " +
+                "WHERE x." + metric.getColumn() + " IS NOT NULL " +
+                "AND ((pl.end_time >= ? AND pl.end_time < ?) " +
+                "  OR (pl.end_time IS NULL AND pl.start_time >= ? AND pl.start_time < ?)) " +
+                "ORDER BY t";
+
+        Timestamp f = Timestamp.valueOf(from);
+        Timestamp t = Timestamp.valueOf(to);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(Integer.MIN_VALUE);   // MySQL Connector/J 행 단위 스트리밍
+            ps.setTimestamp(1, f);
+            ps.setTimestamp(2, t);
+            ps.setTimestamp(3, f);
+            ps.setTimestamp(4, t);
+            return ps;
+        }, rs -> {
+            sink.accept(rs.getTimestamp(1).getTime(), rs.getDouble(2));
+        });
+    }
+}
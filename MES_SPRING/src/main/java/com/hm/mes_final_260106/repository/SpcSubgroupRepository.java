@@ -0,0 +1,28 @@
+package com.hm.mes_final_260106.repository;
+
+import com.hm.mes_final_260106.entity.SpcSubgroup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SpcSubgroupRepository extends JpaRepository<SpcSubgroup, Long> {
+
+    // 항목별 최근 부분군 (크기 n 인 것만, 최신순) : idx_spc_subgroup_item
+    @Query("SELECT s FROM SpcSubgroup s " +
+            "WHERE s.processName = :processName AND s.checkItem = :checkItem AND s.sampleSize = :sampleSize " +
+            "ORDER BY s.id DESC")
+    List<SpcSubgroup> findRecent(@Param("processName") String processName,
+                                 @Param("checkItem") String checkItem,
+                                 @Param("sampleSize") int sampleSize,
+                                 Pageable pageable);
+
+    // 작업지시별 마지막 부분군 번호 (재기동 후 번호 이어 붙이기)
+    @Query("SELECT COALESCE(MAX(s.subgroupNo), 0) FROM SpcSubgroup s " +
+            "WHERE s.processName = :processName AND s.checkItem = :checkItem AND s.workOrderId = :workOrderId")
+    int findLastSubgroupNo(@Param("processName") String processName,
+                           @Param("checkItem") String checkItem,
+                           @Param("workOrderId") Long workOrderId);
+}
@@ -0,0 +1,12 @@
+package com.hm.mes_final_260106.repository;
+
+import com.hm.mes_final_260106.entity.WipSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WipSnapshotRepository extends JpaRepository<WipSnapshot, Long> {
+
+    List<WipSnapshot> findBySnapshotTimeBetweenOrderBySnapshotTimeAsc(LocalDateTime from, LocalDateTime to);
+}
@@ -2,6 +2,13 @@ package com.hm.mes_final_260106.repository;
 
 import com.hm.mes_final_260106.entity.WireBonding;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface WireBondingRepository extends JpaRepository<WireBonding, Long> {
+
+    // SPC 측정값 : [측정 시각, bondingTemp, bondingForce] (엔티티 로딩 없이 숫자 컬럼만)
+    @Query("SELECT COALESCE(pl.endTime, pl.startTime), x.bondingTemp, x.bondingForce FROM WireBonding x JOIN x.productionLog pl")
+    List<Object[]> findSpcValues();
 }
@@ -3,6 +3,7 @@ package com.hm.mes_final_260106.repository;
 import com.hm.mes_final_260106.entity.WorkOrder;
 import org.hibernate.jdbc.Work;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -23,7 +24,17 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long> {
 
     Optional<WorkOrder> findFirstByStatusOrderByIdAsc(String status);
 
-    Optional<WorkOrder> findFirstByStatusAndAssignedMachineIdIsNullOrderByIdAsc(String status);
+    // 선점 : 진행 중 + 미할당 중 가장 오래된 1건에 설비를 지정한다 (영향 행 1 = 선점, 0 = 줄 작업 없음)
+    // UPDATE 는 잠금 읽기라 스냅샷이 아닌 최신 커밋 행을 본다. 같은 행을 두고 부딪히면 행 락을 기다렸다가
+    // 이미 할당된 행은 건너뛰고 다음 행을 잡는다. id = LAST_INSERT_ID(id) 는 값을 바꾸지 않고 선점한 id 를 연결에 남긴다 (MySQL)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE work_order SET assigned_machine_id = :equipmentCode, id = LAST_INSERT_ID(id) " +
+            "WHERE status = 'IN_PROGRESS' AND assigned_machine_id IS NULL ORDER BY id LIMIT 1", nativeQuery = true)
+    int claimOldestUnassigned(@Param("equipmentCode") String equipmentCode);
+
+    // 직전 claimOldestUnassigned 가 선점한 작업지시 id (같은 연결 = 같은 트랜잭션 안에서만 유효)
+    @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+    Long lastClaimedId();
 
     Optional<WorkOrder> findByStatusAndAssignedMachineId(String status, String assignedMachineId);
 
@@ -35,6 +46,15 @@ public interface WorkOrderRepository extends JpaRepository<WorkOrder, Long> {
     );
     List<WorkOrder> findByStartDateBetween(LocalDateTime start, LocalDateTime end);
 
+    // 시간대별 계획 분배용 : [from, to) 와 겹치는 시작된 작업지시 (id, 라인, 목표 수량, 시작, 종료)
+    // 종료일이 없으면 시작 + 12시간까지로 보므로 openFrom = from - 12h 이후 시작분만
+    @Query("SELECT wo.id, wo.targetLine, wo.targetQty, wo.startDate, wo.endDate FROM WorkOrder wo " +
+            "WHERE wo.startDate IS NOT NULL AND wo.startDate < :to " +
+            "AND (wo.endDate > :from OR (wo.endDate IS NULL AND wo.startDate > :openFrom))")
+    List<Object[]> findPlanSpans(@Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("openFrom") LocalDateTime openFrom);
+
     // ▼ [선택 수정] 만약 이 메서드 결과로도 화면에 품목명(Product)을 띄운다면 여기도 FETCH를 추가해야 합니다.
     @Query("SELECT wo FROM WorkOrder wo " +
             "JOIN FETCH wo.bom b " +
@@ -0,0 +1,54 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.entity.Bom;
+import com.hm.mes_final_260106.entity.BomItem;
+import com.hm.mes_final_260106.repository.BomRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 컴파일된 BOM 캐시 (Backflush 용)
+// BOM 1건(= 리비전 1건)을 (자재 id, 소요량) 배열로 한 번만 펼쳐 두고, 생산 보고마다 BOM 조회 없이 재사용한다.
+// BOM 리비전은 행 단위로 새로 생기므로 bom id 가 곧 (제품, 리비전) 키다. MasterDataService.updateBom 에서 무효화.
+@Component
+@RequiredArgsConstructor
+public class CompiledBomCache {
+
+    private final BomRepository bomRepo;
+
+    private final Map<Long, CompiledBom> cache = new ConcurrentHashMap<>();
+
+    // 불변 BOM : materialIds[i] 자재를 제품 1개당 requiredQtys[i] 만큼 소모
+    public record CompiledBom(long bomId, int revision, long productId, long[] materialIds, int[] requiredQtys) {
+        public int size() {
+            return materialIds.length;
+        }
+    }
+
+    public CompiledBom get(Long bomId) {
+        return cache.computeIfAbsent(bomId, this::compile);
+    }
+
+    public void invalidate(Long bomId) {
+        cache.remove(bomId);
+    }
+
+    private CompiledBom compile(Long bomId) {
+        Bom bom = bomRepo.findWithItemsById(bomId)
+                .orElseThrow(() -> new EntityNotFoundException("BOM을 찾을 수 없습니다: " + bomId));
+
+        List<BomItem> items = bom.getItems();
+        long[] materialIds = new long[items.size()];
+        int[] requiredQtys = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            // 연관 프록시의 id 만 꺼내므로 Material 은 로딩되지 않는다
+            materialIds[i] = items.get(i).getMaterial().getId();
+            requiredQtys[i] = items.get(i).getRequiredQty();
+        }
+        return new CompiledBom(bom.getId(), bom.getRevision(), bom.getProduct().getId(), materialIds, requiredQtys);
+    }
+}
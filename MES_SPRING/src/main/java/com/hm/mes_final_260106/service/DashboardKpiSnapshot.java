@@ -0,0 +1,127 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.EquipmentStatus;
+import com.hm.mes_final_260106.dto.dashboard.DashboardSummaryResDto;
+import com.hm.mes_final_260106.repository.EquipmentRepository;
+import com.hm.mes_final_260106.repository.ProductionResultRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 대시보드 KPI 스냅샷
+// /dashboard/summary 요청마다 집계 쿼리 5개(오늘 / 어제 실적, 수율, 설비 수, RUN / DOWN 수)를 돌리던 것을
+// 미리 계산한 불변 스냅샷 1개로 응답한다. 화면이 몇 개 열려 있든 DB 부하는 재계산 주기만큼만 든다.
+//  - 실적 반영(ProductionResultAggregator flush), 설비 등록 / 수정 / 삭제 / 상태 변경 시 markDirty → 다음 주기에 재계산
+//  - 변경이 없어도 mes.dashboard.kpi-max-age-ms 마다 재계산 (날짜가 바뀌는 경우 등)
+//  - 내용이 바뀔 때만 버전(ETag)이 올라가므로 클라이언트는 If-None-Match 로 304 를 받는다 (바뀐 스냅샷은 SSE kpi 토픽으로도 push)
+@Component
+@Slf4j
+public class DashboardKpiSnapshot {
+
+    public record Snapshot(DashboardSummaryResDto summary, String etag, LocalDateTime computedAt) {}
+
+    private final ProductionResultRepository productionResultRepo;
+    private final EquipmentRepository equipmentRepo;
+    private final LivePushHub pushHub;
+    private final long maxAgeMillis;
+
+    // 재기동 후 이전 프로세스의 ETag 와 겹치지 않도록 기동 시각을 접두어로 쓴다
+    private final String etagPrefix = Long.toString(System.currentTimeMillis(), 36);
+    private long version;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private volatile boolean dirty = true;
+    private volatile long computedAtMillis;
+
+    public DashboardKpiSnapshot(ProductionResultRepository productionResultRepo,
+                                EquipmentRepository equipmentRepo,
+                                LivePushHub pushHub,
+                                @Value("${mes.dashboard.kpi-max-age-ms:30000}") long maxAgeMillis) {
+        this.productionResultRepo = productionResultRepo;
+        this.equipmentRepo = equipmentRepo;
+        this.pushHub = pushHub;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    // =========================
+    // 조회 : 스냅샷 참조만 읽는다 (첫 요청만 직접 계산)
+    // =========================
+    public Snapshot get() {
+        Snapshot s = current.get();
+        return s != null ? s : refresh();
+    }
+
+    // 관련 데이터 변경 (트랜잭션 안이면 커밋 후 반영, 재계산은 다음 주기에 한 번으로 모인다)
+    public void markDirty() {
+        TransactionHooks.afterCommit(() -> dirty = true);
+    }
+
+    @Scheduled(fixedDelayString = "${mes.dashboard.kpi-refresh-ms:1000}")
+    public void refreshIfStale() {
+        if (dirty || System.currentTimeMillis() - computedAtMillis >= maxAgeMillis) {
+            refresh();
+        }
+    }
+
+    // 계산 후 참조 교체 (내용이 같으면 이전 스냅샷 / ETag 유지)
+    public synchronized Snapshot refresh() {
+        dirty = false;
+        DashboardSummaryResDto summary = compute();
+        computedAtMillis = System.currentTimeMillis();
+
+        Snapshot prev = current.get();
+        if (prev != null && prev.summary().equals(summary)) {
+            return prev;
+        }
+        Snapshot next = new Snapshot(summary, "\"kpi-" + etagPrefix + "-" + (++version) + "\"", LocalDateTime.now());
+        current.set(next);
+        pushHub.publish(LivePushHub.TOPIC_KPI, LivePushHub.TOPIC_KPI, summary);
+        log.debug("대시보드 KPI 스냅샷 갱신 : {}", next.etag());
+        return next;
+    }
+
+    private DashboardSummaryResDto compute() {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+
+        int todayOut = productionResultRepo.sumOutputByDate(today);
+        int yesterdayOut = productionResultRepo.sumOutputByDate(yesterday);
+        double waferTrend = trend(todayOut, yesterdayOut);
+
+        double todayYield = productionResultRepo.avgYieldByDate(today);
+        double yesterdayYield = productionResultRepo.avgYieldByDate(yesterday);
+        double yieldTrend = trend(todayYield, yesterdayYield);
+
+        int totalEquip = (int) equipmentRepo.count();
+        int runningEquip = equipmentRepo.countByStatus(EquipmentStatus.RUN);
+        double utilization = totalEquip == 0
+                ? 0
+                : (runningEquip * 100.0 / totalEquip);
+
+        int issues = equipmentRepo.countByStatus(EquipmentStatus.DOWN);
+
+        return DashboardSummaryResDto.builder()
+                .waferOut(todayOut)
+                .waferOutTrend(waferTrend)
+                .yield(round1(todayYield))
+                .yieldTrend(yieldTrend)
+                .utilization(round1(utilization))
+                .utilizationTrend(0) // TODO 추후 계산
+                .issues(issues)
+                .build();
+    }
+
+    private double trend(double today, double yesterday) {
+        if (yesterday == 0) return 0;
+        return round1((today - yesterday) / yesterday * 100);
+    }
+
+    private double round1(double v) {
+        return Math.round(v * 10) / 10.0;
+    }
+}
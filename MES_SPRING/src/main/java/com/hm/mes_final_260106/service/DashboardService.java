@@ -1,176 +1,123 @@
 package com.hm.mes_final_260106.service;
 
 import com.hm.mes_final_260106.constant.EquipmentStatus;
+import com.hm.mes_final_260106.constant.ProcessStep;
 import com.hm.mes_final_260106.dto.dashboard.*;
 import com.hm.mes_final_260106.dto.equipment.EquipmentAlertDto;
-import com.hm.mes_final_260106.entity.WorkOrder;
+import com.hm.mes_final_260106.entity.WipSnapshot;
 import com.hm.mes_final_260106.repository.EquipmentRepository;
-import com.hm.mes_final_260106.repository.ProductionLogRepository;
-import com.hm.mes_final_260106.repository.ProductionResultRepository;
-import com.hm.mes_final_260106.repository.WorkOrderRepository;
+import com.hm.mes_final_260106.repository.WipSnapshotRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-    private final ProductionResultRepository productionResultRepo;
     private final EquipmentRepository equipmentRepo;
-    private final ProductionLogRepository productionLogRepo;
-    private final WorkOrderRepository workorderRepo;
+    private final DashboardKpiSnapshot kpiSnapshot;
+    private final HourlyProductionSeries hourlySeries;
+    private final WipTracker wipTracker;
+    private final WipSnapshotRepository wipSnapshotRepo;
 
     /* ================= KPI SUMMARY ================= */
 
-    @Transactional(readOnly = true)
-    public DashboardSummaryResDto getSummary() {
-
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-
-        int todayOut = productionResultRepo.sumOutputByDate(today);
-        int yesterdayOut = productionResultRepo.sumOutputByDate(yesterday);
-        double waferTrend = trend(todayOut, yesterdayOut);
-
-        double todayYield = productionResultRepo.avgYieldByDate(today);
-        double yesterdayYield = productionResultRepo.avgYieldByDate(yesterday);
-        double yieldTrend = trend(todayYield, yesterdayYield);
-
-        int totalEquip = (int) equipmentRepo.count();
-        int runningEquip = equipmentRepo.countByStatus(EquipmentStatus.RUN);
-        double utilization = totalEquip == 0
-                ? 0
-                : (runningEquip * 100.0 / totalEquip);
-
-        int issues = equipmentRepo.countByStatus(EquipmentStatus.DOWN);
-
-        return DashboardSummaryResDto.builder()
-                .waferOut(todayOut)
-                .waferOutTrend(waferTrend)
-                .yield(round1(todayYield))
-                .yieldTrend(yieldTrend)
-                .utilization(round1(utilization))
-                .utilizationTrend(0) // TODO 추후 계산
-                .issues(issues)
-                .build();
-    }
-
-    private double trend(double today, double yesterday) {
-        if (yesterday == 0) return 0;
-        return round1((today - yesterday) / yesterday * 100);
+    // 미리 계산된 스냅샷 (DashboardKpiSnapshot) : 요청마다 집계 쿼리를 돌리지 않는다
+    public DashboardKpiSnapshot.Snapshot getSummarySnapshot() {
+        return kpiSnapshot.get();
     }
 
-    private double round1(double v) {
-        return Math.round(v * 10) / 10.0;
+    public DashboardSummaryResDto getSummary() {
+        return kpiSnapshot.get().summary();
     }
 
     /* ================= HOURLY PRODUCTION ================= */
 
-    @Transactional(readOnly = true)
-    public List<HourlyProductionResDto> getHourlyProduction() {
+    // 대시보드 기본 시간 슬롯 (해당 시각 1시간 값)
+    private static final List<Integer> DEFAULT_SLOTS = List.of(6, 8, 10, 12, 14, 16, 18);
 
-        // 대시보드와 동일한 시간 슬롯
-        final List<Integer> slots = List.of(6, 8, 10, 12, 14, 16, 18);
+    // HourlyProductionSeries 의 시간 배열만 읽는다 (작업지시 / production_log 재조회 없음)
+    public List<HourlyProductionResDto> getHourlyProduction() {
+        return getHourlyProduction(null, null, null);
+    }
 
-        /* ---------- 1) actual (실적) ---------- */
-        List<Object[]> rows = productionLogRepo.findTodayHourlyCompletedOutput();
+    // date 생략 = 오늘, line 생략 = 전체 라인
+    // slotHours 생략 = 기본 슬롯(06~18시 2시간 간격의 해당 시각 값), 지정 시 0시부터 slotHours 시간씩 합산
+    public List<HourlyProductionResDto> getHourlyProduction(LocalDate date, Integer slotHours, String line) {
+        if (slotHours != null && (slotHours < 1 || slotHours > 24)) {
+            throw new IllegalArgumentException("slotHours 는 1~24 이어야 합니다.");
+        }
+        long[][] series = hourlySeries.hourly(date != null ? date : LocalDate.now(), line);
+        long[] plan = series[0];
+        long[] actual = series[1];
 
-        Map<Integer, Integer> actualByHour = new HashMap<>();
-        if (rows != null) {
-            for (Object[] r : rows) {
-                if (r[0] != null && r[1] != null) {
-                    Integer hour = ((Number) r[0]).intValue();
-                    Integer qty  = ((Number) r[1]).intValue();
-                    actualByHour.put(hour, qty);
-                }
+        List<HourlyProductionResDto> result = new ArrayList<>();
+        if (slotHours == null) {
+            for (Integer h : DEFAULT_SLOTS) {
+                result.add(new HourlyProductionResDto(String.format("%02d:00", h), (int) plan[h], (int) actual[h]));
             }
+            return result;
         }
 
-        /* ---------- 2) plan (계획) : WorkOrder 기반 ---------- */
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(23, 59, 59);
-
-        List<WorkOrder> workOrders =
-                workorderRepo.findByStartDateBetween(startOfDay, endOfDay);
-
-        Map<Integer, Integer> planByHour = new HashMap<>();
-
-        for (WorkOrder wo : workOrders) {
-
-            LocalDateTime woStart = wo.getStartDate();
-            LocalDateTime woEnd = (wo.getEndDate() != null)
-                    ? wo.getEndDate()
-                    : woStart.plusHours(12); // 안전장치
-
-            long totalHours = ChronoUnit.HOURS.between(woStart, woEnd);
-            if (totalHours <= 0) continue;
-
-            int hourlyPlan = wo.getTargetQty() / (int) totalHours;
-
-            for (Integer h : slots) {
-                if (h >= woStart.getHour() && h < woEnd.getHour()) {
-                    planByHour.merge(h, hourlyPlan, Integer::sum);
-                }
+        for (int start = 0; start < 24; start += slotHours) {
+            long p = 0;
+            long a = 0;
+            for (int h = start; h < Math.min(24, start + slotHours); h++) {
+                p += plan[h];
+                a += actual[h];
             }
+            result.add(new HourlyProductionResDto(String.format("%02d:00", start), (int) p, (int) a));
         }
+        return result;
+    }
 
-        /* ---------- 3) DTO 생성 ---------- */
-        List<HourlyProductionResDto> result = new ArrayList<>();
-
-        for (Integer h : slots) {
+    /* ================= WIP BALANCE ================= */
 
-            int plan = planByHour.getOrDefault(h, 0);
-            int actual = actualByHour.getOrDefault(h, 0);
+    // 추이 조회 최대 기간
+    private static final int WIP_HISTORY_MAX_DAYS = 7;
 
-            result.add(new HourlyProductionResDto(
-                    String.format("%02d:00", h),
-                    plan,
-                    actual
-            ));
+    // WipTracker 의 공정별 합계만 읽는다 (production_log 재조회 없음), 수량 0 인 공정은 숨김
+    public List<WipBalanceResDto> getWipBalance() {
+        long[] balance = wipTracker.balance();
+        List<WipBalanceResDto> result = new ArrayList<>();
+        for (ProcessStep step : ProcessStep.values()) {
+            long count = balance[step.ordinal()];
+            if (count > 0) result.add(new WipBalanceResDto(step.getLabel(), count));
         }
-
         return result;
     }
 
-    /* ================= WIP BALANCE ================= */
-
+    // wip_snapshot 기반 추이 (from / to 생략 시 최근 24시간)
     @Transactional(readOnly = true)
-    public List<WipBalanceResDto> getWipBalance() {
-        List<Object[]> rows = productionLogRepo.findWipBalanceByProcess();
-
-        if (rows == null) {
-            return Collections.emptyList();
+    public List<WipHistoryResDto> getWipHistory(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from 은 to 보다 이전이어야 합니다.");
+        }
+        if (start.plusDays(WIP_HISTORY_MAX_DAYS).isBefore(end)) {
+            throw new IllegalArgumentException("WIP 추이는 최대 " + WIP_HISTORY_MAX_DAYS + "일까지 조회할 수 있습니다.");
         }
 
-        return rows.stream()
-                .map(r -> {
-                    String rawStep = (r[0] != null) ? r[0].toString() : "Unknown";
-                    long count = (r[1] != null) ? ((Number) r[1]).longValue() : 0L;
-
-                    // 1. 공정 명칭 변경 (원하는 한글/영문명으로 매핑)
-                    String mappedStep = switch (rawStep.toUpperCase()) {
-                        case "PHOTO" -> "DICING";
-                        case "ETCH" -> "DieBonding";
-                        case "CMP" -> "WireBonding";
-                        case "CLEAN" -> "Molding"; // 4번째 공정 예시
-                        case "UNKNOWN" -> "기타";
-                        default -> rawStep;
-                    };
-
-                    return new WipBalanceResDto(mappedStep, count);
-                })
-                // 2. 수치가 너무 적거나(예: 0개) '기타' 항목을 숨기고 싶다면 필터링 추가
-                .filter(dto -> dto.getCount() > 0 && !dto.getStep().equals("기타"))
-                .collect(Collectors.toList());
+        Map<LocalDateTime, WipHistoryResDto> points = new LinkedHashMap<>();
+        for (WipSnapshot snapshot : wipSnapshotRepo.findBySnapshotTimeBetweenOrderBySnapshotTimeAsc(start, end)) {
+            ProcessStep step = ProcessStep.from(snapshot.getStep());
+            if (step == null) continue;
+            points.computeIfAbsent(snapshot.getSnapshotTime(), t -> {
+                        Map<String, Long> counts = new LinkedHashMap<>();
+                        for (ProcessStep s : ProcessStep.values()) counts.put(s.getLabel(), 0L);
+                        return new WipHistoryResDto(t, counts);
+                    })
+                    .getCounts().put(step.getLabel(), snapshot.getQty());
+        }
+        return new ArrayList<>(points.values());
     }
+
     /* ================= REALTIME ALERT ================= */
 
     @Transactional(readOnly = true)
@@ -0,0 +1,182 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricBatchReqDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricBatchResDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricUpdateReqDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// 설비 메트릭 일괄 수집 : 여러 설비의 샘플 여러 건을 요청 1번으로 받아 EquipmentMetricStore 에 바로 쓴다
+// 샘플마다 DTO 를 만들지 않는다 (열 단위 배열 또는 바이너리 버퍼에서 값을 읽어 그대로 record).
+// 구독 화면에는 설비별 마지막 샘플만 push 한다 (배치 1건당 설비 수만큼).
+// 형식 / 코드 인덱스 / 설비 코드 검증은 쓰기 전에 배치 전체에 대해 끝낸다 → 400 이면 한 건도 쓰지 않은 것이다.
+//
+// 바이너리 형식 (little-endian)
+//   byte[2]  매직 'M','B'
+//   u8       버전 (1)
+//   u16      설비 코드 수 N
+//   N × { u16 길이, UTF-8 바이트 }          설비 코드 사전
+//   u32      샘플 수 M
+//   M × { u16 코드 인덱스, i64 epoch ms (0 = 수신 시각), f32 uph, f32 temperature, f32 progress }   샘플 1건 22바이트
+@Component
+public class EquipmentMetricIngestor {
+
+    public static final int BINARY_VERSION = 1;
+    private static final int SAMPLE_BYTES = 2 + 8 + 4 + 4 + 4;
+
+    private final EquipmentMetricStore metricStore;
+    private final LivePushHub pushHub;
+    private final int maxSamples;
+
+    public EquipmentMetricIngestor(EquipmentMetricStore metricStore,
+                                   LivePushHub pushHub,
+                                   @Value("${mes.metric.batch-max-samples:100000}") int maxSamples) {
+        this.metricStore = metricStore;
+        this.pushHub = pushHub;
+        this.maxSamples = maxSamples;
+    }
+
+    // 배치 1건 처리 중 설비별 마지막 샘플 (push 용)
+    private static final class Batch {
+        final String[] codes;
+        final EquipmentMetricStore.Series[] series;
+        final double[] lastUph;
+        final double[] lastTemperature;
+        final double[] lastProgress;
+        final boolean[] touched;
+        int accepted;
+        int rejected;
+
+        Batch(String[] codes, EquipmentMetricStore store) {
+            this.codes = codes;
+            this.series = new EquipmentMetricStore.Series[codes.length];
+            for (int i = 0; i < codes.length; i++) series[i] = store.seriesOf(codes[i]);
+            lastUph = new double[codes.length];
+            lastTemperature = new double[codes.length];
+            lastProgress = new double[codes.length];
+            touched = new boolean[codes.length];
+        }
+
+        // code 는 checkIndex 로 미리 검증된 값
+        void add(int code, long time, double uph, double temperature, double progress) {
+            if (!series[code].add(time, uph, temperature, progress)) {
+                rejected++;
+                return;
+            }
+            accepted++;
+            lastUph[code] = uph;
+            lastTemperature[code] = temperature;
+            lastProgress[code] = progress;
+            touched[code] = true;
+        }
+    }
+
+    // =========================
+    // 열 단위 JSON
+    // =========================
+    public EquipmentMetricBatchResDto ingest(EquipmentMetricBatchReqDto req) {
+        if (req.getCodes() == null || req.getEquipment() == null) {
+            throw new IllegalArgumentException("codes 와 equipment 는 필수입니다.");
+        }
+        int n = req.getEquipment().length;
+        checkSize(n);
+        if (length(req.getUph()) != n || length(req.getTemperature()) != n || length(req.getProgress()) != n
+                || (req.getTime() != null && req.getTime().length != n)) {
+            throw new IllegalArgumentException("equipment / time / uph / temperature / progress 배열 길이가 같아야 합니다.");
+        }
+        int[] equipment = req.getEquipment();
+        for (int code : equipment) checkIndex(code, req.getCodes().length);
+
+        Batch batch = new Batch(req.getCodes(), metricStore);
+        long now = System.currentTimeMillis();
+        long[] time = req.getTime();
+        double[] uph = req.getUph();
+        double[] temperature = req.getTemperature();
+        double[] progress = req.getProgress();
+        for (int i = 0; i < n; i++) {
+            batch.add(equipment[i], time != null && time[i] > 0 ? time[i] : now, uph[i], temperature[i], progress[i]);
+        }
+        return finish(batch);
+    }
+
+    // =========================
+    // 바이너리
+    // =========================
+    public EquipmentMetricBatchResDto ingest(byte[] body) {
+        ByteBuffer buf = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buf.get() != 'M' || buf.get() != 'B') {
+                throw new IllegalArgumentException("메트릭 배치 형식이 아닙니다 (매직 불일치).");
+            }
+            int version = Byte.toUnsignedInt(buf.get());
+            if (version != BINARY_VERSION) {
+                throw new IllegalArgumentException("지원하지 않는 메트릭 배치 버전입니다: " + version);
+            }
+
+            String[] codes = new String[Short.toUnsignedInt(buf.getShort())];
+            for (int i = 0; i < codes.length; i++) {
+                int len = Short.toUnsignedInt(buf.getShort());
+                if (len > buf.remaining()) throw new BufferUnderflowException();
+                codes[i] = new String(body, buf.position(), len, StandardCharsets.UTF_8);
+                buf.position(buf.position() + len);
+            }
+
+            long count = Integer.toUnsignedLong(buf.getInt());
+            checkSize(count);
+            if (count * SAMPLE_BYTES != buf.remaining()) {
+                throw new IllegalArgumentException("샘플 수(" + count + ")와 본문 길이가 맞지 않습니다.");
+            }
+            int base = buf.position();
+            for (long i = 0; i < count; i++) {
+                checkIndex(Short.toUnsignedInt(buf.getShort(base + (int) i * SAMPLE_BYTES)), codes.length);
+            }
+
+            Batch batch = new Batch(codes, metricStore);
+            long now = System.currentTimeMillis();
+            for (long i = 0; i < count; i++) {
+                int code = Short.toUnsignedInt(buf.getShort());
+                long time = buf.getLong();
+                float uph = buf.getFloat();
+                float temperature = buf.getFloat();
+                float progress = buf.getFloat();
+                batch.add(code, time > 0 ? time : now, uph, temperature, progress);
+            }
+            return finish(batch);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("메트릭 배치 본문이 잘렸습니다.");
+        }
+    }
+
+    private EquipmentMetricBatchResDto finish(Batch batch) {
+        int equipments = 0;
+        for (int i = 0; i < batch.codes.length; i++) {
+            if (!batch.touched[i]) continue;
+            equipments++;
+            pushHub.publish(LivePushHub.TOPIC_EQUIPMENT_METRIC, batch.codes[i],
+                    new EquipmentMetricUpdateReqDto(batch.codes[i], (int) batch.lastUph[i],
+                            batch.lastTemperature[i], (int) batch.lastProgress[i]));
+        }
+        return new EquipmentMetricBatchResDto(batch.accepted, batch.rejected, equipments);
+    }
+
+    private void checkSize(long samples) {
+        if (samples > maxSamples) {
+            throw new IllegalArgumentException("배치 1건의 샘플 수는 최대 " + maxSamples + "건입니다.");
+        }
+    }
+
+    private static void checkIndex(int code, int codes) {
+        if (code < 0 || code >= codes) {
+            throw new IllegalArgumentException("설비 코드 인덱스가 범위를 벗어났습니다: " + code);
+        }
+    }
+
+    private static int length(double[] values) {
+        return values == null ? -1 : values.length;
+    }
+}
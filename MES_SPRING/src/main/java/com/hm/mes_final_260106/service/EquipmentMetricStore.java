@@ -0,0 +1,225 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricSeriesDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 설비 실시간 메트릭(uph / 온도 / 진행도) 시계열 저장소
+// 설비별 최신 값 1건만 덮어쓰던 EquipmentService.equipmentData 를 대신해, 설비마다 고정 크기 원형 버퍼에 이력을 남긴다.
+//  - 버퍼 = long[] 시각 + double[] 값 3개 (박싱 없음). 설비당 메모리 = capacity × 32 바이트로 고정
+//  - 쓰기는 배열 칸에 값만 넣는다 (할당 없음). 버퍼가 차면 가장 오래된 샘플부터 덮어쓴다
+//  - 조회는 mes.metric.retention-ms 이내 샘플만 보고, 구간을 points 개 버킷(평균 / 최소 / 최대)으로 줄여서 돌려준다
+// 샘플은 시각 순서로만 쌓는다 (마지막 샘플보다 이른 샘플은 버림) → 구간 시작을 이진 탐색으로 찾는다.
+// 버퍼는 등록된 설비(ReferenceCache 로 확인)만 만든다. 설비 삭제 / 코드 변경 시 옛 코드의 버퍼는 버린다.
+@Component
+@Slf4j
+public class EquipmentMetricStore {
+
+    public static final String UPH = "uph";
+    public static final String TEMPERATURE = "temperature";
+    public static final String PROGRESS = "progress";
+    private static final List<String> METRICS = List.of(UPH, TEMPERATURE, PROGRESS);
+
+    private static final int MAX_POINTS = 2000;
+
+    private final int capacity;
+    private final long retentionMillis;
+    private final int maxEquipments;
+    private final ReferenceCache refCache;
+
+    // 설비 1대의 원형 버퍼 (접근은 synchronized (this))
+    static final class Series {
+        final long[] time;
+        final double[] uph;
+        final double[] temperature;
+        final double[] progress;
+        int head;       // 다음에 쓸 칸
+        int size;
+
+        Series(int capacity) {
+            time = new long[capacity];
+            uph = new double[capacity];
+            temperature = new double[capacity];
+            progress = new double[capacity];
+        }
+
+        synchronized boolean add(long t, double u, double temp, double prog) {
+            int cap = time.length;
+            if (size > 0 && t < time[(head - 1 + cap) % cap]) return false;
+            time[head] = t;
+            uph[head] = u;
+            temperature[head] = temp;
+            progress[head] = prog;
+            head = (head + 1) % cap;
+            if (size < cap) size++;
+            return true;
+        }
+
+        // 논리 위치(0 = 가장 오래된 샘플) → 배열 칸
+        int slot(int i) {
+            int cap = time.length;
+            return (head - size + i + cap) % cap;
+        }
+
+        // time >= t 인 첫 논리 위치
+        int lowerBound(long t) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (time[slot(mid)] < t) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        double[] values(String metric) {
+            return switch (metric) {
+                case UPH -> uph;
+                case PROGRESS -> progress;
+                default -> temperature;
+            };
+        }
+    }
+
+    // 최신 샘플 1건 (모니터링 카드용)
+    public record Latest(long time, double uph, double temperature, double progress) {}
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    public EquipmentMetricStore(ReferenceCache refCache,
+                                @Value("${mes.metric.capacity:7200}") int capacity,
+                                @Value("${mes.metric.retention-ms:7200000}") long retentionMillis,
+                                @Value("${mes.metric.max-equipments:500}") int maxEquipments) {
+        this.refCache = refCache;
+        this.capacity = capacity;
+        this.retentionMillis = retentionMillis;
+        this.maxEquipments = maxEquipments;
+        log.info("설비 메트릭 저장소 : 설비당 {}건 ({} KB), 보관 {}ms, 최대 {}대",
+                capacity, capacity * 32L / 1024, retentionMillis, maxEquipments);
+    }
+
+    // =========================
+    // 쓰기
+    // =========================
+    // false = 마지막 샘플보다 이른 시각이라 버림
+    public boolean record(String equipmentCode, long time, double uph, double temperature, double progress) {
+        return seriesOf(equipmentCode).add(time, uph, temperature, progress);
+    }
+
+    // 설비 코드당 버퍼는 처음 한 번만 만든다 (이후 쓰기는 조회 + 배열 대입뿐)
+    // 없는 설비 코드로 버퍼가 생겨 자리를 차지하지 않도록, 만들기 전에 등록 여부를 확인한다
+    Series seriesOf(String equipmentCode) {
+        Series s = series.get(equipmentCode);
+        if (s != null) return s;
+        if (equipmentCode == null || refCache.equipment(equipmentCode).isEmpty()) {
+            throw new IllegalArgumentException("등록되지 않은 설비입니다: " + equipmentCode);
+        }
+        if (series.size() >= maxEquipments) {
+            throw new IllegalArgumentException("메트릭 저장 설비 수가 최대치(" + maxEquipments + ")입니다: " + equipmentCode);
+        }
+        return series.computeIfAbsent(equipmentCode, k -> new Series(capacity));
+    }
+
+    public void remove(String equipmentCode) {
+        series.remove(equipmentCode);
+    }
+
+    // =========================
+    // 조회
+    // =========================
+    public Optional<Latest> latest(String equipmentCode) {
+        Series s = series.get(equipmentCode);
+        if (s == null) return Optional.empty();
+        synchronized (s) {
+            if (s.size == 0) return Optional.empty();
+            int i = s.slot(s.size - 1);
+            return Optional.of(new Latest(s.time[i], s.uph[i], s.temperature[i], s.progress[i]));
+        }
+    }
+
+    // [from, to] 구간을 points 개 이하 버킷으로 (구간 샘플이 points 이하면 원본 그대로)
+    public EquipmentMetricSeriesDto query(String equipmentCode, String metric, Long from, Long to, int points) {
+        String m = metric != null ? metric : TEMPERATURE;
+        if (!METRICS.contains(m)) {
+            throw new IllegalArgumentException("지원하지 않는 메트릭입니다: " + m + " (가능: " + METRICS + ")");
+        }
+        if (points < 1 || points > MAX_POINTS) {
+            throw new IllegalArgumentException("points 는 1~" + MAX_POINTS + " 이어야 합니다.");
+        }
+        long now = System.currentTimeMillis();
+        long end = to != null ? to : now;
+        long start = Math.max(from != null ? from : now - retentionMillis, now - retentionMillis);
+        if (start > end) {
+            throw new IllegalArgumentException("from 은 to 보다 이전이어야 합니다.");
+        }
+
+        EquipmentMetricSeriesDto.EquipmentMetricSeriesDtoBuilder result = EquipmentMetricSeriesDto.builder()
+                .equipmentCode(equipmentCode).metric(m).from(start).to(end);
+        Series s = series.get(equipmentCode);
+        if (s == null) {
+            return result.bucketMs(0).samples(0)
+                    .time(new long[0]).avg(new double[0]).min(new double[0]).max(new double[0]).build();
+        }
+
+        synchronized (s) {
+            int first = s.lowerBound(start);
+            int last = s.lowerBound(end + 1);     // exclusive
+            int n = last - first;
+            double[] values = s.values(m);
+
+            if (n <= points) {
+                long[] t = new long[n];
+                double[] v = new double[n];
+                for (int i = 0; i < n; i++) {
+                    int slot = s.slot(first + i);
+                    t[i] = s.time[slot];
+                    v[i] = values[slot];
+                }
+                return result.bucketMs(0).samples(n).time(t).avg(v).min(v).max(v).build();
+            }
+
+            // [start, end] 는 end - start + 1 ms : 올림 나눗셈이어야 버킷 수가 points 를 넘지 않는다
+            long span = end - start + 1;
+            long bucketMs = Math.max(1, (span + points - 1) / points);
+            int buckets = (int) ((end - start) / bucketMs) + 1;
+            long[] t = new long[buckets];
+            double[] sum = new double[buckets];
+            double[] min = new double[buckets];
+            double[] max = new double[buckets];
+            int[] count = new int[buckets];
+            for (int i = first; i < last; i++) {
+                int slot = s.slot(i);
+                int b = (int) ((s.time[slot] - start) / bucketMs);
+                double v = values[slot];
+                if (count[b] == 0) {
+                    min[b] = v;
+                    max[b] = v;
+                } else {
+                    if (v < min[b]) min[b] = v;
+                    if (v > max[b]) max[b] = v;
+                }
+                sum[b] += v;
+                count[b]++;
+            }
+
+            // 빈 버킷은 빼고 채운 버킷만 앞으로 모은다
+            int k = 0;
+            for (int b = 0; b < buckets; b++) {
+                if (count[b] == 0) continue;
+                t[k] = start + b * bucketMs;
+                sum[k] = sum[b] / count[b];
+                min[k] = min[b];
+                max[k] = max[b];
+                k++;
+            }
+            return result.bucketMs(bucketMs).samples(n)
+                    .time(Arrays.copyOf(t, k)).avg(Arrays.copyOf(sum, k))
+                    .min(Arrays.copyOf(min, k)).max(Arrays.copyOf(max, k)).build();
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.hm.mes_final_260106.constant.EquipmentStatus;
 import com.hm.mes_final_260106.dto.*;
 import com.hm.mes_final_260106.dto.equipment.EquipmentDetailResDto;
 import com.hm.mes_final_260106.dto.equipment.EquipmentEventLogResDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricSeriesDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricUpdateReqDto;
 import com.hm.mes_final_260106.dto.equipment.EquipmentMonitorResDto;
 import com.hm.mes_final_260106.dto.equipment.EquipmentReqDto;
 import com.hm.mes_final_260106.entity.Equipment;
@@ -20,7 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,21 +33,15 @@ public class EquipmentService {
     private final EquipmentRepository equipmentRepo;
     private final ProductionLogRepository productionLogRepo;
     private final EquipmentEventLogRepository eventLogRepo;
+    private final ReferenceCache refCache;
+    private final DashboardKpiSnapshot kpiSnapshot;
+    private final LivePushHub pushHub;
+    private final OeeEngine oeeEngine;
+    private final EquipmentMetricStore metricStore;   // 장비별 실시간 메트릭 이력
 
     private final DateTimeFormatter fmt =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-    // 장비별 실시간 데이터 저장소
-    public static final ConcurrentHashMap<String, EquipmentMetrics> equipmentData = new ConcurrentHashMap<>();
-
-    // 내부 데이터 구조
-    @Getter @Setter @AllArgsConstructor @NoArgsConstructor
-    public static class EquipmentMetrics {
-        public int uph;        // 시간당 웨이퍼 처리수
-        public double temperature; // 온도
-        public int progress;      // 진행도 (0~100)
-    }
-
     /* =====================================================
        공통: 상태 변경 로그 메시지 생성 (핵심)
        ===================================================== */
@@ -68,17 +64,40 @@ public class EquipmentService {
     public List<EquipmentMonitorResDto> getMonitoringList() {
         return equipmentRepo.findAll()
                 .stream()
-                .map(EquipmentMonitorResDto::fromEntity)
-                .peek(dto -> {
-                    EquipmentMetrics equipmentMetrics = equipmentData.get(dto.getCode());
-                    if (equipmentMetrics == null) return;
-                    dto.setUph(equipmentMetrics.getUph());
-                    dto.setTemperature(equipmentMetrics.getTemperature());
-                    dto.setProgress(equipmentMetrics.getProgress());
-                })
+                .map(this::toMonitorDto)
                 .toList();
     }
 
+    private EquipmentMonitorResDto toMonitorDto(Equipment equipment) {
+        EquipmentMonitorResDto dto = EquipmentMonitorResDto.fromEntity(equipment);
+        metricStore.latest(dto.getCode()).ifPresent(latest -> {
+            dto.setUph((int) latest.uph());
+            dto.setTemperature(latest.temperature());
+            dto.setProgress((int) latest.progress());
+        });
+        return dto;
+    }
+
+    /* =====================================================
+       실시간 메트릭 갱신 (설비 → 서버) : 메모리 시계열에 쌓고 구독 화면에 push
+       ===================================================== */
+    public void updateMetrics(String equipmentCode, EquipmentMetricUpdateReqDto reqDto) {
+        metricStore.record(equipmentCode, System.currentTimeMillis(),
+                reqDto.getUph(), reqDto.getTemperature(), reqDto.getProgress());
+        pushHub.publish(LivePushHub.TOPIC_EQUIPMENT_METRIC, equipmentCode,
+                new EquipmentMetricUpdateReqDto(equipmentCode, reqDto.getUph(), reqDto.getTemperature(), reqDto.getProgress()));
+    }
+
+    // 메트릭 추이 (from / to = epoch ms, 생략 시 보관 기간 전체)
+    public EquipmentMetricSeriesDto getMetricSeries(String equipmentCode, String metric, Long from, Long to, int points) {
+        return metricStore.query(equipmentCode, metric, from, to, points);
+    }
+
+    // 설비 카드 변경분 (SSE)
+    private void pushEquipment(Equipment equipment) {
+        pushHub.publish(LivePushHub.TOPIC_EQUIPMENT, String.valueOf(equipment.getId()), toMonitorDto(equipment));
+    }
+
     /* =====================================================
        설비 상세 조회
        ===================================================== */
@@ -172,6 +191,9 @@ public class EquipmentService {
                 .build();
 
         equipmentRepo.save(eq);
+        kpiSnapshot.markDirty();
+        oeeEngine.statusChanged(eq);
+        pushEquipment(eq);
         return new EquipmentResDto(eq);
     }
 
@@ -185,6 +207,10 @@ public class EquipmentService {
         }
         eventLogRepo.deleteByEquipmentId(id);
         equipmentRepo.deleteById(id);
+        refCache.invalidateEquipment(id);
+        kpiSnapshot.markDirty();
+        oeeEngine.forgetEquipment(id);
+        pushHub.publish(LivePushHub.TOPIC_EQUIPMENT, String.valueOf(id), Map.of("id", id, "deleted", true));
     }
 
     /* =====================================================
@@ -231,12 +257,16 @@ public class EquipmentService {
             );
 
             equipment.setStatus(newStatus);
+            kpiSnapshot.markDirty();
+            oeeEngine.statusChanged(equipment);
         }
 
         equipment.setName(dto.getName());
         equipment.setLocation(dto.getLocation());
         equipment.setInstallDate(dto.getInstallDate());
 
+        refCache.invalidateEquipment(id);
+        pushEquipment(equipment);
         return new EquipmentResDto(equipment);
     }
 
@@ -255,6 +285,9 @@ public class EquipmentService {
         if (before == newStatus) return;
 
         equipment.setStatus(newStatus);
+        kpiSnapshot.markDirty();   // 가동률 / 이슈 수
+        oeeEngine.statusChanged(equipment);   // 이전 상태 시간 마감
+        pushEquipment(equipment);
 
         String message = buildStatusChangeMessage(before, newStatus);
 
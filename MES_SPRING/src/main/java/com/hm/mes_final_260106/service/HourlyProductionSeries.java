@@ -0,0 +1,209 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.ProductionStatus;
+import com.hm.mes_final_260106.entity.ProductionLog;
+import com.hm.mes_final_260106.entity.WorkOrder;
+import com.hm.mes_final_260106.repository.ProductionLogRepository;
+import com.hm.mes_final_260106.repository.WorkOrderRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 시간대별 계획 / 실적 카운터 (일자 → 라인 → 0~23시 배열)
+// 대시보드 시간대별 차트가 요청마다 오늘 작업지시 전체를 돌며 계획을 나누고 production_log 를 집계하던 것을,
+// 이벤트 때마다 배열 칸만 증감하는 방식으로 바꾼다. 조회는 배열을 슬롯 크기대로 더하기만 한다.
+//  - 실적 : 완료(DONE) 보고가 커밋되면 (실적 일자, 종료 시각의 시) 칸에 resultQty 를 더한다
+//  - 계획 : 작업지시가 시작 / 완료 / 상태 변경 / 수정될 때 목표 수량을 [시작, 종료 또는 시작 + 12h) 의 시간마다 나눠 넣는다
+//           작업지시별 직전 분배를 기억해 두었다가 빼고 다시 넣는다 (자정을 넘는 작업지시도 날짜별로 나뉨)
+// 최근 mes.dashboard.hourly-retention-days 일은 기동 시 DB 에서 한 번 적재해 증분으로 유지하고,
+// 그보다 오래된 날짜는 처음 조회할 때 한 번 적재해 작은 LRU 에 둔다 (이후 변경이 거의 없는 과거 데이터).
+@Component
+@Slf4j
+public class HourlyProductionSeries {
+
+    // 종료일이 없는 작업지시의 계획 기간 (기존 대시보드 로직과 동일)
+    private static final int OPEN_ORDER_HOURS = 12;
+    private static final int PAST_DAY_CACHE_SIZE = 31;
+
+    private final ProductionLogRepository productionLogRepo;
+    private final WorkOrderRepository workOrderRepo;
+    private final int retentionDays;
+
+    // 일자 1개 : 라인별 시간 배열
+    static final class Day {
+        final Map<String, AtomicLongArray> plan = new ConcurrentHashMap<>();
+        final Map<String, AtomicLongArray> actual = new ConcurrentHashMap<>();
+
+        void add(Map<String, AtomicLongArray> target, String line, int hour, long qty) {
+            target.computeIfAbsent(line, l -> new AtomicLongArray(24)).addAndGet(hour, qty);
+        }
+
+        // 라인 null = 전체 합
+        long[] sum(Map<String, AtomicLongArray> source, String line) {
+            long[] out = new long[24];
+            for (Map.Entry<String, AtomicLongArray> e : source.entrySet()) {
+                if (line != null && !line.equals(e.getKey())) continue;
+                AtomicLongArray hours = e.getValue();
+                for (int h = 0; h < 24; h++) out[h] += hours.get(h);
+            }
+            return out;
+        }
+    }
+
+    // 작업지시 1건의 계획 분배 (다시 계산할 때 빼기 위해 보관)
+    private record PlanSpan(String line, LocalDateTime start, int hours, long perHour) {}
+
+    private final Map<LocalDate, Day> days = new ConcurrentHashMap<>();
+    private final Map<Long, PlanSpan> spans = new HashMap<>();   // synchronized (spans)
+    private volatile LocalDate trackedFrom;
+
+    private final Map<LocalDate, Day> pastDays = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, Day> eldest) {
+            return size() > PAST_DAY_CACHE_SIZE;
+        }
+    });
+
+    public HourlyProductionSeries(ProductionLogRepository productionLogRepo,
+                                  WorkOrderRepository workOrderRepo,
+                                  @Value("${mes.dashboard.hourly-retention-days:7}") int retentionDays) {
+        this.productionLogRepo = productionLogRepo;
+        this.workOrderRepo = workOrderRepo;
+        this.retentionDays = retentionDays;
+    }
+
+    // =========================
+    // 기동 시 1회 : 보관 기간 적재
+    // =========================
+    @PostConstruct
+    public void warmUp() {
+        trackedFrom = LocalDate.now().minusDays(retentionDays - 1L);
+        loadInto(days, trackedFrom, null, true);
+        log.info("시간대별 계획 / 실적 적재 완료 : {} 부터 {}일, 작업지시 {}건", trackedFrom, days.size(), spans.size());
+    }
+
+    // 일자가 바뀌면 보관 기간 밖으로 나간 날짜 / 분배를 정리한다
+    @Scheduled(cron = "${mes.dashboard.hourly-cleanup-cron:0 5 0 * * *}")
+    public void cleanup() {
+        LocalDate from = LocalDate.now().minusDays(retentionDays - 1L);
+        trackedFrom = from;
+        days.keySet().removeIf(d -> d.isBefore(from));
+        synchronized (spans) {
+            spans.values().removeIf(s -> s.start().plusHours(s.hours()).toLocalDate().isBefore(from));
+        }
+    }
+
+    // [from, to] 구간을 DB 에서 읽어 target 에 채운다 (trackSpans = 증분 유지용 분배 기록)
+    private void loadInto(Map<LocalDate, Day> target, LocalDate from, LocalDate to, boolean trackSpans) {
+        LocalDate last = to != null ? to : LocalDate.now().plusDays(1);
+        for (Object[] r : productionLogRepo.sumOutputByDateHourLine(ProductionStatus.DONE, from, last)) {
+            if (r[0] == null || r[1] == null || r[3] == null) continue;
+            Day day = target.computeIfAbsent((LocalDate) r[0], d -> new Day());
+            day.add(day.actual, ProductionResultAggregator.lineOf((String) r[2]), ((Number) r[1]).intValue(), ((Number) r[3]).longValue());
+        }
+
+        LocalDateTime fromTime = from.atStartOfDay();
+        LocalDateTime toTime = last.plusDays(1).atStartOfDay();
+        for (Object[] r : workOrderRepo.findPlanSpans(fromTime, toTime, fromTime.minusHours(OPEN_ORDER_HOURS))) {
+            PlanSpan span = spanOf((String) r[1], (Integer) r[2], (LocalDateTime) r[3], (LocalDateTime) r[4]);
+            if (span == null) continue;
+            applySpan(target, span, 1, from, to);
+            if (trackSpans) {
+                synchronized (spans) {
+                    spans.put((Long) r[0], span);
+                }
+            }
+        }
+    }
+
+    // =========================
+    // 증분 반영 (커밋 후)
+    // =========================
+    // 완료 실적 보고
+    public void recordReport(ProductionLog productionLog) {
+        if (productionLog.getStatus() != ProductionStatus.DONE || productionLog.getEndTime() == null) return;
+        Integer qty = productionLog.getResultQty();
+        if (qty == null || qty == 0) return;
+
+        LocalDate date = productionLog.getResultDate() != null ? productionLog.getResultDate() : productionLog.getEndTime().toLocalDate();
+        int hour = productionLog.getEndTime().getHour();
+        String line = ProductionResultAggregator.lineOf(productionLog.getWorkOrder() != null ? productionLog.getWorkOrder().getTargetLine() : null);
+
+        TransactionHooks.afterCommit(() -> {
+            if (date.isBefore(trackedFrom)) return;
+            Day day = days.computeIfAbsent(date, d -> new Day());
+            day.add(day.actual, line, hour, qty);
+        });
+    }
+
+    // 작업지시 시작 / 완료 / 상태 변경 / 수정 : 직전 분배를 빼고 현재 값으로 다시 분배
+    public void recordWorkOrder(WorkOrder order) {
+        Long id = order.getId();
+        PlanSpan next = spanOf(order.getTargetLine(), order.getTargetQty(), order.getStartDate(), order.getEndDate());
+        TransactionHooks.afterCommit(() -> replaceSpan(id, next));
+    }
+
+    public void forgetWorkOrder(Long orderId) {
+        TransactionHooks.afterCommit(() -> replaceSpan(orderId, null));
+    }
+
+    private void replaceSpan(Long id, PlanSpan next) {
+        synchronized (spans) {
+            PlanSpan prev = next != null ? spans.put(id, next) : spans.remove(id);
+            if (Objects.equals(prev, next)) return;
+            if (prev != null) applySpan(days, prev, -1, trackedFrom, null);
+            if (next != null) applySpan(days, next, 1, trackedFrom, null);
+        }
+    }
+
+    // 목표 수량을 시작 시각부터 시간 단위로 균등 분배 (기존과 같이 정수 나눗셈, 1시간 미만이면 분배 없음)
+    private static PlanSpan spanOf(String targetLine, Integer targetQty, LocalDateTime start, LocalDateTime end) {
+        if (start == null || targetQty == null) return null;
+        LocalDateTime effectiveEnd = end != null ? end : start.plusHours(OPEN_ORDER_HOURS);
+        long hours = ChronoUnit.HOURS.between(start, effectiveEnd);
+        if (hours <= 0) return null;
+        return new PlanSpan(ProductionResultAggregator.lineOf(targetLine),
+                start.truncatedTo(ChronoUnit.HOURS), (int) hours, targetQty / hours);
+    }
+
+    private static void applySpan(Map<LocalDate, Day> target, PlanSpan span, int sign, LocalDate from, LocalDate to) {
+        if (span.perHour() == 0) return;
+        LocalDateTime t = span.start();
+        for (int i = 0; i < span.hours(); i++, t = t.plusHours(1)) {
+            LocalDate date = t.toLocalDate();
+            if (from != null && date.isBefore(from)) continue;
+            if (to != null && date.isAfter(to)) break;
+            Day day = target.computeIfAbsent(date, d -> new Day());
+            day.add(day.plan, span.line(), t.getHour(), sign * span.perHour());
+        }
+    }
+
+    // =========================
+    // 조회 : [plan[24], actual[24]]
+    // =========================
+    public long[][] hourly(LocalDate date, String line) {
+        Day day;
+        if (!date.isBefore(trackedFrom)) {
+            day = days.get(date);
+        } else {
+            day = pastDays.get(date);
+            if (day == null) {
+                Map<LocalDate, Day> loaded = new HashMap<>();
+                loadInto(loaded, date, date, false);
+                day = loaded.getOrDefault(date, new Day());
+                pastDays.put(date, day);
+            }
+        }
+        if (day == null) return new long[][]{new long[24], new long[24]};
+        return new long[][]{day.sum(day.plan, line), day.sum(day.actual, line)};
+    }
+}
@@ -23,6 +23,7 @@ public class InventoryService {
     private final MaterialRepository materialRepository;
     private final MaterialTransactionRepository txRepository;
     private final MasterDataService masterDataService;
+    private final MaterialStockLedger stockLedger;
 
 
     // =============================
@@ -86,7 +87,7 @@ public class InventoryService {
     public void stockIn(MaterialStockReqDto req) {
         validateReq(req);
 
-        Material material = materialRepository.findByCode(req.getMaterialCode().trim())
+        Material material = materialRepository.findByCodeForUpdate(req.getMaterialCode().trim())
                 .orElseThrow(() -> new RuntimeException("자재를 찾을 수 없습니다."));
 
         int current = safeInt(material.getCurrentStock());
@@ -104,6 +105,7 @@ public class InventoryService {
 
         txRepository.save(tx);
         materialRepository.save(material);
+        stockLedger.applyExternal(material.getId(), req.getQty());
 
         if (req.getTargetLocation() != null) {
             masterDataService.applyWarehouseStock(
@@ -120,7 +122,7 @@ public class InventoryService {
     public void stockOut(MaterialStockReqDto req) {
         validateReq(req);
 
-        Material material = materialRepository.findByCode(req.getMaterialCode().trim())
+        Material material = materialRepository.findByCodeForUpdate(req.getMaterialCode().trim())
                 .orElseThrow(() -> new RuntimeException("자재를 찾을 수 없습니다."));
 
         int current = safeInt(material.getCurrentStock());
@@ -158,6 +160,7 @@ public class InventoryService {
 
         txRepository.save(tx);
         materialRepository.save(material);
+        stockLedger.applyExternal(material.getId(), -req.getQty());
 
         if (outLocation != null) {
             masterDataService.applyWarehouseStock(
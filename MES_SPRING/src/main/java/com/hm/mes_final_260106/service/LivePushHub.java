@@ -0,0 +1,260 @@
+package com.hm.mes_final_260106.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 화면 실시간 갱신용 SSE(Server-Sent Events) 허브
+// 설비 상태 / 메트릭, 작업지시 상태, KPI 스냅샷 변경을 구독 중인 화면에 변경분(delta)으로 밀어준다 → 화면의 주기적 DB 폴링 대체.
+//  - 클라이언트마다 (토픽, 키) → 최신 값 맵을 버퍼로 둔다. 같은 키가 짧은 간격으로 여러 번 바뀌면 마지막 값만 보낸다 (coalescing)
+//  - 버퍼는 mes.push.client-buffer 개로 제한. 넘치면 버퍼를 비우고 "resync" 이벤트 1건을 보내 화면이 REST 로 전체를 다시 읽게 한다
+//  - mes.push.flush-interval-ms 마다 모인 변경을 전송 스레드에서 보낸다 (발행 측은 전송을 기다리지 않음)
+//  - SseEmitter.send 는 블로킹이므로 전송 스레드는 구독 수만큼까지 늘어난다 (클라이언트당 동시 전송 1건)
+//    → 느린 화면이 스레드를 잡고 있어도 다른 화면 전송은 밀리지 않는다
+//  - 전송 1회가 mes.push.send-timeout-ms 를 넘긴 화면은 끊는다 (다시 접속하면 REST 로 전체를 읽고 이어 받음)
+// 발행은 트랜잭션 커밋 후에만 반영된다 (롤백된 변경은 보내지 않음).
+@Component
+@Slf4j
+public class LivePushHub {
+
+    public static final String TOPIC_EQUIPMENT = "equipment";
+    public static final String TOPIC_EQUIPMENT_METRIC = "equipment-metric";
+    public static final String TOPIC_WORK_ORDER = "workorder";
+    public static final String TOPIC_KPI = "kpi";
+    public static final Set<String> TOPICS = Set.of(TOPIC_EQUIPMENT, TOPIC_EQUIPMENT_METRIC, TOPIC_WORK_ORDER, TOPIC_KPI);
+
+    private static final String EVENT_RESYNC = "resync";
+
+    private record PendingKey(String topic, String key) {}
+
+    // 구독 중인 화면 1개
+    private final class Client {
+        final long id;
+        final SseEmitter emitter;
+        final Set<String> topics;
+        // 접근은 synchronized (this)
+        final LinkedHashMap<PendingKey, Object> pending = new LinkedHashMap<>();
+        boolean overflowed;
+        final AtomicBoolean sending = new AtomicBoolean();
+        volatile long sendStartedAt;
+
+        Client(long id, SseEmitter emitter, Set<String> topics) {
+            this.id = id;
+            this.emitter = emitter;
+            this.topics = topics;
+        }
+
+        synchronized void offer(PendingKey key, Object payload) {
+            if (overflowed) return;
+            if (pending.remove(key) != null) {
+                coalescedCount.incrementAndGet();
+            } else if (pending.size() >= clientBuffer) {
+                // 따라오지 못하는 화면 : 변경분 대신 전체 재조회 요청
+                droppedCount.addAndGet(pending.size());
+                pending.clear();
+                overflowed = true;
+                return;
+            }
+            pending.put(key, payload);
+        }
+
+        synchronized boolean hasPending() {
+            return overflowed || !pending.isEmpty();
+        }
+
+        // 보낼 이벤트를 꺼낸다 (null 이면 resync)
+        synchronized List<Map.Entry<PendingKey, Object>> drain() {
+            if (overflowed) {
+                overflowed = false;
+                return null;
+            }
+            List<Map.Entry<PendingKey, Object>> out = new ArrayList<>(pending.entrySet());
+            pending.clear();
+            return out;
+        }
+    }
+
+    private final int clientBuffer;
+    private final long emitterTimeoutMillis;
+    private final int maxClients;
+    private final long sendTimeoutMillis;
+
+    private final Map<Long, Client> clients = new ConcurrentHashMap<>();
+    private final AtomicLong clientSequence = new AtomicLong();
+    private final AtomicLong eventSequence = new AtomicLong();
+    private final ExecutorService senders;
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong slowDisconnectedCount = new AtomicLong();
+
+    public LivePushHub(@Value("${mes.push.client-buffer:256}") int clientBuffer,
+                       @Value("${mes.push.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                       @Value("${mes.push.max-clients:200}") int maxClients,
+                       @Value("${mes.push.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.clientBuffer = clientBuffer;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.maxClients = maxClients;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        // 대기열 없이 필요할 때 스레드를 만들고, 쉬는 스레드는 1분 뒤 정리
+        // 끊긴 화면의 전송이 아직 소켓에서 막혀 있을 수 있으므로 상한은 구독 수의 2배
+        this.senders = new ThreadPoolExecutor(0, maxClients * 2, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-sender");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        clients.values().forEach(c -> c.emitter.complete());
+        clients.clear();
+        senders.shutdownNow();
+    }
+
+    // =========================
+    // 구독 : topics 가 비어 있으면 전체
+    // =========================
+    // initial : 구독 직후 바로 보낼 현재 값 (토픽 → 값, 예: KPI 스냅샷)
+    // 구독 수가 최대치면 null → 컨트롤러에서 503 + Retry-After 로 응답
+    public SseEmitter subscribe(Set<String> topics, Map<String, Object> initial) {
+        for (String topic : topics) {
+            if (!TOPICS.contains(topic)) {
+                throw new IllegalArgumentException("지원하지 않는 토픽입니다: " + topic + " (가능: " + TOPICS + ")");
+            }
+        }
+        if (clients.size() >= maxClients) return null;
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Client client = new Client(clientSequence.incrementAndGet(), emitter, topics.isEmpty() ? TOPICS : Set.copyOf(topics));
+        clients.put(client.id, client);
+        emitter.onCompletion(() -> clients.remove(client.id));
+        emitter.onTimeout(() -> clients.remove(client.id));
+        emitter.onError(e -> clients.remove(client.id));
+
+        initial.forEach((topic, payload) -> {
+            if (client.topics.contains(topic)) client.offer(new PendingKey(topic, topic), payload);
+        });
+        schedule(client);
+        return emitter;
+    }
+
+    // =========================
+    // 발행 : key 가 같은 변경은 전송 전까지 마지막 값으로 합쳐진다
+    // =========================
+    public void publish(String topic, String key, Object payload) {
+        TransactionHooks.afterCommit(() -> {
+            PendingKey pendingKey = new PendingKey(topic, key);
+            for (Client client : clients.values()) {
+                if (client.topics.contains(topic)) client.offer(pendingKey, payload);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${mes.push.flush-interval-ms:250}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Client client : clients.values()) {
+            long startedAt = client.sendStartedAt;
+            if (startedAt != 0 && now - startedAt > sendTimeoutMillis) {
+                // 전송이 소켓에서 막힌 화면 : 끊어서 버퍼 / 스레드를 더 잡지 않게 한다
+                slowDisconnectedCount.incrementAndGet();
+                log.info("SSE 느린 구독 해제 : client={}, 전송 {}ms 경과", client.id, now - startedAt);
+                disconnect(client);
+            } else if (client.hasPending()) {
+                schedule(client);
+            }
+        }
+    }
+
+    // 연결 유지용 주석 라인 (프록시 / 브라우저 유휴 끊김 방지)
+    @Scheduled(fixedDelayString = "${mes.push.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Client client : clients.values()) {
+            if (!client.sending.compareAndSet(false, true)) continue;
+            try {
+                senders.execute(() -> {
+                    client.sendStartedAt = System.currentTimeMillis();
+                    try {
+                        client.emitter.send(SseEmitter.event().comment("ping"));
+                    } catch (IOException | IllegalStateException e) {
+                        disconnect(client);
+                    } finally {
+                        client.sendStartedAt = 0;
+                        client.sending.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                client.sending.set(false);
+            }
+        }
+    }
+
+    // 클라이언트당 전송 작업은 한 번에 하나 (SseEmitter 동시 send 방지, 느린 화면은 자기 차례만 늦어진다)
+    private void schedule(Client client) {
+        if (!client.sending.compareAndSet(false, true)) return;
+        try {
+            senders.execute(() -> send(client));
+        } catch (RejectedExecutionException e) {
+            client.sending.set(false);
+        }
+    }
+
+    private void send(Client client) {
+        client.sendStartedAt = System.currentTimeMillis();
+        try {
+            List<Map.Entry<PendingKey, Object>> events = client.drain();
+            if (events == null) {
+                client.emitter.send(SseEmitter.event()
+                        .id(Long.toString(eventSequence.incrementAndGet()))
+                        .name(EVENT_RESYNC)
+                        .data(Map.of("reason", "client buffer overflow")));
+                sentCount.incrementAndGet();
+                return;
+            }
+            for (Map.Entry<PendingKey, Object> e : events) {
+                client.emitter.send(SseEmitter.event()
+                        .id(Long.toString(eventSequence.incrementAndGet()))
+                        .name(e.getKey().topic())
+                        .data(e.getValue()));
+                sentCount.incrementAndGet();
+            }
+        } catch (IOException | IllegalStateException e) {
+            disconnect(client);
+        } finally {
+            client.sendStartedAt = 0;
+            client.sending.set(false);
+        }
+    }
+
+    private void disconnect(Client client) {
+        clients.remove(client.id);
+        try {
+            client.emitter.complete();
+        } catch (RuntimeException ignored) {
+            // 이미 끊긴 연결
+        }
+        log.debug("SSE 구독 해제 : client={}", client.id);
+    }
+
+    // 상태 조회 (시스템 화면)
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients.size());
+        stats.put("sent", sentCount.get());
+        stats.put("coalesced", coalescedCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("slowDisconnected", slowDisconnectedCount.get());
+        return stats;
+    }
+}
@@ -0,0 +1,103 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.repository.LotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 생산 보고의 투입 LOT 일괄 처리
+// LOT 코드 → id 는 IN 쿼리 한 번으로 풀고, '소모됨' 상태 변경은 bulk UPDATE 한 번으로 처리한다.
+// 연속된 웨이퍼가 같은 LOT(프레임, 와이어 스풀, 컴파운드 등)를 계속 투입하므로
+// 코드 → id 와 '이미 소모 처리함' 여부를 짧은 시간(mes.lot.cache-ttl-ms) 동안 캐시한다.
+@Component
+public class LotResolver {
+
+    public static final String CONSUMED = "소모됨";
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final LotRepository lotRepo;
+    private final long ttlMillis;
+
+    private final Map<String, CachedLot> cache = new ConcurrentHashMap<>();
+    private final Map<Long, CachedLot> cacheById = new ConcurrentHashMap<>();
+
+    public LotResolver(LotRepository lotRepo, @Value("${mes.lot.cache-ttl-ms:30000}") long ttlMillis) {
+        this.lotRepo = lotRepo;
+        this.ttlMillis = ttlMillis;
+    }
+
+    private static final class CachedLot {
+        final long id;
+        final long expiresAt;
+        volatile boolean consumed;
+
+        CachedLot(long id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // =========================
+    // LOT 코드 → id (입력 순서 유지)
+    // =========================
+    public Map<String, Long> resolve(Collection<String> codes) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String code : codes) {
+            CachedLot cached = cache.get(code);
+            if (cached != null && cached.expiresAt > now) {
+                result.put(code, cached.id);
+            } else {
+                result.put(code, null);
+                missing.add(code);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Object[] row : lotRepo.findIdAndCodeByCodeIn(missing)) {
+                Long id = (Long) row[0];
+                String code = (String) row[1];
+                result.put(code, id);
+                CachedLot cached = new CachedLot(id, now + ttlMillis);
+                cache.put(code, cached);
+                cacheById.put(id, cached);
+            }
+            for (String code : missing) {
+                if (result.get(code) == null) {
+                    throw new RuntimeException("LOT를 찾을 수 없습니다. Code: " + code);
+                }
+            }
+            if (cache.size() > CLEANUP_THRESHOLD) {
+                cache.values().removeIf(c -> c.expiresAt <= now);
+                cacheById.values().removeIf(c -> c.expiresAt <= now);
+            }
+        }
+        return result;
+    }
+
+    // =========================
+    // '소모됨' 일괄 반영
+    // =========================
+    // 캐시에 이미 소모 처리로 남아 있는 LOT 는 건너뛰고, 나머지만 UPDATE 1회
+    public void markConsumed(Collection<Long> lotIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        List<CachedLot> toMark = new ArrayList<>();
+        for (Long id : lotIds) {
+            CachedLot cached = cacheById.get(id);
+            if (cached != null && cached.consumed) continue;
+            if (!ids.add(id)) continue;
+            if (cached != null) toMark.add(cached);
+        }
+        if (ids.isEmpty()) return;
+
+        lotRepo.updateStatusByIdIn(CONSUMED, ids);
+
+        // 커밋된 뒤에만 '소모 처리함' 으로 기억
+        TransactionHooks.afterCommit(() -> toMark.forEach(c -> c.consumed = true));
+    }
+}
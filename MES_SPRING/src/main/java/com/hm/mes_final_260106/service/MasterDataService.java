@@ -5,6 +5,7 @@ import com.hm.mes_final_260106.constant.EquipmentStatus;
 import com.hm.mes_final_260106.constant.WarehouseStatus;
 import com.hm.mes_final_260106.dto.bomitem.BomItemResDto;
 import com.hm.mes_final_260106.dto.equipment.EquipmentCreateReqDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMonitorResDto;
 import com.hm.mes_final_260106.dto.equipment.EquipmentResDto;
 import com.hm.mes_final_260106.dto.equipment.EquipmentUpdateReqDto;
 import com.hm.mes_final_260106.dto.warehouse.WarehouseCreateReqDto;
@@ -25,6 +26,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,6 +40,13 @@ public class MasterDataService {
     private final BomItemRepository bomItemRepo;
     private final EquipmentRepository equipmentRepo;
     private final WarehouseRepository warehouseRepo;
+    private final CompiledBomCache bomCache;
+    private final MaterialStockLedger stockLedger;
+    private final ReferenceCache refCache;
+    private final DashboardKpiSnapshot kpiSnapshot;
+    private final LivePushHub pushHub;
+    private final OeeEngine oeeEngine;
+    private final EquipmentMetricStore metricStore;
 
     // 1. 제품 등록
 //    public void createProduct(ProductReqDto dto) {
@@ -119,9 +128,13 @@ public class MasterDataService {
 
     // UPDATE
     public void updateMaterial(Long id, MaterialUpdateReqDto dto) {
-        Material material = materialRepo.findById(id)
+        Material material = materialRepo.findByIdForUpdate(id)
                 .orElseThrow(() -> new IllegalArgumentException("해당 자재가 존재하지 않습니다. id=" + id));
 
+        // 재고를 직접 고친 만큼 원장에도 반영 (DB 는 원장 flush 가 상대 UPDATE 로 맞춰 감)
+        int before = material.getCurrentStock() == null ? 0 : material.getCurrentStock();
+        int after = dto.getCurrentStock() == null ? 0 : dto.getCurrentStock();
+
         material.setCode(dto.getCode());
         material.setName(dto.getName());
         material.setCategory(dto.getCategory());
@@ -131,6 +144,7 @@ public class MasterDataService {
         material.setLocation(dto.getLocation());
 
         materialRepo.save(material);
+        stockLedger.applyExternal(id, after - before);
     }
 
     // DELETE
@@ -164,15 +178,18 @@ public class MasterDataService {
         if (productRepo.findByCode(dto.getCode()).isPresent()) {
             throw new IllegalArgumentException("이미 존재하는 제품 코드입니다: " + dto.getCode());
         }
+        validateIdealCycle(dto.getIdealCycleMs());
 
         Product product = Product.builder()
                 .code(dto.getCode())
                 .name(dto.getName())
                 .category(dto.getCategory())
                 .spec(dto.getSpec())
+                .idealCycleMs(dto.getIdealCycleMs())
                 .build();
 
         productRepo.save(product);
+        oeeEngine.productChanged(product.getId(), product.getIdealCycleMs());
 
         // Product 생성 시 기본 BOM 생성 (revision = 0)
         Bom bom = new Bom();
@@ -206,8 +223,17 @@ public class MasterDataService {
         product.setName(dto.getName());
         product.setCategory(dto.getCategory());
         product.setSpec(dto.getSpec());
+        validateIdealCycle(dto.getIdealCycleMs());
+        product.setIdealCycleMs(dto.getIdealCycleMs());
 
         productRepo.save(product);
+        oeeEngine.productChanged(id, product.getIdealCycleMs());
+    }
+
+    private static void validateIdealCycle(Long idealCycleMs) {
+        if (idealCycleMs != null && idealCycleMs <= 0) {
+            throw new IllegalArgumentException("이상 사이클 타임은 0보다 커야 합니다: " + idealCycleMs);
+        }
     }
 
     // DELETE
@@ -220,6 +246,7 @@ public class MasterDataService {
 
         // Product 삭제
         productRepo.delete(product);
+        oeeEngine.productChanged(id, null);
     }
 
 
@@ -231,6 +258,7 @@ public class MasterDataService {
                 .name(product.getName())
                 .category(product.getCategory())
                 .spec(product.getSpec())
+                .idealCycleMs(product.getIdealCycleMs())
                 .build();
     }
 
@@ -297,6 +325,10 @@ public class MasterDataService {
                 .toList();
 
         bomItemRepo.saveAll(newBomItems);
+
+        // 이전 리비전은 OBSOLETE → 컴파일 캐시에서 제거
+        bomCache.invalidate(oldBom.getId());
+        bomCache.invalidate(savedBom.getId());
     }
 
     // ========= //
@@ -328,12 +360,16 @@ public class MasterDataService {
                 .build();
 
         equipmentRepo.save(equipment);
+        kpiSnapshot.markDirty();
+        oeeEngine.statusChanged(equipment);
+        pushHub.publish(LivePushHub.TOPIC_EQUIPMENT, String.valueOf(equipment.getId()), EquipmentMonitorResDto.fromEntity(equipment));
     }
 
     // UPDATE
     public void updateEquipment(Long id, EquipmentUpdateReqDto dto) {
         Equipment equipment = equipmentRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("설비를 찾을 수 없습니다: " + id));
+        String oldCode = equipment.getCode();
 
         equipment.setCode(dto.getCode());
         equipment.setName(dto.getName());
@@ -342,6 +378,12 @@ public class MasterDataService {
         equipment.setInstallDate(dto.getInstallDate());
 
         equipmentRepo.save(equipment);
+        refCache.invalidateEquipment(id);   // 코드가 바뀌었을 수 있다
+        if (!oldCode.equals(equipment.getCode())) {
+            TransactionHooks.afterCommit(() -> metricStore.remove(oldCode));
+        }
+        oeeEngine.statusChanged(equipment);   // OEE 이력의 설비 코드 갱신
+        pushHub.publish(LivePushHub.TOPIC_EQUIPMENT, String.valueOf(id), EquipmentMonitorResDto.fromEntity(equipment));
     }
 
     // DELETE
@@ -349,6 +391,11 @@ public class MasterDataService {
         Equipment equipment = equipmentRepo.findById(id)
                 .orElseThrow(() -> new RuntimeException("설비를 찾을 수 없습니다: " + id));
         equipmentRepo.delete(equipment);
+        refCache.invalidateEquipment(id);
+        TransactionHooks.afterCommit(() -> metricStore.remove(equipment.getCode()));
+        kpiSnapshot.markDirty();
+        oeeEngine.forgetEquipment(id);
+        pushHub.publish(LivePushHub.TOPIC_EQUIPMENT, String.valueOf(id), Map.of("id", id, "deleted", true));
     }
 
     // DTO 변환
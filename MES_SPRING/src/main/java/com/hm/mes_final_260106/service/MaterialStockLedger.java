@@ -0,0 +1,333 @@
+package com.hm.mes_final_260106.service;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 자재 재고 원장 (in-memory)
+// 생산 보고의 재고 부족 체크 / 차감을 material 행 잠금 없이 자재별 CAS 카운터로 처리한다.
+// 커밋된 차감량은 자재별 순증감(delta)으로 모았다가 짧은 주기로 material 에 상대 UPDATE 하고,
+// 출고 트랜잭션은 (자재, 라인, 설비, 작업자) 단위로 합쳐서 material_transaction 에 넣는다.
+//
+// 자재별 수량 관계 : available + reserved == DB current_stock + pending
+//   available : 지금 차감 가능한 수량
+//   reserved  : 차감했지만 보고 트랜잭션이 아직 커밋 전인 수량 (롤백되면 available 로 되돌림)
+//   pending   : 커밋됐지만 아직 DB 에 반영하지 않은 순증감
+//
+// 자재별 출고 이력 관계 : consumed == recorded + 미반영 출고 이력(pendingOutbound)
+@Component
+@Slf4j
+public class MaterialStockLedger {
+
+    private static final String SELECT_STOCK =
+            "SELECT id, name, current_stock FROM material WHERE id IN (%s)";
+
+    private static final String UPDATE_STOCK =
+            "UPDATE material SET current_stock = current_stock + ? WHERE id = ?";
+
+    private static final String INSERT_OUTBOUND_TX =
+            "INSERT INTO material_transaction (tx_type, material_id, qty, unit, target_location, target_equipment, worker_name, created_at) " +
+                    "VALUES ('OUTBOUND', ?, ?, 'ea', ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    // 커밋됐지만 아직 material_transaction 에 넣지 않은 출고 수량 (merge / remove 로만 다뤄 flush 와 경합해도 유실 없음)
+    private final Map<TxKey, Long> pendingOutbound = new ConcurrentHashMap<>();
+
+    // flush 와 reconcile 이 서로 겹치지 않게 (보고 경로는 이 잠금을 쓰지 않음)
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // 직전 검증에서 어긋났던 자재 → 차이 (재고 / 출고 이력)
+    private final Map<Long, Long> suspects = new HashMap<>();
+    private final Map<Long, Long> txSuspects = new HashMap<>();
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedStatements = new AtomicLong();
+
+    public MaterialStockLedger(JdbcTemplate jdbcTemplate, PlatformTransactionManager txManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private static final class Account {
+        final long materialId;
+        final String name;
+        final AtomicLong available;
+        final AtomicLong reserved = new AtomicLong();
+        final AtomicLong pending = new AtomicLong();
+        final AtomicLong consumed = new AtomicLong();  // 커밋된 누적 차감량
+        final AtomicLong recorded = new AtomicLong();  // material_transaction 에 넣은 누적 출고량
+
+        Account(long materialId, String name, long stock) {
+            this.materialId = materialId;
+            this.name = name;
+            this.available = new AtomicLong(stock);
+        }
+    }
+
+    private record TxKey(long materialId, String location, String equipment, String worker) {}
+
+    // 차감 결과 : 부족하면 아무것도 차감하지 않고 부족 자재 정보만 담는다
+    @Getter
+    @Builder
+    public static class Consumption {
+        private final boolean shortage;
+        private final String materialName;    // 부족 자재 / 재고가 0이 된 자재
+        private final long materialStock;     // 부족 시점 가용 수량
+        private final int requiredQty;        // 부족 자재의 단위 소요량
+        private final boolean emptied;        // 차감 후 재고가 0이 된 자재가 있음
+    }
+
+    // =========================
+    // BOM 1세트 차감 (전부 아니면 전무)
+    // =========================
+    public Consumption consume(CompiledBomCache.CompiledBom bom, String location, String equipmentCode, String workerName) {
+        Account[] lines = accounts(bom.materialIds());
+        int[] qtys = bom.requiredQtys();
+
+        String emptiedName = null;
+        for (int i = 0; i < lines.length; i++) {
+            Account account = lines[i];
+            long after = tryTake(account, qtys[i]);
+            if (after < 0) {
+                // 앞서 차감한 라인 되돌림
+                for (int j = 0; j < i; j++) {
+                    lines[j].available.addAndGet(qtys[j]);
+                    lines[j].reserved.addAndGet(-qtys[j]);
+                }
+                return Consumption.builder()
+                        .shortage(true)
+                        .materialName(account.name)
+                        .materialStock(account.available.get())
+                        .requiredQty(qtys[i])
+                        .build();
+            }
+            if (after == 0 && emptiedName == null) emptiedName = account.name;
+        }
+
+        TransactionHooks.afterCompletion(
+                () -> {
+                    for (int i = 0; i < lines.length; i++) {
+                        lines[i].reserved.addAndGet(-qtys[i]);
+                        lines[i].pending.addAndGet(-qtys[i]);
+                        pendingOutbound.merge(
+                                new TxKey(lines[i].materialId, location, equipmentCode, workerName),
+                                (long) qtys[i], Long::sum);
+                        lines[i].consumed.addAndGet(qtys[i]);
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < lines.length; i++) {
+                        lines[i].reserved.addAndGet(-qtys[i]);
+                        lines[i].available.addAndGet(qtys[i]);
+                    }
+                });
+
+        return Consumption.builder()
+                .emptied(emptiedName != null)
+                .materialName(emptiedName)
+                .build();
+    }
+
+    // 가용 수량 조회 (재고 사전 점검용)
+    public long available(Long materialId) {
+        return accounts(new long[]{materialId})[0].available.get();
+    }
+
+    // 입고 / 불출 / 기준정보 수정 등 JPA 로 material 을 직접 바꾼 경우, 커밋 후 원장에도 같은 증감을 반영
+    public void applyExternal(Long materialId, int delta) {
+        if (delta == 0) return;
+        TransactionHooks.afterCommit(() -> {
+            Account account = accounts.get(materialId);
+            if (account != null) account.available.addAndGet(delta);
+        });
+    }
+
+    // CAS 차감 : 성공하면 차감 후 수량, 부족하면 -1
+    private static long tryTake(Account account, int qty) {
+        while (true) {
+            long current = account.available.get();
+            if (current < qty) return -1;
+            if (account.available.compareAndSet(current, current - qty)) {
+                account.reserved.addAndGet(qty);
+                return current - qty;
+            }
+        }
+    }
+
+    private Account[] accounts(long[] materialIds) {
+        Account[] result = new Account[materialIds.length];
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < materialIds.length; i++) {
+            result[i] = accounts.get(materialIds[i]);
+            if (result[i] == null) missing.add(materialIds[i]);
+        }
+        if (missing.isEmpty()) return result;
+
+        // 처음 쓰는 자재만 DB 에서 한 번에 올린다
+        String placeholders = String.join(",", Collections.nCopies(missing.size(), "?"));
+        jdbcTemplate.query(String.format(SELECT_STOCK, placeholders), rs -> {
+            long id = rs.getLong("id");
+            accounts.putIfAbsent(id, new Account(id, rs.getString("name"), rs.getLong("current_stock")));
+        }, missing.toArray());
+
+        for (int i = 0; i < materialIds.length; i++) {
+            result[i] = accounts.get(materialIds[i]);
+            if (result[i] == null) {
+                throw new IllegalStateException("자재를 찾을 수 없습니다. id=" + materialIds[i]);
+            }
+        }
+        return result;
+    }
+
+
+    // =========================
+    // 주기적 DB 반영 (순증감 + 합친 출고 이력)
+    // =========================
+    @Scheduled(fixedDelayString = "${mes.stock.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> deltas = new LinkedHashMap<>();
+            for (Account account : accounts.values()) {
+                long delta = account.pending.getAndSet(0);
+                if (delta != 0) deltas.put(account.materialId, delta);
+            }
+            Map<TxKey, Long> outbound = new LinkedHashMap<>();
+            // remove 로 꺼낸 뒤 들어온 출고는 새 항목으로 merge 되어 다음 주기에 반영된다
+            for (TxKey key : new ArrayList<>(pendingOutbound.keySet())) {
+                Long qty = pendingOutbound.remove(key);
+                if (qty != null && qty != 0) outbound.put(key, qty);
+            }
+            if (deltas.isEmpty() && outbound.isEmpty()) return;
+
+            try {
+                txTemplate.executeWithoutResult(status -> write(deltas, outbound));
+                outbound.forEach((key, qty) -> accounts.get(key.materialId()).recorded.addAndGet(qty));
+                flushCount.incrementAndGet();
+                flushedStatements.addAndGet(deltas.size() + outbound.size());
+            } catch (RuntimeException e) {
+                // 다음 주기에 다시 시도
+                log.error("자재 원장 반영 실패 : 자재 {}건, 출고 이력 {}건", deltas.size(), outbound.size(), e);
+                deltas.forEach((id, delta) -> accounts.get(id).pending.addAndGet(delta));
+                outbound.forEach((key, qty) -> pendingOutbound.merge(key, qty, Long::sum));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Map<Long, Long> deltas, Map<TxKey, Long> outbound) {
+        if (!deltas.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(deltas.size());
+            deltas.forEach((id, delta) -> args.add(new Object[]{delta, id}));
+            jdbcTemplate.batchUpdate(UPDATE_STOCK, args);
+        }
+        if (!outbound.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> args = new ArrayList<>(outbound.size());
+            outbound.forEach((key, qty) -> args.add(new Object[]{
+                    key.materialId(), qty, key.location(), key.equipment(), key.worker(), now}));
+            jdbcTemplate.batchUpdate(INSERT_OUTBOUND_TX, args);
+        }
+    }
+
+    // =========================
+    // 정합성 검증 : 원장과 DB 가 일치하는지 확인
+    // =========================
+    // 커밋 직후 콜백 사이에는 잠깐 어긋날 수 있으므로, 같은 차이가 두 번 연속 나온 자재만 DB 기준으로 보정한다
+    // 출고 이력은 커밋된 차감량과 (기록한 출고량 + 미반영 출고량) 을 비교한다. 이미 빠진 이력은 되살릴 수 없으므로 보고만 한다
+    @Scheduled(fixedDelayString = "${mes.stock.reconcile-interval-ms:60000}", initialDelayString = "${mes.stock.reconcile-interval-ms:60000}")
+    public ReconcileReport reconcile() {
+        flushLock.lock();
+        try {
+            if (accounts.isEmpty()) {
+                return new ReconcileReport(0, List.of(), List.of(), flushCount.get(), flushedStatements.get());
+            }
+
+            Map<Long, Long> dbStock = new HashMap<>();
+            String placeholders = String.join(",", Collections.nCopies(accounts.size(), "?"));
+            jdbcTemplate.query(String.format(SELECT_STOCK, placeholders),
+                    rs -> { dbStock.put(rs.getLong("id"), rs.getLong("current_stock")); },
+                    accounts.keySet().toArray());
+
+            List<ReconcileReport.Drift> drifts = new ArrayList<>();
+            Map<Long, Long> nextSuspects = new HashMap<>();
+            for (Account account : accounts.values()) {
+                long reserved = account.reserved.get();
+                long ledger = account.available.get() + reserved;
+                long expected = dbStock.getOrDefault(account.materialId, 0L) + account.pending.get();
+                long diff = expected - ledger;
+                if (diff == 0) continue;
+
+                boolean confirmed = Objects.equals(suspects.get(account.materialId), diff);
+                if (confirmed) {
+                    account.available.addAndGet(diff);
+                } else {
+                    nextSuspects.put(account.materialId, diff);
+                }
+                drifts.add(new ReconcileReport.Drift(account.materialId, account.name, ledger, expected, confirmed));
+            }
+            suspects.clear();
+            suspects.putAll(nextSuspects);
+
+            // 출고 이력 : flush 잠금 안이므로 recorded 와 pendingOutbound 는 서로 맞물려 있다
+            Map<Long, Long> unrecorded = new HashMap<>();
+            pendingOutbound.forEach((key, qty) -> unrecorded.merge(key.materialId(), qty, Long::sum));
+
+            List<ReconcileReport.TxDrift> txDrifts = new ArrayList<>();
+            Map<Long, Long> nextTxSuspects = new HashMap<>();
+            for (Account account : accounts.values()) {
+                long consumed = account.consumed.get();
+                long recorded = account.recorded.get() + unrecorded.getOrDefault(account.materialId, 0L);
+                long diff = consumed - recorded;
+                if (diff == 0) continue;
+
+                boolean confirmed = Objects.equals(txSuspects.get(account.materialId), diff);
+                if (!confirmed) nextTxSuspects.put(account.materialId, diff);
+                txDrifts.add(new ReconcileReport.TxDrift(account.materialId, account.name, consumed, recorded, confirmed));
+            }
+            txSuspects.clear();
+            txSuspects.putAll(nextTxSuspects);
+
+            if (drifts.stream().anyMatch(ReconcileReport.Drift::corrected)) {
+                log.warn("자재 원장 불일치 보정 : {}", drifts);
+            }
+            if (txDrifts.stream().anyMatch(ReconcileReport.TxDrift::confirmed)) {
+                log.error("자재 출고 이력 불일치 : {}", txDrifts);
+            }
+            return new ReconcileReport(accounts.size(), drifts, txDrifts, flushCount.get(), flushedStatements.get());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // checked : 검증한 자재 수, flushes / flushedRows : 누적 DB 반영 횟수 / 문장 수
+    public record ReconcileReport(int checked, List<Drift> drifts, List<TxDrift> txDrifts, long flushes, long flushedRows) {
+        // dbQty = DB current_stock + 미반영 증감, corrected = 두 번 연속 어긋나 보정함
+        public record Drift(long materialId, String materialName, long ledgerQty, long dbQty, boolean corrected) {}
+
+        // consumedQty = 커밋된 누적 차감량, recordedQty = 출고 이력 누적량(미반영 포함), confirmed = 두 번 연속 어긋남
+        public record TxDrift(long materialId, String materialName, long consumedQty, long recordedQty, boolean confirmed) {}
+
+        public boolean isConsistent() {
+            return drifts.stream().noneMatch(Drift::corrected)
+                    && txDrifts.stream().noneMatch(TxDrift::confirmed);
+        }
+    }
+}
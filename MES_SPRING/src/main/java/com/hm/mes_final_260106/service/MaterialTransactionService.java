@@ -29,6 +29,7 @@ public class MaterialTransactionService {
     private final MaterialRepository materialRepo;
     private final MaterialTransactionRepository txRepo;
     private final WarehouseRepository warehouseRepo;
+    private final MaterialStockLedger stockLedger;
 
     // =========================
     // 입고 처리
@@ -37,7 +38,7 @@ public class MaterialTransactionService {
 
         validateCommon(req.getMaterialBarcode(), req.getQty());
 
-        Material material = materialRepo.findByCode(req.getMaterialBarcode())
+        Material material = materialRepo.findByCodeForUpdate(req.getMaterialBarcode())
                 .orElseThrow(() -> new CustomException("NOT_FOUND",
                         "해당 바코드의 자재가 존재하지 않습니다: " + req.getMaterialBarcode()));
 
@@ -80,6 +81,7 @@ public class MaterialTransactionService {
 
         MaterialTransaction saved = txRepo.save(tx);
         materialRepo.save(material);
+        stockLedger.applyExternal(material.getId(), req.getQty());
 
         return toRes(saved);
     }
@@ -91,7 +93,7 @@ public class MaterialTransactionService {
 
         validateCommon(req.getMaterialBarcode(), req.getQty());
 
-        Material material = materialRepo.findByCode(req.getMaterialBarcode())
+        Material material = materialRepo.findByCodeForUpdate(req.getMaterialBarcode())
                 .orElseThrow(() -> new CustomException("NOT_FOUND",
                         "해당 바코드의 자재가 존재하지 않습니다: " + req.getMaterialBarcode()));
 
@@ -154,6 +156,7 @@ public class MaterialTransactionService {
 
         MaterialTransaction saved = txRepo.save(tx);
         materialRepo.save(material);
+        stockLedger.applyExternal(material.getId(), -req.getQty());
 
         return toRes(saved);
     }
@@ -0,0 +1,100 @@
+package com.hm.mes_final_260106.service;
+
+// Nelson 규칙 1~8 증분 판정기 (SPC 항목 1개당 1개)
+// 표본이 들어올 때마다 직전 상태(연속 개수, 최근 3 / 5점 비트마스크)만 갱신하므로 표본당 O(1), 과거 데이터를 다시 읽지 않는다.
+// 중심선 / σ 는 호출 측이 넘겨준다 (SpcEngine : 현재 표본을 더하기 전까지의 누적 평균 / 표준편차).
+// 반환값은 이번 표본에서 새로 위반된 규칙 비트(규칙 r → 1 << (r - 1)).
+// 규칙 1 은 점마다, 나머지는 위반 상태로 들어설 때 한 번만 알린다 (같은 추세로 매 점 알람이 쏟아지지 않도록).
+public final class NelsonRuleEvaluator {
+
+    public static final int RULE_COUNT = 8;
+
+    private static final String[] DESCRIPTIONS = {
+            "1점이 중심선에서 3σ 를 벗어남",
+            "9점 연속 중심선 한쪽",
+            "6점 연속 증가 또는 감소",
+            "14점 연속 오르내림 반복",
+            "3점 중 2점이 같은 쪽 2σ 밖",
+            "5점 중 4점이 같은 쪽 1σ 밖",
+            "15점 연속 1σ 이내",
+            "8점 연속 1σ 밖 (중심선 양쪽에 걸침)"
+    };
+
+    private boolean hasPrev;
+    private double prev;
+    private int prevDir;        // 직전 변화 방향 (+1 / -1 / 0)
+
+    private int sideRun;        // 규칙 2 : +k 위쪽 k점, -k 아래쪽 k점
+    private int trendRun;       // 규칙 3 : +k 증가 k점, -k 감소 k점
+    private int altRun;         // 규칙 4 : 오르내림이 번갈아 나온 점 수
+    private int above2, below2; // 규칙 5 : 최근 표본의 2σ 초과 여부 비트 (최하위 비트가 현재)
+    private int above1, below1; // 규칙 6 : 1σ 초과 여부 비트
+    private int withinRun;      // 규칙 7 : 연속 1σ 이내
+    private int beyondRun;      // 규칙 8 : 연속 1σ 밖 (어느 쪽이든)
+    private int up8, down8;     // 규칙 8 : 최근 8점의 위쪽 / 아래쪽 1σ 초과 비트 (양쪽 모두 있어야 위반)
+
+    private int active;         // 직전 표본 기준 위반 중인 규칙
+
+    public static String describe(int rule) {
+        return DESCRIPTIONS[rule - 1];
+    }
+
+    public int evaluate(double x, double mean, double sigma) {
+        // 추세 / 교대 (중심선과 무관)
+        int dir = hasPrev ? Double.compare(x, prev) : 0;
+        if (hasPrev) {
+            if (dir > 0) trendRun = trendRun > 0 ? trendRun + 1 : 2;
+            else if (dir < 0) trendRun = trendRun < 0 ? trendRun - 1 : -2;
+            else trendRun = 1;
+
+            if (dir != 0 && prevDir == -dir) altRun++;
+            else altRun = dir != 0 ? 2 : 1;
+        } else {
+            trendRun = 1;
+            altRun = 1;
+        }
+        hasPrev = true;
+        prev = x;
+        prevDir = dir;
+
+        int violated = 0;
+        if (Math.abs(trendRun) >= 6) violated |= bit(3);
+        if (altRun >= 14) violated |= bit(4);
+
+        if (sigma > 0) {
+            double z = (x - mean) / sigma;
+
+            if (Math.abs(z) > 3) violated |= bit(1);
+
+            if (z > 0) sideRun = sideRun > 0 ? sideRun + 1 : 1;
+            else if (z < 0) sideRun = sideRun < 0 ? sideRun - 1 : -1;
+            else sideRun = 0;
+            if (Math.abs(sideRun) >= 9) violated |= bit(2);
+
+            above2 = ((above2 << 1) | (z > 2 ? 1 : 0)) & 0b111;
+            below2 = ((below2 << 1) | (z < -2 ? 1 : 0)) & 0b111;
+            if (Integer.bitCount(above2) >= 2 || Integer.bitCount(below2) >= 2) violated |= bit(5);
+
+            above1 = ((above1 << 1) | (z > 1 ? 1 : 0)) & 0b11111;
+            below1 = ((below1 << 1) | (z < -1 ? 1 : 0)) & 0b11111;
+            if (Integer.bitCount(above1) >= 4 || Integer.bitCount(below1) >= 4) violated |= bit(6);
+
+            boolean within = Math.abs(z) <= 1;
+            withinRun = within ? withinRun + 1 : 0;
+            beyondRun = within ? 0 : beyondRun + 1;
+            if (withinRun >= 15) violated |= bit(7);
+
+            up8 = ((up8 << 1) | (z > 1 ? 1 : 0)) & 0xFF;
+            down8 = ((down8 << 1) | (z < -1 ? 1 : 0)) & 0xFF;
+            if (beyondRun >= 8 && up8 != 0 && down8 != 0) violated |= bit(8);
+        }
+
+        int fired = (violated & ~active) | (violated & bit(1));
+        active = violated;
+        return fired;
+    }
+
+    private static int bit(int rule) {
+        return 1 << (rule - 1);
+    }
+}
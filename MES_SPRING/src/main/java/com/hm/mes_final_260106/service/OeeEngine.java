@@ -0,0 +1,360 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.EquipmentStatus;
+import com.hm.mes_final_260106.entity.Equipment;
+import com.hm.mes_final_260106.entity.Item;
+import com.hm.mes_final_260106.entity.ProductionLog;
+import com.hm.mes_final_260106.entity.WorkOrder;
+import com.hm.mes_final_260106.repository.EquipmentRepository;
+import com.hm.mes_final_260106.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 설비별 OEE(가동률 × 성능 × 양품률) 누적기
+// OEE 를 구하려면 equipment_event_log 상태 변경, production_log 시각, item 검사 결과를 하루치씩 조인해야 했던 것을,
+// 이벤트가 들어올 때 (설비, 근무조) 버킷에 증분만 더하는 방식으로 바꾼다.
+//  - 시간 : 설비별 현재 상태와 그 시작 시각을 들고 있다가, 상태가 바뀌거나 주기가 돌 때 경과 시간을 RUN / IDLE / DOWN 에 더한다
+//           (근무조 경계를 넘는 구간은 나눠서 더한다)
+//  - 수량 : 실적 보고마다 생산 수량 / 양품 수량(Item.inspectionResult) / 이론 시간(이상 사이클 타임 × 수량)을 더한다
+//           이상 사이클 타임은 작업지시 제품의 product.ideal_cycle_ms, 비어 있으면 mes.oee.ideal-cycle-ms
+//           (한 라인에 사이클이 다른 제품이 섞여도 보고마다 제 제품 기준으로 성능을 잰다)
+//           제품별 값은 기동 시 적재하고 제품 등록 / 수정 때 갱신한다 (보고마다 제품을 로딩하지 않음)
+// 버킷은 ProductionResultAggregator 와 같이 증분만 들고 있다가 mes.oee.flush-interval-ms 마다 oee_shift 에 upsert(+=) 한다
+// (한 트랜잭션으로 묶어, 실패하면 전부 롤백하고 증분을 되돌려 다음 주기에 다시 반영).
+// 근무조 시작 시각은 mes.oee.shift-start-hours (기본 06 / 14 / 22시 3교대).
+// 서버가 내려가 있던 동안의 상태 시간은 알 수 없으므로 기동 시각부터 다시 센다.
+@Component
+@Slf4j
+public class OeeEngine {
+
+    static final int RUN = 0, IDLE = 1, DOWN = 2, TOTAL = 3, GOOD = 4, IDEAL = 5;
+    private static final int FIELDS = 6;
+
+    private static final String UPSERT_SHIFT =
+            "INSERT INTO oee_shift (equipment_id, equipment_code, line, shift_start, shift_end, " +
+                    "run_ms, idle_ms, down_ms, total_qty, good_qty, ideal_ms, updated_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE equipment_code = VALUES(equipment_code), line = VALUES(line), " +
+                    "run_ms = run_ms + VALUES(run_ms), idle_ms = idle_ms + VALUES(idle_ms), down_ms = down_ms + VALUES(down_ms), " +
+                    "total_qty = total_qty + VALUES(total_qty), good_qty = good_qty + VALUES(good_qty), " +
+                    "ideal_ms = ideal_ms + VALUES(ideal_ms), updated_at = VALUES(updated_at)";
+
+    private final EquipmentRepository equipmentRepo;
+    private final ProductRepository productRepo;
+    private final CompiledBomCache bomCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final long idealCycleMillis;
+    private final int[] shiftStartHours;
+
+    // 설비 1대의 현재 상태 (접근은 synchronized (this))
+    private static final class EquipmentState {
+        String code;
+        String line = ProductionResultAggregator.DEFAULT_LINE;
+        EquipmentStatus status;
+        long since;
+        boolean retired;    // 삭제됨 : 남은 증분을 반영한 뒤 flush 에서 제거
+
+        EquipmentState(String code, EquipmentStatus status, long since) {
+            this.code = code;
+            this.status = status;
+            this.since = since;
+        }
+    }
+
+    record ShiftKey(Long equipmentId, LocalDateTime shiftStart) {}
+
+    private static final class Deltas {
+        final AtomicLong[] values = new AtomicLong[FIELDS];
+
+        Deltas() {
+            for (int i = 0; i < FIELDS; i++) values[i] = new AtomicLong();
+        }
+
+        boolean isZero() {
+            for (AtomicLong v : values) if (v.get() != 0) return false;
+            return true;
+        }
+    }
+
+    private final Map<Long, EquipmentState> states = new ConcurrentHashMap<>();
+    private final Map<ShiftKey, Deltas> buckets = new ConcurrentHashMap<>();
+    // 제품 id → 이상 사이클 타임(ms) (지정된 제품만)
+    private final Map<Long, Long> productCycles = new ConcurrentHashMap<>();
+
+    public OeeEngine(EquipmentRepository equipmentRepo,
+                     ProductRepository productRepo,
+                     CompiledBomCache bomCache,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager txManager,
+                     @Value("${mes.oee.ideal-cycle-ms:1000}") long idealCycleMillis,
+                     @Value("${mes.oee.shift-start-hours:6,14,22}") int[] shiftStartHours) {
+        this.equipmentRepo = equipmentRepo;
+        this.productRepo = productRepo;
+        this.bomCache = bomCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.idealCycleMillis = idealCycleMillis;
+        this.shiftStartHours = Arrays.stream(shiftStartHours).distinct().sorted().toArray();
+        if (this.shiftStartHours.length == 0 || this.shiftStartHours[0] < 0 || this.shiftStartHours[this.shiftStartHours.length - 1] > 23) {
+            throw new IllegalArgumentException("mes.oee.shift-start-hours 는 0~23 사이 시각이어야 합니다.");
+        }
+    }
+
+    // =========================
+    // 기동 시 1회 : 설비 현재 상태 / 제품별 이상 사이클 타임 적재
+    // =========================
+    @PostConstruct
+    public void warmUp() {
+        long now = System.currentTimeMillis();
+        for (Equipment e : equipmentRepo.findAll()) {
+            states.put(e.getId(), new EquipmentState(e.getCode(), e.getStatus(), now));
+        }
+        for (Object[] r : productRepo.findIdealCycles()) {
+            productCycles.put((Long) r[0], ((Number) r[1]).longValue());
+        }
+        log.info("OEE 설비 상태 적재 완료 : {}대, 근무조 시작 {}, 제품별 사이클 {}건",
+                states.size(), Arrays.toString(shiftStartHours), productCycles.size());
+    }
+
+    // =========================
+    // 이벤트 반영 (커밋 후)
+    // =========================
+    // 설비 등록 / 상태 변경 : 이전 상태의 경과 시간을 마감하고 새 상태로 다시 센다
+    public void statusChanged(Equipment equipment) {
+        Long id = equipment.getId();
+        String code = equipment.getCode();
+        EquipmentStatus status = equipment.getStatus();
+        TransactionHooks.afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            EquipmentState state = states.computeIfAbsent(id, k -> new EquipmentState(code, status, now));
+            synchronized (state) {
+                accrue(id, state, now);
+                state.code = code;
+                state.status = status;
+            }
+        });
+    }
+
+    // 제품 등록 / 수정 / 삭제 : 이상 사이클 타임 갱신 (null 이면 기본값)
+    public void productChanged(Long productId, Long idealCycleMs) {
+        TransactionHooks.afterCommit(() -> {
+            if (idealCycleMs != null && idealCycleMs > 0) productCycles.put(productId, idealCycleMs);
+            else productCycles.remove(productId);
+        });
+    }
+
+    // 설비 삭제 : 지금까지의 시간을 마감하고 추적 중단 (oee_shift 이력은 남는다)
+    public void forgetEquipment(Long equipmentId) {
+        TransactionHooks.afterCommit(() -> {
+            EquipmentState state = states.get(equipmentId);
+            if (state == null) return;
+            synchronized (state) {
+                accrue(equipmentId, state, System.currentTimeMillis());
+                state.retired = true;
+            }
+        });
+    }
+
+    // 실적 보고 : 개별 Item 검사 결과가 있으면 그것으로, 없으면 보고 수량(resultQty / defectQty)으로 센다
+    public void recordReport(ProductionLog productionLog) {
+        if (productionLog.getEquipment() == null) return;
+        long total;
+        long good;
+        List<Item> items = productionLog.getItems();
+        if (items != null && !items.isEmpty()) {
+            total = items.size();
+            good = items.stream().filter(i -> !"Fail".equalsIgnoreCase(i.getInspectionResult())).count();
+        } else {
+            good = productionLog.getResultQty() != null ? productionLog.getResultQty() : 0;
+            total = good + (productionLog.getDefectQty() != null ? productionLog.getDefectQty() : 0);
+        }
+        if (total == 0) return;
+
+        Long equipmentId = productionLog.getEquipment().getId();
+        String line = productionLog.getWorkOrder() != null
+                ? ProductionResultAggregator.lineOf(productionLog.getWorkOrder().getTargetLine()) : null;
+        LocalDateTime at = productionLog.getEndTime() != null ? productionLog.getEndTime() : LocalDateTime.now();
+        long totalQty = total;
+        long goodQty = good;
+        long idealMillis = totalQty * idealCycleOf(productionLog.getWorkOrder());
+
+        TransactionHooks.afterCommit(() -> {
+            if (line != null) {
+                EquipmentState state = states.get(equipmentId);
+                if (state != null) {
+                    synchronized (state) {
+                        state.line = line;
+                    }
+                }
+            }
+            long[] d = new long[FIELDS];
+            d[TOTAL] = totalQty;
+            d[GOOD] = goodQty;
+            d[IDEAL] = idealMillis;
+            accumulate(new ShiftKey(equipmentId, shiftStartOf(at)), d);
+        });
+    }
+
+    // 작업지시 제품의 이상 사이클 타임 (컴파일된 BOM 의 제품 id 로 찾으므로 BOM / 제품을 로딩하지 않음)
+    private long idealCycleOf(WorkOrder workOrder) {
+        if (workOrder == null || workOrder.getBom() == null) return idealCycleMillis;
+        Long cycle = productCycles.get(bomCache.get(workOrder.getBom().getId()).productId());
+        return cycle != null ? cycle : idealCycleMillis;
+    }
+
+    // [state.since, now) 를 근무조별로 나눠 현재 상태 시간에 더한다 (state 잠금 안에서 호출)
+    private void accrue(Long equipmentId, EquipmentState state, long now) {
+        if (state.retired) return;
+        int field = state.status == EquipmentStatus.RUN ? RUN
+                : state.status == EquipmentStatus.DOWN ? DOWN : IDLE;
+        long t = state.since;
+        while (t < now) {
+            LocalDateTime shiftStart = shiftStartOf(toDateTime(t));
+            long end = Math.min(now, toMillis(nextShiftStart(shiftStart)));
+            long[] d = new long[FIELDS];
+            d[field] = end - t;
+            accumulate(new ShiftKey(equipmentId, shiftStart), d);
+            t = end;
+        }
+        state.since = Math.max(state.since, now);
+    }
+
+    // flush 의 빈 버킷 제거와 겹치지 않도록 compute 안에서 더한다
+    private void accumulate(ShiftKey key, long[] d) {
+        buckets.compute(key, (k, deltas) -> {
+            if (deltas == null) deltas = new Deltas();
+            for (int i = 0; i < FIELDS; i++) {
+                if (d[i] != 0) deltas.values[i].addAndGet(d[i]);
+            }
+            return deltas;
+        });
+    }
+
+    // 모든 설비의 진행 중 상태 시간을 지금까지 마감
+    private void accrueAll() {
+        long now = System.currentTimeMillis();
+        states.forEach((id, state) -> {
+            synchronized (state) {
+                accrue(id, state, now);
+            }
+        });
+    }
+
+    // =========================
+    // 주기적 DB 반영 : 버킷당 upsert 1건
+    // =========================
+    @Scheduled(fixedDelayString = "${mes.oee.flush-interval-ms:30000}")
+    public synchronized void flush() {
+        accrueAll();
+        if (buckets.isEmpty()) return;
+
+        List<ShiftKey> keys = new ArrayList<>();
+        List<long[]> drained = new ArrayList<>();
+        for (Map.Entry<ShiftKey, Deltas> e : buckets.entrySet()) {
+            long[] d = new long[FIELDS];
+            boolean any = false;
+            for (int i = 0; i < FIELDS; i++) {
+                d[i] = e.getValue().values[i].getAndSet(0);
+                any |= d[i] != 0;
+            }
+            if (any) {
+                keys.add(e.getKey());
+                drained.add(d);
+            }
+        }
+        // 비워진 버킷 정리 (지난 근무조 버킷이 계속 쌓이지 않도록)
+        for (ShiftKey key : new ArrayList<>(buckets.keySet())) {
+            buckets.computeIfPresent(key, (k, d) -> d.isZero() ? null : d);
+        }
+        if (keys.isEmpty()) return;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            ShiftKey k = keys.get(i);
+            long[] d = drained.get(i);
+            String[] info = infoOf(k.equipmentId());
+            args.add(new Object[]{k.equipmentId(), info[0], info[1],
+                    Timestamp.valueOf(k.shiftStart()), Timestamp.valueOf(nextShiftStart(k.shiftStart())),
+                    d[RUN], d[IDLE], d[DOWN], d[TOTAL], d[GOOD], d[IDEAL], now});
+        }
+
+        try {
+            txTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SHIFT, args));
+            states.values().removeIf(state -> state.retired);
+        } catch (RuntimeException e) {
+            // 전부 롤백됨 → 증분을 되돌려 다음 주기에 다시 시도
+            log.error("OEE 누적 반영 실패 : 버킷 {}건", keys.size(), e);
+            for (int i = 0; i < keys.size(); i++) {
+                accumulate(keys.get(i), drained.get(i));
+            }
+        }
+    }
+
+    // [코드, 라인]
+    String[] infoOf(Long equipmentId) {
+        EquipmentState state = states.get(equipmentId);
+        if (state == null) return new String[]{String.valueOf(equipmentId), ProductionResultAggregator.DEFAULT_LINE};
+        synchronized (state) {
+            return new String[]{state.code, state.line};
+        }
+    }
+
+    // =========================
+    // 조회 보조 : 아직 DB 에 반영되지 않은 증분 (진행 중 상태 시간 포함)
+    // =========================
+    public Map<Long, long[]> pending(LocalDateTime shiftStart) {
+        accrueAll();
+        Map<Long, long[]> out = new HashMap<>();
+        buckets.forEach((k, deltas) -> {
+            if (!k.shiftStart().equals(shiftStart)) return;
+            long[] d = new long[FIELDS];
+            for (int i = 0; i < FIELDS; i++) d[i] = deltas.values[i].get();
+            out.put(k.equipmentId(), d);
+        });
+        return out;
+    }
+
+    // =========================
+    // 근무조 계산
+    // =========================
+    public LocalDateTime shiftStartOf(LocalDateTime t) {
+        for (int i = shiftStartHours.length - 1; i >= 0; i--) {
+            if (t.getHour() >= shiftStartHours[i]) {
+                return t.toLocalDate().atTime(shiftStartHours[i], 0);
+            }
+        }
+        return t.toLocalDate().minusDays(1).atTime(shiftStartHours[shiftStartHours.length - 1], 0);
+    }
+
+    public LocalDateTime nextShiftStart(LocalDateTime shiftStart) {
+        for (int h : shiftStartHours) {
+            if (h > shiftStart.getHour()) return shiftStart.toLocalDate().atTime(h, 0);
+        }
+        return shiftStart.toLocalDate().plusDays(1).atTime(shiftStartHours[0], 0);
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime t) {
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,161 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.equipment.OeeResDto;
+import com.hm.mes_final_260106.entity.OeeShift;
+import com.hm.mes_final_260106.repository.OeeShiftRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static com.hm.mes_final_260106.service.OeeEngine.*;
+
+// OEE 조회 : oee_shift 누적 행(설비 × 근무조) + OeeEngine 의 아직 반영되지 않은 증분
+// 원천 테이블(equipment_event_log / production_log / item)은 읽지 않는다.
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OeeService {
+
+    public static final String GROUP_EQUIPMENT = "equipment";
+    public static final String GROUP_LINE = "line";
+
+    private static final int HISTORY_MAX_DAYS = 31;
+
+    private final OeeShiftRepository oeeShiftRepo;
+    private final OeeEngine oeeEngine;
+
+    // (설비 또는 라인, 근무조) 합산용
+    private static final class Acc {
+        Long equipmentId;
+        String equipmentCode;
+        String line;
+        LocalDateTime shiftStart;
+        final long[] v = new long[6];
+
+        void add(long[] d) {
+            for (int i = 0; i < v.length; i++) v[i] += d[i];
+        }
+    }
+
+    private record AccKey(Object owner, LocalDateTime shiftStart) {}
+
+    // =========================
+    // 현재 근무조
+    // =========================
+    public List<OeeResDto> getCurrent(String groupBy, String line) {
+        LocalDateTime shiftStart = oeeEngine.shiftStartOf(LocalDateTime.now());
+        Map<AccKey, Acc> byEquipment = new LinkedHashMap<>();
+        oeeShiftRepo.findByShiftStart(shiftStart).forEach(row -> addRow(byEquipment, row));
+        addPending(byEquipment, shiftStart);
+        return toResult(byEquipment, groupBy, line, null);
+    }
+
+    // =========================
+    // 근무조별 이력 (from / to 생략 시 최근 7일)
+    // =========================
+    public List<OeeResDto> getHistory(LocalDateTime from, LocalDateTime to, String groupBy, String line, String equipmentCode) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from 은 to 보다 이전이어야 합니다.");
+        }
+        if (start.plusDays(HISTORY_MAX_DAYS).isBefore(end)) {
+            throw new IllegalArgumentException("OEE 이력은 최대 " + HISTORY_MAX_DAYS + "일까지 조회할 수 있습니다.");
+        }
+
+        Map<AccKey, Acc> byEquipment = new LinkedHashMap<>();
+        oeeShiftRepo.findByShiftStartBetweenOrderByShiftStartAsc(oeeEngine.shiftStartOf(start), end)
+                .forEach(row -> addRow(byEquipment, row));
+        LocalDateTime current = oeeEngine.shiftStartOf(LocalDateTime.now());
+        if (!current.isAfter(end)) {
+            addPending(byEquipment, current);
+        }
+        return toResult(byEquipment, groupBy, line, equipmentCode);
+    }
+
+    private void addRow(Map<AccKey, Acc> target, OeeShift row) {
+        Acc acc = target.computeIfAbsent(new AccKey(row.getEquipmentId(), row.getShiftStart()), k -> new Acc());
+        acc.equipmentId = row.getEquipmentId();
+        acc.equipmentCode = row.getEquipmentCode();
+        acc.line = row.getLine();
+        acc.shiftStart = row.getShiftStart();
+        acc.add(new long[]{row.getRunMs(), row.getIdleMs(), row.getDownMs(), row.getTotalQty(), row.getGoodQty(), row.getIdealMs()});
+    }
+
+    private void addPending(Map<AccKey, Acc> target, LocalDateTime shiftStart) {
+        oeeEngine.pending(shiftStart).forEach((equipmentId, d) -> {
+            Acc acc = target.computeIfAbsent(new AccKey(equipmentId, shiftStart), k -> new Acc());
+            String[] info = oeeEngine.infoOf(equipmentId);
+            acc.equipmentId = equipmentId;
+            acc.equipmentCode = info[0];
+            acc.line = info[1];
+            acc.shiftStart = shiftStart;
+            acc.add(d);
+        });
+    }
+
+    private List<OeeResDto> toResult(Map<AccKey, Acc> byEquipment, String groupBy, String line, String equipmentCode) {
+        String group = groupBy == null ? GROUP_EQUIPMENT : groupBy;
+        if (!GROUP_EQUIPMENT.equals(group) && !GROUP_LINE.equals(group)) {
+            throw new IllegalArgumentException("groupBy 는 equipment 또는 line 이어야 합니다.");
+        }
+
+        List<Acc> filtered = byEquipment.values().stream()
+                .filter(a -> line == null || line.equals(a.line))
+                .filter(a -> equipmentCode == null || equipmentCode.equals(a.equipmentCode))
+                .toList();
+
+        Collection<Acc> result = filtered;
+        if (GROUP_LINE.equals(group)) {
+            Map<AccKey, Acc> byLine = new LinkedHashMap<>();
+            for (Acc a : filtered) {
+                Acc acc = byLine.computeIfAbsent(new AccKey(a.line, a.shiftStart), k -> new Acc());
+                acc.line = a.line;
+                acc.shiftStart = a.shiftStart;
+                acc.add(a.v);
+            }
+            result = byLine.values();
+        }
+
+        return result.stream()
+                .sorted(Comparator.comparing((Acc a) -> a.shiftStart)
+                        .thenComparing(a -> a.line, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(a -> a.equipmentCode, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .map(this::toDto)
+                .toList();
+    }
+
+    private OeeResDto toDto(Acc a) {
+        long[] v = a.v;
+        double availability = ratio(v[RUN], v[RUN] + v[DOWN]);
+        double performance = Math.min(1.0, ratio(v[IDEAL], v[RUN]));
+        double quality = ratio(v[GOOD], v[TOTAL]);
+        return OeeResDto.builder()
+                .equipmentId(a.equipmentId)
+                .equipmentCode(a.equipmentCode)
+                .line(a.line)
+                .shiftStart(a.shiftStart)
+                .shiftEnd(oeeEngine.nextShiftStart(a.shiftStart))
+                .runSeconds(v[RUN] / 1000)
+                .idleSeconds(v[IDLE] / 1000)
+                .downSeconds(v[DOWN] / 1000)
+                .totalQty(v[TOTAL])
+                .goodQty(v[GOOD])
+                .availability(percent(availability))
+                .performance(percent(performance))
+                .quality(percent(quality))
+                .oee(percent(availability * performance * quality))
+                .build();
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator <= 0 ? 0 : (double) numerator / denominator;
+    }
+
+    private static double percent(double ratio) {
+        return Math.round(ratio * 1000) / 10.0;
+    }
+}
@@ -0,0 +1,425 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.productionLog.ProductionIngestMetricsDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionReportResultDto;
+import com.hm.mes_final_260106.exception.CustomException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 생산 실적 비동기 적재 파이프라인
+// 컨트롤러는 보고를 검증한 뒤 링 버퍼(고정 크기 배열 큐)에 넣고 ack id만 돌려준다.
+// 소수의 writer 스레드가 버퍼를 묶음 단위로 꺼내 ProductionService.reportProductionBatch 로 한 번에 커밋한다.
+//  - 버퍼는 writer 마다 하나 : 작업지시 번호 해시로 writer 를 고른다
+//    → 같은 작업지시의 보고는 한 writer 가 순서대로 커밋 (currentQty / status 갱신이 writer 끼리 엇갈리지 않음)
+//  - 묶음 커밋이 롤백되면 같은 writer 가 간격을 늘려 가며 다시 커밋하고(순서 유지),
+//    재시도를 다 쓰면 dead letter : 저널 체크포인트를 남기지 않아 다음 기동 시 재생된다
+// 모든 접수 경로(동기 / 일괄 / 비동기)는 DB 반영 전에 ProductionJournal 에 선기록하고, 커밋 후 체크포인트한다.
+@Service
+@Slf4j
+public class ProductionIngestService {
+
+    private final ProductionService productionService;
+    private final ProductionJournal journal;
+    private final ReportDedupWindow dedupWindow;
+
+    private final boolean asyncMode;
+    private final int capacity;
+    private final int writerThreads;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    // ArrayBlockingQueue = 고정 크기 원형 배열 → 메모리 상한이 정해진 링 버퍼 (writer 별, capacity 를 나눠 가짐)
+    private final List<BlockingQueue<PendingReport>> lanes = new ArrayList<>();
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    private final AtomicLong ackSequence = new AtomicLong();
+
+    // 최근 처리 결과 (ack id → 결과), 오래된 것부터 밀어냄
+    private static final int RESULT_CACHE_SIZE = 10_000;
+    private final Map<Long, ProductionReportResultDto> recentResults =
+            Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ProductionReportResultDto> eldest) {
+                    return size() > RESULT_CACHE_SIZE;
+                }
+            });
+
+    // ----- 메트릭 -----
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong committedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong deadLetterCount = new AtomicLong();
+    private final AtomicLong groupCount = new AtomicLong();
+    private final AtomicLong totalDrainNanos = new AtomicLong();
+    private final AtomicLong maxDrainNanos = new AtomicLong();
+    private final AtomicLong lastDrainNanos = new AtomicLong();
+    private final AtomicLong totalCommitNanos = new AtomicLong();
+
+    public ProductionIngestService(
+            ProductionService productionService,
+            ProductionJournal journal,
+            ReportDedupWindow dedupWindow,
+            @Value("${mes.ingest.async:false}") boolean asyncMode,
+            @Value("${mes.ingest.capacity:4096}") int capacity,
+            @Value("${mes.ingest.writer-threads:2}") int writerThreads,
+            @Value("${mes.ingest.batch-size:100}") int batchSize,
+            @Value("${mes.ingest.max-retries:3}") int maxRetries,
+            @Value("${mes.ingest.retry-backoff-ms:500}") long retryBackoffMs) {
+        this.productionService = productionService;
+        this.journal = journal;
+        this.dedupWindow = dedupWindow;
+        this.asyncMode = asyncMode;
+        this.capacity = capacity;
+        this.writerThreads = writerThreads;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        int laneCapacity = Math.max(1, capacity / writerThreads);
+        for (int i = 0; i < writerThreads; i++) {
+            lanes.add(new ArrayBlockingQueue<>(laneCapacity));
+        }
+    }
+
+    // 적재 대기 중인 보고 1건
+    private record PendingReport(long ackId, ProductionLogCreateReqDto dto, long enqueuedAt, long journalSeq) {}
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "report-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        for (BlockingQueue<PendingReport> lane : lanes) {
+            writers.submit(() -> drainLoop(lane));
+        }
+        log.info("실적 적재 파이프라인 시작 : capacity={}, writers={}, batchSize={}", capacity, writerThreads, batchSize);
+    }
+
+    // 기동 직후 저널에 남은 미커밋 보고를 다시 적재
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() throws InterruptedException {
+        List<ProductionJournal.Entry> entries = journal.takeRecovered();
+        if (entries.isEmpty()) return;
+
+        log.warn("실적 저널 재생 : 미커밋 보고 {}건", entries.size());
+        for (ProductionJournal.Entry entry : entries) {
+            long ackId = ackSequence.incrementAndGet();
+            dedupWindow.putIfAbsent(ReportDedupWindow.key(entry.dto()), ackId);
+            laneOf(entry.dto()).put(new PendingReport(ackId, entry.dto(), System.nanoTime(), entry.seq()));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("실적 적재 파이프라인 종료 대기 초과, 남은 보고 {}건", queueDepth());
+            writers.shutdownNow();
+        }
+    }
+
+    // =========================
+    // 보고 접수 (non-blocking)
+    // =========================
+    // 버퍼가 가득 차면 -1 을 돌려준다 → 컨트롤러에서 429 + Retry-After 로 응답
+    // 중복 보고는 적재하지 않고 원래 보고의 ack id 를 돌려준다
+    public long submit(ProductionLogCreateReqDto dto) {
+        validate(dto);
+
+        String key = ReportDedupWindow.key(dto);
+        long ackId = ackSequence.incrementAndGet();
+        ReportDedupWindow.Seen seen = dedupWindow.putIfAbsent(key, ackId);
+        if (seen != null) {
+            duplicateCount.incrementAndGet();
+            if (seen.getAckId() > 0) return seen.getAckId();
+            // 동기 경로로 처리된 보고 → 새 ack id 로 기존 결과를 조회할 수 있게 한다
+            recentResults.put(ackId, seen.getResult());
+            return ackId;
+        }
+
+        long journalSeq = journal.append(dto);
+        if (!laneOf(dto).offer(new PendingReport(ackId, dto, System.nanoTime(), journalSeq))) {
+            // 거절된 보고는 설비가 재전송하므로 저널 / 중복 창에서 바로 지운다
+            journal.checkpoint(journalSeq);
+            dedupWindow.forget(key);
+            rejectedCount.incrementAndGet();
+            return -1;
+        }
+        acceptedCount.incrementAndGet();
+        return ackId;
+    }
+
+    // =========================
+    // 동기 접수 : 저널 선기록 → 커밋 → 체크포인트
+    // =========================
+    // 커밋되었거나 업무 결과가 확정된 보고(OK / SHORTAGE / DUPLICATE)만 체크포인트한다
+    //  - 롤백된 보고(DB 오류 등)는 저널에 남겨 다음 기동 시 재생 (설비는 오류 응답 후 같은 보고를 다시 보내지 않음)
+    //  - 이미 반영된 보고가 재생되어도 (equipment_id, report_seq) 유니크 키에 걸려 DUPLICATE 로 끝난다
+    // 중복 보고는 최초 처리 결과를 그대로 돌려준다 (재고 부족이었다면 같은 예외)
+    public void reportNow(ProductionLogCreateReqDto dto) {
+        String key = ReportDedupWindow.key(dto);
+        ReportDedupWindow.Seen seen = dedupWindow.get(key);
+        if (seen != null) {
+            duplicateCount.incrementAndGet();
+            ProductionReportResultDto previous = seen.getResult();
+            if (previous != null && ProductionReportResultDto.SHORTAGE.equals(previous.getResult())) {
+                throw new CustomException(previous.getCode(), previous.getMessage());
+            }
+            return;
+        }
+
+        long journalSeq = journal.append(dto);
+        try {
+            productionService.reportProduction(dto);
+            journal.checkpoint(journalSeq);
+            dedupWindow.complete(key, ProductionReportResultDto.ok(0, dto.getWorkOrderNumber()));
+        } catch (CustomException e) {
+            // 재고 부족 : 실적 행은 남고 결과가 확정됨
+            journal.checkpoint(journalSeq);
+            dedupWindow.complete(key, ProductionReportResultDto.fail(0, dto.getWorkOrderNumber(),
+                    ProductionReportResultDto.SHORTAGE, e.getCode(), e.getMessage()));
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            // 중복 창에서 밀려난 재전송 → (equipment_id, report_seq) 유니크 제약에 걸려 전체 롤백됨
+            if (!ReportDedupWindow.isDuplicateReport(e)) throw e;
+            journal.checkpoint(journalSeq);
+            duplicateCount.incrementAndGet();
+            dedupWindow.complete(key, ProductionReportResultDto.fail(0, dto.getWorkOrderNumber(),
+                    ProductionReportResultDto.DUPLICATE, "DUPLICATE_REPORT", "이미 반영된 보고입니다. " + key));
+        }
+    }
+
+    // 건별 결과 중 ERROR 는 반영되지 않은 보고이므로 체크포인트하지 않고, 묶음 전체가 롤백되면 아무것도 체크포인트하지 않는다
+    //  → 저널에 남은 보고는 다음 기동 시 재생
+    public List<ProductionReportResultDto> reportBatchNow(List<ProductionLogCreateReqDto> dtos) {
+        List<ProductionReportResultDto> results = new ArrayList<>(Collections.nCopies(dtos.size(), null));
+        List<ProductionLogCreateReqDto> fresh = new ArrayList<>();
+        List<Integer> freshIndex = new ArrayList<>();
+
+        // 중복 창에 있는 보고는 DB 없이 바로 응답
+        for (int i = 0; i < dtos.size(); i++) {
+            ProductionLogCreateReqDto dto = dtos.get(i);
+            ReportDedupWindow.Seen seen = dedupWindow.get(ReportDedupWindow.key(dto));
+            if (seen != null) {
+                duplicateCount.incrementAndGet();
+                results.set(i, previousResult(i, dto, seen));
+            } else {
+                fresh.add(dto);
+                freshIndex.add(i);
+            }
+        }
+        if (fresh.isEmpty()) return results;
+
+        long[] journalSeqs = new long[fresh.size()];
+        for (int i = 0; i < fresh.size(); i++) {
+            journalSeqs[i] = journal.append(fresh.get(i));
+        }
+        List<ProductionReportResultDto> freshResults = productionService.reportProductionBatch(fresh);
+        for (int i = 0; i < fresh.size(); i++) {
+            ProductionReportResultDto result = freshResults.get(i);
+            result.setIndex(freshIndex.get(i));
+            results.set(freshIndex.get(i), result);
+            if (!ProductionReportResultDto.ERROR.equals(result.getResult())) {
+                journal.checkpoint(journalSeqs[i]);
+            }
+            remember(ReportDedupWindow.key(fresh.get(i)), result);
+        }
+        return results;
+    }
+
+    private ProductionReportResultDto previousResult(int index, ProductionLogCreateReqDto dto, ReportDedupWindow.Seen seen) {
+        ProductionReportResultDto previous = seen.getResult();
+        if (previous == null) {
+            // 비동기로 접수되어 아직 커밋 전
+            return ProductionReportResultDto.fail(index, dto.getWorkOrderNumber(),
+                    ProductionReportResultDto.DUPLICATE, "DUPLICATE_REPORT", "처리 중인 보고입니다. ackId=" + seen.getAckId());
+        }
+        return ProductionReportResultDto.fail(index, dto.getWorkOrderNumber(),
+                previous.getResult(), previous.getCode(), previous.getMessage());
+    }
+
+    // 반영되지 않은 보고(ERROR)는 저널 재생 때 다시 처리되어야 하므로 창에 남기지 않는다
+    private void remember(String key, ProductionReportResultDto result) {
+        if (ProductionReportResultDto.ERROR.equals(result.getResult())) {
+            dedupWindow.forget(key);
+        } else {
+            dedupWindow.complete(key, result);
+        }
+    }
+
+    // 접수 단계 검증 : DB를 보지 않고 형식만 확인
+    private void validate(ProductionLogCreateReqDto dto) {
+        if (dto.getWorkOrderNumber() == null || dto.getWorkOrderNumber().isBlank()) {
+            throw new IllegalArgumentException("workOrderNumber는 필수입니다.");
+        }
+        if (dto.getEquipmentCode() == null || dto.getEquipmentCode().isBlank()) {
+            throw new IllegalArgumentException("equipmentCode는 필수입니다.");
+        }
+        if (dto.getItemDtos() == null || dto.getFinalInspectionDtos() == null || dto.getInputLots() == null) {
+            throw new IllegalArgumentException("itemDtos / finalInspectionDtos / inputLots는 필수입니다.");
+        }
+        if (dto.getItemDtos().size() != dto.getFinalInspectionDtos().size()) {
+            throw new IllegalArgumentException("itemDtos와 finalInspectionDtos의 개수가 다릅니다.");
+        }
+    }
+
+    // /machine/report 를 비동기 접수로 처리할지 여부 (mes.ingest.async)
+    public boolean isAsyncMode() {
+        return asyncMode;
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (BlockingQueue<PendingReport> lane : lanes) depth += lane.size();
+        return depth;
+    }
+
+    // 같은 작업지시는 항상 같은 writer 로
+    private BlockingQueue<PendingReport> laneOf(ProductionLogCreateReqDto dto) {
+        return lanes.get(Math.floorMod(Objects.hashCode(dto.getWorkOrderNumber()), lanes.size()));
+    }
+
+    // 처리 결과 조회 (아직 커밋 전이면 null)
+    public ProductionReportResultDto getResult(long ackId) {
+        return recentResults.get(ackId);
+    }
+
+    // 재시도 권장 시간(초) : 현재 적재 속도 기준으로 버퍼 절반이 비는 데 걸리는 시간
+    public long retryAfterSeconds() {
+        long groups = groupCount.get();
+        if (groups == 0) return 1;
+        double avgCommitSec = totalCommitNanos.get() / (double) groups / 1_000_000_000.0;
+        double groupsToHalf = Math.ceil((capacity / 2.0) / batchSize / writerThreads);
+        return Math.max(1, Math.min(30, (long) Math.ceil(avgCommitSec * groupsToHalf)));
+    }
+
+    // =========================
+    // writer 스레드
+    // =========================
+    private void drainLoop(BlockingQueue<PendingReport> lane) {
+        List<PendingReport> group = new ArrayList<>(batchSize);
+        while (running || !lane.isEmpty()) {
+            try {
+                PendingReport first = lane.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                group.add(first);
+                lane.drainTo(group, batchSize - 1);
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("실적 적재 writer 오류", e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<PendingReport> group) throws InterruptedException {
+        List<ProductionLogCreateReqDto> dtos = group.stream().map(PendingReport::dto).toList();
+
+        long commitStart = System.nanoTime();
+        List<ProductionReportResultDto> results = null;
+        boolean committed = false;
+        for (int attempt = 0; !committed; attempt++) {
+            try {
+                results = productionService.reportProductionBatch(dtos);
+                committed = true;
+            } catch (Exception e) {
+                // 묶음 전체 롤백 (DB 장애 / 데드락 등) : 다음 묶음으로 넘어가지 않고 같은 묶음을 다시 커밋한다
+                if (attempt < maxRetries && running) {
+                    retryCount.incrementAndGet();
+                    log.warn("실적 묶음 커밋 실패 ({}건), {}ms 후 재시도 {}/{} : {}",
+                            group.size(), retryBackoffMs << attempt, attempt + 1, maxRetries, e.getMessage());
+                    Thread.sleep(retryBackoffMs << attempt);
+                    continue;
+                }
+                // dead letter : 모든 건을 ERROR 로 기록, 저널에 남겨 다음 기동 시 재생
+                deadLetterCount.addAndGet(group.size());
+                log.error("실적 묶음 커밋 실패 ({}건), 저널에 남겨 재기동 시 재생 : {}", group.size(), e.getMessage());
+                results = new ArrayList<>();
+                for (int i = 0; i < group.size(); i++) {
+                    results.add(ProductionReportResultDto.fail(i, dtos.get(i).getWorkOrderNumber(),
+                            ProductionReportResultDto.ERROR, "COMMIT_FAILED", e.getMessage()));
+                }
+                break;
+            }
+        }
+        long now = System.nanoTime();
+        totalCommitNanos.addAndGet(now - commitStart);
+        groupCount.incrementAndGet();
+
+        for (int i = 0; i < group.size(); i++) {
+            PendingReport report = group.get(i);
+            ProductionReportResultDto result = results.get(i);
+            recentResults.put(report.ackId(), result);
+            // 재시도까지 실패한 묶음은 체크포인트하지 않음 → 다음 기동 시 재생
+            if (committed) {
+                journal.checkpoint(report.journalSeq());
+                remember(ReportDedupWindow.key(report.dto()), result);
+            } else {
+                dedupWindow.forget(ReportDedupWindow.key(report.dto()));
+            }
+
+            if (ProductionReportResultDto.ERROR.equals(result.getResult())) {
+                failedCount.incrementAndGet();
+            } else if (ProductionReportResultDto.DUPLICATE.equals(result.getResult())) {
+                // 중복 창에서 밀려난 재전송 : 묶음의 다른 건은 그대로 커밋되고 이 건만 중복 처리됨
+                duplicateCount.incrementAndGet();
+            } else {
+                committedCount.incrementAndGet();
+            }
+
+            long drain = now - report.enqueuedAt();
+            totalDrainNanos.addAndGet(drain);
+            lastDrainNanos.set(drain);
+            maxDrainNanos.accumulateAndGet(drain, Math::max);
+        }
+    }
+
+    // =========================
+    // 메트릭 조회
+    // =========================
+    public ProductionIngestMetricsDto getMetrics() {
+        long processed = committedCount.get() + failedCount.get();
+        long groups = groupCount.get();
+        return ProductionIngestMetricsDto.builder()
+                .queueDepth(queueDepth())
+                .capacity(capacity)
+                .accepted(acceptedCount.get())
+                .rejected(rejectedCount.get())
+                .committed(committedCount.get())
+                .failed(failedCount.get())
+                .duplicate(duplicateCount.get())
+                .retried(retryCount.get())
+                .deadLettered(deadLetterCount.get())
+                .groups(groups)
+                .avgGroupSize(groups == 0 ? 0 : processed / (double) groups)
+                .avgDrainLatencyMs(processed == 0 ? 0 : totalDrainNanos.get() / (double) processed / 1_000_000.0)
+                .lastDrainLatencyMs(lastDrainNanos.get() / 1_000_000.0)
+                .maxDrainLatencyMs(maxDrainNanos.get() / 1_000_000.0)
+                .avgCommitMs(groups == 0 ? 0 : totalCommitNanos.get() / (double) groups / 1_000_000.0)
+                .build();
+    }
+}
@@ -0,0 +1,283 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// 생산 실적 선기록(write-ahead) 저널
+// 접수한 보고를 DB 트랜잭션 전에 메모리 매핑 세그먼트 파일에 append 하고, 커밋 후 체크포인트 레코드를 남긴다.
+// 기동 시 체크포인트가 없는 보고를 찾아 다시 적재한다 (JVM 이 죽어도 페이지 캐시에 남은 기록은 유실되지 않음).
+//
+// 체크포인트는 보고가 기록된 세그먼트에 쓴다 (세그먼트 하나만 보면 그 안의 보고가 끝났는지 알 수 있음)
+//  - 보고를 append 할 때 그 보고의 체크포인트 자리까지 남아 있는지 확인한다 → 지난 세그먼트에도 항상 기록 가능
+//  - 기동 시 미커밋 보고는 새 세그먼트로 옮겨 적고(seq 유지) 지난 세그먼트는 모두 정리한다
+//    → 살아 있는 세그먼트는 모두 이번 기동에서 만든 것이라 체크포인트 자리가 보장된다
+//
+// 세그먼트 파일 : {dir}/segment-000001.journal, 고정 크기로 미리 매핑
+// 레코드 형식   : [int bodyLength][byte type][long seq][body][int crc32(type+seq+body)]
+//                bodyLength == 0 && type == 0 → 기록 끝 (매핑 영역은 0으로 채워져 있음)
+@Component
+@Slf4j
+public class ProductionJournal {
+
+    private static final byte TYPE_REPORT = 1;
+    private static final byte TYPE_CHECKPOINT = 2;
+    private static final int HEADER_SIZE = 4 + 1 + 8;
+    private static final int CRC_SIZE = 4;
+    private static final int CHECKPOINT_SIZE = HEADER_SIZE + CRC_SIZE;
+
+    private final JsonMapper jsonMapper;
+    private final Path dir;
+    private final int segmentSize;
+    private final boolean forceOnAppend;
+    private final boolean retainSegments;
+
+    private MappedByteBuffer current;
+    private int currentSegment;
+    // 체크포인트 대기 보고가 남은 세그먼트 (현재 세그먼트 포함)
+    private final Map<Integer, MappedByteBuffer> liveSegments = new HashMap<>();
+    private long nextSeq = 1;
+
+    // 체크포인트 대기 중인 보고 : seq → 세그먼트 번호
+    private final Map<Long, Integer> pendingSeqs = new HashMap<>();
+    // 세그먼트별 체크포인트 대기 건수 (0 이 되면 세그먼트 삭제)
+    private final Map<Integer, Integer> pendingPerSegment = new HashMap<>();
+    // 기동 시 복구한 미커밋 보고 (seq 순)
+    private List<Entry> recovered = new ArrayList<>();
+
+    public ProductionJournal(
+            JsonMapper jsonMapper,
+            @Value("${mes.journal.dir:./journal}") String dir,
+            @Value("${mes.journal.segment-size:67108864}") int segmentSize,
+            @Value("${mes.journal.force-on-append:false}") boolean forceOnAppend,
+            @Value("${mes.journal.retain-segments:false}") boolean retainSegments) {
+        this.jsonMapper = jsonMapper;
+        this.dir = Paths.get(dir);
+        this.segmentSize = segmentSize;
+        this.forceOnAppend = forceOnAppend;
+        this.retainSegments = retainSegments;
+    }
+
+    // 저널 레코드 1건 (복구 / 재생용)
+    public record Entry(long seq, ProductionLogCreateReqDto dto) {}
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+
+        List<Path> segments = listSegments(dir);
+        Map<Long, Entry> uncommitted = new TreeMap<>();
+        int lastSegment = 0;
+
+        for (Path segment : segments) {
+            int index = segmentIndex(segment);
+            lastSegment = Math.max(lastSegment, index);
+            for (RawRecord r : readRecords(segment)) {
+                nextSeq = Math.max(nextSeq, r.seq + 1);
+                if (r.type == TYPE_REPORT) {
+                    uncommitted.put(r.seq, new Entry(r.seq, jsonMapper.readValue(r.body, ProductionLogCreateReqDto.class)));
+                } else if (r.type == TYPE_CHECKPOINT) {
+                    uncommitted.remove(r.seq);
+                }
+            }
+        }
+
+        // 미커밋 보고를 새 세그먼트로 옮겨 적은 뒤 디스크에 내리고, 지난 세그먼트는 정리
+        // (옮겨 적다 죽어도 지난 세그먼트가 남아 있으므로 다음 기동에서 같은 seq 로 다시 복구됨)
+        roll(lastSegment + 1);
+        for (Entry entry : uncommitted.values()) {
+            appendReport(entry.seq(), jsonMapper.writeValueAsBytes(entry.dto()));
+        }
+        liveSegments.values().forEach(MappedByteBuffer::force);
+        for (Path segment : segments) {
+            releaseSegment(segment);
+        }
+        recovered = new ArrayList<>(uncommitted.values());
+
+        log.info("실적 저널 열림 : dir={}, 세그먼트={}, 미커밋 보고={}건", dir.toAbsolutePath(), currentSegment, recovered.size());
+    }
+
+    // 기동 시 복구한 미커밋 보고를 한 번만 넘겨준다
+    public synchronized List<Entry> takeRecovered() {
+        List<Entry> result = recovered;
+        recovered = new ArrayList<>();
+        return result;
+    }
+
+    // =========================
+    // 선기록 : DB 트랜잭션 전에 호출
+    // =========================
+    public synchronized long append(ProductionLogCreateReqDto dto) {
+        byte[] body = jsonMapper.writeValueAsBytes(dto);
+        long seq = nextSeq++;
+        appendReport(seq, body);
+        return seq;
+    }
+
+    // =========================
+    // 체크포인트 : 커밋(또는 확정 실패) 후 호출
+    // =========================
+    public synchronized void checkpoint(long seq) {
+        Integer segment = pendingSeqs.remove(seq);
+        if (segment == null) return;
+
+        // 보고가 기록된 세그먼트에 쓴다 (append 때 자리를 남겨 두었으므로 넘치지 않음)
+        MappedByteBuffer buffer = liveSegments.get(segment);
+        put(buffer, TYPE_CHECKPOINT, seq, new byte[0]);
+        if (forceOnAppend) buffer.force();
+
+        int left = pendingPerSegment.merge(segment, -1, Integer::sum);
+        if (left <= 0) {
+            pendingPerSegment.remove(segment);
+            if (segment != currentSegment) {
+                liveSegments.remove(segment);
+                releaseSegment(segmentPath(segment));
+            }
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pendingSeqs.size();
+    }
+
+    // 세그먼트 파일 1개를 읽어 보고 레코드만 돌려준다 (부하 테스트 재생용)
+    public List<Entry> readReports(Path segment) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (RawRecord r : readRecords(segment)) {
+            if (r.type == TYPE_REPORT) {
+                entries.add(new Entry(r.seq, jsonMapper.readValue(r.body, ProductionLogCreateReqDto.class)));
+            }
+        }
+        return entries;
+    }
+
+    // =========================
+    // 내부 구현
+    // =========================
+    private void appendReport(long seq, byte[] body) {
+        int recordSize = HEADER_SIZE + body.length + CRC_SIZE;
+        if (recordSize + CHECKPOINT_SIZE > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("저널 레코드가 세그먼트 크기를 초과합니다 : " + recordSize);
+        }
+        // 이 보고 + 세그먼트 안 미커밋 보고들의 체크포인트 자리 + 다음 레코드 헤더(0) 자리까지 남겨둔다
+        int reserved = CHECKPOINT_SIZE * (pendingPerSegment.getOrDefault(currentSegment, 0) + 1);
+        if (current.remaining() < recordSize + reserved + HEADER_SIZE) {
+            int previous = currentSegment;
+            roll(currentSegment + 1);
+            if (!pendingPerSegment.containsKey(previous)) {
+                liveSegments.remove(previous);
+                releaseSegment(segmentPath(previous));
+            }
+        }
+
+        put(current, TYPE_REPORT, seq, body);
+        if (forceOnAppend) current.force();
+        pendingSeqs.put(seq, currentSegment);
+        pendingPerSegment.merge(currentSegment, 1, Integer::sum);
+    }
+
+    private static void put(MappedByteBuffer target, byte type, long seq, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(8).putLong(0, seq).array());
+        crc.update(body);
+
+        int start = target.position();
+        target.position(start + 4);
+        target.put(type);
+        target.putLong(seq);
+        target.put(body);
+        target.putInt((int) crc.getValue());
+        // 길이는 마지막에 기록 → 쓰다 죽으면 해당 레코드는 끝 표시(0)로 남는다
+        target.putInt(start, body.length == 0 ? -1 : body.length);
+    }
+
+    private void roll(int index) {
+        Path path = segmentPath(index);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("저널 세그먼트 생성 실패 : " + path, e);
+        }
+        currentSegment = index;
+        liveSegments.put(index, current);
+    }
+
+    private void releaseSegment(Path segment) {
+        try {
+            if (retainSegments) {
+                Files.move(segment, segment.resolveSibling(segment.getFileName() + ".done"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(segment);
+            }
+        } catch (IOException e) {
+            log.warn("저널 세그먼트 정리 실패 : {}", segment, e);
+        }
+    }
+
+    private record RawRecord(byte type, long seq, byte[] body) {}
+
+    // 체크포인트 레코드는 body 가 없으므로 길이를 -1 로 기록한다 (0 은 기록 끝)
+    private static List<RawRecord> readRecords(Path segment) throws IOException {
+        List<RawRecord> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buf.remaining() >= HEADER_SIZE + CRC_SIZE) {
+                int length = buf.getInt();
+                if (length == 0) break;
+                int bodyLength = length < 0 ? 0 : length;
+                if (buf.remaining() < 1 + 8 + bodyLength + CRC_SIZE) break;
+
+                byte type = buf.get();
+                long seq = buf.getLong();
+                byte[] body = new byte[bodyLength];
+                buf.get(body);
+                int storedCrc = buf.getInt();
+
+                CRC32 crc = new CRC32();
+                crc.update(type);
+                crc.update(ByteBuffer.allocate(8).putLong(0, seq).array());
+                crc.update(body);
+                if ((int) crc.getValue() != storedCrc) {
+                    log.warn("저널 레코드 CRC 불일치, 이후 기록 무시 : {} seq={}", segment, seq);
+                    break;
+                }
+                records.add(new RawRecord(type, seq, body));
+            }
+        }
+        return records;
+    }
+
+    private Path segmentPath(int index) {
+        return dir.resolve(String.format("segment-%06d.journal", index));
+    }
+
+    private static int segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".journal".length()));
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> p.getFileName().toString().matches("segment-\\d{6}\\.journal"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.hm.mes_final_260106.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 시간대별 생산 실적(production_result) 집계기
+// 보고마다 find-or-create + save 하던 것을 (일자, 시간, 라인, 제품) 버킷별 인메모리 증감으로 모아 두고,
+// 짧은 주기로 버킷당 1건의 INSERT ... ON DUPLICATE KEY UPDATE (uk_production_result_bucket) 로 반영한다.
+// 증감은 보고 트랜잭션이 커밋된 뒤에만 버킷에 더해진다.
+// 반영은 별도 트랜잭션 하나로 묶는다 (일부 버킷만 반영된 채 실패하면 롤백 후 전부 다시 누적 → 이중 집계 없음)
+@Component
+@Slf4j
+@DependsOn("schemaMigration")   // upsert 기준 유니크 키 확인 후 사용
+public class ProductionResultAggregator {
+
+    private static final String UPSERT_RESULT =
+            "INSERT INTO production_result (result_date, result_hour, line, product_id, plan_qty, good_qty, defect_qty, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE plan_qty = plan_qty + ?, good_qty = good_qty + ?, defect_qty = defect_qty + ?";
+
+    // 라인 미지정 작업지시의 기본 라인 (기존 로직과 동일)
+    public static final String DEFAULT_LINE = "Fab-Line-A";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DashboardKpiSnapshot kpiSnapshot;
+    private final TransactionTemplate txTemplate;
+
+    private final Map<Bucket, Counts> buckets = new ConcurrentHashMap<>();
+
+    public ProductionResultAggregator(JdbcTemplate jdbcTemplate, DashboardKpiSnapshot kpiSnapshot,
+                                      PlatformTransactionManager txManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kpiSnapshot = kpiSnapshot;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private record Bucket(LocalDate date, int hour, String line, Long productId) {}
+
+    private static final class Counts {
+        final AtomicLong plan = new AtomicLong();
+        final AtomicLong good = new AtomicLong();
+        final AtomicLong defect = new AtomicLong();
+
+        boolean isZero() {
+            return plan.get() == 0 && good.get() == 0 && defect.get() == 0;
+        }
+    }
+
+    public static String lineOf(String targetLine) {
+        return (targetLine == null || targetLine.isBlank()) ? DEFAULT_LINE : targetLine;
+    }
+
+    // =========================
+    // 증감 누적 (현재 시각 버킷)
+    // =========================
+    public void addPlan(String targetLine, Long productId, int qty) {
+        add(targetLine, productId, qty, 0, 0);
+    }
+
+    public void addGood(String targetLine, Long productId, int qty) {
+        add(targetLine, productId, 0, qty, 0);
+    }
+
+    public void addDefect(String targetLine, Long productId, int qty) {
+        add(targetLine, productId, 0, 0, qty);
+    }
+
+    private void add(String targetLine, Long productId, int plan, int good, int defect) {
+        if (plan == 0 && good == 0 && defect == 0) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        Bucket bucket = new Bucket(now.toLocalDate(), now.getHour(), lineOf(targetLine), productId);
+
+        TransactionHooks.afterCommit(() -> accumulate(bucket, plan, good, defect));
+    }
+
+    // flush 의 빈 버킷 제거와 겹치지 않도록 compute 안에서 더한다
+    private void accumulate(Bucket bucket, long plan, long good, long defect) {
+        buckets.compute(bucket, (k, counts) -> {
+            if (counts == null) counts = new Counts();
+            counts.plan.addAndGet(plan);
+            counts.good.addAndGet(good);
+            counts.defect.addAndGet(defect);
+            return counts;
+        });
+    }
+
+    // =========================
+    // 주기적 DB 반영 : 버킷당 upsert 1건
+    // =========================
+    @Scheduled(fixedDelayString = "${mes.result.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (buckets.isEmpty()) return;
+
+        List<Bucket> keys = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+        for (Map.Entry<Bucket, Counts> e : buckets.entrySet()) {
+            Counts c = e.getValue();
+            long plan = c.plan.getAndSet(0);
+            long good = c.good.getAndSet(0);
+            long defect = c.defect.getAndSet(0);
+            if (plan != 0 || good != 0 || defect != 0) {
+                keys.add(e.getKey());
+                deltas.add(new long[]{plan, good, defect});
+            }
+        }
+        // 비워진 버킷 정리 (지난 시간대 버킷이 계속 쌓이지 않도록)
+        for (Bucket key : new ArrayList<>(buckets.keySet())) {
+            buckets.computeIfPresent(key, (k, c) -> c.isZero() ? null : c);
+        }
+        if (keys.isEmpty()) return;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Bucket b = keys.get(i);
+            long[] d = deltas.get(i);
+            args.add(new Object[]{b.date(), b.hour(), b.line(), b.productId(), d[0], d[1], d[2], now, d[0], d[1], d[2]});
+        }
+
+        try {
+            txTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_RESULT, args));
+            kpiSnapshot.markDirty();   // 오늘 실적 / 수율 변경
+        } catch (RuntimeException e) {
+            // 트랜잭션이 롤백되어 반영된 버킷이 없으므로 전부 다음 주기에 다시 시도
+            log.error("생산 실적 집계 반영 실패 : 버킷 {}건", keys.size(), e);
+            for (int i = 0; i < keys.size(); i++) {
+                long[] d = deltas.get(i);
+                accumulate(keys.get(i), d[0], d[1], d[2]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -6,6 +6,7 @@ import com.hm.mes_final_260106.dto.*;
 import com.hm.mes_final_260106.dto.lot.LotHistoryResDto;
 import com.hm.mes_final_260106.dto.lot.LotResDto;
 import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionReportResultDto;
 import com.hm.mes_final_260106.dto.worker.WorkerResDto;
 import com.hm.mes_final_260106.entity.*;
 import com.hm.mes_final_260106.exception.CustomException;
@@ -15,6 +16,7 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
@@ -38,17 +40,24 @@ public class ProductionService {
     private final WorkerRepository workerRepo;
     private final MaterialTransactionRepository materialTxRepo;
 
-    private final DicingRepository dicingRepo;
-    private final DicingInspectionRepository dicingInspectionRepo;
     private final DieBondingRepository dieBondingRepo;
-    private final DieBondingInspectionRepository dieBondingInspectionRepo;
-    private final WireBondingRepository wireBondingRepo;
-    private final WireBondingInspectionRepository wireBondingInspectionRepo;
     private final MoldingRepository moldingRepo;
-    private final MoldingInspectionRepository moldingInspectionRepo;
     private final ItemRepository itemRepo;
     private final FinalInspectionLogRepository finalInspectionLRepo;
     private final ProductionResultRepository productionResultRepo;
+    private final ProductionLogBatchRepository productionLogBatchRepo;
+    private final CompiledBomCache bomCache;
+    private final MaterialStockLedger stockLedger;
+    private final ProductionResultAggregator resultAggregator;
+    private final ReferenceCache refCache;
+    private final SpcEngine spcEngine;
+    private final LotResolver lotResolver;
+    private final LivePushHub pushHub;
+    private final HourlyProductionSeries hourlySeries;
+    private final WipTracker wipTracker;
+    private final OeeEngine oeeEngine;
+    private final WorkDispatchHub dispatchHub;
+    private final WorkOrderClaimer workOrderClaimer;
 
     private final InspectionStandardRepository standardRepo;
     private final ProductionLogMapper productionLogMapper;
@@ -61,14 +70,16 @@ public class ProductionService {
     // =========================
     @Transactional
     public Material inboundMaterial(String code, String name, int amount) {
-        Material material = matRepo.findByCode(code)
+        Material material = matRepo.findByCodeForUpdate(code)
                 .orElse(Material.builder()
                         .code(code)
                         .name(name)
                         .currentStock(0)
                         .build());
         material.setCurrentStock(material.getCurrentStock() + amount);
-        return matRepo.save(material);
+        Material saved = matRepo.save(material);
+        stockLedger.applyExternal(saved.getId(), amount);
+        return saved;
     }
 
     // =========================
@@ -107,37 +118,11 @@ public class ProductionService {
         boolean releasedNow = "WAITING".equals(order.getStatus());
         if (releasedNow) {
             order.setStatus("RELEASED");
+            pushWorkOrder(order);
+            hourlySeries.recordWorkOrder(order);
 
-            // 🔥 Release 시점에 production_result.plan_qty 증가
-            LocalDate today = LocalDate.now();
-            int hour = LocalDateTime.now().getHour();
-            String line = (order.getTargetLine() == null || order.getTargetLine().isBlank())
-                    ? "Fab-Line-A"
-                    : order.getTargetLine();
-
-            ProductionResult pr = productionResultRepo
-                    .findByResultDateAndResultHourAndLineAndProduct(today, hour, line, order.getBom().getProduct())
-                    .orElseGet(() -> {
-                        ProductionResult created = new ProductionResult();
-                        created.setResultDate(today);
-                        created.setResultHour(hour);
-                        created.setLine(line);
-                        created.setProduct(order.getBom().getProduct());
-                        created.setPlanQty(0);
-                        created.setGoodQty(0);
-                        created.setDefectQty(0);
-                        created.setCreatedAt(LocalDateTime.now());
-                        return created;
-                    });
-
-            int basePlan = (pr.getPlanQty() == null) ? 0 : pr.getPlanQty();
-            pr.setPlanQty(basePlan + order.getTargetQty());
-
-            // (안전) null 방지
-            if (pr.getGoodQty() == null) pr.setGoodQty(0);
-            if (pr.getDefectQty() == null) pr.setDefectQty(0);
-
-            productionResultRepo.save(pr);
+            // 🔥 Release 시점에 production_result.plan_qty 증가 (집계기 → 주기적 upsert)
+            resultAggregator.addPlan(order.getTargetLine(), productIdOf(order), order.getTargetQty());
         }
 
         // ▼ [추가] LazyInitializationException 방지: Product 정보 강제 로드
@@ -176,10 +161,14 @@ public class ProductionService {
         // ▶ 정상 Start
         order.setStatus("IN_PROGRESS");
         order.setAssignedMachineId(machineId);
+        if (machineId != null) refCache.forgetAssignment(machineId);
 
         if (order.getStartDate() == null) {
             order.setStartDate(LocalDateTime.now());
         }
+        pushWorkOrder(order);
+        hourlySeries.recordWorkOrder(order);
+        dispatchHub.workAvailable(machineId);
 
         if (order.getBom().getProduct() != null) {
             order.getBom().getProduct().getName();
@@ -202,6 +191,10 @@ public class ProductionService {
 
         order.setStatus("COMPLETED");
         order.setEndDate(LocalDateTime.now());
+        pushWorkOrder(order);
+        // 종료 시각 확정 → 시간대별 계획 재분배, 남은 재공 제거
+        hourlySeries.recordWorkOrder(order);
+        wipTracker.closeWorkOrder(order.getId());
 
         // ▼ [추가] LazyInitializationException 방지
         if (order.getBom().getProduct() != null) {
@@ -268,6 +261,9 @@ public class ProductionService {
         }
 
         orderRepo.delete(order);
+        refCache.invalidateWorkOrder(orderId);
+        hourlySeries.forgetWorkOrder(orderId);
+        wipTracker.closeWorkOrder(orderId);
     }
 
     // =========================
@@ -288,6 +284,7 @@ public class ProductionService {
         order.setBom(bom);
         order.setTargetQty(dto.getTargetQty());
         order.setTargetLine(dto.getTargetLine());
+        hourlySeries.recordWorkOrder(order);
 
         return WorkOrderResDto.fromEntity(orderRepo.save(order));
     }
@@ -350,6 +347,10 @@ public class ProductionService {
         if ("IN_PROGRESS".equals(next) && order.getStartDate() == null) {
             order.setStartDate(LocalDateTime.now());
         }
+        // 시작 / 재개 → 대기 중인 설비 long-poll 깨우기
+        if ("IN_PROGRESS".equals(next)) {
+            dispatchHub.workAvailable(order.getAssignedMachineId());
+        }
 
         if ("COMPLETED".equals(next)) {
             order.setEndDate(LocalDateTime.now());
@@ -360,54 +361,34 @@ public class ProductionService {
         if (order.getBom().getProduct() != null) {
             order.getBom().getProduct().getName();
         }
+        pushWorkOrder(order);
+        hourlySeries.recordWorkOrder(order);
+        if ("COMPLETED".equals(next)) wipTracker.closeWorkOrder(order.getId());
 
         return orderRepo.save(order);
     }
     // 생산 완료 시 생산실적 저장
     private void applyProductionResultFromWorkOrder(WorkOrder order) {
-
-        LocalDate date = LocalDate.now();
-        int hour = LocalDateTime.now().getHour();
-        String line = (order.getTargetLine() == null || order.getTargetLine().isBlank())
-                ? "Fab-Line-A"
-                : order.getTargetLine();
-
-        ProductionResult pr = productionResultRepo
-                .findByResultDateAndResultHourAndLineAndProduct(
-                        date, hour, line, order.getBom().getProduct()
-                )
-                .orElseGet(() -> {
-                    ProductionResult created = new ProductionResult();
-                    created.setResultDate(date);
-                    created.setResultHour(hour);
-                    created.setLine(line);
-                    created.setProduct(order.getBom().getProduct());
-                    created.setPlanQty(0);
-                    created.setGoodQty(0);
-                    created.setDefectQty(0);
-                    created.setCreatedAt(LocalDateTime.now());
-                    return created;
-                });
-
-        int baseGood = pr.getGoodQty() == null ? 0 : pr.getGoodQty();
-
         // ✅ WorkOrder.currentQty를 그대로 사용
-        pr.setGoodQty(baseGood + order.getCurrentQty());
+        resultAggregator.addGood(order.getTargetLine(), productIdOf(order), order.getCurrentQty());
+    }
 
-        productionResultRepo.save(pr);
+    // 작업지시 BOM 의 제품 id (컴파일된 BOM 캐시 → BOM / 제품 로딩 없음)
+    private Long productIdOf(WorkOrder order) {
+        return bomCache.get(order.getBom().getId()).productId();
     }
     /**
      * ✨ [신규 메서드] BOM 기반 재고 검증 및 부족 정보 엔티티 기록
      */
     private void validateInventoryAndFillShortage(WorkOrder order) {
-        // 해당 제품의 BOM 조회
-        Bom bom = bomRepo.findById(order.getBom().getProduct().getId())
-                .orElseThrow(() -> new RuntimeException("해당 제품의 BOM 설정이 없습니다."));
+        // 작업지시에 연결된 BOM 리비전 (컴파일 캐시)
+        CompiledBomCache.CompiledBom bom = bomCache.get(order.getBom().getId());
 
-        for (BomItem bomItem : bom.getItems()) {
-            Material mat = bomItem.getMaterial();
-            int required = bomItem.getRequiredQty(); // 작업당 필요 수량 (로직에 따라 targetQty와 곱하기 가능)
-            int currentStock = mat.getCurrentStock();
+        for (int i = 0; i < bom.size(); i++) {
+            Material mat = matRepo.findById(bom.materialIds()[i])
+                    .orElseThrow(() -> new RuntimeException("BOM 자재를 찾을 수 없습니다."));
+            int required = bom.requiredQtys()[i]; // 작업당 필요 수량 (로직에 따라 targetQty와 곱하기 가능)
+            int currentStock = (int) stockLedger.available(mat.getId()); // DB 는 원장 반영 주기만큼 늦으므로 원장 기준
 
             if (currentStock < required) {
                 int shortage = required - currentStock;
@@ -429,26 +410,47 @@ public class ProductionService {
     // =========================
     // 6) 설비 작업 할당 (C# 폴링)
     // =========================
-    @Transactional
+    // READ COMMITTED : 선점 UPDATE 가 오래된 순 스캔에 갭 락을 남기지 않도록 (판정은 잠금 읽기라 격리 수준과 무관)
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public WorkOrderResDto assignWorkToMachine(String equipmentCode) {
-        WorkOrder current = orderRepo.findByStatusAndAssignedMachineId("IN_PROGRESS", equipmentCode).orElse(null);
+        // 폴링마다 상태 + 설비로 검색하지 않도록, 직전에 확인한 할당을 PK 로 다시 읽어 확인한다
+        WorkOrder current = findCachedAssignment(equipmentCode);
+        if (current == null) {
+            current = orderRepo.findByStatusAndAssignedMachineId("IN_PROGRESS", equipmentCode).orElse(null);
+        }
         if (current != null) {
             log.info("작업지시 보유 중 : {}", current);
+            refCache.rememberAssignment(equipmentCode, current.getId());
             return WorkOrderResDto.fromEntity(current);
         }
 
-        WorkOrder waiting = orderRepo.findFirstByStatusAndAssignedMachineIdIsNullOrderByIdAsc("IN_PROGRESS").orElse(null);
-        if (waiting == null) {
+        // 미할당 작업지시 선점 : 조건부 UPDATE 라 동시에 폴링한 설비 중 1대만 가져간다
+        Long claimedId = workOrderClaimer.claim(equipmentCode);
+        if (claimedId == null) {
             log.info("대기중인 작업 없음");
             return null;
         }
 
-        waiting.setAssignedMachineId(equipmentCode);
-        waiting = orderRepo.save(waiting);
+        WorkOrder waiting = orderRepo.findById(claimedId)
+                .orElseThrow(() -> new RuntimeException("작업 지시를 찾을 수 없습니다. ID: " + claimedId));
         log.info("작업지시 할당 : {}", waiting);
+        refCache.rememberAssignment(equipmentCode, waiting.getId());
         return WorkOrderResDto.fromEntity(waiting);
     }
 
+    private WorkOrder findCachedAssignment(String equipmentCode) {
+        Long orderId = refCache.assignedOrderId(equipmentCode);
+        if (orderId == null) return null;
+
+        WorkOrder order = orderRepo.findById(orderId).orElse(null);
+        if (order != null && "IN_PROGRESS".equals(order.getStatus()) && equipmentCode.equals(order.getAssignedMachineId())) {
+            return order;
+        }
+        // 완료 / 중단 / 재할당된 작업지시 → 원래 검색으로
+        refCache.forgetAssignment(equipmentCode);
+        return null;
+    }
+
     // =========================
     // 7) 생산 실적 보고
     // =========================
@@ -456,19 +458,197 @@ public class ProductionService {
     public void reportProduction(ProductionLogCreateReqDto dto) {
         log.info("reportProduction 실행 : {}", dto.getWorkOrderNumber());
 
-        WorkOrder workOrder = orderRepo.findByWorkOrderNumber(dto.getWorkOrderNumber())
-                .orElseThrow(() -> new RuntimeException("작업 지시를 찾을 수 없습니다. 번호 : " + dto.getWorkOrderNumber()));
+        // 기준 정보는 near-cache 로 id 를 풀고 설비 / 작업자는 참조만 건다
+        WorkOrder workOrder = findWorkOrder(dto.getWorkOrderNumber());
+        Equipment equipment = equipmentRef(dto.getEquipmentCode());
+        ReferenceCache.WorkerRef workerRef = findWorkerRef(dto.getWorkerCode());
+        Worker worker = workerRef != null ? workerRepo.getReferenceById(workerRef.id()) : null;
 
-        Product product = workOrder.getBom().getProduct();
-        Equipment equipment = equipmentRepo.findByCode(dto.getEquipmentCode())
-                .orElseThrow(() -> new RuntimeException("설비를 찾을 수 없습니다"));
+        // 1~4. ProductionLog + 공정/검사 + Item/FinalInspection + Lot/LotMapping 구성
+        ProductionLog productionLog = buildProductionLog(dto, workOrder, equipment, worker);
+
+        // 5. 저장 : 일괄 보고와 같은 JDBC 배치 경로 (테이블별 executeBatch, LotMapping 포함)
+        //    JPA 로 저장하면 cascade 로 하위 행이 한 건씩 INSERT 된다
+        productionLogBatchRepo.saveAll(List.of(productionLog));
+        spcEngine.record(productionLog);
+        hourlySeries.recordReport(productionLog);
+        wipTracker.recordReport(productionLog);
+        oeeEngine.recordReport(productionLog);
+
+        // 투입 LOT : 상태 bulk UPDATE 1회
+        markLotsConsumed(List.of(productionLog));
 
-        Worker worker = null;
-        if (dto.getWorkerCode() != null) {
-            worker = workerRepo.findByCode(dto.getWorkerCode())
-                    .orElseThrow(() -> new RuntimeException("작업자를 찾을 수 없습니다. id=" + dto.getWorkerCode()));
+        // 🔥 [추가] 이번 보고에 포함된 불량 수량 계산 및 통계 반영
+        int currentFailCount = countFailItems(productionLog);
+        if (currentFailCount > 0) {
+            updateProductionResultDefect(workOrder, currentFailCount);
         }
 
+        // 자재 차감 + 생산 수량 증가
+        backflushMaterials(workOrder, workerNameOf(workerRef), dto.getEquipmentCode());
+        increaseProducedQty(workOrder);
+
+        orderRepo.save(workOrder);
+    }
+
+    // =========================
+    // 7-1) 생산 실적 일괄 보고 (수집기 버퍼 재전송용)
+    // =========================
+    // 여러 건을 하나의 트랜잭션으로 처리하고, 실적 행들은 JDBC 배치로 한 번에 저장한다.
+    // 건별 결과(OK / SHORTAGE / ERROR)를 돌려주므로 설비는 웨이퍼 단위로 대응할 수 있다.
+    //  1. 구성   : 기준 정보 확인 + 실적 엔티티 구성 (DB 변경 없음)
+    //  2. 저장   : 묶음 저장, 제약 조건 위반 등은 그 건만 ERROR / 중복 보고 (savepoint 후 건별 재저장)
+    //  3. 차감   : 자재 차감 + 생산 수량. SHORTAGE 는 단건 보고처럼 실적 행을 남기고, 그 밖의 실패는 실적 행을 지운다
+    // 통계 / LOT 소모 반영은 실적 행이 남은 건만
+    @Transactional
+    public List<ProductionReportResultDto> reportProductionBatch(List<ProductionLogCreateReqDto> dtos) {
+        log.info("reportProductionBatch 실행 : {}건", dtos.size());
+
+        ProductionReportResultDto[] results = new ProductionReportResultDto[dtos.size()];
+        List<BatchEntry> built = new ArrayList<>();
+
+        // 이미 반영된 보고(재전송 / 저널 재생) 판별 : 묶음당 한 번만 조회
+        Set<String> seenKeys = findReportedKeys(dtos);
+
+        // 1. 구성
+        for (int i = 0; i < dtos.size(); i++) {
+            ProductionLogCreateReqDto dto = dtos.get(i);
+            String reportKey = ReportDedupWindow.key(dto);
+            if (reportKey != null && !seenKeys.add(reportKey)) {
+                results[i] = ProductionReportResultDto.fail(i, dto.getWorkOrderNumber(),
+                        ProductionReportResultDto.DUPLICATE, "DUPLICATE_REPORT", "이미 반영된 보고입니다. " + reportKey);
+                continue;
+            }
+            try {
+                // 같은 작업지시는 영속성 컨텍스트에서 같은 인스턴스로 돌아온다 (묶음 안에서 재조회 없음)
+                WorkOrder workOrder = findWorkOrder(dto.getWorkOrderNumber());
+                Equipment equipment = equipmentRef(dto.getEquipmentCode());
+                ReferenceCache.WorkerRef workerRef = findWorkerRef(dto.getWorkerCode());
+                Worker worker = workerRef != null ? workerRepo.getReferenceById(workerRef.id()) : null;
+
+                ProductionLog productionLog = buildProductionLog(dto, workOrder, equipment, worker);
+                built.add(new BatchEntry(i, dto, workOrder, workerRef, productionLog));
+            } catch (RuntimeException e) {
+                log.warn("일괄 보고 {}번째 건 처리 실패 : {}", i, e.getMessage());
+                results[i] = ProductionReportResultDto.fail(i, dto.getWorkOrderNumber(),
+                        ProductionReportResultDto.ERROR, "REPORT_ERROR", e.getMessage());
+            }
+        }
+
+        // 2. 저장 (테이블별 executeBatch, 실패한 건만 제외)
+        Map<ProductionLog, RuntimeException> persistFailed =
+                productionLogBatchRepo.saveAllIsolated(built.stream().map(BatchEntry::productionLog).toList());
+
+        // 3. 차감
+        List<ProductionLog> keptLogs = new ArrayList<>();
+        List<ProductionLog> revertedLogs = new ArrayList<>();
+        Map<WorkOrder, Integer> failByOrder = new LinkedHashMap<>();
+
+        for (BatchEntry entry : built) {
+            int i = entry.index();
+            String workOrderNumber = entry.dto().getWorkOrderNumber();
+            RuntimeException persistError = persistFailed.get(entry.productionLog());
+            if (persistError != null && ReportDedupWindow.isDuplicateReport(persistError)) {
+                // 조회 이후 다른 경로(동기 보고 / 다른 writer)가 먼저 저장한 같은 보고 → 이 건만 중복 처리
+                results[i] = ProductionReportResultDto.fail(i, workOrderNumber,
+                        ProductionReportResultDto.DUPLICATE, "DUPLICATE_REPORT",
+                        "이미 반영된 보고입니다. " + ReportDedupWindow.key(entry.dto()));
+                continue;
+            }
+            if (persistError != null) {
+                log.warn("일괄 보고 {}번째 건 저장 실패 : {}", i, persistError.getMessage());
+                results[i] = ProductionReportResultDto.fail(i, workOrderNumber,
+                        ProductionReportResultDto.ERROR, "REPORT_PERSIST_FAILED", persistError.getMessage());
+                continue;
+            }
+            try {
+                backflushMaterials(entry.workOrder(), workerNameOf(entry.workerRef()), entry.dto().getEquipmentCode());
+                increaseProducedQty(entry.workOrder());
+                results[i] = ProductionReportResultDto.ok(i, workOrderNumber);
+            } catch (CustomException e) {
+                // 단건 보고와 동일하게: 실적 행은 남기고 작업지시는 PAUSED 상태로 유지
+                results[i] = ProductionReportResultDto.fail(i, workOrderNumber,
+                        ProductionReportResultDto.SHORTAGE, e.getCode(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.warn("일괄 보고 {}번째 건 처리 실패 : {}", i, e.getMessage());
+                results[i] = ProductionReportResultDto.fail(i, workOrderNumber,
+                        ProductionReportResultDto.ERROR, "REPORT_ERROR", e.getMessage());
+                revertedLogs.add(entry.productionLog());
+                continue;
+            }
+
+            keptLogs.add(entry.productionLog());
+            int failCount = countFailItems(entry.productionLog());
+            if (failCount > 0) {
+                failByOrder.merge(entry.workOrder(), failCount, Integer::sum);
+            }
+        }
+
+        // 실패한 보고의 실적 행은 지워서 재전송 시 중복 보고로 막히지 않게 한다
+        productionLogBatchRepo.deleteAll(revertedLogs);
+
+        markLotsConsumed(keptLogs);
+        keptLogs.forEach(spcEngine::record);
+        keptLogs.forEach(hourlySeries::recordReport);
+        keptLogs.forEach(wipTracker::recordReport);
+        keptLogs.forEach(oeeEngine::recordReport);
+
+        failByOrder.forEach(this::updateProductionResultDefect);
+
+        return Arrays.asList(results);
+    }
+
+    // 일괄 보고 1건 : 구성 → 저장 → 차감 단계 사이에 들고 다닌다
+    private record BatchEntry(int index, ProductionLogCreateReqDto dto, WorkOrder workOrder,
+                              ReferenceCache.WorkerRef workerRef, ProductionLog productionLog) {
+    }
+
+    // =========================
+    // 기준 정보 조회 (ReferenceCache)
+    // =========================
+    // 작업지시는 보고마다 수량 / 상태가 바뀌므로 엔티티를 PK 로 읽는다 (번호 조회는 캐시 미스일 때만)
+    private WorkOrder findWorkOrder(String workOrderNumber) {
+        Long orderId = refCache.workOrderId(workOrderNumber)
+                .orElseThrow(() -> new RuntimeException("작업 지시를 찾을 수 없습니다. 번호 : " + workOrderNumber));
+        return orderRepo.findById(orderId).orElseGet(() -> {
+            // 캐시에 남아 있던 삭제된 작업지시
+            refCache.invalidateWorkOrder(orderId);
+            return orderRepo.findByWorkOrderNumber(workOrderNumber)
+                    .orElseThrow(() -> new RuntimeException("작업 지시를 찾을 수 없습니다. 번호 : " + workOrderNumber));
+        });
+    }
+
+    private Equipment equipmentRef(String equipmentCode) {
+        ReferenceCache.EquipmentRef ref = refCache.equipment(equipmentCode)
+                .orElseThrow(() -> new RuntimeException("설비를 찾을 수 없습니다"));
+        return equipmentRepo.getReferenceById(ref.id());
+    }
+
+    private ReferenceCache.WorkerRef findWorkerRef(String workerCode) {
+        if (workerCode == null) return null;
+        return refCache.worker(workerCode)
+                .orElseThrow(() -> new RuntimeException("작업자를 찾을 수 없습니다. id=" + workerCode));
+    }
+
+    private static String workerNameOf(ReferenceCache.WorkerRef workerRef) {
+        return workerRef != null ? workerRef.name() : "SYSTEM";
+    }
+
+    private Set<String> findReportedKeys(List<ProductionLogCreateReqDto> dtos) {
+        List<Long> seqs = dtos.stream()
+                .filter(d -> ReportDedupWindow.key(d) != null)
+                .map(ProductionLogCreateReqDto::getReportSeq)
+                .distinct()
+                .toList();
+        if (seqs.isEmpty()) return new HashSet<>();
+        return new HashSet<>(productionLogRepo.findReportKeysBySeqIn(seqs));
+    }
+
+    // 보고 DTO → ProductionLog 및 하위 엔티티 구성 (저장은 호출 측에서)
+    private ProductionLog buildProductionLog(ProductionLogCreateReqDto dto, WorkOrder workOrder, Equipment equipment, Worker worker) {
+        // BOM 을 로딩하지 않고 컴파일된 BOM 의 제품 id 로 참조만 건다
+        Product product = productRepo.getReferenceById(bomCache.get(workOrder.getBom().getId()).productId());
+
         // 1. ProductionLog 기본 엔티티 생성 및 관계 세팅
         ProductionLog productionLog = productionLogMapper.toEntity(dto);
         productionLog.setWorkOrder(workOrder);
@@ -476,17 +656,17 @@ public class ProductionService {
         productionLog.setWorker(worker);
 
         // 2. 공정 엔티티 및 검사 엔티티 매핑
-        Dicing dicing = productionLogMapper.toEntity(dto.getDicingDto(), productionLog);
-        DicingInspection dicingInspection = productionLogMapper.toEntity(dto.getDicingInspectionDto(), productionLog);
+        productionLog.setDicing(productionLogMapper.toEntity(dto.getDicingDto(), productionLog));
+        productionLog.setDicingInspection(productionLogMapper.toEntity(dto.getDicingInspectionDto(), productionLog));
 
-        DieBonding dieBonding = productionLogMapper.toEntity(dto.getDieBondingDto(), productionLog);
-        DieBondingInspection dieBondingInspection = productionLogMapper.toEntity(dto.getDieBondingInspectionDto(), productionLog);
+        productionLog.setDieBonding(productionLogMapper.toEntity(dto.getDieBondingDto(), productionLog));
+        productionLog.setDieBondingInspection(productionLogMapper.toEntity(dto.getDieBondingInspectionDto(), productionLog));
 
-        WireBonding wireBonding = productionLogMapper.toEntity(dto.getWireBondingDto(), productionLog);
-        WireBondingInspection wireBondingInspection = productionLogMapper.toEntity(dto.getWireBondingInspectionDto(), productionLog);
+        productionLog.setWireBonding(productionLogMapper.toEntity(dto.getWireBondingDto(), productionLog));
+        productionLog.setWireBondingInspection(productionLogMapper.toEntity(dto.getWireBondingInspectionDto(), productionLog));
 
-        Molding molding = productionLogMapper.toEntity(dto.getMoldingDto(), productionLog);
-        MoldingInspection moldingInspection = productionLogMapper.toEntity(dto.getMoldingInspectionDto(), productionLog);
+        productionLog.setMolding(productionLogMapper.toEntity(dto.getMoldingDto(), productionLog));
+        productionLog.setMoldingInspection(productionLogMapper.toEntity(dto.getMoldingInspectionDto(), productionLog));
 
         // 3. Item + FinalInspection 리스트 처리
         List<Item> items = new ArrayList<>();
@@ -500,166 +680,133 @@ public class ProductionService {
             finalInspections.add(fi);
         }
 
-        // 4. Lot + LotMapping 리스트 처리
-        List<Lot> lots = new ArrayList<>();
+        // 4. Lot + LotMapping 리스트 처리 (코드 → id 일괄 조회, Lot 은 로딩하지 않고 참조만)
+        //    '소모됨' 상태 변경은 저장 시 markLotsConsumed 에서 한 번에
         List<LotMapping> lotMappings = new ArrayList<>();
+        Map<String, Long> lotIds = lotResolver.resolve(dto.getInputLots());
 
         for (String lotCode : dto.getInputLots()) {
-            Lot lot = lotRepo.findByCode(lotCode)
-                    .orElseThrow(() -> new RuntimeException("LOT를 찾을 수 없습니다. Code: " + lotCode));
-            lot.setStatus("소모됨");
-            lots.add(lot);
+            Lot lot = lotRepo.getReferenceById(lotIds.get(lotCode));
 
             LotMapping lotMapping = productionLogMapper.toEntity(productionLog, lot);
             lotMappings.add(lotMapping);
         }
 
-        // 5. 저장 (순서: ProductionLog → 공정 → 검사 → Item/FinalInspection → Lot/LotMapping)
-        productionLogRepo.save(productionLog);
-
-        dicingRepo.save(dicing);
-        dicingInspectionRepo.save(dicingInspection);
-
-        dieBondingRepo.save(dieBonding);
-        dieBondingInspectionRepo.save(dieBondingInspection);
-
-        wireBondingRepo.save(wireBonding);
-        wireBondingInspectionRepo.save(wireBondingInspection);
-
-        moldingRepo.save(molding);
-        moldingInspectionRepo.save(moldingInspection);
-
-        itemRepo.saveAll(items);
-        finalInspectionLRepo.saveAll(finalInspections);
+        productionLog.setItems(items);
+        productionLog.setFinalInspections(finalInspections);
+        productionLog.setLotMappings(lotMappings);
+        return productionLog;
+    }
 
-        lotRepo.saveAll(lots);
-        lotMappingRepo.saveAll(lotMappings);
+    // 저장한 실적들의 투입 LOT 을 '소모됨' 으로 (UPDATE 1회)
+    private void markLotsConsumed(List<ProductionLog> logs) {
+        List<Long> lotIds = new ArrayList<>();
+        for (ProductionLog pl : logs) {
+            for (LotMapping lm : pl.getLotMappings()) {
+                lotIds.add(lm.getLot().getId());   // 프록시 id 만 사용 (Lot 로딩 없음)
+            }
+        }
+        if (!lotIds.isEmpty()) {
+            lotResolver.markConsumed(lotIds);
+        }
+    }
 
-        // 🔥 [추가] 이번 보고에 포함된 불량 수량 계산 및 통계 반영
-        long currentFailCount = items.stream()
+    private int countFailItems(ProductionLog productionLog) {
+        return (int) productionLog.getItems().stream()
                 .filter(item -> "Fail".equalsIgnoreCase(item.getInspectionResult()))
                 .count();
+    }
 
-        if (currentFailCount > 0) {
-            updateProductionResultDefect(workOrder, (int)currentFailCount);
-        }
-
-        // 자재 차감
-        Bom bom = bomRepo.findById(product.getId())
-                .orElseThrow(() -> new EntityNotFoundException("BOM을 찾을 수 없습니다"));
+    // =========================================================
+    // 🔥 BOM 기준 자재 체크 / 차감
+    // =========================================================
+    // 재고 부족 시 작업지시를 PAUSED로 바꾸고 CustomException을 던진다 (noRollbackFor 대상)
+    // BOM 은 작업지시에 연결된 리비전을 컴파일 캐시에서 꺼내 쓰고(BOM 조회 0회),
+    // 재고 체크 / 차감은 MaterialStockLedger 의 CAS 카운터로 처리한다 (material 행 잠금 없음, DB 반영은 원장이 주기적으로)
+    private void backflushMaterials(WorkOrder workOrder, String workerName, String equipmentCode) {
+        CompiledBomCache.CompiledBom bom = bomCache.get(workOrder.getBom().getId());
+
+        MaterialStockLedger.Consumption consumption = stockLedger.consume(bom,
+                workOrder.getTargetLine(), equipmentCode, workerName);
+
+        if (consumption.isShortage()) {
+            int currentStock = (int) consumption.getMaterialStock();
+            int bomPerUnit = consumption.getRequiredQty();
+            int remainingQty = workOrder.getTargetQty() - workOrder.getCurrentQty();
+            int requiredTotal = remainingQty * bomPerUnit;
+            int shortageForDisplay = requiredTotal - currentStock;
+            String materialName = consumption.getMaterialName();
+
+            workOrder.setStatus("PAUSED");
+            workOrder.setShortageMaterialName(materialName);
+            workOrder.setShortageQty(shortageForDisplay);
+            orderRepo.saveAndFlush(workOrder);
+
+            ProductionLog autoLog = ProductionLog.builder()
+                    .workOrder(workOrder)
+                    .level("WARN")
+                    .category("PRODUCTION")
+                    .message("*** [" + materialName + "] 재고가 부족합니다 (부족분: " + requiredTotal + ", 보유: " + currentStock + ")")
+                    .startTime(LocalDateTime.now())
+                    .resultDate(LocalDate.now())
+                    .resultQty(0)
+                    .status(ProductionStatus.PAUSED)
+                    .build();
+            productionLogRepo.save(autoLog);
 
-        // =========================================================
-        // 🔥 BOM 기준 자재 체크 / 차감
-        // =========================================================
-        for (BomItem bomItem : bom.getItems()) {
-            Material mat = bomItem.getMaterial();
-
-            int bomPerUnit = bomItem.getRequiredQty();
-            int currentStock = mat.getCurrentStock();
-
-            if (currentStock < bomPerUnit) {
-                int remainingQty = workOrder.getTargetQty() - workOrder.getCurrentQty();
-                int requiredTotal = remainingQty * bomPerUnit;
-                int shortageForDisplay = requiredTotal - currentStock;
-
-                workOrder.setStatus("PAUSED");
-                workOrder.setShortageMaterialName(mat.getName());
-                workOrder.setShortageQty(shortageForDisplay);
-                orderRepo.saveAndFlush(workOrder);
-
-                ProductionLog autoLog = ProductionLog.builder()
-                        .workOrder(workOrder)
-                        .level("WARN")
-                        .category("PRODUCTION")
-                        .message("*** [" + mat.getName() + "] 재고가 부족합니다 (부족분: " + requiredTotal + ", 보유: " + currentStock + ")")
-                        .startTime(LocalDateTime.now())
-                        .resultDate(LocalDate.now())
-                        .resultQty(0)
-                        .status(ProductionStatus.PAUSED)
-                        .build();
-                productionLogRepo.save(autoLog);
-
-                throw new CustomException("INVENTORY_SHORTAGE", mat.getName() + ":" + shortageForDisplay);
-            }
+            throw new CustomException("INVENTORY_SHORTAGE", materialName + ":" + shortageForDisplay);
+        }
 
-            int afterStock = currentStock - bomPerUnit;
-            mat.setCurrentStock(afterStock);
-            matRepo.save(mat);
-
-            MaterialTransaction outboundTx = MaterialTransaction.builder()
-                    .type(MaterialTxType.OUTBOUND)
-                    .material(mat)
-                    .qty(bomPerUnit)
-                    .unit("ea")
-                    .targetLocation(workOrder.getTargetLine())
-                    .targetEquipment(dto.getEquipmentCode())
-                    .workerName(worker != null ? worker.getName() : "SYSTEM")
+        if (consumption.isEmptied()) {
+            String materialName = consumption.getMaterialName();
+
+            workOrder.setStatus("PAUSED");
+            workOrder.setShortageMaterialName(materialName);
+            workOrder.setShortageQty(0);
+            orderRepo.saveAndFlush(workOrder);
+
+            ProductionLog zeroLog = ProductionLog.builder()
+                    .workOrder(workOrder)
+                    .level("WARN")
+                    .category("PRODUCTION")
+                    .message("*** [" + materialName + "] 재고가 0이 되어 작업을 중단합니다")
+                    .startTime(LocalDateTime.now())
+                    .resultDate(LocalDate.now())
+                    .resultQty(0)
+                    .status(ProductionStatus.PAUSED)
                     .build();
-            materialTxRepo.save(outboundTx);
-
-            if (afterStock == 0) {
-                workOrder.setStatus("PAUSED");
-                workOrder.setShortageMaterialName(mat.getName());
-                workOrder.setShortageQty(0);
-                orderRepo.saveAndFlush(workOrder);
-
-                ProductionLog zeroLog = ProductionLog.builder()
-                        .workOrder(workOrder)
-                        .level("WARN")
-                        .category("PRODUCTION")
-                        .message("*** [" + mat.getName() + "] 재고가 0이 되어 작업을 중단합니다")
-                        .startTime(LocalDateTime.now())
-                        .resultDate(LocalDate.now())
-                        .resultQty(0)
-                        .status(ProductionStatus.PAUSED)
-                        .build();
-                productionLogRepo.save(zeroLog);
-
-                throw new CustomException("INVENTORY_EMPTY", mat.getName() + ":0");
-            }
+            productionLogRepo.save(zeroLog);
+
+            throw new CustomException("INVENTORY_EMPTY", materialName + ":0");
         }
+    }
 
-        // =================================================
-        // 🔥 생산 수량 증가
-        // =================================================
+
+    // =================================================
+    // 🔥 생산 수량 증가
+    // =================================================
+    private void increaseProducedQty(WorkOrder workOrder) {
         workOrder.setCurrentQty(workOrder.getCurrentQty() + 1);
 
         if (workOrder.getCurrentQty() >= workOrder.getTargetQty()) {
             workOrder.setStatus("COMPLETED");
             workOrder.setEndDate(LocalDateTime.now());
             applyProductionResultFromWorkOrder(workOrder);
+            pushWorkOrder(workOrder);
+            hourlySeries.recordWorkOrder(workOrder);
+            wipTracker.closeWorkOrder(workOrder.getId());
         }
+    }
 
-        orderRepo.save(workOrder);
+    // 작업지시 상태 변경분 (SSE, 커밋 후 전송)
+    private void pushWorkOrder(WorkOrder order) {
+        pushHub.publish(LivePushHub.TOPIC_WORK_ORDER, String.valueOf(order.getId()), WorkOrderResDto.fromEntity(order));
     }
 
     // 🔥 [신규 메서드] 불량 발생 시 실적 테이블에 즉시 반영
     private void updateProductionResultDefect(WorkOrder order, int failQty) {
         if (failQty <= 0) return;
-
-        LocalDate today = LocalDate.now();
-        int hour = LocalDateTime.now().getHour();
-        String line = (order.getTargetLine() == null || order.getTargetLine().isBlank()) ? "Fab-Line-A" : order.getTargetLine();
-
-        ProductionResult pr = productionResultRepo
-                .findByResultDateAndResultHourAndLineAndProduct(today, hour, line, order.getBom().getProduct())
-                .orElseGet(() -> {
-                    ProductionResult created = new ProductionResult();
-                    created.setResultDate(today);
-                    created.setResultHour(hour);
-                    created.setLine(line);
-                    created.setProduct(order.getBom().getProduct());
-                    created.setPlanQty(0);
-                    created.setGoodQty(0);
-                    created.setDefectQty(0);
-                    created.setCreatedAt(LocalDateTime.now());
-                    return created;
-                });
-
-        int baseDefect = pr.getDefectQty() == null ? 0 : pr.getDefectQty();
-        pr.setDefectQty(baseDefect + failQty);
-
-        productionResultRepo.save(pr);
+        resultAggregator.addDefect(order.getTargetLine(), productIdOf(order), failQty);
     }
 
 
@@ -845,6 +992,7 @@ public class ProductionService {
         }
 
         Worker saved = workerRepo.save(worker);
+        refCache.invalidateWorker(workerId);
         return WorkerResDto.fromEntity(saved);
     }
 
@@ -853,6 +1001,7 @@ public class ProductionService {
         Worker worker = workerRepo.findById(workerId)
                 .orElseThrow(() -> new RuntimeException("작업자를 찾을 수 없습니다. id=" + workerId));
         workerRepo.delete(worker);
+        refCache.invalidateWorker(workerId);
     }
 
     // ==========================================
@@ -0,0 +1,186 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.ReferenceCacheStatsDto;
+import com.hm.mes_final_260106.repository.EquipmentRepository;
+import com.hm.mes_final_260106.repository.WorkOrderRepository;
+import com.hm.mes_final_260106.repository.WorkerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// 기준 정보 near-cache : 설비 코드 / 작업자 코드 / 작업지시 번호 → id
+// 보고와 폴링마다 같은 코드로 반복되는 조회를 한 교대 동안 거의 바뀌지 않는 id 로 풀어 둔다.
+// 엔티티 자체는 트랜잭션마다 새로 붙여야 하므로 캐시하지 않고, 호출 측에서 id 로 참조(getReferenceById) 또는 PK 조회한다.
+// 크기 제한(LRU)이 있고, 설비 / 작업자 / 작업지시 변경 메서드에서 id 기준으로 무효화한다.
+@Component
+public class ReferenceCache {
+
+    // 설비 : FK 참조용 id 만 필요
+    public record EquipmentRef(Long id, String code) {}
+
+    // 작업자 : FK 참조용 id + 자재 이력에 남기는 이름
+    public record WorkerRef(Long id, String code, String name) {}
+
+    private final EquipmentRepository equipmentRepo;
+    private final WorkerRepository workerRepo;
+    private final WorkOrderRepository orderRepo;
+
+    private final NearCache<EquipmentRef> equipments;
+    private final NearCache<WorkerRef> workers;
+    private final NearCache<Long> workOrders;      // 작업지시 번호 → id
+    private final NearCache<Long> assignments;     // 설비 코드 → 진행 중(IN_PROGRESS) 작업지시 id
+
+    public ReferenceCache(EquipmentRepository equipmentRepo,
+                          WorkerRepository workerRepo,
+                          WorkOrderRepository orderRepo,
+                          @Value("${mes.reference.max-size:1024}") int maxSize) {
+        this.equipmentRepo = equipmentRepo;
+        this.workerRepo = workerRepo;
+        this.orderRepo = orderRepo;
+        this.equipments = new NearCache<>("equipment", maxSize);
+        this.workers = new NearCache<>("worker", maxSize);
+        this.workOrders = new NearCache<>("workOrder", maxSize);
+        this.assignments = new NearCache<>("assignment", maxSize);
+    }
+
+    // =========================
+    // 조회 (미스일 때만 DB)
+    // =========================
+    public Optional<EquipmentRef> equipment(String code) {
+        return Optional.ofNullable(equipments.get(code, c -> equipmentRepo.findByCode(c)
+                .map(e -> new EquipmentRef(e.getId(), e.getCode()))
+                .orElse(null)));
+    }
+
+    public Optional<WorkerRef> worker(String code) {
+        return Optional.ofNullable(workers.get(code, c -> workerRepo.findByCode(c)
+                .map(w -> new WorkerRef(w.getId(), w.getCode(), w.getName()))
+                .orElse(null)));
+    }
+
+    // 미스일 때 번호로 조회한 엔티티는 호출 측 영속성 컨텍스트에 남으므로 이어지는 findById 는 추가 SELECT 가 없다
+    public Optional<Long> workOrderId(String workOrderNumber) {
+        return Optional.ofNullable(workOrders.get(workOrderNumber, n -> orderRepo.findByWorkOrderNumber(n)
+                .map(o -> o.getId())
+                .orElse(null)));
+    }
+
+    // 할당 정보는 상태가 자주 바뀌므로 호출 측이 꺼낸 뒤 상태를 다시 확인한다
+    public Long assignedOrderId(String equipmentCode) {
+        return assignments.get(equipmentCode, c -> null);
+    }
+
+    public void rememberAssignment(String equipmentCode, Long orderId) {
+        TransactionHooks.afterCommit(() -> assignments.put(equipmentCode, orderId));
+    }
+
+    public void forgetAssignment(String equipmentCode) {
+        assignments.invalidateKey(equipmentCode);
+    }
+
+    // =========================
+    // 무효화 (변경 즉시 + 커밋 후 한 번 더 : 커밋 전 다른 요청이 옛 값을 다시 채우는 경우 대비)
+    // =========================
+    public void invalidateEquipment(Long equipmentId) {
+        invalidate(equipments, ref -> ref.id().equals(equipmentId));
+    }
+
+    public void invalidateWorker(Long workerId) {
+        invalidate(workers, ref -> ref.id().equals(workerId));
+    }
+
+    public void invalidateWorkOrder(Long orderId) {
+        invalidate(workOrders, orderId::equals);
+        invalidate(assignments, orderId::equals);
+    }
+
+    private <V> void invalidate(NearCache<V> cache, Predicate<V> match) {
+        cache.invalidateIf(match);
+        TransactionHooks.afterCommit(() -> cache.invalidateIf(match));
+    }
+
+    public List<ReferenceCacheStatsDto> getStats() {
+        return List.of(equipments.stats(), workers.stats(), workOrders.stats(), assignments.stats());
+    }
+
+    // =========================
+    // 크기 제한 LRU + 적중 / 미스 카운터
+    // =========================
+    private static final class NearCache<V> {
+        private final String name;
+        private final int maxSize;
+        private final Map<String, V> map;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        NearCache(String name, int maxSize) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.map = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                    if (size() > NearCache.this.maxSize) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        // 로더는 락 밖에서 호출한다 (DB 조회 동안 다른 코드 조회를 막지 않도록). 없는 코드는 캐시하지 않는다
+        V get(String key, Function<String, V> loader) {
+            if (key == null) return null;
+            synchronized (this) {
+                V cached = map.get(key);
+                if (cached != null) {
+                    hits.incrementAndGet();
+                    return cached;
+                }
+            }
+            misses.incrementAndGet();
+            V loaded = loader.apply(key);
+            if (loaded != null) put(key, loaded);
+            return loaded;
+        }
+
+        synchronized void put(String key, V value) {
+            map.put(key, value);
+        }
+
+        synchronized void invalidateKey(String key) {
+            if (map.remove(key) != null) invalidations.incrementAndGet();
+        }
+
+        synchronized void invalidateIf(Predicate<V> match) {
+            int before = map.size();
+            map.values().removeIf(match);
+            invalidations.addAndGet(before - map.size());
+        }
+
+        synchronized ReferenceCacheStatsDto stats() {
+            long h = hits.get();
+            long m = misses.get();
+            return ReferenceCacheStatsDto.builder()
+                    .name(name)
+                    .size(map.size())
+                    .maxSize(maxSize)
+                    .hits(h)
+                    .misses(m)
+                    .evictions(evictions.get())
+                    .invalidations(invalidations.get())
+                    .hitRate(h + m == 0 ? 0.0 : (double) h / (h + m))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionReportResultDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 생산 실적 중복 보고 차단 창 (설비코드 + 보고 순번)
+// 설비가 토큰 재발급 / 네트워크 오류로 같은 보고를 다시 보내면, 최근 처리 결과를 그대로 돌려주고 DB는 건드리지 않는다.
+// 창에서 밀려난 오래된 보고는 production_log 의 (equipment_id, report_seq) 유니크 제약이 막는다.
+@Component
+public class ReportDedupWindow {
+
+    // 처리 중이거나 처리된 보고 1건 : 비동기 접수는 ackId 만 있고 결과는 커밋 후 채워진다
+    public static class Seen {
+        private final long ackId;
+        private volatile ProductionReportResultDto result;
+
+        Seen(long ackId, ProductionReportResultDto result) {
+            this.ackId = ackId;
+            this.result = result;
+        }
+
+        public long getAckId() { return ackId; }
+        public ProductionReportResultDto getResult() { return result; }
+    }
+
+    private final Map<String, Seen> window;
+
+    public ReportDedupWindow(@Value("${mes.dedup.window-size:50000}") int windowSize) {
+        this.window = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Seen> eldest) {
+                return size() > windowSize;
+            }
+        };
+    }
+
+    // 순번이 없는 보고(구버전 설비)는 null → 중복 검사 대상 아님
+    public static String key(ProductionLogCreateReqDto dto) {
+        if (dto.getReportSeq() == null || dto.getEquipmentCode() == null) return null;
+        return dto.getEquipmentCode() + ":" + dto.getReportSeq();
+    }
+
+    // 창에서 밀려난 재전송이 (equipment_id, report_seq) 유니크 제약에 걸린 경우
+    public static boolean isDuplicateReport(RuntimeException e) {
+        if (!(e instanceof DataIntegrityViolationException violation)) return false;
+        String message = violation.getMostSpecificCause().getMessage();
+        return message != null && message.contains("uk_production_log_equipment_seq");
+    }
+
+    public synchronized Seen get(String key) {
+        return key == null ? null : window.get(key);
+    }
+
+    // 처음 보는 키면 등록하고 null, 이미 있으면 기존 항목을 돌려준다
+    public synchronized Seen putIfAbsent(String key, long ackId) {
+        if (key == null) return null;
+        return window.putIfAbsent(key, new Seen(ackId, null));
+    }
+
+    public synchronized void complete(String key, ProductionReportResultDto result) {
+        if (key == null) return;
+        Seen seen = window.get(key);
+        if (seen == null) {
+            window.put(key, new Seen(0, result));
+        } else {
+            seen.result = result;
+        }
+    }
+
+    // 커밋이 롤백된 보고는 저널 재생 때 다시 처리되어야 하므로 창에서 뺀다
+    public synchronized void forget(String key) {
+        if (key != null) window.remove(key);
+    }
+}
@@ -0,0 +1,168 @@
+package com.hm.mes_final_260106.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// 기동 시 스키마 이관 (ddl-auto=update 가 처리하지 못하는 스키마 변경)
+//
+// [공정 파라미터] VARCHAR(50) → DOUBLE
+// 예전에는 측정값을 문자열로 저장해서 SPC 가 점마다 문자열을 파싱했다. 엔티티는 이제 Double 이지만
+// ddl-auto=update 는 기존 컬럼 타입을 바꾸지 않으므로, 기동 시 아직 문자열인 컬럼만 골라 한 번 변환한다.
+//   1) 그대로 숫자로 읽히지 않는 값(단위가 붙은 값 등)은 원본을 raw_values 에 "컬럼=원본" 으로 남긴다
+//   2) 값에서 숫자 부분만 추출한다 (숫자가 없으면 NULL)
+//   3) 컬럼 타입을 DOUBLE 로 바꾼다
+// 이미 DOUBLE 인 컬럼은 건너뛰므로 여러 번 실행돼도 안전하다. (MySQL 8 REGEXP_SUBSTR 사용)
+//
+// [설비 이벤트 유형] Hibernate 가 만든 MySQL ENUM 컬럼 → VARCHAR
+// ENUM 컬럼은 EquipmentEventType 에 값이 추가돼도(SPC_VIOLATION 등) 늘어나지 않아 INSERT 가 실패한다.
+//
+// [생산 실적 버킷 유니크 키] uk_production_result_bucket (result_date, result_hour, line, product_id)
+// ProductionResultAggregator 의 ON DUPLICATE KEY UPDATE 가 이 키에 기대는데, 예전 find-or-create 가 남긴 중복 버킷이 있으면
+// ddl-auto=update 는 키 생성에 실패하고 경고만 남긴다 (그대로 두면 upsert 가 매번 새 행을 넣어 실적이 쪼개진다).
+//   1) 중복 버킷의 수량을 가장 먼저 생긴 행(id 최소)에 합치고 나머지 행을 지운다 (한 트랜잭션)
+//   2) 유니크 키를 직접 만든다
+//   3) 그래도 키가 없으면 기동을 멈춘다
+@Component
+@Slf4j
+@DependsOn("entityManagerFactory")   // 스키마 생성 / 갱신이 끝난 뒤 실행
+public class SchemaMigration {
+
+    private static final String NUMBER = "-?[0-9]+([.][0-9]+)?";
+
+    private static final Map<String, List<String>> COLUMNS = new LinkedHashMap<>();
+    static {
+        COLUMNS.put("dicing", List.of("spindle_speed", "feed_rate", "blade_wear", "coolant_flow"));
+        COLUMNS.put("die_bonding", List.of("pick_up_force", "placement_accuracy", "epoxy_dispense_volume", "curing_temp"));
+        COLUMNS.put("wire_bonding", List.of("bonding_temp", "bonding_force", "ultrasonic_power", "bonding_time", "loop_height", "ball_diameter"));
+        COLUMNS.put("molding", List.of("mold_temp", "injection_pressure", "cure_time", "clamp_force"));
+    }
+
+    private static final String RESULT_BUCKET_KEY = "uk_production_result_bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+
+    public SchemaMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager txManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        migrateProcessParams();
+        migrateEventTypeColumn();
+        migrateResultBucketKey();
+    }
+
+    private void migrateProcessParams() {
+        for (Map.Entry<String, List<String>> e : COLUMNS.entrySet()) {
+            String table = e.getKey();
+            List<String> textColumns = jdbcTemplate.queryForList(
+                    "SELECT COLUMN_NAME FROM information_schema.COLUMNS " +
+                            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND DATA_TYPE IN ('varchar', 'char', 'text')",
+                    String.class, table);
+
+            List<String> pending = e.getValue().stream().filter(textColumns::contains).toList();
+            if (!pending.isEmpty()) {
+                migrateTable(table, pending);
+            }
+        }
+    }
+
+    private void migrateTable(String table, List<String> columns) {
+        ensureRawColumn(table);
+
+        // 1. 숫자로 읽히지 않는 원본 보관
+        String notNumber = columns.stream()
+                .map(c -> "(" + c + " IS NOT NULL AND TRIM(" + c + ") NOT REGEXP '^" + NUMBER + "$')")
+                .collect(Collectors.joining(" OR "));
+        String rawParts = columns.stream()
+                .map(c -> "IF(" + c + " IS NOT NULL AND TRIM(" + c + ") NOT REGEXP '^" + NUMBER + "$', CONCAT('" + c + "=', " + c + "), NULL)")
+                .collect(Collectors.joining(", "));
+        int kept = jdbcTemplate.update(
+                "UPDATE " + table + " SET raw_values = CONCAT_WS(';', raw_values, " + rawParts + ") WHERE " + notNumber);
+
+        // 2. 숫자 부분만 남기기
+        String extract = columns.stream()
+                .map(c -> c + " = REGEXP_SUBSTR(" + c + ", '" + NUMBER + "')")
+                .collect(Collectors.joining(", "));
+        int rows = jdbcTemplate.update("UPDATE " + table + " SET " + extract);
+
+        // 3. 타입 변경
+        String modify = columns.stream()
+                .map(c -> "MODIFY COLUMN " + c + " DOUBLE NULL")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.execute("ALTER TABLE " + table + " " + modify);
+
+        log.info("공정 파라미터 컬럼 이관 : {} {} → DOUBLE, {}행 (원본 보관 {}행)", table, columns, rows, kept);
+    }
+
+    private void migrateEventTypeColumn() {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'equipment_event_log' AND COLUMN_NAME = 'event_type'",
+                String.class);
+        if (types.contains("enum")) {
+            jdbcTemplate.execute("ALTER TABLE equipment_event_log MODIFY COLUMN event_type VARCHAR(30)");
+            log.info("설비 이벤트 유형 컬럼 이관 : equipment_event_log.event_type ENUM → VARCHAR(30)");
+        }
+    }
+
+    private void migrateResultBucketKey() {
+        if (hasResultBucketKey()) return;
+
+        // 1. 중복 버킷 합치기 (product_id 가 NULL 인 버킷도 GROUP BY / <=> 기준으로 같은 버킷)
+        int[] merged = txTemplate.execute(status -> new int[]{
+                jdbcTemplate.update(
+                        "UPDATE production_result keep " +
+                                "JOIN (SELECT MIN(id) AS keep_id, SUM(plan_qty) AS plan_qty, SUM(good_qty) AS good_qty, SUM(defect_qty) AS defect_qty " +
+                                "      FROM production_result GROUP BY result_date, result_hour, line, product_id HAVING COUNT(*) > 1) dup " +
+                                "  ON keep.id = dup.keep_id " +
+                                "SET keep.plan_qty = dup.plan_qty, keep.good_qty = dup.good_qty, keep.defect_qty = dup.defect_qty"),
+                jdbcTemplate.update(
+                        "DELETE r FROM production_result r " +
+                                "JOIN production_result keep " +
+                                "  ON r.result_date = keep.result_date AND r.result_hour = keep.result_hour " +
+                                " AND r.line = keep.line AND r.product_id <=> keep.product_id AND r.id > keep.id")
+        });
+
+        // 2. 유니크 키 생성
+        jdbcTemplate.execute("ALTER TABLE production_result ADD CONSTRAINT " + RESULT_BUCKET_KEY +
+                " UNIQUE (result_date, result_hour, line, product_id)");
+
+        // 3. 확인
+        if (!hasResultBucketKey()) {
+            throw new IllegalStateException("production_result 유니크 키(" + RESULT_BUCKET_KEY + ")를 만들지 못했습니다.");
+        }
+        log.info("생산 실적 버킷 유니크 키 생성 : 중복 버킷 {}개 합침, 중복 행 {}건 삭제", merged[0], merged[1]);
+    }
+
+    private boolean hasResultBucketKey() {
+        Integer columns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'production_result' AND INDEX_NAME = ? AND NON_UNIQUE = 0",
+                Integer.class, RESULT_BUCKET_KEY);
+        return columns != null && columns == 4;
+    }
+
+    // ddl-auto 가 꺼져 있는 환경 대비
+    private void ensureRawColumn(String table) {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'raw_values'",
+                Integer.class, table);
+        if (exists == null || exists == 0) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN raw_values VARCHAR(500) NULL");
+        }
+    }
+}
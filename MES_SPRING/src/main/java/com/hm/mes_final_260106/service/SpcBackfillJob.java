@@ -0,0 +1,378 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.SpcMetric;
+import com.hm.mes_final_260106.dto.spc.SpcBackfillStatusDto;
+import com.hm.mes_final_260106.entity.InspectionStandard;
+import com.hm.mes_final_260106.entity.SpcBackfillCheckpoint;
+import com.hm.mes_final_260106.repository.InspectionStandardRepository;
+import com.hm.mes_final_260106.repository.SpcBackfillCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// SPC 이력 재계산 (검사 기준 변경 / 검사 항목 추가 시 전체 이력의 Cpk, Nelson 규칙 위반 다시 계산)
+//  - 측정 테이블(die_bonding / molding / wire_bonding)마다 id keyset 청크(WHERE id > ? ORDER BY id LIMIT ?)로 읽는다
+//    → 이력 전체를 한 리스트에 올리지 않고, 청크마다 인덱스 범위 스캔 1회
+//  - 테이블 작업은 전용 ForkJoinPool 에서 병렬로, 한 청크 안의 항목별 계산(Welford + Nelson)은 다시 항목 단위로 fork 한다
+//  - 청크가 끝날 때마다 항목별 마지막 id 와 누적 통계를 spc_backfill_checkpoint 에 저장 → 중단되면 그 지점부터 이어서 실행
+// 온라인 API 스레드 / 공용 풀을 쓰지 않으므로 재계산 중에도 조회 / 실적 보고는 그대로 처리된다.
+// 측정 순서는 측정 테이블 id 순 (적재 순서). 규칙 판정 기준은 SpcEngine 과 같다 (이전까지의 누적 평균 / σ, rule-min-samples 이후).
+@Component
+@Slf4j
+public class SpcBackfillJob {
+
+    // 이어서 실행할 때 규칙 상태를 되살리려고 다시 읽는 직전 점 수 (Nelson 규칙 최대 창 = 15)
+    private static final int RULE_WARMUP_POINTS = 15;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SpcBackfillCheckpointRepository checkpointRepo;
+    private final InspectionStandardRepository standardRepo;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int ruleMinSamples;
+
+    private final ForkJoinPool pool;
+
+    // ----- 실행 상태 -----
+    private volatile String state = "IDLE";
+    private volatile boolean resumed;
+    private volatile boolean cancelled;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile String error;
+    private final AtomicLong rowsProcessed = new AtomicLong();
+
+    public SpcBackfillJob(JdbcTemplate jdbcTemplate,
+                          SpcBackfillCheckpointRepository checkpointRepo,
+                          InspectionStandardRepository standardRepo,
+                          @Value("${mes.spc.backfill.chunk-size:5000}") int chunkSize,
+                          @Value("${mes.spc.backfill.parallelism:4}") int parallelism,
+                          @Value("${mes.spc.rule-min-samples:25}") int ruleMinSamples) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepo = checkpointRepo;
+        this.standardRepo = standardRepo;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.ruleMinSamples = ruleMinSamples;
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("spc-backfill-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 진행 중인 청크까지만 반영하고 멈춘다 (체크포인트는 RUNNING 으로 남아 다음 실행에서 이어짐)
+        cancelled = true;
+        pool.shutdownNow();
+    }
+
+    // =========================
+    // 시작 (비동기) : 이미 실행 중이면 현재 상태만 돌려준다
+    // =========================
+    // resume = true : 완료되지 않은 체크포인트가 있으면 그 지점부터, 없으면 처음부터
+    public synchronized SpcBackfillStatusDto start(boolean resume) {
+        if ("RUNNING".equals(state)) return getStatus();
+
+        Map<String, InspectionStandard> standards = new HashMap<>();
+        for (InspectionStandard std : standardRepo.findAll()) {
+            standards.put(std.getProcessName() + "." + std.getCheckItem(), std);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean anyResumed = false;
+        List<TableJob> tables = new ArrayList<>();
+        Map<String, List<SpcMetric>> byTable = Arrays.stream(SpcMetric.values())
+                .collect(Collectors.groupingBy(SpcMetric::getTable, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<SpcMetric>> e : byTable.entrySet()) {
+            List<ItemState> items = new ArrayList<>();
+            for (SpcMetric metric : e.getValue()) {
+                SpcBackfillCheckpoint cp = checkpointRepo
+                        .findByProcessNameAndCheckItem(metric.getProcessName(), metric.getCheckItem())
+                        .orElseGet(SpcBackfillCheckpoint::new);
+                boolean restore = resume && cp.getId() != null && !SpcBackfillCheckpoint.COMPLETED.equals(cp.getStatus());
+                ItemState item = new ItemState(metric, cp, standards.get(metric.getProcessName() + "." + metric.getCheckItem()));
+                if (restore) {
+                    item.restore();
+                    anyResumed = true;
+                } else {
+                    item.reset(now);
+                }
+                items.add(item);
+            }
+            tables.add(new TableJob(e.getKey(), items));
+        }
+        for (TableJob table : tables) {
+            checkpointRepo.saveAll(table.checkpoints(now));
+        }
+
+        state = "RUNNING";
+        resumed = anyResumed;
+        cancelled = false;
+        error = null;
+        startedAt = now;
+        finishedAt = null;
+        startNanos = System.nanoTime();
+        rowsProcessed.set(0);
+
+        pool.execute(() -> run(tables));
+        log.info("SPC 이력 재계산 시작 : 테이블 {}개, 병렬도 {}, 청크 {}, 이어서 실행 {}", tables.size(), parallelism, chunkSize, anyResumed);
+        return getStatus();
+    }
+
+    private void run(List<TableJob> tables) {
+        try {
+            ForkJoinTask.invokeAll(tables.stream().map(t -> ForkJoinTask.adapt(t::run)).toList());
+            state = cancelled ? "IDLE" : "COMPLETED";
+        } catch (RuntimeException e) {
+            log.error("SPC 이력 재계산 실패", e);
+            error = e.getMessage();
+            state = "FAILED";
+        } finally {
+            finishNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            log.info("SPC 이력 재계산 종료 : {} , {}행, {}행/초", state, rowsProcessed.get(), String.format("%.0f", rowsPerSecond()));
+        }
+    }
+
+    public SpcBackfillStatusDto getStatus() {
+        long elapsed = elapsedNanos();
+        return SpcBackfillStatusDto.builder()
+                .state(state)
+                .resumed(resumed)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .elapsedMs(elapsed / 1_000_000)
+                .rowsProcessed(rowsProcessed.get())
+                .rowsPerSecond(rowsPerSecond())
+                .parallelism(parallelism)
+                .chunkSize(chunkSize)
+                .error(error)
+                .items(checkpointRepo.findAllByOrderByProcessNameAscCheckItemAsc().stream()
+                        .map(SpcBackfillStatusDto.Item::from)
+                        .toList())
+                .build();
+    }
+
+    private long elapsedNanos() {
+        if (startedAt == null) return 0;
+        return ("RUNNING".equals(state) ? System.nanoTime() : finishNanos) - startNanos;
+    }
+
+    private double rowsPerSecond() {
+        long elapsed = elapsedNanos();
+        return elapsed > 0 ? rowsProcessed.get() / (elapsed / 1e9) : 0.0;
+    }
+
+    // =========================
+    // 측정 테이블 1개 : keyset 청크 → 항목별 계산 fork → 체크포인트
+    // =========================
+    private final class TableJob {
+        private final String table;
+        private final List<ItemState> items;
+
+        TableJob(String table, List<ItemState> items) {
+            this.table = table;
+            this.items = items;
+        }
+
+        void run() {
+            try {
+                for (ItemState item : items) {
+                    warmUpRules(item);
+                }
+
+                long afterId = items.stream().mapToLong(i -> i.lastId).min().orElse(0L);
+                Chunk chunk = new Chunk(chunkSize, items.size());
+                while (!cancelled) {
+                    readChunk(afterId, chunk);
+                    if (chunk.size == 0) break;
+
+                    List<ForkJoinTask<?>> tasks = new ArrayList<>(items.size());
+                    for (int c = 0; c < items.size(); c++) {
+                        ItemState item = items.get(c);
+                        int column = c;
+                        tasks.add(ForkJoinTask.adapt(() -> item.consume(chunk, column)));
+                    }
+                    ForkJoinTask.invokeAll(tasks);
+
+                    afterId = chunk.ids[chunk.size - 1];
+                    rowsProcessed.addAndGet(chunk.size);
+                    checkpointRepo.saveAll(checkpoints(LocalDateTime.now()));
+                    if (chunk.size < chunkSize) break;
+                }
+
+                if (!cancelled) {
+                    LocalDateTime now = LocalDateTime.now();
+                    items.forEach(i -> i.complete(now));
+                    checkpointRepo.saveAll(checkpoints(now));
+                }
+            } catch (RuntimeException e) {
+                LocalDateTime now = LocalDateTime.now();
+                items.forEach(i -> i.checkpoint.setStatus(SpcBackfillCheckpoint.FAILED));
+                checkpointRepo.saveAll(checkpoints(now));
+                throw e;
+            }
+        }
+
+        List<SpcBackfillCheckpoint> checkpoints(LocalDateTime now) {
+            return items.stream().map(i -> i.flush(now)).toList();
+        }
+
+        // WHERE id > ? ORDER BY id LIMIT ? : PK 범위 스캔, 항목 컬럼은 한 번에 읽는다 (NULL → NaN)
+        private void readChunk(long afterId, Chunk chunk) {
+            String columns = items.stream().map(i -> "x." + i.metric.getColumn()).collect(Collectors.joining(", "));
+            String sql = "SELECT x.id, " + columns + " FROM " + table + " x WHERE x.id > ? ORDER BY x.id LIMIT ?";
+            chunk.size = 0;
+            jdbcTemplate.query(sql, rs -> {
+                int row = chunk.size++;
+                chunk.ids[row] = rs.getLong(1);
+                for (int c = 0; c < items.size(); c++) {
+                    double v = rs.getDouble(c + 2);
+                    chunk.values[c][row] = rs.wasNull() ? Double.NaN : v;
+                }
+            }, afterId, chunkSize);
+        }
+
+        // 이어서 실행 : 체크포인트 직전 점들로 규칙 상태(연속 개수 등)를 되살린다 (위반 집계는 하지 않음)
+        private void warmUpRules(ItemState item) {
+            if (item.n < ruleMinSamples || item.lastId == 0) return;
+            String column = item.metric.getColumn();
+            List<Double> recent = jdbcTemplate.queryForList(
+                    "SELECT x." + column + " FROM " + table + " x WHERE x.id <= ? AND x." + column + " IS NOT NULL " +
+                            "ORDER BY x.id DESC LIMIT " + RULE_WARMUP_POINTS,
+                    Double.class, item.lastId);
+            double sigma = Math.sqrt(item.m2 / (item.n - 1));
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                item.rules.evaluate(recent.get(i), item.mean, sigma);
+            }
+        }
+    }
+
+    // 한 청크 (재사용 버퍼) : ids[row], values[항목][row]
+    private static final class Chunk {
+        final long[] ids;
+        final double[][] values;
+        int size;
+
+        Chunk(int capacity, int columns) {
+            this.ids = new long[capacity];
+            this.values = new double[columns][capacity];
+        }
+    }
+
+    // =========================
+    // 항목 1개 누적 상태 (한 번에 한 fork 작업만 만진다)
+    // =========================
+    private final class ItemState {
+        final SpcMetric metric;
+        final SpcBackfillCheckpoint checkpoint;
+        final Double lsl;
+        final Double usl;
+        final NelsonRuleEvaluator rules = new NelsonRuleEvaluator();
+
+        long lastId;
+        long n;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        final long[] ruleCounts = new long[NelsonRuleEvaluator.RULE_COUNT];
+
+        ItemState(SpcMetric metric, SpcBackfillCheckpoint checkpoint, InspectionStandard std) {
+            this.metric = metric;
+            this.checkpoint = checkpoint;
+            this.lsl = std != null ? std.getLsl() : null;
+            this.usl = std != null ? std.getUsl() : null;
+        }
+
+        void reset(LocalDateTime now) {
+            checkpoint.setProcessName(metric.getProcessName());
+            checkpoint.setCheckItem(metric.getCheckItem());
+            checkpoint.setStatus(SpcBackfillCheckpoint.RUNNING);
+            checkpoint.setStartedAt(now);
+            checkpoint.setCompletedAt(null);
+        }
+
+        void restore() {
+            checkpoint.setStatus(SpcBackfillCheckpoint.RUNNING);
+            lastId = checkpoint.getLastId();
+            n = checkpoint.getSampleCount();
+            if (n > 0) {
+                mean = checkpoint.getMeanValue();
+                m2 = checkpoint.getM2();
+                min = checkpoint.getMinValue();
+                max = checkpoint.getMaxValue();
+            }
+            String[] counts = checkpoint.getRuleCounts().split(",");
+            for (int r = 0; r < ruleCounts.length && r < counts.length; r++) {
+                ruleCounts[r] = Long.parseLong(counts[r].trim());
+            }
+        }
+
+        void consume(Chunk chunk, int column) {
+            double[] values = chunk.values[column];
+            for (int row = 0; row < chunk.size; row++) {
+                if (chunk.ids[row] <= lastId) continue;   // 이 항목은 이미 반영한 구간
+                double v = values[row];
+                if (Double.isNaN(v)) continue;
+
+                if (n >= ruleMinSamples) {
+                    int fired = rules.evaluate(v, mean, Math.sqrt(m2 / (n - 1)));
+                    while (fired != 0) {
+                        ruleCounts[Integer.numberOfTrailingZeros(fired)]++;
+                        fired &= fired - 1;
+                    }
+                }
+
+                n++;
+                double delta = v - mean;
+                mean += delta / n;
+                m2 += delta * (v - mean);
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            if (chunk.size > 0) lastId = Math.max(lastId, chunk.ids[chunk.size - 1]);
+        }
+
+        void complete(LocalDateTime now) {
+            checkpoint.setStatus(SpcBackfillCheckpoint.COMPLETED);
+            checkpoint.setCompletedAt(now);
+        }
+
+        // 현재 누적값을 체크포인트 엔티티에 옮긴다
+        SpcBackfillCheckpoint flush(LocalDateTime now) {
+            Double sigma = n > 1 ? Math.sqrt(m2 / (n - 1)) : null;
+            long total = Arrays.stream(ruleCounts).sum();
+            checkpoint.setLastId(lastId);
+            checkpoint.setSampleCount(n);
+            checkpoint.setMeanValue(n > 0 ? mean : null);
+            checkpoint.setM2(n > 0 ? m2 : null);
+            checkpoint.setMinValue(n > 0 ? min : null);
+            checkpoint.setMaxValue(n > 0 ? max : null);
+            checkpoint.setStdDev(sigma);
+            checkpoint.setLsl(lsl);
+            checkpoint.setUsl(usl);
+            checkpoint.setCp(SpcEngine.cp(sigma, lsl, usl));
+            checkpoint.setCpk(n > 0 ? SpcEngine.cpk(mean, sigma, lsl, usl) : null);
+            checkpoint.setViolations(total);
+            checkpoint.setRuleCounts(Arrays.stream(ruleCounts).mapToObj(Long::toString).collect(Collectors.joining(",")));
+            checkpoint.setUpdatedAt(now);
+            return checkpoint;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.repository.SpcHistoryRepository;
+
+import java.util.Arrays;
+
+// SPC 관리도 다운샘플링 (서버에서 점 개수를 maxPoints 이하로 줄인다)
+//  - LTTB (Largest-Triangle-Three-Buckets) : 모양을 보존하는 점 선택. 원본 점을 모두 받은 뒤 버킷마다 1점
+//  - MIN_MAX : 시간 버킷마다 최소 / 최대 2점. 스트리밍으로 버킷 상태만 유지하므로 원본을 쌓지 않는다 (이상점이 사라지지 않음)
+final class SpcDownsampler {
+
+    private SpcDownsampler() {}
+
+    // 원본 점 버퍼 (행마다 객체를 만들지 않도록 원시 배열)
+    static final class PointBuffer implements SpcHistoryRepository.PointSink {
+        long[] times = new long[1024];
+        double[] values = new double[1024];
+        int size;
+
+        @Override
+        public void accept(long epochMillis, double value) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            times[size] = epochMillis;
+            values[size] = value;
+            size++;
+        }
+    }
+
+    // 선택된 점 (시간 순)
+    static final class Result {
+        final long[] times;
+        final double[] values;
+        final int size;
+        final long total;   // 구간 내 원본 점 수
+
+        Result(long[] times, double[] values, int size, long total) {
+            this.times = times;
+            this.values = values;
+            this.size = size;
+            this.total = total;
+        }
+    }
+
+    // =========================
+    // LTTB
+    // =========================
+    static Result lttb(PointBuffer in, int threshold) {
+        int n = in.size;
+        if (threshold >= n || threshold < 3) {
+            return new Result(in.times, in.values, n, n);
+        }
+
+        long[] t = in.times;
+        double[] v = in.values;
+        long[] outT = new long[threshold];
+        double[] outV = new double[threshold];
+        int out = 0;
+
+        // 첫 점 / 끝 점은 항상 포함, 나머지 n-2 점을 threshold-2 버킷으로 나눈다
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        outT[out] = t[0];
+        outV[out++] = v[0];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // 다음 버킷 평균 (삼각형의 세 번째 꼭짓점)
+            int nextStart = (int) Math.floor((i + 1) * every) + 1;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgT = 0;
+            double avgV = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgT += t[j];
+                avgV += v[j];
+            }
+            int nextLen = nextEnd - nextStart;
+            avgT /= nextLen;
+            avgV /= nextLen;
+
+            // 현재 버킷에서 (a, 평균점)과 만드는 삼각형이 가장 큰 점
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+            double ax = t[a];
+            double ay = v[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((ax - avgT) * (v[j] - ay) - (ax - t[j]) * (avgV - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            outT[out] = t[chosen];
+            outV[out++] = v[chosen];
+            a = chosen;
+        }
+
+        outT[out] = t[n - 1];
+        outV[out++] = v[n - 1];
+        return new Result(outT, outV, out, n);
+    }
+
+    // =========================
+    // 버킷별 최소 / 최대 (스트리밍)
+    // =========================
+    static final class MinMaxBuckets implements SpcHistoryRepository.PointSink {
+        private final long from;
+        private final double width;
+        private final int buckets;
+
+        private final long[] minT, maxT;
+        private final double[] minV, maxV;
+        private final boolean[] used;
+        private long total;
+
+        MinMaxBuckets(long fromMillis, long toMillis, int buckets) {
+            this.from = fromMillis;
+            this.buckets = buckets;
+            this.width = Math.max(1.0, (double) (toMillis - fromMillis) / buckets);
+            this.minT = new long[buckets];
+            this.maxT = new long[buckets];
+            this.minV = new double[buckets];
+            this.maxV = new double[buckets];
+            this.used = new boolean[buckets];
+        }
+
+        @Override
+        public void accept(long epochMillis, double value) {
+            total++;
+            int b = (int) Math.min(buckets - 1, Math.max(0, (long) ((epochMillis - from) / width)));
+            if (!used[b]) {
+                used[b] = true;
+                minT[b] = maxT[b] = epochMillis;
+                minV[b] = maxV[b] = value;
+                return;
+            }
+            if (value < minV[b]) {
+                minV[b] = value;
+                minT[b] = epochMillis;
+            }
+            if (value > maxV[b]) {
+                maxV[b] = value;
+                maxT[b] = epochMillis;
+            }
+        }
+
+        // 버킷 안에서도 시간 순서를 지킨다 (최소 / 최대가 같은 점이면 1점)
+        Result result() {
+            long[] outT = new long[buckets * 2];
+            double[] outV = new double[buckets * 2];
+            int out = 0;
+            for (int b = 0; b < buckets; b++) {
+                if (!used[b]) continue;
+                boolean minFirst = minT[b] <= maxT[b];
+                outT[out] = minFirst ? minT[b] : maxT[b];
+                outV[out++] = minFirst ? minV[b] : maxV[b];
+                if (minT[b] != maxT[b] || minV[b] != maxV[b]) {
+                    outT[out] = minFirst ? maxT[b] : minT[b];
+                    outV[out++] = minFirst ? maxV[b] : minV[b];
+                }
+            }
+            return new Result(outT, outV, out, total);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.spc.SpcLogDto;
+import com.hm.mes_final_260106.constant.EquipmentEventType;
+import com.hm.mes_final_260106.constant.SpcMetric;
+import com.hm.mes_final_260106.dto.spc.SpcStatsDto;
+import com.hm.mes_final_260106.entity.InspectionStandard;
+import com.hm.mes_final_260106.entity.ProductionLog;
+import com.hm.mes_final_260106.repository.DieBondingRepository;
+import com.hm.mes_final_260106.repository.InspectionStandardRepository;
+import com.hm.mes_final_260106.repository.MoldingRepository;
+import com.hm.mes_final_260106.repository.WireBondingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+// 스트리밍 SPC 엔진
+// (공정, 검사 항목)마다 최근 측정값 링 버퍼 + 누적 통계(Welford 평균 / 분산, 최소 / 최대)를 메모리에 유지하고,
+// 생산 보고가 커밋될 때마다 점을 더한다. 관리도 / 공정능력(Cp, Cpk) 조회는 DB 를 읽지 않는다.
+// 기동 시 한 번만 기존 측정값으로 채운다 (웹 요청을 받기 전, 컬럼 이관 후).
+// 새 표본마다 Nelson 규칙(NelsonRuleEvaluator)을 증분 판정하고, 위반은 EquipmentEventLog(SPC_VIOLATION)로 모아 기록한다.
+@Component
+@Slf4j
+@DependsOn("schemaMigration")
+public class SpcEngine {
+
+    // 추적하는 측정 항목 (SpcMetric) → 보고에서 값을 꺼내는 방법
+    private record Metric(SpcMetric metric, Function<ProductionLog, Double> value) {}
+
+    private static final List<Metric> METRICS = List.of(
+            new Metric(SpcMetric.DIE_BONDING_CURING_TEMP, pl -> pl.getDieBonding() != null ? pl.getDieBonding().getCuringTemp() : null),
+            new Metric(SpcMetric.DIE_BONDING_PICK_UP_FORCE, pl -> pl.getDieBonding() != null ? pl.getDieBonding().getPickUpForce() : null),
+            new Metric(SpcMetric.MOLDING_MOLD_TEMP, pl -> pl.getMolding() != null ? pl.getMolding().getMoldTemp() : null),
+            new Metric(SpcMetric.MOLDING_INJECTION_PRESSURE, pl -> pl.getMolding() != null ? pl.getMolding().getInjectionPressure() : null),
+            new Metric(SpcMetric.WIRE_BONDING_BONDING_TEMP, pl -> pl.getWireBonding() != null ? pl.getWireBonding().getBondingTemp() : null),
+            new Metric(SpcMetric.WIRE_BONDING_BONDING_FORCE, pl -> pl.getWireBonding() != null ? pl.getWireBonding().getBondingForce() : null)
+    );
+
+    private record SeriesKey(String processName, String checkItem) {}
+
+    // 규칙 위반 1건 (DB 기록 대기)
+    private record Violation(SeriesKey key, int rule, double value, double mean, double sigma, LocalDateTime time, Long equipmentId) {}
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO equipment_event_log (equipment_id, event_type, before_value, after_value, message, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final InspectionStandardRepository standardRepo;
+    private final DieBondingRepository dieBondingRepo;
+    private final MoldingRepository moldingRepo;
+    private final WireBondingRepository wireBondingRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final SpcSubgroupAggregator subgroupAggregator;
+    private final int windowSize;
+    private final int ruleMinSamples;
+
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private volatile Map<SeriesKey, InspectionStandard> standards = Map.of();
+    private final Queue<Violation> pendingViolations = new ConcurrentLinkedQueue<>();
+
+    public SpcEngine(InspectionStandardRepository standardRepo,
+                     DieBondingRepository dieBondingRepo,
+                     MoldingRepository moldingRepo,
+                     WireBondingRepository wireBondingRepo,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager txManager,
+                     SpcSubgroupAggregator subgroupAggregator,
+                     @Value("${mes.spc.window-size:500}") int windowSize,
+                     @Value("${mes.spc.rule-min-samples:25}") int ruleMinSamples) {
+        this.standardRepo = standardRepo;
+        this.dieBondingRepo = dieBondingRepo;
+        this.moldingRepo = moldingRepo;
+        this.wireBondingRepo = wireBondingRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.subgroupAggregator = subgroupAggregator;
+        this.windowSize = windowSize;
+        this.ruleMinSamples = ruleMinSamples;
+    }
+
+    // =========================
+    // 기동 시 1회 : 기준 + 기존 측정값 적재
+    // =========================
+    @PostConstruct
+    public void warmUp() {
+        reloadStandards();
+        seed("DieBonding", "curingTemp", "pickUpForce", dieBondingRepo.findSpcValues());
+        seed("Molding", "moldTemp", "injectionPressure", moldingRepo.findSpcValues());
+        seed("WireBonding", "bondingTemp", "bondingForce", wireBondingRepo.findSpcValues());
+        log.info("SPC 엔진 적재 완료 : 항목 {}개", series.size());
+    }
+
+    // row : [측정 시각, 항목1 값, 항목2 값] → 시간 순으로 흘려 넣는다 (규칙 상태만 쌓고 알람은 남기지 않음)
+    private void seed(String process, String item1, String item2, List<Object[]> result) {
+        List<Object[]> rows = new ArrayList<>(result);
+        rows.sort(Comparator.comparing(r -> r[0] != null ? (LocalDateTime) r[0] : LocalDateTime.MIN));
+        for (Object[] row : rows) {
+            LocalDateTime time = row[0] != null ? (LocalDateTime) row[0] : LocalDateTime.now();
+            add(new SeriesKey(process, item1), (Double) row[1], time, null, false);
+            add(new SeriesKey(process, item2), (Double) row[2], time, null, false);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mes.spc.standard-refresh-ms:60000}", initialDelayString = "${mes.spc.standard-refresh-ms:60000}")
+    public void reloadStandards() {
+        Map<SeriesKey, InspectionStandard> loaded = new HashMap<>();
+        for (InspectionStandard std : standardRepo.findAll()) {
+            loaded.put(new SeriesKey(std.getProcessName(), std.getCheckItem()), std);
+        }
+        standards = loaded;
+    }
+
+    // =========================
+    // 보고 수집 : 커밋된 보고만 반영
+    // =========================
+    public void record(ProductionLog productionLog) {
+        LocalDateTime time = productionLog.getEndTime() != null ? productionLog.getEndTime()
+                : productionLog.getStartTime() != null ? productionLog.getStartTime()
+                : LocalDateTime.now();
+        Long equipmentId = productionLog.getEquipment() != null ? productionLog.getEquipment().getId() : null;
+        Long workOrderId = productionLog.getWorkOrder() != null ? productionLog.getWorkOrder().getId() : null;
+
+        List<SpcMetric> metrics = new ArrayList<>(METRICS.size());
+        List<Double> values = new ArrayList<>(METRICS.size());
+        for (Metric m : METRICS) {
+            Double v = m.value().apply(productionLog);
+            if (v != null && !v.isNaN()) {
+                metrics.add(m.metric());
+                values.add(v);
+            }
+        }
+        if (metrics.isEmpty()) return;
+
+        TransactionHooks.afterCommit(() -> {
+            for (int i = 0; i < metrics.size(); i++) {
+                SpcMetric metric = metrics.get(i);
+                add(new SeriesKey(metric.getProcessName(), metric.getCheckItem()), values.get(i), time, equipmentId, true);
+                // 부분군 관리도 (작업지시 단위로 N 개씩 묶음)
+                subgroupAggregator.add(metric, workOrderId, values.get(i), time);
+            }
+        });
+    }
+
+    private void add(SeriesKey key, Double value, LocalDateTime time, Long equipmentId, boolean alert) {
+        if (value == null || value.isNaN()) return;
+        Series s = series.computeIfAbsent(key, k -> new Series(windowSize, ruleMinSamples));
+        int fired;
+        double mean;
+        double sigma;
+        synchronized (s) {
+            fired = s.add(value, time);
+            mean = s.lastMean;
+            sigma = s.lastSigma;
+        }
+        if (fired == 0 || !alert || equipmentId == null) return;
+
+        for (int rule = 1; rule <= NelsonRuleEvaluator.RULE_COUNT; rule++) {
+            if ((fired & (1 << (rule - 1))) != 0) {
+                pendingViolations.add(new Violation(key, rule, value, mean, sigma, time, equipmentId));
+            }
+        }
+    }
+
+    // =========================
+    // 규칙 위반 기록 : 모아서 batch INSERT
+    // =========================
+    // 한 트랜잭션으로 넣는다 (일부만 들어간 채 실패하면 롤백 후 전부 다시 대기 → 같은 위반이 두 번 기록되지 않음)
+    @Scheduled(fixedDelayString = "${mes.spc.alert-flush-interval-ms:1000}")
+    public void flushViolations() {
+        if (pendingViolations.isEmpty()) return;
+
+        List<Violation> drained = new ArrayList<>();
+        for (Violation v; (v = pendingViolations.poll()) != null; ) {
+            drained.add(v);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(drained.size());
+        for (Violation v : drained) {
+            String item = v.key().processName() + "." + v.key().checkItem();
+            String message = String.format("[SPC] %s Nelson 규칙 %d 위반 : %s (값 %.3f, 평균 %.3f, σ %.3f, 측정 %s)",
+                    item, v.rule(), NelsonRuleEvaluator.describe(v.rule()), v.value(), v.mean(), v.sigma(), v.time());
+            args.add(new Object[]{v.equipmentId(), EquipmentEventType.SPC_VIOLATION.name(), item, "RULE_" + v.rule(), message, now});
+        }
+
+        try {
+            txTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_EVENT, args));
+        } catch (RuntimeException e) {
+            // 롤백되어 기록된 건이 없으므로 전부 다음 주기에 다시 시도
+            log.error("SPC 규칙 위반 기록 실패 : {}건", drained.size(), e);
+            pendingViolations.addAll(drained);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushViolations();
+    }
+
+    // =========================
+    // 조회
+    // =========================
+    // 관리도용 최근 점 (process / checkItem 이 null 이면 전체), 시간 순
+    public List<SpcLogDto> getPoints(String processName, String checkItem) {
+        List<SpcLogDto> result = new ArrayList<>();
+        for (Map.Entry<SeriesKey, Series> e : series.entrySet()) {
+            SeriesKey key = e.getKey();
+            if (processName != null && !processName.equals(key.processName())) continue;
+            if (checkItem != null && !checkItem.equals(key.checkItem())) continue;
+            e.getValue().copyPoints(key, result);
+        }
+        result.sort(Comparator.comparing(SpcLogDto::getTime));
+        return result;
+    }
+
+    public List<SpcStatsDto> getStats() {
+        List<SpcStatsDto> result = new ArrayList<>();
+        for (Map.Entry<SeriesKey, Series> e : series.entrySet()) {
+            result.add(e.getValue().stats(e.getKey(), standards.get(e.getKey())));
+        }
+        result.sort(Comparator.comparing(SpcStatsDto::getProcessName).thenComparing(SpcStatsDto::getCheckItem));
+        return result;
+    }
+
+    // =========================
+    // 공정능력 (SpcBackfillJob 과 공용)
+    // =========================
+    // (USL - LSL) / 6σ : 양측 규격일 때만
+    static Double cp(Double sigma, Double lsl, Double usl) {
+        if (sigma == null || sigma <= 0 || lsl == null || usl == null) return null;
+        return (usl - lsl) / (6 * sigma);
+    }
+
+    // min(USL - μ, μ - LSL) / 3σ, 단측 규격이면 있는 쪽만
+    static Double cpk(double mean, Double sigma, Double lsl, Double usl) {
+        if (sigma == null || sigma <= 0) return null;
+        if (lsl != null && usl != null) return Math.min(usl - mean, mean - lsl) / (3 * sigma);
+        if (usl != null) return (usl - mean) / (3 * sigma);
+        if (lsl != null) return (mean - lsl) / (3 * sigma);
+        return null;
+    }
+
+    // =========================
+    // 항목 1개 : 링 버퍼 + Welford 누적 통계
+    // =========================
+    private static final class Series {
+        private final double[] values;
+        private final LocalDateTime[] times;
+        private int head;       // 다음에 쓸 위치
+        private int size;
+
+        private long n;
+        private double mean;
+        private double m2;      // 편차 제곱합
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private final NelsonRuleEvaluator rules = new NelsonRuleEvaluator();
+        private final int ruleMinSamples;
+        private long violations;
+
+        // 마지막 판정에 쓴 중심선 / σ (알람 메시지용, Series 락 안에서 add 직후 읽음)
+        double lastMean;
+        double lastSigma;
+
+        Series(int capacity, int ruleMinSamples) {
+            this.values = new double[capacity];
+            this.times = new LocalDateTime[capacity];
+            this.ruleMinSamples = ruleMinSamples;
+        }
+
+        // 이번 표본에서 새로 위반된 Nelson 규칙 비트를 돌려준다
+        // 중심선 / σ 는 이번 표본을 더하기 전 누적값 (표본이 ruleMinSamples 개 미만이면 판정하지 않음)
+        synchronized int add(double v, LocalDateTime time) {
+            int fired = 0;
+            if (n >= ruleMinSamples) {
+                double sigma = Math.sqrt(m2 / (n - 1));
+                fired = rules.evaluate(v, mean, sigma);
+                lastMean = mean;
+                lastSigma = sigma;
+                violations += Integer.bitCount(fired);
+            }
+
+            values[head] = v;
+            times[head] = time;
+            head = (head + 1) % values.length;
+            if (size < values.length) size++;
+
+            n++;
+            double delta = v - mean;
+            mean += delta / n;
+            m2 += delta * (v - mean);
+            if (v < min) min = v;
+            if (v > max) max = v;
+            return fired;
+        }
+
+        // 오래된 점부터
+        synchronized void copyPoints(SeriesKey key, List<SpcLogDto> out) {
+            int start = (head - size + values.length) % values.length;
+            for (int i = 0; i < size; i++) {
+                int idx = (start + i) % values.length;
+                out.add(SpcLogDto.builder()
+                        .processName(key.processName())
+                        .checkItem(key.checkItem())
+                        .value(values[idx])
+                        .time(times[idx])
+                        .build());
+            }
+        }
+
+        synchronized SpcStatsDto stats(SeriesKey key, InspectionStandard std) {
+            Double sigma = n > 1 ? Math.sqrt(m2 / (n - 1)) : null;
+            Double lsl = std != null ? std.getLsl() : null;
+            Double usl = std != null ? std.getUsl() : null;
+
+            Double cp = cp(sigma, lsl, usl);
+            Double cpk = cpk(mean, sigma, lsl, usl);
+
+            int last = (head - 1 + values.length) % values.length;
+            return SpcStatsDto.builder()
+                    .processName(key.processName())
+                    .checkItem(key.checkItem())
+                    .count(n)
+                    .bufferedPoints(size)
+                    .mean(n > 0 ? mean : null)
+                    .stdDev(sigma)
+                    .min(n > 0 ? min : null)
+                    .max(n > 0 ? max : null)
+                    .lsl(lsl)
+                    .usl(usl)
+                    .cp(cp)
+                    .cpk(cpk)
+                    .lastValue(size > 0 ? values[last] : null)
+                    .lastTime(size > 0 ? times[last] : null)
+                    .violations(violations)
+                    .build();
+        }
+    }
+}
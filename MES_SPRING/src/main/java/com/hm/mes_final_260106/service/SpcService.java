@@ -1,16 +1,30 @@
 package com.hm.mes_final_260106.service;
 
+import com.hm.mes_final_260106.constant.EquipmentEventType;
+import com.hm.mes_final_260106.constant.SpcMetric;
+import com.hm.mes_final_260106.dto.spc.SpcAlertDto;
+import com.hm.mes_final_260106.dto.spc.SpcBackfillStatusDto;
 import com.hm.mes_final_260106.dto.spc.SpcLogDto;
-import com.hm.mes_final_260106.entity.*;
-import com.hm.mes_final_260106.repository.*;
+import com.hm.mes_final_260106.dto.spc.SpcSeriesDto;
+import com.hm.mes_final_260106.dto.spc.SpcStatsDto;
+import com.hm.mes_final_260106.dto.spc.SpcSubgroupChartDto;
+import com.hm.mes_final_260106.entity.InspectionStandard;
+import com.hm.mes_final_260106.entity.SpcSubgroup;
+import com.hm.mes_final_260106.repository.EquipmentEventLogRepository;
+import com.hm.mes_final_260106.repository.InspectionStandardRepository;
+import com.hm.mes_final_260106.repository.SpcHistoryRepository;
+import com.hm.mes_final_260106.repository.SpcSubgroupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator; // 👈 [필수 추가] 이거 없으면 에러나요!
+import java.util.Collections;
 import java.util.List;
 
 @Slf4j
@@ -20,75 +34,171 @@ import java.util.List;
 public class SpcService {
 
     private final InspectionStandardRepository standardRepository;
-    private final DieBondingRepository dieBondingRepository;
-    private final MoldingRepository moldingRepository;
-    private final WireBondingRepository wireBondingRepository;
+    private final EquipmentEventLogRepository eventLogRepository;
+    private final SpcHistoryRepository historyRepository;
+    private final SpcSubgroupRepository subgroupRepository;
+    private final SpcEngine spcEngine;
+    private final SpcSubgroupAggregator subgroupAggregator;
+    private final SpcBackfillJob backfillJob;
+
+    private static final int MAX_POINTS_LIMIT = 5000;
+    private static final int MAX_SUBGROUPS_LIMIT = 1000;
+
+    // 관리도 상수 (n = 2 ~ 10, 인덱스 n - 2)
+    private static final double[] A2 = {1.880, 1.023, 0.729, 0.577, 0.483, 0.419, 0.373, 0.337, 0.308};
+    private static final double[] D3 = {0, 0, 0, 0, 0, 0.076, 0.136, 0.184, 0.223};
+    private static final double[] D4 = {3.267, 2.574, 2.282, 2.114, 2.004, 1.924, 1.864, 1.816, 1.777};
+    private static final double[] A3 = {2.659, 1.954, 1.628, 1.427, 1.287, 1.182, 1.099, 1.032, 0.975};
+    private static final double[] B3 = {0, 0, 0, 0, 0.030, 0.118, 0.185, 0.239, 0.284};
+    private static final double[] B4 = {3.267, 2.568, 2.266, 2.089, 1.970, 1.882, 1.815, 1.761, 1.716};
 
     public List<InspectionStandard> getStandards() {
         return standardRepository.findAll();
     }
 
+    // 관리도 데이터 : SpcEngine 링 버퍼(항목별 최근 점)에서 바로 응답, 시간 순 정렬
     public List<SpcLogDto> getAllSpcData() {
-        List<SpcLogDto> result = new ArrayList<>();
-
-        // 1. DieBonding
-        List<DieBonding> dbList = dieBondingRepository.findAll();
-        for (DieBonding db : dbList) {
-            LocalDateTime time = getSafeTime(db.getProductionLog());
-            addLogForce(result, "DieBonding", "curingTemp", db.getCuringTemp(), time);
-            addLogForce(result, "DieBonding", "pickUpForce", db.getPickUpForce(), time);
+        return getSpcData(null, null);
+    }
+
+    public List<SpcLogDto> getSpcData(String processName, String checkItem) {
+        List<SpcLogDto> result = spcEngine.getPoints(processName, checkItem);
+        log.debug("📊 [SPC] 데이터 개수: {}", result.size());
+        return result;
+    }
+
+    // 항목별 평균 / 표준편차 / 최소 / 최대 / Cp / Cpk
+    public List<SpcStatsDto> getStats() {
+        return spcEngine.getStats();
+    }
+
+    // 최근 Nelson 규칙 위반 (최신순)
+    public List<SpcAlertDto> getAlerts(int limit) {
+        if (limit <= 0 || limit > 1000) {
+            throw new IllegalArgumentException("limit 은 1~1000 이어야 합니다.");
         }
+        return eventLogRepository.findRecentByEventType(EquipmentEventType.SPC_VIOLATION, PageRequest.of(0, limit))
+                .stream()
+                .map(SpcAlertDto::from)
+                .toList();
+    }
 
-        // 2. Molding
-        List<Molding> mdList = moldingRepository.findAll();
-        for (Molding md : mdList) {
-            LocalDateTime time = getSafeTime(md.getProductionLog());
-            addLogForce(result, "Molding", "moldTemp", md.getMoldTemp(), time);
-            addLogForce(result, "Molding", "injectionPressure", md.getInjectionPressure(), time);
+    // =========================
+    // 기간 지정 관리도 (DB 구간 조회 + 서버 다운샘플링)
+    // =========================
+    // 응답 점 수는 maxPoints 이하로 고정 (이력이 늘어도 차트 payload 크기 일정)
+    public SpcSeriesDto getSeries(String processName, String checkItem,
+                                  LocalDateTime from, LocalDateTime to, int maxPoints, String method) {
+        SpcMetric metric = SpcMetric.from(processName, checkItem);
+        if (to == null) to = LocalDateTime.now();
+        if (from == null) from = to.minusHours(24);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from 은 to 보다 이전이어야 합니다.");
+        }
+        if (maxPoints < 3 || maxPoints > MAX_POINTS_LIMIT) {
+            throw new IllegalArgumentException("maxPoints 는 3~" + MAX_POINTS_LIMIT + " 이어야 합니다.");
         }
 
-        // 3. WireBonding
-        List<WireBonding> wbList = wireBondingRepository.findAll();
-        for (WireBonding wb : wbList) {
-            LocalDateTime time = getSafeTime(wb.getProductionLog());
-            addLogForce(result, "WireBonding", "bondingTemp", wb.getBondingTemp(), time);
-            addLogForce(result, "WireBonding", "bondingForce", wb.getBondingForce(), time);
+        String m = method == null ? "LTTB" : method.toUpperCase();
+        SpcDownsampler.Result result;
+        switch (m) {
+            case "LTTB" -> {
+                SpcDownsampler.PointBuffer buffer = new SpcDownsampler.PointBuffer();
+                historyRepository.streamRange(metric, from, to, buffer);
+                result = SpcDownsampler.lttb(buffer, maxPoints);
+            }
+            case "MIN_MAX", "MINMAX" -> {
+                m = "MIN_MAX";
+                SpcDownsampler.MinMaxBuckets buckets = new SpcDownsampler.MinMaxBuckets(
+                        Timestamp.valueOf(from).getTime(), Timestamp.valueOf(to).getTime(), maxPoints / 2);
+                historyRepository.streamRange(metric, from, to, buckets);
+                result = buckets.result();
+            }
+            default -> throw new IllegalArgumentException("method 는 LTTB 또는 MIN_MAX 입니다: " + method);
         }
 
-        // ✅ [핵심 해결] 시간 순서대로 정렬 (과거 -> 미래)
-        // 이 코드가 있어야 4시 41분 데이터부터 차례대로 그려집니다.
-        result.sort(Comparator.comparing(SpcLogDto::getTime));
+        List<SpcSeriesDto.Point> points = new ArrayList<>(result.size);
+        for (int i = 0; i < result.size; i++) {
+            points.add(new SpcSeriesDto.Point(new Timestamp(result.times[i]).toLocalDateTime(), result.values[i]));
+        }
 
-        log.info("📊 [SPC] 총 데이터 개수: " + result.size());
-        return result;
+        return SpcSeriesDto.builder()
+                .processName(processName)
+                .checkItem(checkItem)
+                .from(from)
+                .to(to)
+                .method(m)
+                .totalPoints(result.total)
+                .points(points)
+                .build();
     }
 
-    // ... (나머지 private 메서드들은 그대로 두세요) ...
-    private LocalDateTime getSafeTime(ProductionLog log) {
-        if (log == null) return LocalDateTime.now();
-        if (log.getEndTime() != null) return log.getEndTime();
-        if (log.getStartTime() != null) return log.getStartTime();
-        return LocalDateTime.now();
-    }
+    // =========================
+    // 부분군 관리도 (X-bar/R, X-bar/S)
+    // =========================
+    // spc_subgroup 의 최근 limit 개 부분군(크기 n 인 것만)으로 중심선 / 관리한계를 계산한다
+    // 유휴 종료된 부분 부분군(n 미만)은 상수표가 달라 제외
+    public SpcSubgroupChartDto getSubgroupChart(String processName, String checkItem, String type, int limit) {
+        SpcMetric metric = SpcMetric.from(processName, checkItem);
+        String chartType = type == null ? "XBAR_R" : type.toUpperCase();
+        if (!chartType.equals("XBAR_R") && !chartType.equals("XBAR_S")) {
+            throw new IllegalArgumentException("type 은 XBAR_R 또는 XBAR_S 입니다: " + type);
+        }
+        if (limit <= 0 || limit > MAX_SUBGROUPS_LIMIT) {
+            throw new IllegalArgumentException("limit 은 1~" + MAX_SUBGROUPS_LIMIT + " 이어야 합니다.");
+        }
+        boolean useS = chartType.equals("XBAR_S");
+        int n = subgroupAggregator.getSubgroupSize();
 
-    private void addLogForce(List<SpcLogDto> list, String process, String item, String valStr, LocalDateTime time) {
-        double val = 0.0;
-        try {
-            if (valStr != null) {
-                String safeNum = valStr.replaceAll("[^0-9.]", "");
-                if (!safeNum.isEmpty()) {
-                    val = Double.parseDouble(safeNum);
-                }
-            }
-        } catch (Exception e) {
-            val = 0.0;
+        List<SpcSubgroup> recent = new ArrayList<>(subgroupRepository.findRecent(
+                metric.getProcessName(), metric.getCheckItem(), n, PageRequest.of(0, limit)));
+        Collections.reverse(recent);
+
+        List<SpcSubgroupChartDto.Point> points = new ArrayList<>(recent.size());
+        double sumMean = 0;
+        double sumDispersion = 0;
+        for (SpcSubgroup g : recent) {
+            double dispersion = useS ? (g.getStdDev() != null ? g.getStdDev() : 0.0) : g.getRangeValue();
+            sumMean += g.getMeanValue();
+            sumDispersion += dispersion;
+            points.add(new SpcSubgroupChartDto.Point(g.getWorkOrderId(), g.getSubgroupNo(),
+                    g.getStartTime(), g.getEndTime(), g.getMeanValue(), dispersion));
         }
 
-        list.add(SpcLogDto.builder()
-                .processName(process)
-                .checkItem(item)
-                .value(val)
-                .time(time)
-                .build());
+        SpcSubgroupChartDto.SpcSubgroupChartDtoBuilder chart = SpcSubgroupChartDto.builder()
+                .processName(metric.getProcessName())
+                .checkItem(metric.getCheckItem())
+                .chartType(chartType)
+                .subgroupSize(n)
+                .subgroupCount(points.size())
+                .points(points);
+        if (points.isEmpty()) return chart.build();
+
+        int i = n - SpcSubgroupAggregator.MIN_SIZE;
+        double xbarbar = sumMean / points.size();
+        double dbar = sumDispersion / points.size();
+        double xbarWidth = (useS ? A3[i] : A2[i]) * dbar;
+        return chart
+                .xbarCenter(xbarbar)
+                .xbarUcl(xbarbar + xbarWidth)
+                .xbarLcl(xbarbar - xbarWidth)
+                .dispersionCenter(dbar)
+                .dispersionUcl((useS ? B4[i] : D4[i]) * dbar)
+                .dispersionLcl((useS ? B3[i] : D3[i]) * dbar)
+                .build();
+    }
+
+    // =========================
+    // 이력 재계산 (검사 기준 변경 / 항목 추가 후 전체 이력의 Cpk, 규칙 위반)
+    // =========================
+    // 백그라운드로 시작하고 바로 상태를 돌려준다 (진행률 / 행/초는 getBackfillStatus 로 조회)
+    // 초기 체크포인트는 작업 스레드가 읽기 전에 커밋돼야 하므로 트랜잭션 밖에서 저장
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SpcBackfillStatusDto startBackfill(boolean resume) {
+        return backfillJob.start(resume);
+    }
+
+    public SpcBackfillStatusDto getBackfillStatus() {
+        return backfillJob.getStatus();
     }
-}
\ No newline at end of file
+}
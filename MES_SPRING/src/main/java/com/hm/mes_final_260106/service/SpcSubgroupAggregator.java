@@ -0,0 +1,240 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.SpcMetric;
+import com.hm.mes_final_260106.repository.SpcSubgroupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// SPC 부분군 집계기 (spc_subgroup)
+// (SPC 항목, 작업지시)마다 연속된 N(mes.spc.subgroup-size) 웨이퍼의 측정값을 모아 평균 / 범위 / 표준편차로 요약한다.
+// 부분군은 작업지시를 넘어 섞이지 않는다. N 개가 차면 닫히고, 짧은 주기로 batch INSERT 된다.
+// 작업지시가 끝나 더 이상 점이 오지 않는 부분군은 유휴 시간(mes.spc.subgroup-idle-close-ms) 뒤 크기 n < N 으로 닫는다
+// (관리도는 크기 N 인 부분군만 사용).
+// 반영은 별도 트랜잭션으로 묶는다. 부분군 번호는 처음 꺼낼 때 한 번만 매기고 재시도해도 유지한다 (같은 부분군이 두 번 들어가지 않음).
+// 묶음이 실패하면 건별로 다시 넣고, 다른 건은 들어가는데 계속 실패하는 행은 MAX_ATTEMPTS 회 뒤 버린다 (로그로 남김).
+@Component
+@Slf4j
+public class SpcSubgroupAggregator {
+
+    // X-bar/R, X-bar/S 관리도 상수표가 있는 범위
+    public static final int MIN_SIZE = 2;
+    public static final int MAX_SIZE = 10;
+
+    private static final int LAST_NO_CACHE_SIZE = 4096;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String INSERT_SUBGROUP =
+            "INSERT INTO spc_subgroup (process_name, check_item, work_order_id, subgroup_no, sample_size, " +
+                    "mean_value, range_value, std_dev, min_value, max_value, start_time, end_time, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private record GroupKey(SpcMetric metric, long workOrderId) {}
+
+    // 닫힌 부분군 (DB 반영 대기)
+    private record Closed(GroupKey key, int n, double mean, double range, Double stdDev,
+                          double min, double max, LocalDateTime start, LocalDateTime end) {}
+
+    // 채우는 중인 부분군 : Welford 로 평균 / 분산을 누적
+    private static final class Open {
+        int n;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        LocalDateTime start;
+        LocalDateTime end;
+        long touchedAt;
+
+        void add(double v, LocalDateTime time) {
+            n++;
+            double delta = v - mean;
+            mean += delta / n;
+            m2 += delta * (v - mean);
+            if (v < min) min = v;
+            if (v > max) max = v;
+            if (start == null) start = time;
+            end = time;
+            touchedAt = System.currentTimeMillis();
+        }
+
+        Closed close(GroupKey key) {
+            return new Closed(key, n, mean, max - min, n > 1 ? Math.sqrt(m2 / (n - 1)) : null, min, max, start, end);
+        }
+    }
+
+    // 번호를 받은 부분군 (반영 실패 시 번호를 유지한 채 다음 주기에 재시도)
+    private static final class Numbered {
+        final Closed closed;
+        final int no;
+        int failures;
+        RuntimeException lastError;
+
+        Numbered(Closed closed, int no) {
+            this.closed = closed;
+            this.no = no;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final SpcSubgroupRepository subgroupRepo;
+    private final int subgroupSize;
+    private final long idleCloseMillis;
+
+    private final Map<GroupKey, Open> open = new ConcurrentHashMap<>();
+    private final Queue<Closed> closed = new ConcurrentLinkedQueue<>();
+    // 반영 실패로 남은 부분군 (flush 스레드에서만 사용)
+    private final List<Numbered> retry = new ArrayList<>();
+
+    // 작업지시별 마지막 부분군 번호 (flush 스레드에서만 사용)
+    private final Map<GroupKey, Integer> lastNo = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GroupKey, Integer> eldest) {
+            return size() > LAST_NO_CACHE_SIZE;
+        }
+    };
+
+    public SpcSubgroupAggregator(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager txManager,
+                                 SpcSubgroupRepository subgroupRepo,
+                                 @Value("${mes.spc.subgroup-size:5}") int subgroupSize,
+                                 @Value("${mes.spc.subgroup-idle-close-ms:600000}") long idleCloseMillis) {
+        if (subgroupSize < MIN_SIZE || subgroupSize > MAX_SIZE) {
+            throw new IllegalArgumentException("mes.spc.subgroup-size 는 " + MIN_SIZE + "~" + MAX_SIZE + " 이어야 합니다: " + subgroupSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.subgroupRepo = subgroupRepo;
+        this.subgroupSize = subgroupSize;
+        this.idleCloseMillis = idleCloseMillis;
+    }
+
+    public int getSubgroupSize() {
+        return subgroupSize;
+    }
+
+    // =========================
+    // 측정값 누적 (커밋된 보고만 : SpcEngine 이 커밋 후 호출)
+    // =========================
+    public void add(SpcMetric metric, Long workOrderId, double value, LocalDateTime time) {
+        if (workOrderId == null) return;
+        open.compute(new GroupKey(metric, workOrderId), (key, group) -> {
+            if (group == null) group = new Open();
+            group.add(value, time);
+            if (group.n >= subgroupSize) {
+                closed.add(group.close(key));
+                return null;
+            }
+            return group;
+        });
+    }
+
+    // =========================
+    // 주기적 DB 반영
+    // =========================
+    @Scheduled(fixedDelayString = "${mes.spc.subgroup-flush-interval-ms:1000}")
+    public synchronized void flush() {
+        closeIdle(System.currentTimeMillis() - idleCloseMillis);
+        if (closed.isEmpty() && retry.isEmpty()) return;
+
+        List<Numbered> batch = new ArrayList<>(retry);
+        retry.clear();
+        try {
+            for (Closed c; (c = closed.peek()) != null; ) {
+                int no = lastSubgroupNo(c.key(), batch) + 1;
+                closed.poll();
+                lastNo.put(c.key(), no);
+                batch.add(new Numbered(c, no));
+            }
+        } catch (RuntimeException e) {
+            // 번호 조회 실패 : 번호를 받지 못한 부분군은 큐에 남겨 다음 주기에
+            log.warn("SPC 부분군 번호 조회 실패 : {}", e.getMessage());
+        }
+        if (batch.isEmpty()) return;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (Numbered row : batch) args.add(toArgs(row, now));
+            txTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SUBGROUP, args));
+            return;
+        } catch (RuntimeException e) {
+            log.warn("SPC 부분군 일괄 반영 실패, 건별로 다시 반영 : {}건 : {}", batch.size(), e.getMessage());
+        }
+
+        // 건별 반영 : 실패한 건만 남긴다
+        List<Numbered> failed = new ArrayList<>();
+        boolean anyInserted = false;
+        for (Numbered row : batch) {
+            try {
+                txTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SUBGROUP, toArgs(row, now)));
+                anyInserted = true;
+            } catch (RuntimeException e) {
+                row.lastError = e;
+                failed.add(row);
+            }
+        }
+
+        for (Numbered row : failed) {
+            // 모두 실패면 DB 장애로 보고 횟수를 세지 않는다 (복구되면 그대로 반영)
+            if (anyInserted || row.lastError instanceof DataIntegrityViolationException) row.failures++;
+            if (row.failures >= MAX_ATTEMPTS) {
+                log.error("SPC 부분군 반영 포기 : {} #{} {}", row.closed, row.no, row.lastError.getMessage());
+                continue;
+            }
+            retry.add(row);
+        }
+        if (!retry.isEmpty()) log.error("SPC 부분군 반영 실패 : {}건, 다음 주기에 재시도", retry.size());
+    }
+
+    private static Object[] toArgs(Numbered row, Timestamp now) {
+        Closed c = row.closed;
+        return new Object[]{
+                c.key().metric().getProcessName(), c.key().metric().getCheckItem(), c.key().workOrderId(), row.no,
+                c.n(), c.mean(), c.range(), c.stdDev(), c.min(), c.max(),
+                c.start() != null ? Timestamp.valueOf(c.start()) : null,
+                c.end() != null ? Timestamp.valueOf(c.end()) : null,
+                now};
+    }
+
+    // 캐시에서 밀려난 작업지시는 DB 최대 번호와 아직 반영 전인 번호 중 큰 값
+    private int lastSubgroupNo(GroupKey key, List<Numbered> unsaved) {
+        Integer cached = lastNo.get(key);
+        if (cached != null) return cached;
+        int last = subgroupRepo.findLastSubgroupNo(key.metric().getProcessName(), key.metric().getCheckItem(), key.workOrderId());
+        for (Numbered row : unsaved) {
+            if (row.closed.key().equals(key)) last = Math.max(last, row.no);
+        }
+        return last;
+    }
+
+    private void closeIdle(long idleBefore) {
+        for (GroupKey key : new ArrayList<>(open.keySet())) {
+            open.computeIfPresent(key, (k, group) -> {
+                if (group.touchedAt > idleBefore) return group;
+                closed.add(group.close(k));
+                return null;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        closeIdle(Long.MAX_VALUE);
+        flush();
+    }
+}
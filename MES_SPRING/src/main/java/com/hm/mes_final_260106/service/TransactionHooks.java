@@ -0,0 +1,29 @@
+package com.hm.mes_final_260106.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 인메모리 집계(재고 원장, 실적 버킷 등)를 DB 트랜잭션 결과에 맞춰 반영하기 위한 훅
+// 트랜잭션 밖에서 호출되면 바로 커밋된 것으로 본다
+final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    static void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) onCommit.run();
+                else onRollback.run();
+            }
+        });
+    }
+
+    static void afterCommit(Runnable onCommit) {
+        afterCompletion(onCommit, () -> {});
+    }
+}
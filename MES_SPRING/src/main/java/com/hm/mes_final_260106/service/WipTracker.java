@@ -0,0 +1,184 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.ProcessStep;
+import com.hm.mes_final_260106.entity.ProductionLog;
+import com.hm.mes_final_260106.repository.ProductionLogRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 공정별 재공(WIP) 카운터
+// 대시보드 WIP 요청마다 production_log 전체에 MAX(resultDate) 서브쿼리 + GROUP BY 를 돌리던 것을,
+// 보고가 커밋될 때 공정 칸만 증감하는 방식으로 바꾼다. 조회는 공정 수(4)만큼 읽기만 한다.
+//  - 공정 S 에서 q 개 보고 : S 에 q 를 더하고 앞 공정에서 q 를 뺀다 (앞 공정에 남은 수량까지만, 음수 없음)
+//  - 작업지시 완료 / 삭제 : 그 작업지시에 남은 수량을 모두 뺀다 (완제품 출고 또는 폐기)
+//    완료 / 삭제는 되돌릴 수 없으므로 id 를 묘비(tombstone)로 남겨, 늦게 커밋된 비동기 보고가 재공을 다시 만들지 못하게 한다
+//    (묘비는 TOMBSTONE_TTL_MS 뒤 스냅샷 주기에 정리 : 수집 재시도보다 충분히 길게)
+//  - 보고의 processStep 이 없으면 보고에 포함된 공정 데이터 중 가장 뒤 공정으로 본다
+// 작업지시별 공정 배열을 두고 합계를 함께 유지하며, 기동 시 진행 중 작업지시의 보고 합계로 한 번 적재한다.
+// mes.dashboard.wip-snapshot-interval-ms 마다 공정별 합계를 wip_snapshot 에 남겨 추이 조회에 쓴다.
+@Component
+@Slf4j
+public class WipTracker {
+
+    private static final ProcessStep[] STEPS = ProcessStep.values();
+    private static final String CLOSED_STATUS = "COMPLETED";
+    private static final long TOMBSTONE_TTL_MS = 3_600_000;
+
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO wip_snapshot (snapshot_time, step, qty) VALUES (?, ?, ?)";
+    private static final String DELETE_OLD_SNAPSHOT =
+            "DELETE FROM wip_snapshot WHERE snapshot_time < ?";
+
+    private final ProductionLogRepository productionLogRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+
+    // 작업지시 id → 공정별 재공 (변경은 compute / remove 안에서만 : 같은 키끼리 직렬화됨)
+    private final Map<Long, long[]> orders = new ConcurrentHashMap<>();
+    private final AtomicLongArray totals = new AtomicLongArray(STEPS.length);
+    // 완료 / 삭제된 작업지시 id → 닫은 시각
+    private final Map<Long, Long> tombstones = new ConcurrentHashMap<>();
+
+    public WipTracker(ProductionLogRepository productionLogRepo,
+                      JdbcTemplate jdbcTemplate,
+                      @Value("${mes.dashboard.wip-snapshot-retention-days:30}") int retentionDays) {
+        this.productionLogRepo = productionLogRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+    }
+
+    // =========================
+    // 기동 시 1회 : 진행 중 작업지시 적재
+    // =========================
+    // 작업지시별 공정 보고 합 reported[S] 에서, 다음 공정까지 넘어간 수량을 뺀 나머지가 S 의 재공
+    @PostConstruct
+    public void warmUp() {
+        Map<Long, long[]> reported = new HashMap<>();
+        for (Object[] r : productionLogRepo.sumOpenOutputByOrderAndStep(CLOSED_STATUS)) {
+            ProcessStep step = stepOf((String) r[1], ((Number) r[2]).intValue());
+            if (step == null || r[3] == null) continue;
+            reported.computeIfAbsent((Long) r[0], id -> new long[STEPS.length])[step.ordinal()] += ((Number) r[3]).longValue();
+        }
+
+        reported.forEach((orderId, sums) -> {
+            long[] counts = new long[STEPS.length];
+            for (int s = 0; s < STEPS.length; s++) {
+                long moved = s + 1 < STEPS.length ? sums[s + 1] : 0;
+                counts[s] = Math.max(0, sums[s] - moved);
+                totals.addAndGet(s, counts[s]);
+            }
+            orders.put(orderId, counts);
+        });
+        log.info("공정별 WIP 적재 완료 : 작업지시 {}건, {}", orders.size(), Arrays.toString(balance()));
+    }
+
+    // =========================
+    // 증분 반영 (커밋 후)
+    // =========================
+    public void recordReport(ProductionLog productionLog) {
+        Integer qty = productionLog.getResultQty();
+        if (qty == null || qty <= 0 || productionLog.getWorkOrder() == null) return;
+        ProcessStep step = stepOf(productionLog);
+        if (step == null) return;
+
+        Long orderId = productionLog.getWorkOrder().getId();
+        TransactionHooks.afterCommit(() -> move(orderId, step, qty));
+    }
+
+    // 작업지시 완료 / 삭제 : 남은 재공 제거
+    // 묘비를 먼저 남긴 뒤 제거하므로, 제거 이후 들어온 move 는 묘비를 보고 버려진다
+    public void closeWorkOrder(Long orderId) {
+        TransactionHooks.afterCommit(() -> {
+            tombstones.put(orderId, System.currentTimeMillis());
+            orders.computeIfPresent(orderId, (id, counts) -> {
+                for (int s = 0; s < STEPS.length; s++) totals.addAndGet(s, -counts[s]);
+                return null;
+            });
+        });
+    }
+
+    private void move(Long orderId, ProcessStep step, long qty) {
+        orders.compute(orderId, (id, counts) -> {
+            if (tombstones.containsKey(id)) return counts;
+            if (counts == null) counts = new long[STEPS.length];
+            int s = step.ordinal();
+            counts[s] += qty;
+            totals.addAndGet(s, qty);
+
+            ProcessStep prev = step.previous();
+            if (prev != null) {
+                long taken = Math.min(qty, counts[prev.ordinal()]);
+                counts[prev.ordinal()] -= taken;
+                totals.addAndGet(prev.ordinal(), -taken);
+            }
+            return counts;
+        });
+    }
+
+    // =========================
+    // 조회 : 공정 순서대로 합계
+    // =========================
+    public long[] balance() {
+        long[] out = new long[STEPS.length];
+        for (int s = 0; s < STEPS.length; s++) out[s] = totals.get(s);
+        return out;
+    }
+
+    // =========================
+    // 스냅샷 저장 / 정리
+    // =========================
+    @Scheduled(fixedDelayString = "${mes.dashboard.wip-snapshot-interval-ms:60000}")
+    public void snapshot() {
+        long expired = System.currentTimeMillis() - TOMBSTONE_TTL_MS;
+        tombstones.values().removeIf(closedAt -> closedAt < expired);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        long[] current = balance();
+        List<Object[]> args = new ArrayList<>(STEPS.length);
+        for (ProcessStep step : STEPS) {
+            args.add(new Object[]{now, step.name(), current[step.ordinal()]});
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, args);
+        } catch (RuntimeException e) {
+            log.warn("WIP 스냅샷 저장 실패 : {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${mes.dashboard.wip-cleanup-cron:0 10 0 * * *}")
+    public void cleanup() {
+        int deleted = jdbcTemplate.update(DELETE_OLD_SNAPSHOT,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0) log.info("오래된 WIP 스냅샷 {}건 삭제", deleted);
+    }
+
+    // =========================
+    // 공정 판별
+    // =========================
+    private static ProcessStep stepOf(ProductionLog productionLog) {
+        ProcessStep step = ProcessStep.from(productionLog.getProcessStep());
+        if (step != null) return step;
+        if (productionLog.getMolding() != null) return ProcessStep.MOLDING;
+        if (productionLog.getWireBonding() != null) return ProcessStep.WIRE_BONDING;
+        if (productionLog.getDieBonding() != null) return ProcessStep.DIE_BONDING;
+        if (productionLog.getDicing() != null) return ProcessStep.DICING;
+        return null;
+    }
+
+    private static ProcessStep stepOf(String processStep, int furthestSection) {
+        ProcessStep step = ProcessStep.from(processStep);
+        if (step != null) return step;
+        return furthestSection >= 0 && furthestSection < STEPS.length ? STEPS[furthestSection] : null;
+    }
+}
@@ -0,0 +1,180 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.WorkOrderResDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// 설비 작업 할당 long-poll : 할당할 작업이 없으면 요청을 세워 두고, 작업지시가 IN_PROGRESS 가 되는 순간 깨운다
+//  - 버전 : 작업이 새로 생길 수 있는 변경(시작 / 재개)마다 커밋 후 1 증가
+//  - 설비별 빈손 기록 : 마지막으로 "할당할 작업 없음"을 확인한 버전과 시각. 그 뒤로 변경이 없으면 DB 를 보지 않는다
+//    → 유휴 라인에서는 long-poll / L1 게이트웨이 폴링의 DB 조회가 mes.dispatch.idle-ttl-ms 마다 1번으로 준다
+//  - 버전이 모든 변경을 잡지는 못한다 (DB 직접 수정, 선점 경합으로 빈손, 설비 재접속 등)
+//    → 빈손 기록은 idle-ttl-ms 가 지나면 무효, 설비 연결 / 해제 시 forgetIdle 로 지운다
+//  - 기존 /machine/poll 은 이 허브를 거치지 않고 매번 DB 를 본다 (호출 주기는 수집기가 정함)
+// 할당 자체(assignWorkToMachine)는 호출 측이 넘겨준다 (ProductionService → 이 허브 단방향 의존)
+// 설비 1대당 폴링 주체는 하나라고 본다 (수집기 또는 L1 게이트웨이)
+@Slf4j
+@Component
+public class WorkDispatchHub {
+
+    private static final class Waiter {
+        final String equipmentCode;
+        final long seq;
+        final Supplier<WorkOrderResDto> assign;
+        final DeferredResult<ResponseEntity<WorkOrderResDto>> result;
+
+        Waiter(String equipmentCode, long seq, Supplier<WorkOrderResDto> assign,
+               DeferredResult<ResponseEntity<WorkOrderResDto>> result) {
+            this.equipmentCode = equipmentCode;
+            this.seq = seq;
+            this.assign = assign;
+            this.result = result;
+        }
+    }
+
+    private final long defaultTimeoutMs;
+    private final long maxTimeoutMs;
+    private final int maxWaiters;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong waiterSequence = new AtomicLong();
+    private final long idleTtlMs;
+
+    // 빈손을 확인한 버전 / 시각
+    private record Idle(long version, long at) {}
+
+    private final Map<String, Idle> idleAt = new ConcurrentHashMap<>();
+    private final Map<String, Waiter> waiters = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+
+    public WorkDispatchHub(@Value("${mes.dispatch.long-poll-timeout-ms:30000}") long defaultTimeoutMs,
+                           @Value("${mes.dispatch.max-long-poll-timeout-ms:60000}") long maxTimeoutMs,
+                           @Value("${mes.dispatch.max-waiters:1000}") int maxWaiters,
+                           @Value("${mes.dispatch.idle-ttl-ms:10000}") long idleTtlMs) {
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.idleTtlMs = idleTtlMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+        this.maxWaiters = maxWaiters;
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "work-dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        waiters.values().forEach(w -> w.result.setResult(ResponseEntity.ok(null)));
+        waiters.clear();
+        dispatcher.shutdownNow();
+    }
+
+    // =========================
+    // 즉시 할당 (L1 게이트웨이 / long-poll)
+    // =========================
+    // 마지막 확인 이후 작업 변동이 없고 빈손 기록이 유효하면 DB 를 보지 않고 null
+    public WorkOrderResDto tryAssign(String equipmentCode, Supplier<WorkOrderResDto> assign) {
+        long seen = version.get();
+        long now = System.currentTimeMillis();
+        Idle idle = idleAt.get(equipmentCode);
+        if (idle != null && idle.version() == seen && now - idle.at() < idleTtlMs) return null;
+
+        WorkOrderResDto order = assign.get();
+        if (order == null) idleAt.put(equipmentCode, new Idle(seen, now));
+        else idleAt.remove(equipmentCode);
+        return order;
+    }
+
+    // 설비 연결 / 해제 : 다음 확인은 DB 에서 (끊긴 동안 바뀐 할당을 놓치지 않도록)
+    public void forgetIdle(String equipmentCode) {
+        idleAt.remove(equipmentCode);
+    }
+
+    // =========================
+    // long-poll
+    // =========================
+    // 바로 줄 작업이 있으면 즉시 응답, 없으면 작업이 생기거나 timeout 까지 대기 (timeout 시 빈 응답 = 기존 폴링의 null)
+    public DeferredResult<ResponseEntity<WorkOrderResDto>> await(String equipmentCode, Long timeoutMs,
+                                                                 Supplier<WorkOrderResDto> assign) {
+        long timeout = timeoutMs == null ? defaultTimeoutMs : timeoutMs;
+        if (timeout <= 0 || timeout > maxTimeoutMs) {
+            throw new IllegalArgumentException("timeoutMs 는 1 ~ " + maxTimeoutMs + " 사이여야 합니다.");
+        }
+
+        DeferredResult<ResponseEntity<WorkOrderResDto>> result = new DeferredResult<>(timeout, ResponseEntity.ok(null));
+        long seen = version.get();
+        WorkOrderResDto order = tryAssign(equipmentCode, assign);
+        if (order != null || waiters.size() >= maxWaiters) {
+            // 대기 인원 초과 → 빈 응답으로 돌려보내 일반 폴링 주기로 재시도하게 한다
+            result.setResult(ResponseEntity.ok(order));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(equipmentCode, waiterSequence.incrementAndGet(), assign, result);
+        result.onCompletion(() -> waiters.remove(equipmentCode, waiter));
+        Waiter previous = waiters.put(equipmentCode, waiter);
+        // 같은 설비의 이전 요청 (재접속 등) 은 빈 응답으로 끝낸다
+        if (previous != null) previous.result.setResult(ResponseEntity.ok(null));
+
+        // 조회와 등록 사이에 작업이 생겼으면 깨우기를 놓쳤으므로 바로 다시 확인
+        if (version.get() != seen) dispatcher.execute(() -> dispatch(equipmentCode));
+        return result;
+    }
+
+    // =========================
+    // 깨우기
+    // =========================
+    // 작업지시가 IN_PROGRESS 가 될 때 호출 (커밋 후 반영, 롤백되면 무시)
+    // equipmentCode : 특정 설비에 지정된 작업이면 그 설비, 아니면 null
+    public void workAvailable(String equipmentCode) {
+        TransactionHooks.afterCommit(() -> {
+            version.incrementAndGet();
+            if (!waiters.isEmpty()) dispatcher.execute(() -> dispatch(equipmentCode));
+        });
+    }
+
+    // 지정 설비 먼저, 나머지는 대기 순서대로 할당 시도
+    // 한 설비가 빈손이면 더 나눌 미할당 작업이 없으므로 거기서 멈춘다
+    private void dispatch(String target) {
+        if (target != null) {
+            Waiter w = waiters.get(target);
+            if (w != null) offer(w);
+        }
+
+        List<Waiter> queue = new ArrayList<>(waiters.values());
+        queue.sort(Comparator.comparingLong(w -> w.seq));
+        for (Waiter w : queue) {
+            if (w.equipmentCode.equals(target)) continue;
+            if (!offer(w)) break;
+        }
+    }
+
+    // 할당되면 응답을 보내고 true, 줄 작업이 없으면 false
+    private boolean offer(Waiter w) {
+        if (w.result.isSetOrExpired()) return true;
+        try {
+            WorkOrderResDto order = tryAssign(w.equipmentCode, w.assign);
+            if (order == null) return false;
+            w.result.setResult(ResponseEntity.ok(order));
+            log.info("long-poll 작업 할당 : {} → {}", order.getWorkOrderNumber(), w.equipmentCode);
+        } catch (Exception e) {
+            log.warn("long-poll 작업 할당 실패 ({}) : {}", w.equipmentCode, e.getMessage());
+            w.result.setErrorResult(e);
+        }
+        return true;
+    }
+}
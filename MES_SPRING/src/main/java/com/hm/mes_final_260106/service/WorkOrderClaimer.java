@@ -0,0 +1,37 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.repository.WorkOrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// 미할당 작업지시 선점 : 조건부 UPDATE 1문으로 가장 오래된 1건을 설비 1대에만 준다
+// 기존에는 조회 → assignedMachineId 설정 → save 라서, 같은 순간 폴링한 설비 둘이 같은 작업지시를 가져갈 수 있었다.
+//  - 후보를 따로 SELECT 하지 않는다 : REPEATABLE READ 스냅샷으로 고른 후보는 이미 다른 설비 것일 수 있다
+//  - UPDATE ... ORDER BY id LIMIT 1 은 최신 커밋 행을 잠그며 고르므로, 부딪힌 설비는 기다렸다가 다음 행을 받는다
+//    → 헛 UPDATE / 재시도 없이 오래된 순서가 그대로 지켜진다
+// 호출 측 트랜잭션 안에서 실행한다 (선점 UPDATE 는 그 트랜잭션 커밋 시 확정, 갭 락을 피하려 READ COMMITTED 권장)
+@Component
+public class WorkOrderClaimer {
+
+    // 선점 대상 저장소 (운영 : work_order 테이블, 테스트 : 메모리)
+    interface ClaimStore {
+        // 진행 중 + 미할당 중 가장 오래된 작업지시에 설비를 지정하고 그 id (없으면 null), 원자적으로
+        Long claimOldest(String equipmentCode);
+    }
+
+    private final ClaimStore store;
+
+    @Autowired
+    public WorkOrderClaimer(WorkOrderRepository orderRepo) {
+        this(equipmentCode -> orderRepo.claimOldestUnassigned(equipmentCode) == 1 ? orderRepo.lastClaimedId() : null);
+    }
+
+    WorkOrderClaimer(ClaimStore store) {
+        this.store = store;
+    }
+
+    // 선점한 작업지시 id (줄 작업이 없으면 null)
+    public Long claim(String equipmentCode) {
+        return store.claimOldest(equipmentCode);
+    }
+}
@@ -0,0 +1,350 @@
+package com.hm.mes_final_260106.gateway;
+
+import com.hm.mes_final_260106.dto.WorkOrderResDto;
+import com.hm.mes_final_260106.dto.equipment.EquipmentMetricUpdateReqDto;
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hm.mes_final_260106.gateway.L1Protocol.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// L1 프로토콜 적합성 : MES_MACHINE(Program.cs) 이 소켓에 쓴 바이트(콘솔 [ByteLog] 출력) 픽스처를 게이트웨이에 넣어 디코딩 결과를 확인
+// 조립 규칙은 MachineSimulator.HandleProductionResult 기준. 잘린 / 잘못된 프레임처럼 설비가 내지 않는 입력만 테스트에서 만든다.
+class L1ProtocolConformanceTest {
+
+	private static final String EQUIPMENT = "LINE-01-M01";
+	private static final String BYTE_LOG = "[ByteLog] ";
+
+	// BinaryWriter (little-endian) 대응
+	private static final class Writer {
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		Writer u8(int v) {
+			out.write(v);
+			return this;
+		}
+
+		Writer i16(int v) {
+			out.write(v & 0xFF);
+			out.write((v >> 8) & 0xFF);
+			return this;
+		}
+
+		Writer i32(int v) {
+			return raw(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(v).array());
+		}
+
+		Writer f64(double v) {
+			return raw(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putDouble(v).array());
+		}
+
+		// WritePacketString : int16 길이 + UTF-8
+		Writer str(String s) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			return i16(bytes.length).raw(bytes);
+		}
+
+		Writer raw(byte[] bytes) {
+			out.write(bytes, 0, bytes.length);
+			return this;
+		}
+
+		byte[] bytes() {
+			return out.toByteArray();
+		}
+	}
+
+	// SendDtoPacket : SOH, SingleData, int16 본문 길이, DtoType, 본문
+	private static byte[] single(int dtoType, byte[] body) {
+		return new Writer().u8(SOH).u8(MSG_SINGLE_DATA).i16(body.length).u8(dtoType).raw(body).bytes();
+	}
+
+	// SendDtoArrayPacket : SOH, ArrayData, { int16 크기, DtoType, 본문 } ..., 0x00 0x00
+	private static byte[] array(int dtoType, byte[]... bodies) {
+		Writer w = new Writer().u8(SOH).u8(MSG_ARRAY_DATA);
+		for (byte[] body : bodies) w.i16(body.length).u8(dtoType).raw(body);
+		return w.i16(0).bytes();
+	}
+
+	private static byte[] productionEnd() {
+		return new byte[]{SOH, MSG_PRODUCTION_END};
+	}
+
+	private static byte[] value(int v) {
+		return new Writer().u8(SOH).u8(MSG_VALUE).i16(v).bytes();
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		Writer w = new Writer();
+		for (byte[] part : parts) w.raw(part);
+		return w.bytes();
+	}
+
+	private static final class Captured implements L1Session.Handler {
+		final List<ProductionLogCreateReqDto> reports = new ArrayList<>();
+		final List<EquipmentMetricUpdateReqDto> metrics = new ArrayList<>();
+
+		@Override
+		public void report(L1Session session, ProductionLogCreateReqDto dto) {
+			reports.add(dto);
+		}
+
+		@Override
+		public void metric(L1Session session, EquipmentMetricUpdateReqDto dto) {
+			metrics.add(dto);
+		}
+	}
+
+	private static WorkOrderResDto order(String number) {
+		return WorkOrderResDto.builder().workOrderNumber(number).productCode("PRD-CHIP-01").build();
+	}
+
+	private static L1Session session(Captured captured) {
+		return new L1Session(EQUIPMENT, null, captured);
+	}
+
+	// =========================
+	// 설비 출력 픽스처 (src/test/resources/l1/mes-machine-cycle.log)
+	// =========================
+	// Program.cs 콘솔 출력의 [ByteLog] 줄 = 설비가 소켓에 쓴 패킷 1개
+	private static List<byte[]> machinePackets() {
+		try (InputStream in = L1ProtocolConformanceTest.class.getResourceAsStream("/l1/mes-machine-cycle.log")) {
+			assertNotNull(in, "l1/mes-machine-cycle.log 픽스처가 없습니다.");
+			List<byte[]> packets = new ArrayList<>();
+			for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\\R")) {
+				if (!line.startsWith(BYTE_LOG)) continue;
+				String[] hex = line.substring(BYTE_LOG.length()).trim().split(" ");
+				byte[] packet = new byte[hex.length];
+				for (int i = 0; i < hex.length; i++) packet[i] = (byte) Integer.parseInt(hex[i], 16);
+				packets.add(packet);
+			}
+			return packets;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// 작업 지시 수신부터 생산 종료, 다음 대기 상태 패킷까지 1사이클 (소켓에 나간 순서 그대로)
+	private static byte[] cycle() {
+		return concat(machinePackets().toArray(byte[][]::new));
+	}
+
+	private static void assertCycle(ProductionLogCreateReqDto dto) {
+		assertEquals("WO-1", dto.getWorkOrderNumber());
+		assertEquals(EQUIPMENT, dto.getEquipmentCode());
+		assertEquals(1, dto.getResultQty());
+		assertEquals("DONE", dto.getStatus());
+		assertEquals("PRODUCTION", dto.getCategory());
+		assertEquals("INFO", dto.getLevel());
+		assertEquals(LocalDate.now(), dto.getResultDate());
+		assertNotNull(dto.getReportSeq());
+
+		assertEquals(30127, dto.getDicingDto().getSpindleSpeed());
+		assertEquals(5.12, dto.getDicingDto().getFeedRate());
+		assertEquals(12.05, dto.getDicingDto().getBladeWear());
+		assertEquals(2.53, dto.getDicingDto().getCoolantFlow());
+		assertEquals(50, dto.getDicingInspectionDto().getSampleSize());
+		assertEquals("PRD-CHIP-01-DIC", dto.getDicingInspectionDto().getInspectionCriteria());
+		assertEquals(97.4, dto.getDicingInspectionDto().getChippingPassRatio());
+		assertEquals(97.1, dto.getDicingInspectionDto().getOverallPassRatio());
+		assertEquals(0.052, dto.getDieBondingDto().getPlacementAccuracy());
+		assertEquals(151.3, dto.getDieBondingDto().getCuringTemp());
+		assertEquals("PRD-CHIP-01-DIE", dto.getDieBondingInspectionDto().getInspectionCriteria());
+		assertEquals(94.6, dto.getDieBondingInspectionDto().getVoidPassRatio());
+		assertEquals(253.6, dto.getWireBondingDto().getBondingTemp());
+		assertEquals(0.0253, dto.getWireBondingDto().getBallDiameter());
+		assertEquals(98.2, dto.getWireBondingInspectionDto().getXrayPassRatio());
+		assertEquals(96.9, dto.getWireBondingInspectionDto().getOverallPassRatio());
+		assertEquals(174.2, dto.getMoldingDto().getMoldTemp());
+		assertEquals(91.3, dto.getMoldingDto().getClampForce());
+		assertEquals("PRD-CHIP-01-MOL", dto.getMoldingInspectionDto().getInspectionCriteria());
+		assertEquals(95.7, dto.getMoldingInspectionDto().getOverallPassRatio());
+
+		// 최종검사 배열 : Item / FinalInspection 이 다이마다 교대로 온다
+		assertEquals(152, dto.getItemDtos().size());
+		assertEquals(152, dto.getFinalInspectionDtos().size());
+		assertEquals("2175288b-3a30-47fa-8d8a-7fcf644a572d", dto.getItemDtos().get(0).getSerialNumber());
+		assertEquals("eecf9557-30f4-4caa-93d8-b1241000a921", dto.getItemDtos().get(151).getSerialNumber());
+		assertEquals(4, dto.getItemDtos().stream().filter(i -> "Fail".equals(i.getInspectionResult())).count());
+		assertEquals("Fail", dto.getItemDtos().get(17).getInspectionResult());
+		assertEquals("Fail", dto.getFinalInspectionDtos().get(17).getFinalPass());
+		assertEquals("Pass", dto.getFinalInspectionDtos().get(0).getFinalPass());
+
+		List<String> lots = new ArrayList<>();
+		for (int i = 1; i <= 8; i++) lots.add(String.format("LOT-20260122-%02d", i));
+		assertEquals(lots, dto.getInputLots());
+	}
+
+	@Test
+	void workOrderCommandMatchesCollectorBytes() {
+		// SendWorkOrderToDevice : 0x01, 0x31, int16 길이, 제품 코드 (Program.cs 는 4바이트를 읽고 길이만큼 더 읽는다)
+		byte[] expected = {0x01, 0x31, 0x0B, 0x00, 'P', 'R', 'D', '-', 'C', 'H', 'I', 'P', '-', '0', '1'};
+		ByteBuffer command = workOrderCommand("PRD-CHIP-01");
+		byte[] actual = new byte[command.remaining()];
+		command.get(actual);
+		assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	void fullCycleAssemblesReport() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		session.feed(ByteBuffer.wrap(cycle()));
+
+		assertEquals(1, captured.reports.size());
+		assertCycle(captured.reports.get(0));
+		assertEquals(19, captured.metrics.size());
+		// 상태 패킷 19 + 공정 / 검사 8 + 배열 2 + 종료 1
+		assertEquals(30, session.getDecoder().getFrames());
+		assertEquals(0, session.getDecoder().getSkippedBytes());
+		assertEquals(0, session.getDecoder().getDroppedFrames());
+	}
+
+	@Test
+	void fragmentedDeliveryGivesSameResult() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		// 논블로킹 읽기가 1바이트씩 끊겨 들어오는 최악의 경우
+		for (byte b : cycle()) session.feed(ByteBuffer.wrap(new byte[]{b}));
+
+		assertEquals(1, captured.reports.size());
+		assertCycle(captured.reports.get(0));
+	}
+
+	@Test
+	void reportSeqIncreasesAndAccumulatorResets() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		session.feed(ByteBuffer.wrap(cycle()));
+		session.feed(ByteBuffer.wrap(concat(array(DTO_ITEM, new Writer().str("SN-0003").str("PASS").bytes()), productionEnd())));
+
+		assertEquals(2, captured.reports.size());
+		ProductionLogCreateReqDto second = captured.reports.get(1);
+		assertEquals(captured.reports.get(0).getReportSeq() + 1, second.getReportSeq());
+		assertEquals(1, second.getItemDtos().size());
+		assertNull(second.getDicingDto());
+		assertTrue(second.getInputLots().isEmpty());
+	}
+
+	@Test
+	void productionEndWithoutWorkOrderKeepsAccumulating() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+
+		session.feed(ByteBuffer.wrap(cycle()));
+		assertTrue(captured.reports.isEmpty());
+
+		// 작업 지시를 받은 뒤의 종료 프레임에서 모아 둔 데이터까지 보고
+		session.sendWorkOrder(order("WO-1"));
+		session.feed(ByteBuffer.wrap(productionEnd()));
+		assertEquals(1, captured.reports.size());
+		assertCycle(captured.reports.get(0));
+	}
+
+	@Test
+	void completedWorkOrderStopsReporting() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		session.completeWorkOrder("WO-OTHER");
+		assertNotNull(session.getCurrentWorkOrder());
+		session.completeWorkOrder("WO-1");
+		assertNull(session.getCurrentWorkOrder());
+
+		session.feed(ByteBuffer.wrap(productionEnd()));
+		assertTrue(captured.reports.isEmpty());
+	}
+
+	@Test
+	void equipmentMetricUsesConfiguredCode() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+
+		// 설비는 코드 자리에 빈 문자열을 보낸다 → 게이트웨이 설정의 설비 코드로 채운다
+		for (byte[] packet : machinePackets()) {
+			if (packet[1] == MSG_SINGLE_DATA && packet[4] == DTO_EQUIPMENT_METRIC) session.feed(ByteBuffer.wrap(packet));
+		}
+
+		assertEquals(19, captured.metrics.size());
+		for (EquipmentMetricUpdateReqDto dto : captured.metrics) {
+			assertEquals(EQUIPMENT, dto.getEquipmentCode());
+			assertEquals(64.0, dto.getTemperature());
+		}
+		// 진행도 = Math.Round(Step / 16 * 100) (은행가 반올림 : 12.5 → 12), 사이클 종료 후 0
+		assertEquals(List.of(0, 0, 6, 12, 19, 25, 31, 38, 44, 50, 56, 62, 69, 75, 81, 88, 94, 100, 0),
+				captured.metrics.stream().map(EquipmentMetricUpdateReqDto::getProgress).toList());
+		// 첫 사이클 전에는 평균 사이클 시간이 없어 0, 끝난 뒤 3600 / 15초 = 240
+		assertEquals(0, captured.metrics.get(0).getUph());
+		assertEquals(240, captured.metrics.get(18).getUph());
+	}
+
+	@Test
+	void garbageAndMalformedFramesAreSkipped() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		byte[] dicing = new Writer().i32(7).f64(1).f64(2).f64(3).bytes();
+		byte[] stream = concat(
+				new byte[]{0x7F, 0x00, 0x55},                               // SOH 아닌 잡음
+				value(3),                                                   // Value 프레임 (무시)
+				new Writer().u8(SOH).u8(MSG_SINGLE_DATA).i16(-1).bytes(),   // 음수 크기 → 프레임 버림
+				new Writer().u8(SOH).u8(0x7E).i16(0).bytes(),               // 알 수 없는 MsgType
+				single(0x30, new byte[0]),                                  // Sleep (본문 없음)
+				single(DTO_DICING, dicing),
+				productionEnd());
+		session.feed(ByteBuffer.wrap(stream));
+
+		L1FrameDecoder decoder = session.getDecoder();
+		assertEquals(3, decoder.getSkippedBytes());
+		assertEquals(2, decoder.getDroppedFrames());
+		assertEquals(1, captured.reports.size());
+		assertEquals(7, captured.reports.get(0).getDicingDto().getSpindleSpeed());
+	}
+
+	@Test
+	void truncatedBodyDoesNotBreakStream() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		// 길이는 맞지만 필드가 모자란 본문 → 해당 DTO 만 버리고 다음 프레임은 정상 처리
+		byte[] shortBody = new Writer().i32(1).bytes();
+		byte[] dicing = new Writer().i32(9).f64(1).f64(2).f64(3).bytes();
+		session.feed(ByteBuffer.wrap(concat(single(DTO_DICING, shortBody), single(DTO_DICING, dicing), productionEnd())));
+
+		assertEquals(1, captured.reports.size());
+		assertEquals(9, captured.reports.get(0).getDicingDto().getSpindleSpeed());
+	}
+
+	@Test
+	void emptyStringLengthDecodesAsNull() {
+		Captured captured = new Captured();
+		L1Session session = session(captured);
+		session.sendWorkOrder(order("WO-1"));
+
+		byte[] item = new Writer().i16(0).str("PASS").bytes();
+		session.feed(ByteBuffer.wrap(concat(array(DTO_ITEM, item), productionEnd())));
+
+		assertNull(captured.reports.get(0).getItemDtos().get(0).getSerialNumber());
+		assertEquals("PASS", captured.reports.get(0).getItemDtos().get(0).getInspectionResult());
+	}
+}
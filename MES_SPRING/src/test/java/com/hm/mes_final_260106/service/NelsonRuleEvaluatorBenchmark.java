@@ -0,0 +1,84 @@
+package com.hm.mes_final_260106.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Nelson 규칙 판정 성능 비교 (기본 test 에서 제외, gradle perfTest 로 실행)
+//  - 증분   : 항목당 판정기 1개, 표본마다 evaluate 1번 (SpcEngine 방식)
+//  - 전체   : 표본마다 새 판정기로 최근 window 표본을 처음부터 다시 판정 (창 재조회 방식)
+// 두 방식의 표본별 결과가 같은지 먼저 확인한 뒤, 여러 번 측정한 최솟값으로 비교한다
+@Tag("perf")
+class NelsonRuleEvaluatorBenchmark {
+
+	private static final int WINDOW = 500;      // mes.spc.window-size 기본값
+	private static final int SAMPLES = 20_000;
+	private static final int ROUNDS = 7;
+
+	private static double[] gaussian(int n) {
+		double[] xs = new double[n];
+		Random random = new Random(42);
+		for (int i = 0; i < n; i++) xs[i] = random.nextGaussian();
+		return xs;
+	}
+
+	// 표본별 새 위반 비트
+	private static int[] incremental(double[] xs) {
+		int[] fired = new int[xs.length];
+		NelsonRuleEvaluator rules = new NelsonRuleEvaluator();
+		for (int i = 0; i < xs.length; i++) fired[i] = rules.evaluate(xs[i], 0.0, 1.0);
+		return fired;
+	}
+
+	private static int[] fullWindow(double[] xs) {
+		int[] fired = new int[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			NelsonRuleEvaluator rules = new NelsonRuleEvaluator();
+			int last = 0;
+			for (int j = Math.max(0, i - WINDOW + 1); j <= i; j++) last = rules.evaluate(xs[j], 0.0, 1.0);
+			fired[i] = last;
+		}
+		return fired;
+	}
+
+	private interface Run {
+		int[] apply(double[] xs);
+	}
+
+	// ROUNDS 번 중 최소 소요 시간 (ns)
+	private static long best(Run run, double[] xs) {
+		long best = Long.MAX_VALUE;
+		long sink = 0;
+		for (int r = 0; r < ROUNDS; r++) {
+			long start = System.nanoTime();
+			int[] fired = run.apply(xs);
+			best = Math.min(best, System.nanoTime() - start);
+			sink += fired[fired.length - 1];
+		}
+		if (sink == Long.MIN_VALUE) throw new AssertionError();
+		return best;
+	}
+
+	@Test
+	void incrementalVersusFullWindowReevaluation() {
+		double[] xs = gaussian(SAMPLES);
+
+		// 창이 가장 긴 규칙(15점)보다 길면 두 방식의 판정 결과는 같아야 한다
+		int[] expected = fullWindow(xs);
+		int[] actual = incremental(xs);
+		for (int i = 0; i < SAMPLES; i++) assertEquals(expected[i], actual[i], "sample " + i);
+
+		long incrementalNs = best(NelsonRuleEvaluatorBenchmark::incremental, xs);
+		long fullNs = best(NelsonRuleEvaluatorBenchmark::fullWindow, xs);
+		double speedup = (double) fullNs / incrementalNs;
+
+		System.out.printf("Nelson 규칙 판정 (%,d 표본, window %d) : 증분 %.1f ns/표본, 전체 재판정 %.1f ns/표본, %.0f배%n",
+				SAMPLES, WINDOW, (double) incrementalNs / SAMPLES, (double) fullNs / SAMPLES, speedup);
+		// 전체 재판정은 표본당 window 번 판정하므로 증분이 수십 배 이상 빨라야 한다
+		assertTrue(speedup > 20, "speedup=" + speedup);
+	}
+}
@@ -0,0 +1,95 @@
+package com.hm.mes_final_260106.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Nelson 규칙 증분 판정 (중심선 0, σ 1 기준)
+class NelsonRuleEvaluatorTest {
+
+	// 마지막 표본에서 새로 위반된 규칙 비트
+	private static int feed(double... xs) {
+		NelsonRuleEvaluator rules = new NelsonRuleEvaluator();
+		int fired = 0;
+		for (double x : xs) {
+			fired = rules.evaluate(x, 0.0, 1.0);
+		}
+		return fired;
+	}
+
+	private static boolean has(int fired, int rule) {
+		return (fired & (1 << (rule - 1))) != 0;
+	}
+
+	private static double[] repeat(int n, double... pattern) {
+		double[] xs = new double[n];
+		for (int i = 0; i < n; i++) xs[i] = pattern[i % pattern.length];
+		return xs;
+	}
+
+	@Test
+	void rule1_beyond3Sigma() {
+		assertTrue(has(feed(0.2, 3.5), 1));
+		assertTrue(has(feed(0.2, -3.5), 1));
+		assertEquals(0, feed(0.2, 2.9));
+	}
+
+	@Test
+	void rule2_nineOnSameSide() {
+		assertTrue(has(feed(repeat(9, 0.5)), 2));
+		assertEquals(0, feed(repeat(8, 0.5)));
+		// 위반이 이어지는 동안은 다시 알리지 않는다
+		assertEquals(0, feed(repeat(10, 0.5)));
+	}
+
+	@Test
+	void rule3_sixTrending() {
+		assertTrue(has(feed(0.1, 0.2, 0.3, 0.4, 0.5, 0.6), 3));
+		assertTrue(has(feed(0.6, 0.5, 0.4, 0.3, 0.2, 0.1), 3));
+		assertEquals(0, feed(0.1, 0.2, 0.3, 0.4, 0.5));
+	}
+
+	@Test
+	void rule4_fourteenAlternating() {
+		assertTrue(has(feed(repeat(14, 0.2, -0.2)), 4));
+		assertEquals(0, feed(repeat(13, 0.2, -0.2)));
+	}
+
+	@Test
+	void rule5_twoOfThreeBeyond2Sigma() {
+		assertTrue(has(feed(2.5, 0.0, 2.5), 5));
+		assertEquals(0, feed(2.5, 0.0, -2.5));
+	}
+
+	@Test
+	void rule6_fourOfFiveBeyond1Sigma() {
+		assertTrue(has(feed(1.5, 1.5, 0.0, 1.5, 1.5), 6));
+		assertEquals(0, feed(1.5, 1.5, 0.0, 1.5, -1.5));
+	}
+
+	@Test
+	void rule7_fifteenWithin1Sigma() {
+		double[] xs = repeat(15, 0.5, 0.5, -0.5, -0.5);
+		assertTrue(has(feed(xs), 7));
+		assertEquals(0, feed(repeat(14, 0.5, 0.5, -0.5, -0.5)));
+	}
+
+	@Test
+	void rule8_eightBeyond1SigmaEitherSide() {
+		assertTrue(has(feed(repeat(8, 1.5, -1.5)), 8));
+		assertEquals(0, feed(repeat(7, 1.5, -1.5)));
+	}
+
+	@Test
+	void rule8_requiresPointsOnBothSides() {
+		// 한쪽으로만 8점 연속 1σ 밖 → 규칙 2 / 6 대상이지 규칙 8 은 아니다
+		assertFalse(has(feed(repeat(8, 1.5)), 8));
+		assertFalse(has(feed(repeat(8, -1.5)), 8));
+		// 아래쪽 1점은 최근 8점 밖으로 밀려났으므로 여전히 한쪽
+		assertFalse(has(feed(-1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5), 8));
+		// 최근 8점 안에 아래쪽이 1점이라도 있으면 위반
+		assertTrue(has(feed(1.5, 1.5, 1.5, 1.5, 1.5, 1.5, 1.5, -1.5), 8));
+	}
+}
@@ -0,0 +1,179 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.dto.productionLog.ProductionLogCreateReqDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 실적 저널 복구 : 재기동 시 체크포인트 없는 보고만 재생, 세그먼트 정리 / 끊긴 기록에도 커밋된 보고는 다시 나오지 않는다
+class ProductionJournalRecoveryTest {
+
+	private static final int SEGMENT_SIZE = 4096;
+	private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+	@TempDir
+	Path dir;
+
+	private ProductionJournal open() throws IOException {
+		ProductionJournal journal = new ProductionJournal(MAPPER, dir.toString(), SEGMENT_SIZE, false, false);
+		journal.open();
+		return journal;
+	}
+
+	private static ProductionLogCreateReqDto report(long n) {
+		return ProductionLogCreateReqDto.builder()
+				.workOrderNumber("WO-" + n)
+				.equipmentCode("LINE-01-M01")
+				.reportSeq(n)
+				.build();
+	}
+
+	private static List<String> orders(List<ProductionJournal.Entry> entries) {
+		return entries.stream().map(e -> e.dto().getWorkOrderNumber()).toList();
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(p -> p.getFileName().toString().endsWith(".journal")).sorted().toList();
+		}
+	}
+
+	private Path lastSegment() throws IOException {
+		List<Path> segments = segments();
+		return segments.get(segments.size() - 1);
+	}
+
+	// 세그먼트가 넘어갈 때까지 바로 체크포인트되는 보고를 채운다
+	private Path fillUntilRoll(ProductionJournal journal, long from) throws IOException {
+		Path before = lastSegment();
+		for (long n = from; lastSegment().equals(before); n++) {
+			journal.checkpoint(journal.append(report(n)));
+		}
+		return lastSegment();
+	}
+
+	@Test
+	void onlyUncheckpointedReportsAreRecovered() throws IOException {
+		ProductionJournal journal = open();
+		journal.append(report(1));
+		long second = journal.append(report(2));
+		journal.append(report(3));
+		journal.checkpoint(second);
+
+		ProductionJournal reopened = open();
+		assertEquals(List.of("WO-1", "WO-3"), orders(reopened.takeRecovered()));
+		assertEquals(2, reopened.pendingCount());
+		// 미커밋 보고는 새 세그먼트로 옮겨졌으므로 지난 세그먼트는 남지 않는다
+		assertEquals(1, segments().size());
+	}
+
+	@Test
+	void checkpointOfOlderSegmentSurvivesReleaseOfNewerSegment() throws IOException {
+		ProductionJournal journal = open();
+		long x = journal.append(report(1));
+		journal.append(report(2));
+
+		// 세그먼트 2 로 넘어간 뒤 세그먼트 1 의 보고를 체크포인트
+		fillUntilRoll(journal, 100);
+		journal.checkpoint(x);
+
+		// 세그먼트 2 는 미커밋 보고가 없으므로 다음 세그먼트로 넘어갈 때 지워진다
+		Path second = lastSegment();
+		fillUntilRoll(journal, 1000);
+		assertFalse(Files.exists(second));
+
+		ProductionJournal reopened = open();
+		assertEquals(List.of("WO-2"), orders(reopened.takeRecovered()));
+	}
+
+	@Test
+	void recoveredReportsCheckpointedAfterRestartAreNotReplayedAgain() throws IOException {
+		ProductionJournal journal = open();
+		journal.append(report(1));
+		journal.append(report(2));
+
+		ProductionJournal reopened = open();
+		List<ProductionJournal.Entry> recovered = reopened.takeRecovered();
+		assertEquals(2, recovered.size());
+		recovered.forEach(e -> reopened.checkpoint(e.seq()));
+		assertEquals(0, reopened.pendingCount());
+
+		assertTrue(open().takeRecovered().isEmpty());
+	}
+
+	@Test
+	void tornRecordIsDroppedAndLaterAppendsRecoverNormally() throws IOException {
+		ProductionJournal journal = open();
+		journal.append(report(1));
+		journal.append(report(2));
+
+		// 두 번째 레코드 본문이 반쯤 쓰인 상태 (CRC 불일치)
+		Path segment = lastSegment();
+		int secondStart = recordEnd(segment, 0);
+		corrupt(segment, secondStart + 13);
+
+		ProductionJournal reopened = open();
+		assertEquals(List.of("WO-1"), orders(reopened.takeRecovered()));
+		reopened.append(report(3));
+
+		assertEquals(List.of("WO-1", "WO-3"), orders(open().takeRecovered()));
+	}
+
+	@Test
+	void recordWithoutLengthIsTreatedAsEndOfJournal() throws IOException {
+		ProductionJournal journal = open();
+		long first = journal.append(report(1));
+		journal.append(report(2));
+		journal.append(report(3));
+		journal.checkpoint(first);
+
+		// 세 번째 레코드를 쓰다 죽음 : 길이는 마지막에 기록하므로 0 으로 남아 있다
+		Path segment = lastSegment();
+		int third = recordEnd(segment, recordEnd(segment, 0));
+		writeInt(segment, third, 0);
+
+		// 체크포인트(첫 번째)는 세 번째 뒤에 있으므로 함께 사라진다 → 커밋 전 보고로 재생
+		assertEquals(List.of("WO-1", "WO-2"), orders(open().takeRecovered()));
+	}
+
+	// ----- 세그먼트 파일 조작 -----
+
+	// [int length][byte type][long seq][body][int crc] : length < 0 이면 본문 없음
+	private static int recordEnd(Path segment, int start) throws IOException {
+		int length = readInt(segment, start);
+		return start + 4 + 1 + 8 + Math.max(length, 0) + 4;
+	}
+
+	private static int readInt(Path segment, int position) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocate(4);
+			channel.read(buf, position);
+			return buf.getInt(0);
+		}
+	}
+
+	private static void writeInt(Path segment, int position, int value) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4).putInt(0, value), position);
+		}
+	}
+
+	private static void corrupt(Path segment, int position) throws IOException {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(1);
+			channel.read(b, position);
+			channel.write(ByteBuffer.wrap(new byte[]{(byte) (b.get(0) ^ 0xFF)}), position);
+		}
+	}
+}
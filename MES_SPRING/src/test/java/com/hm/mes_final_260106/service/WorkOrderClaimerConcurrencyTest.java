@@ -0,0 +1,151 @@
+package com.hm.mes_final_260106.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 작업지시 선점 동시성 : 설비 수십 대가 같은 순간 폴링해도 작업지시 1건당 승자는 정확히 1대, 순서는 오래된 순
+// 메모리 저장소의 claimOldest 는 UPDATE ... WHERE assigned_machine_id IS NULL ORDER BY id LIMIT 1 과 같은 의미로 동작한다
+// (행 락 대신 id 순으로 putIfAbsent : 먼저 잡힌 행은 건너뛰고 다음 행)
+// 실제 MySQL 의 잠금 읽기 / LAST_INSERT_ID 동작은 WorkOrderClaimerMySqlTest 가 확인한다
+class WorkOrderClaimerConcurrencyTest {
+
+	// work_order 테이블 대역 : id 순 목록 + 할당 설비
+	private static final class MemoryStore implements WorkOrderClaimer.ClaimStore {
+		final List<Long> ids = new ArrayList<>();
+		final Map<Long, String> assigned = new ConcurrentHashMap<>();
+		final AtomicInteger attempts = new AtomicInteger();
+
+		MemoryStore(int orders) {
+			for (long id = 1; id <= orders; id++) ids.add(id);
+		}
+
+		@Override
+		public Long claimOldest(String equipmentCode) {
+			attempts.incrementAndGet();
+			for (Long id : ids) {
+				if (assigned.putIfAbsent(id, equipmentCode) == null) return id;
+			}
+			return null;
+		}
+	}
+
+	// 설비마다 1번씩, 시작 신호에 맞춰 동시에 선점 → 설비별 결과 (null = 빈손)
+	private static Map<String, Long> pollOnce(WorkOrderClaimer claimer, int pollers) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(pollers);
+		CountDownLatch ready = new CountDownLatch(pollers);
+		CountDownLatch start = new CountDownLatch(1);
+		Map<String, Long> results = new ConcurrentHashMap<>();
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int p = 0; p < pollers; p++) {
+				String code = "LINE-01-M" + String.format("%02d", p);
+				futures.add(pool.submit(() -> {
+					ready.countDown();
+					start.await();
+					Long id = claimer.claim(code);
+					if (id != null) results.put(code, id);
+					return null;
+				}));
+			}
+			ready.await();
+			start.countDown();
+			for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+		return results;
+	}
+
+	@Test
+	void dozensOfPollersGetExactlyOneWinnerPerOrder() throws Exception {
+		int pollers = 48;
+		int orders = 20;
+		for (int trial = 0; trial < 50; trial++) {
+			MemoryStore store = new MemoryStore(orders);
+			Map<String, Long> results = pollOnce(new WorkOrderClaimer(store), pollers);
+
+			// 모든 작업지시가 정확히 1대에 할당 (설비가 받은 id 가 서로 겹치지 않음)
+			assertEquals(orders, results.size(), "trial " + trial);
+			assertEquals(orders, results.values().stream().distinct().count(), "trial " + trial);
+			assertEquals(orders, store.assigned.size());
+			results.forEach((code, id) -> assertEquals(code, store.assigned.get(id)));
+		}
+	}
+
+	@Test
+	void morePollersThanOrdersLeavesTheRestEmptyHanded() throws Exception {
+		MemoryStore store = new MemoryStore(3);
+		Map<String, Long> results = pollOnce(new WorkOrderClaimer(store), 40);
+
+		assertEquals(3, results.size());
+		assertEquals(List.of(1L, 2L, 3L), results.values().stream().sorted().toList());
+	}
+
+	@Test
+	void repeatedPollingDrainsBacklogWithoutDuplicates() throws Exception {
+		int pollers = 32;
+		int orders = 500;
+		MemoryStore store = new MemoryStore(orders);
+		WorkOrderClaimer claimer = new WorkOrderClaimer(store);
+		List<Long> claimed = new CopyOnWriteArrayList<>();
+
+		ExecutorService pool = Executors.newFixedThreadPool(pollers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int p = 0; p < pollers; p++) {
+				String code = "LINE-02-M" + p;
+				futures.add(pool.submit(() -> {
+					start.await();
+					// 작업 1건 완료 후 다시 폴링하는 설비
+					Long id;
+					while ((id = claimer.claim(code)) != null) claimed.add(id);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(orders, claimed.size());
+		assertEquals(orders, claimed.stream().distinct().count());
+		// 재시도 없음 : 선점 1건당 UPDATE 1번 + 설비마다 마지막 빈손 1번
+		assertEquals(orders + pollers, store.attempts.get());
+	}
+
+	@Test
+	void sequentialPollsClaimOldestFirst() {
+		MemoryStore store = new MemoryStore(5);
+		store.assigned.put(2L, "LINE-09-M01");   // 이미 다른 설비가 가진 작업지시는 건너뛴다
+		WorkOrderClaimer claimer = new WorkOrderClaimer(store);
+
+		// 설비 코드와 무관하게 항상 남은 것 중 가장 오래된 작업지시
+		assertEquals(1L, claimer.claim("LINE-01-M07"));
+		assertEquals(3L, claimer.claim("LINE-01-M03"));
+		assertEquals(4L, claimer.claim("LINE-01-M05"));
+		assertEquals(5L, claimer.claim("LINE-01-M01"));
+		assertNull(claimer.claim("LINE-01-M02"));
+	}
+
+	@Test
+	void noClaimableOrdersReturnsNullAfterOneUpdate() {
+		MemoryStore store = new MemoryStore(0);
+		assertNull(new WorkOrderClaimer(store).claim("LINE-01-M01"));
+		assertEquals(1, store.attempts.get());
+	}
+}
@@ -0,0 +1,243 @@
+package com.hm.mes_final_260106.service;
+
+import com.hm.mes_final_260106.constant.BomStatus;
+import com.hm.mes_final_260106.entity.Bom;
+import com.hm.mes_final_260106.entity.Product;
+import com.hm.mes_final_260106.entity.WorkOrder;
+import com.hm.mes_final_260106.repository.BomRepository;
+import com.hm.mes_final_260106.repository.ProductRepository;
+import com.hm.mes_final_260106.repository.WorkOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 작업지시 선점 동시성 (실제 MySQL) : 운영 네이티브 쿼리 claimOldestUnassigned + lastClaimedId 를 그대로 실행한다
+// 메모리 대역(WorkOrderClaimerConcurrencyTest)이 확인하지 못하는 MySQL 의 잠금 읽기 / LAST_INSERT_ID 동작을 확인한다
+//  - 테스트 전용 스키마를 가리키는 MES_TEST_MYSQL_URL 이 있을 때만 실행 (ddl-auto=create-drop 이므로 개발 DB 를 가리키지 말 것)
+//    예) MES_TEST_MYSQL_URL=jdbc:mysql://localhost:3306/mes_claim_test?createDatabaseIfNotExist=true&useSSL=false&allowPublicKeyRetrieval=true
+//  - 계정은 MES_TEST_MYSQL_USER / MES_TEST_MYSQL_PASSWORD (기본 : application.properties 와 같은 root / 1234)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "MES_TEST_MYSQL_URL", matches = ".+")
+class WorkOrderClaimerMySqlTest {
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> System.getenv("MES_TEST_MYSQL_URL"));
+		registry.add("spring.datasource.username", () -> Objects.requireNonNullElse(System.getenv("MES_TEST_MYSQL_USER"), "root"));
+		registry.add("spring.datasource.password", () -> Objects.requireNonNullElse(System.getenv("MES_TEST_MYSQL_PASSWORD"), "1234"));
+		registry.add("spring.datasource.hikari.maximum-pool-size", () -> "40");
+	}
+
+	@Autowired
+	private WorkOrderRepository orderRepo;
+
+	@Autowired
+	private BomRepository bomRepo;
+
+	@Autowired
+	private ProductRepository productRepo;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager txManager;
+
+	private Bom bom;
+
+	// 선점 1건의 호출 기록 : UPDATE / LAST_INSERT_ID 를 실행한 연결과 트랜잭션
+	private record Call(String method, long connectionId, String txName, boolean txActive) {}
+
+	private final Map<Thread, List<Call>> calls = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		orderRepo.deleteAll();
+		bomRepo.deleteAll();
+		productRepo.deleteAll();
+		Product product = productRepo.save(Product.builder().code("CLAIM-TEST").name("선점 테스트 제품").build());
+		bom = bomRepo.save(Bom.builder().product(product).revision(1).status(BomStatus.ACTIVE).build());
+		calls.clear();
+	}
+
+	// 운영과 같은 트랜잭션 경계 (ProductionService.assignWorkToMachine : READ COMMITTED)
+	private TransactionTemplate claimTx() {
+		TransactionTemplate tx = new TransactionTemplate(txManager);
+		tx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+		return tx;
+	}
+
+	// 운영 생성자(WorkOrderClaimer(WorkOrderRepository))에 넘길 저장소 : 실제 저장소를 호출하면서 연결 / 트랜잭션을 기록
+	private WorkOrderRepository recordingRepo() {
+		return (WorkOrderRepository) Proxy.newProxyInstance(
+				WorkOrderRepository.class.getClassLoader(),
+				new Class<?>[]{WorkOrderRepository.class},
+				(proxy, method, args) -> {
+					Object result;
+					try {
+						result = method.invoke(orderRepo, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					if (method.getName().equals("claimOldestUnassigned") || method.getName().equals("lastClaimedId")) {
+						calls.computeIfAbsent(Thread.currentThread(), t -> new ArrayList<>()).add(new Call(
+								method.getName(),
+								jdbcTemplate.queryForObject("SELECT CONNECTION_ID()", Long.class),
+								TransactionSynchronizationManager.getCurrentTransactionName(),
+								TransactionSynchronizationManager.isActualTransactionActive()));
+					}
+					return result;
+				});
+	}
+
+	private List<Long> createOrders(int count) {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			WorkOrder order = orderRepo.save(WorkOrder.builder()
+					.workOrderNumber("WO-CLAIM-" + i)
+					.bom(bom)
+					.targetQty(10)
+					.status("IN_PROGRESS")
+					.build());
+			ids.add(order.getId());
+		}
+		return ids;
+	}
+
+	@Test
+	void concurrentPollersEachGetADistinctOrderOldestFirst() throws Exception {
+		int pollers = 24;
+		int orders = 10;
+		List<Long> ids = createOrders(orders);
+		WorkOrderClaimer claimer = new WorkOrderClaimer(recordingRepo());
+
+		ExecutorService pool = Executors.newFixedThreadPool(pollers);
+		CountDownLatch ready = new CountDownLatch(pollers);
+		CountDownLatch start = new CountDownLatch(1);
+		Map<String, Long> results = new ConcurrentHashMap<>();
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int p = 0; p < pollers; p++) {
+				String code = "LINE-01-M" + String.format("%02d", p);
+				futures.add(pool.submit(() -> {
+					ready.countDown();
+					start.await();
+					Long id = claimTx().execute(status -> {
+						Long claimed = claimer.claim(code);
+						assertLastInsertIdOnSameConnection();
+						return claimed;
+					});
+					if (id != null) results.put(code, id);
+					return null;
+				}));
+			}
+			ready.await();
+			start.countDown();
+			for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		// 작업지시마다 정확히 1대, 가장 오래된 작업지시부터 전부 나감
+		assertEquals(orders, results.size());
+		assertEquals(ids, results.values().stream().sorted().toList());
+		// 설비가 받은 id 가 DB 에서도 그 설비에 할당되어 있음 (LAST_INSERT_ID 가 다른 연결 값을 읽었다면 어긋난다)
+		results.forEach((code, id) ->
+				assertEquals(code, orderRepo.findById(id).orElseThrow().getAssignedMachineId()));
+	}
+
+	@Test
+	void repeatedPollingDrainsBacklogWithoutDuplicates() throws Exception {
+		int pollers = 16;
+		int orders = 200;
+		createOrders(orders);
+		WorkOrderClaimer claimer = new WorkOrderClaimer(recordingRepo());
+		List<Long> claimed = new CopyOnWriteArrayList<>();
+
+		ExecutorService pool = Executors.newFixedThreadPool(pollers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int p = 0; p < pollers; p++) {
+				String code = "LINE-02-M" + p;
+				futures.add(pool.submit(() -> {
+					start.await();
+					while (true) {
+						Long id = claimTx().execute(status -> claimer.claim(code));
+						if (id == null) return null;
+						claimed.add(id);
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(orders, claimed.size());
+		assertEquals(orders, claimed.stream().distinct().count());
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM work_order WHERE assigned_machine_id IS NULL", Integer.class));
+	}
+
+	@Test
+	void noClaimableOrdersSkipsLastInsertId() {
+		WorkOrder done = orderRepo.save(WorkOrder.builder()
+				.workOrderNumber("WO-CLAIM-DONE").bom(bom).targetQty(10).status("COMPLETED").build());
+
+		Long id = claimTx().execute(status -> new WorkOrderClaimer(recordingRepo()).claim("LINE-01-M01"));
+
+		assertNull(id);
+		assertNull(orderRepo.findById(done.getId()).orElseThrow().getAssignedMachineId());
+		List<Call> mine = calls.get(Thread.currentThread());
+		assertEquals(List.of("claimOldestUnassigned"), mine.stream().map(Call::method).toList());
+	}
+
+	// 이번 트랜잭션의 선점 UPDATE 와 LAST_INSERT_ID 조회가 같은 트랜잭션, 같은 연결에서 실행됐는지
+	private void assertLastInsertIdOnSameConnection() {
+		List<Call> mine = calls.remove(Thread.currentThread());
+		assertNotNull(mine);
+		Call update = mine.get(0);
+		assertEquals("claimOldestUnassigned", update.method());
+		assertTrue(update.txActive());
+		if (mine.size() == 1) return;   // 빈손 : LAST_INSERT_ID 를 읽지 않음
+
+		assertEquals(2, mine.size());
+		Call lastId = mine.get(1);
+		assertEquals("lastClaimedId", lastId.method());
+		assertTrue(lastId.txActive());
+		assertEquals(update.txName(), lastId.txName());
+		assertEquals(update.connectionId(), lastId.connectionId());
+	}
+}